@@ -29,6 +29,7 @@ import hirs.data.service.DeviceRegister;
 import hirs.persist.CertificateManager;
 import hirs.persist.ReferenceManifestManager;
 import hirs.persist.DBManager;
+import hirs.persist.DBUnitOfWork;
 import hirs.persist.DeviceManager;
 import hirs.persist.TPM2ProvisionerState;
 import hirs.structs.converters.SimpleStructBuilder;
@@ -43,6 +44,7 @@ import hirs.structs.elements.tpm.SymmetricKey;
 import hirs.structs.elements.tpm.SymmetricKeyParams;
 import hirs.utils.HexUtils;
 import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -87,11 +89,11 @@ import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.MGF1ParameterSpec;
 import java.security.spec.RSAPublicKeySpec;
-import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -171,9 +173,34 @@ public abstract class AbstractAttestationCertificateAuthority
     private final DeviceRegister deviceRegister;
     private final DeviceManager deviceManager;
     private final DBManager<TPM2ProvisionerState> tpm2ProvisionerStateDBManager;
-    private String tpmQuoteHash = "";
-    private String tpmQuoteSignature = "";
-    private String pcrValues;
+
+    /**
+     * Serial number of the last issued credential, used to keep serial numbers unique when
+     * several credentials are issued within the same millisecond.
+     */
+    private static final AtomicLong LAST_SERIAL_NUMBER = new AtomicLong();
+
+    /**
+     * State of a single TPM 2.0 identity claim or certificate request as it passes through the
+     * provisioning stages: parsing the claim, looking up the endorsement and platform
+     * credentials, persisting the device info, validating the supply chain and issuing the
+     * credential. The ACA is a singleton serving concurrent requests, so nothing about a
+     * request may be kept in its fields; each request carries its own context instead.
+     */
+    private static final class ProvisioningContext {
+        private final ProvisionerTpm2.IdentityClaim claim;
+        private RSAPublicKey ekPub;
+        private RSAPublicKey akPub;
+        private EndorsementCredential endorsementCredential;
+        private Set<PlatformCredential> platformCredentials = new HashSet<>();
+        private String pcrValues = "";
+        private String tpmQuoteHash = "";
+        private String tpmQuoteSignature = "";
+
+        private ProvisioningContext(final ProvisionerTpm2.IdentityClaim claim) {
+            this.claim = claim;
+        }
+    }
 
     /**
      * Constructor.
@@ -379,7 +406,7 @@ public abstract class AbstractAttestationCertificateAuthority
         // save new attestation certificate
         byte[] derEncodedAttestationCertificate = getDerEncodedCertificate(credential);
         saveAttestationCertificate(derEncodedAttestationCertificate, endorsementCredential,
-                platformCredentials, device);
+                platformCredentials, device, null);
 
         return identityResponse;
     }
@@ -405,25 +432,28 @@ public abstract class AbstractAttestationCertificateAuthority
         }
 
         // attempt to deserialize Protobuf IdentityClaim
-        ProvisionerTpm2.IdentityClaim claim = parseIdentityClaim(identityClaim);
+        ProvisioningContext context = new ProvisioningContext(parseIdentityClaim(identityClaim));
 
         // parse the EK Public key from the IdentityClaim once for use in supply chain validation
         // and later tpm20MakeCredential function
-        RSAPublicKey ekPub = parsePublicKey(claim.getEkPublicArea().toByteArray());
+        context.ekPub = parsePublicKey(context.claim.getEkPublicArea().toByteArray());
         AppraisalStatus.Status validationResult = AppraisalStatus.Status.FAIL;
 
-        validationResult = doSupplyChainValidation(claim, ekPub);
+        // the validation result and provisioner state are committed together
+        DBUnitOfWork unitOfWork = tpm2ProvisionerStateDBManager.newUnitOfWork();
+        validationResult = doSupplyChainValidation(context, unitOfWork);
         if (validationResult == AppraisalStatus.Status.PASS) {
 
-            RSAPublicKey akPub = parsePublicKey(claim.getAkPublicArea().toByteArray());
+            context.akPub = parsePublicKey(context.claim.getAkPublicArea().toByteArray());
             byte[] nonce = generateRandomBytes(NONCE_LENGTH);
-            ByteString blobStr = tpm20MakeCredential(ekPub, akPub, nonce);
+            ByteString blobStr = tpm20MakeCredential(context.ekPub, context.akPub, nonce);
 
             String strNonce = HexUtils.byteArrayToHexString(nonce);
             LOG.info("Sending nonce: " + strNonce);
             LOG.info("Persisting claim of length: " + identityClaim.length);
 
-            tpm2ProvisionerStateDBManager.save(new TPM2ProvisionerState(nonce, identityClaim));
+            unitOfWork.save(new TPM2ProvisionerState(nonce, identityClaim));
+            unitOfWork.commit();
 
             // Package response
             ProvisionerTpm2.IdentityClaimResponse response
@@ -432,6 +462,7 @@ public abstract class AbstractAttestationCertificateAuthority
 
             return response.toByteArray();
         } else {
+            unitOfWork.commit();
             LOG.error("Supply chain validation did not succeed. Result is: "
                     + validationResult);
             return new byte[]{};
@@ -441,30 +472,29 @@ public abstract class AbstractAttestationCertificateAuthority
     /**
      * Performs supply chain validation.
      *
-     * @param claim the identity claim
-     * @param ekPub the public endorsement key
+     * @param context the provisioning context of the identity claim, holding the parsed claim
+     *                and EK public key
+     * @param unitOfWork the unit of work to add the update of the device's validation result to
      * @return the {@link AppraisalStatus} of the supply chain validation
      */
-    private AppraisalStatus.Status doSupplyChainValidation(
-            final ProvisionerTpm2.IdentityClaim claim, final PublicKey ekPub) {
-        // attempt to find an endorsement credential to validate
-        EndorsementCredential endorsementCredential = parseEcFromIdentityClaim(claim, ekPub);
+    private AppraisalStatus.Status doSupplyChainValidation(final ProvisioningContext context,
+                                                           final DBUnitOfWork unitOfWork) {
+        // attempt to find the endorsement and platform credentials to validate
+        lookupCredentials(context);
 
-        // attempt to find platform credentials to validate
-        Set<PlatformCredential> platformCredentials = parsePcsFromIdentityClaim(claim,
-                endorsementCredential);
-
-        // Parse and save device info
-        Device device = processDeviceInfo(claim);
+        // Parse device info and save it with the client's RIMs, which validation relies on
+        DBUnitOfWork deviceInfoUnit = tpm2ProvisionerStateDBManager.newUnitOfWork();
+        Device device = processDeviceInfo(context, deviceInfoUnit);
+        deviceInfoUnit.commit();
 
         // perform supply chain validation
         SupplyChainValidationSummary summary = supplyChainValidationService.validateSupplyChain(
-                endorsementCredential, platformCredentials, device);
+                context.endorsementCredential, context.platformCredentials, device);
         device.setSummaryId(summary.getId().toString());
         // update the validation result in the device
         AppraisalStatus.Status validationResult = summary.getOverallValidationResult();
         device.setSupplyChainStatus(validationResult);
-        deviceManager.updateDevice(device);
+        unitOfWork.update(device);
         return validationResult;
     }
 
@@ -473,9 +503,11 @@ public abstract class AbstractAttestationCertificateAuthority
      * Performed after main supply chain validation and a certificate request.
      *
      * @param device associated device to validate.
+     * @param unitOfWork the unit of work to add the update of the device's validation result to
      * @return the {@link AppraisalStatus} of the supply chain validation
      */
-    private AppraisalStatus.Status doQuoteValidation(final Device device) {
+    private AppraisalStatus.Status doQuoteValidation(final Device device,
+                                                     final DBUnitOfWork unitOfWork) {
         // perform supply chain validation
         SupplyChainValidationSummary scvs = supplyChainValidationService.validateQuote(
                 device);
@@ -490,7 +522,7 @@ public abstract class AbstractAttestationCertificateAuthority
             // update the validation result in the device
             validationResult = scvs.getOverallValidationResult();
             device.setSupplyChainStatus(validationResult);
-            deviceManager.updateDevice(device);
+            unitOfWork.update(device);
         }
 
         return validationResult;
@@ -528,29 +560,30 @@ public abstract class AbstractAttestationCertificateAuthority
         if (tpm2ProvisionerState != null) {
             // Reparse Identity Claim to gather necessary components
             byte[] identityClaim = tpm2ProvisionerState.getIdentityClaim();
-            ProvisionerTpm2.IdentityClaim claim = parseIdentityClaim(identityClaim);
+            ProvisioningContext context =
+                    new ProvisioningContext(parseIdentityClaim(identityClaim));
+            ProvisionerTpm2.IdentityClaim claim = context.claim;
 
             // Get endorsement public key
-            RSAPublicKey ekPub = parsePublicKey(claim.getEkPublicArea().toByteArray());
+            context.ekPub = parsePublicKey(claim.getEkPublicArea().toByteArray());
 
             // Get attestation public key
-            RSAPublicKey akPub = parsePublicKey(claim.getAkPublicArea().toByteArray());
-
-            // Get Endorsement Credential if it exists or was uploaded
-            EndorsementCredential endorsementCredential = parseEcFromIdentityClaim(claim, ekPub);
+            context.akPub = parsePublicKey(claim.getAkPublicArea().toByteArray());
 
-            // Get Platform Credentials if they exist or were uploaded
-            Set<PlatformCredential> platformCredentials = parsePcsFromIdentityClaim(claim,
-                    endorsementCredential);
+            // Get Endorsement and Platform Credentials if they exist or were uploaded
+            lookupCredentials(context);
 
             // Get device name and device
             String deviceName = claim.getDv().getNw().getHostname();
             Device device = deviceManager.getDevice(deviceName);
 
+            // the device updates, issued certificate and state are committed together
+            DBUnitOfWork unitOfWork = tpm2ProvisionerStateDBManager.newUnitOfWork();
+
             // Parse through the Provisioner supplied TPM Quote and pcr values
             // these fields are optional
             if (request.getQuote() != null && !request.getQuote().isEmpty()) {
-                parseTPMQuote(request.getQuote().toStringUtf8());
+                parseTPMQuote(context, request.getQuote().toStringUtf8());
                 TPMInfo savedInfo = device.getDeviceInfo().getTPMInfo();
                 TPMInfo tpmInfo = new TPMInfo(savedInfo.getTPMMake(),
                         savedInfo.getTPMVersionMajor(),
@@ -558,8 +591,8 @@ public abstract class AbstractAttestationCertificateAuthority
                         savedInfo.getTPMVersionRevMajor(),
                         savedInfo.getTPMVersionRevMinor(),
                         savedInfo.getPcrValues(),
-                        this.tpmQuoteHash.getBytes(StandardCharsets.UTF_8),
-                        this.tpmQuoteSignature.getBytes(StandardCharsets.UTF_8));
+                        context.tpmQuoteHash.getBytes(StandardCharsets.UTF_8),
+                        context.tpmQuoteSignature.getBytes(StandardCharsets.UTF_8));
 
                 DeviceInfoReport dvReport = new DeviceInfoReport(
                         device.getDeviceInfo().getNetworkInfo(),
@@ -567,30 +600,34 @@ public abstract class AbstractAttestationCertificateAuthority
                         device.getDeviceInfo().getFirmwareInfo(),
                         device.getDeviceInfo().getHardwareInfo(), tpmInfo,
                         claim.getClientVersion());
-                device = this.deviceRegister.saveOrUpdateDevice(dvReport);
+                // the PACCOR output isn't stored, so keep the components parsed from it
+                dvReport.setPaccorComponents(device.getDeviceInfo().getPaccorComponents());
+                device = this.deviceRegister.saveOrUpdateDevice(dvReport, unitOfWork);
             }
 
-            AppraisalStatus.Status validationResult = doQuoteValidation(device);
+            AppraisalStatus.Status validationResult = doQuoteValidation(device, unitOfWork);
             if (validationResult == AppraisalStatus.Status.PASS) {
                 // Create signed, attestation certificate
-                X509Certificate attestationCertificate = generateCredential(akPub,
-                        endorsementCredential, platformCredentials, deviceName);
+                X509Certificate attestationCertificate = generateCredential(context.akPub,
+                        context.endorsementCredential, context.platformCredentials, deviceName);
                 byte[] derEncodedAttestationCertificate = getDerEncodedCertificate(
                         attestationCertificate);
 
                 // We validated the nonce and made use of the identity claim so state can be deleted
-                tpm2ProvisionerStateDBManager.delete(tpm2ProvisionerState);
+                unitOfWork.delete(tpm2ProvisionerState);
 
                 // Package the signed certificate into a response
                 ByteString certificateBytes = ByteString.copyFrom(derEncodedAttestationCertificate);
                 ProvisionerTpm2.CertificateResponse response = ProvisionerTpm2.CertificateResponse
                         .newBuilder().setCertificate(certificateBytes).build();
 
-                saveAttestationCertificate(derEncodedAttestationCertificate, endorsementCredential,
-                        platformCredentials, device);
+                saveAttestationCertificate(derEncodedAttestationCertificate,
+                        context.endorsementCredential, context.platformCredentials, device,
+                        unitOfWork);
 
                 return response.toByteArray();
             } else {
+                unitOfWork.commit();
                 LOG.error("Supply chain validation did not succeed. "
                         + "Firmware Quote Validation failed. Result is: "
                         + validationResult);
@@ -608,18 +645,19 @@ public abstract class AbstractAttestationCertificateAuthority
     /**
      * This method takes the provided TPM Quote and splits it between the PCR
      * quote and the signature hash.
+     * @param context the provisioning context of the request to store the quote in
      * @param tpmQuote contains hash values for the quote and the signature
      */
-    private boolean parseTPMQuote(final String tpmQuote) {
+    private boolean parseTPMQuote(final ProvisioningContext context, final String tpmQuote) {
         boolean success = false;
         if (tpmQuote != null) {
             String[] lines = tpmQuote.split(":");
             if (lines[1].contains("signature")) {
-                this.tpmQuoteHash = lines[1].replace("signature", "").trim();
+                context.tpmQuoteHash = lines[1].replace("signature", "").trim();
             } else {
-                this.tpmQuoteHash = lines[1].trim();
+                context.tpmQuoteHash = lines[1].trim();
             }
-            this.tpmQuoteSignature = lines[2].trim();
+            context.tpmQuoteSignature = lines[2].trim();
             success = true;
         }
 
@@ -670,11 +708,14 @@ public abstract class AbstractAttestationCertificateAuthority
 
     /**
      * Converts a protobuf DeviceInfo object to a HIRS Utils DeviceInfoReport object.
-     * @param claim the protobuf serialized identity claim containing the device info
+     * @param context the provisioning context of the identity claim containing the device info
+     * @param unitOfWork the unit of work to add the saves and updates of the client's RIMs to
      * @return a HIRS Utils DeviceInfoReport representation of device info
      */
     @SuppressWarnings("methodlength")
-    private DeviceInfoReport parseDeviceInfo(final ProvisionerTpm2.IdentityClaim claim) {
+    private DeviceInfoReport parseDeviceInfo(final ProvisioningContext context,
+                                             final DBUnitOfWork unitOfWork) {
+        ProvisionerTpm2.IdentityClaim claim = context.claim;
         ProvisionerTpm2.DeviceInfo dv = claim.getDv();
 
         // Get network info
@@ -726,7 +767,7 @@ public abstract class AbstractAttestationCertificateAuthority
                 firstChassisSerialNumber, firstBaseboardSerialNumber);
 
         if (dv.hasPcrslist()) {
-            this.pcrValues = dv.getPcrslist().toStringUtf8();
+            context.pcrValues = dv.getPcrslist().toStringUtf8();
         }
 
         // check for RIM Base and Support files, if they don't exists in the database, load them
@@ -743,10 +784,17 @@ public abstract class AbstractAttestationCertificateAuthority
         if (dv.getSwidfileCount() > 0) {
             for (ByteString swidFile : dv.getSwidfileList()) {
                 try {
+                    // identical devices send identical RIMs, so look them up by digest before
+                    // copying or parsing the payload
                     dbBaseRim = BaseReferenceManifest.select(referenceManifestManager)
                             .includeArchived()
-                            .byHashCode(Arrays.hashCode(swidFile.toByteArray()))
+                            .byRimDigest(DigestUtils.sha256Hex(swidFile.newInput()))
                             .getRIM();
+                    if (dbBaseRim == null) {
+                        dbBaseRim = BaseReferenceManifest.select(referenceManifestManager)
+                                .includeArchived()
+                                .getLegacyRIM(swidFile.toByteArray());
+                    }
 
                     if (dbBaseRim == null) {
                         dbBaseRim = new BaseReferenceManifest(
@@ -768,12 +816,20 @@ public abstract class AbstractAttestationCertificateAuthority
                                 break;
                             }
                         }
-                        this.referenceManifestManager.save(dbBaseRim);
-                    } else {
-                        LOG.info("Client provided Base RIM already loaded in database.");
+                        unitOfWork.save(dbBaseRim);
+                    } else if (dbBaseRim.isArchived()) {
+                        LOG.info("Client provided Base RIM already loaded in database, "
+                                + "restoring it.");
+                        dbBaseRim.backfillRimDigest();
                         dbBaseRim.restore();
                         dbBaseRim.resetCreateTime();
-                        this.referenceManifestManager.update(dbBaseRim);
+                        unitOfWork.update(dbBaseRim);
+                    } else if (dbBaseRim.backfillRimDigest()) {
+                        LOG.info("Client provided Base RIM already loaded in database, "
+                                + "recording its digest.");
+                        unitOfWork.update(dbBaseRim);
+                    } else {
+                        LOG.info("Client provided Base RIM already loaded in database.");
                     }
 
                     tagId = dbBaseRim.getTagId();
@@ -790,8 +846,13 @@ public abstract class AbstractAttestationCertificateAuthority
                 try {
                     support = SupportReferenceManifest.select(referenceManifestManager)
                             .includeArchived()
-                            .byHashCode(Arrays.hashCode(logFile.toByteArray()))
+                            .byRimDigest(DigestUtils.sha256Hex(logFile.newInput()))
                             .getRIM();
+                    if (support == null) {
+                        support = SupportReferenceManifest.select(referenceManifestManager)
+                                .includeArchived()
+                                .getLegacyRIM(logFile.toByteArray());
+                    }
 
                     if (support == null) {
                         support = new SupportReferenceManifest(
@@ -801,20 +862,29 @@ public abstract class AbstractAttestationCertificateAuthority
                         support.setPlatformManufacturer(dv.getHw().getManufacturer());
                         support.setPlatformModel(dv.getHw().getProductName());
                         support.setTagId(tagId);
-                        this.referenceManifestManager.save(support);
-                    } else {
-                        LOG.info("Client provided Support RIM already loaded in database.");
+                        unitOfWork.save(support);
+                    } else if (support.isArchived() || !isAssociated(support, dbBaseRim)
+                            || support.getRimDigest() == null) {
+                        LOG.info("Client provided Support RIM already loaded in database, "
+                                + "updating it.");
                         if (dbBaseRim != null) {
                             support.setPlatformManufacturer(dbBaseRim.getPlatformManufacturer());
                             support.setPlatformModel(dbBaseRim.getPlatformModel());
                             support.setSwidTagVersion(dbBaseRim.getSwidTagVersion());
-                            support.setAssociatedRim(dbBaseRim.getId());
                             support.setTagId(dbBaseRim.getTagId());
+                            // the base RIM may be saved in the same unit, so its id is only
+                            // known once the unit is committed
+                            final ReferenceManifest baseRim = dbBaseRim;
+                            final ReferenceManifest supportRim = support;
+                            unitOfWork.run(() -> supportRim.setAssociatedRim(baseRim.getId()));
                         }
 
+                        support.backfillRimDigest();
                         support.restore();
                         support.resetCreateTime();
-                        this.referenceManifestManager.update(support);
+                        unitOfWork.update(support);
+                    } else {
+                        LOG.info("Client provided Support RIM already loaded in database.");
                     }
                 } catch (IOException ioEx) {
                     LOG.error(ioEx);
@@ -835,14 +905,14 @@ public abstract class AbstractAttestationCertificateAuthority
                         .includeArchived().getRIM();
                 if (support != null) {
                     LOG.info("Previous bios measurement log found and being replaced...");
-                    this.referenceManifestManager.delete(support);
+                    unitOfWork.delete(support);
                 }
                 support = new EventLogMeasurements(fileName,
                         dv.getLivelog().toByteArray());
                 support.setPlatformManufacturer(dv.getHw().getManufacturer());
                 support.setPlatformModel(dv.getHw().getProductName());
                 support.setTagId(tagId);
-                this.referenceManifestManager.save(support);
+                unitOfWork.save(support);
             } catch (IOException ioEx) {
                 LOG.error(ioEx);
             }
@@ -857,9 +927,9 @@ public abstract class AbstractAttestationCertificateAuthority
                 (short) 0,
                 (short) 0,
                 (short) 0,
-                this.pcrValues.getBytes(StandardCharsets.UTF_8),
-                this.tpmQuoteHash.getBytes(StandardCharsets.UTF_8),
-                this.tpmQuoteSignature.getBytes(StandardCharsets.UTF_8));
+                context.pcrValues.getBytes(StandardCharsets.UTF_8),
+                context.tpmQuoteHash.getBytes(StandardCharsets.UTF_8),
+                context.tpmQuoteSignature.getBytes(StandardCharsets.UTF_8));
 
         // Create final report
         DeviceInfoReport dvReport = new DeviceInfoReport(nw, os, fw, hw, tpm,
@@ -869,8 +939,30 @@ public abstract class AbstractAttestationCertificateAuthority
         return dvReport;
     }
 
-    private Device processDeviceInfo(final ProvisionerTpm2.IdentityClaim claim) {
-        DeviceInfoReport deviceInfoReport = parseDeviceInfo(claim);
+    /**
+     * Checks whether a stored support RIM is already associated with the given base RIM.
+     *
+     * @param support the stored support RIM
+     * @param baseRim the base RIM sent by the client, or null if none was sent
+     * @return true if there is no base RIM, or the support RIM refers to the stored base RIM
+     */
+    private static boolean isAssociated(final ReferenceManifest support,
+                                        final ReferenceManifest baseRim) {
+        return baseRim == null
+                || (baseRim.getId() != null && baseRim.getId().equals(support.getAssociatedRim()));
+    }
+
+    /**
+     * Parses the device info of an identity claim, and adds the save or update of the device,
+     * its device info and the RIMs sent by the client to a unit of work.
+     *
+     * @param context the provisioning context of the identity claim containing the device info
+     * @param unitOfWork the unit of work to add the device and RIMs to
+     * @return the device to be saved or updated when the unit is committed
+     */
+    private Device processDeviceInfo(final ProvisioningContext context,
+                                     final DBUnitOfWork unitOfWork) {
+        DeviceInfoReport deviceInfoReport = parseDeviceInfo(context, unitOfWork);
 
         if (deviceInfoReport == null) {
             LOG.error("Failed to deserialize Device Info Report");
@@ -880,7 +972,7 @@ public abstract class AbstractAttestationCertificateAuthority
 
         LOG.info("Processing Device Info Report");
         // store device and device info report.
-        return this.deviceRegister.saveOrUpdateDevice(deviceInfoReport);
+        return this.deviceRegister.saveOrUpdateDevice(deviceInfoReport, unitOfWork);
     }
 
     /**
@@ -1247,7 +1339,7 @@ public abstract class AbstractAttestationCertificateAuthority
                     new X500Name(acaCertificate.getSubjectX500Principal().getName());
             Date notBefore = new Date();
             Date notAfter = expiry.getTime();
-            BigInteger serialNumber = BigInteger.valueOf(System.currentTimeMillis());
+            BigInteger serialNumber = BigInteger.valueOf(nextSerialNumber());
 
             SubjectPublicKeyInfo subjectPublicKeyInfo =
                     SubjectPublicKeyInfo.getInstance(publicKey.getEncoded());
@@ -1579,6 +1671,29 @@ public abstract class AbstractAttestationCertificateAuthority
         }
     }
 
+    /**
+     * Helper method to find the Endorsement Credential and Platform Credentials of the
+     * identity claim in a provisioning context, and store them in that context.
+     *
+     * @param context the provisioning context holding the parsed claim and EK public key
+     */
+    private void lookupCredentials(final ProvisioningContext context) {
+        context.endorsementCredential = parseEcFromIdentityClaim(context.claim, context.ekPub);
+        context.platformCredentials = parsePcsFromIdentityClaim(context.claim,
+                context.endorsementCredential);
+    }
+
+    /**
+     * Returns the serial number for a newly issued credential: the current time in
+     * milliseconds, or one more than the previous serial number if that is not later.
+     *
+     * @return a serial number that is unique for this ACA instance
+     */
+    private static long nextSerialNumber() {
+        long now = System.currentTimeMillis();
+        return LAST_SERIAL_NUMBER.updateAndGet(last -> Math.max(now, last + 1));
+    }
+
     /**
      * Helper method to parse an Endorsement Credential from a Protobuf generated
      * IdentityClaim. Will also check if the Endorsement Credential was already uploaded.
@@ -1658,26 +1773,34 @@ public abstract class AbstractAttestationCertificateAuthority
 
     /**
      * Helper method to create an {@link IssuedAttestationCertificate} object, set its
-     * corresponding device and persist it.
+     * corresponding device and persist it along with the rest of the unit of work.
      *
      * @param derEncodedAttestationCertificate the byte array representing the Attestation
      *                                         certificate
      * @param endorsementCredential the endorsement credential used to generate the AC
      * @param platformCredentials the platform credentials used to generate the AC
      * @param device the device to which the attestation certificate is tied
+     * @param unitOfWork the unit of work to commit the attestation certificate with, or null to
+     *                   save the certificate on its own
      * @throws {@link CertificateProcessingException} if error occurs in persisting the Attestation
      *                                             Certificate
      */
     private void saveAttestationCertificate(final byte[] derEncodedAttestationCertificate,
                                             final EndorsementCredential endorsementCredential,
                                             final Set<PlatformCredential> platformCredentials,
-                                            final Device device) {
+                                            final Device device,
+                                            final DBUnitOfWork unitOfWork) {
         try {
             // save issued certificate
             IssuedAttestationCertificate attCert = new IssuedAttestationCertificate(
                     derEncodedAttestationCertificate, endorsementCredential, platformCredentials);
             attCert.setDevice(device);
-            certificateManager.save(attCert);
+            if (unitOfWork == null) {
+                certificateManager.save(attCert);
+            } else {
+                unitOfWork.save(attCert);
+                unitOfWork.commit();
+            }
         } catch (Exception e) {
             LOG.error("Error saving generated Attestation Certificate to database.", e);
             throw new CertificateProcessingException(
@@ -0,0 +1,90 @@
+package hirs.attestationca.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The progress of a batch supply chain validation started with
+ * {@link SupplyChainValidationService#validateSupplyChains}. Instances are immutable snapshots
+ * taken as the batch is validated.
+ */
+public final class SupplyChainValidationProgress {
+    private final int totalDevices;
+    private final int validatedDevices;
+    private final int passedDevices;
+    private final long elapsedMillis;
+
+    /**
+     * Creates a snapshot of the progress of a batch validation.
+     *
+     * @param totalDevices the number of devices in the batch
+     * @param validatedDevices the number of devices validated so far
+     * @param passedDevices the number of validated devices whose supply chain passed
+     * @param elapsedNanos the time spent on the batch so far, in nanoseconds
+     */
+    SupplyChainValidationProgress(final int totalDevices, final int validatedDevices,
+                                  final int passedDevices, final long elapsedNanos) {
+        this.totalDevices = totalDevices;
+        this.validatedDevices = validatedDevices;
+        this.passedDevices = passedDevices;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * @return the number of devices in the batch
+     */
+    public int getTotalDevices() {
+        return totalDevices;
+    }
+
+    /**
+     * @return the number of devices validated so far, whose summaries have been saved
+     */
+    public int getValidatedDevices() {
+        return validatedDevices;
+    }
+
+    /**
+     * @return the number of validated devices whose supply chain passed
+     */
+    public int getPassedDevices() {
+        return passedDevices;
+    }
+
+    /**
+     * @return the number of validated devices whose supply chain did not pass
+     */
+    public int getFailedDevices() {
+        return validatedDevices - passedDevices;
+    }
+
+    /**
+     * @return the time spent on the batch so far, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return the number of devices validated per second so far, or 0 if no time has elapsed
+     */
+    public double getDevicesPerSecond() {
+        if (elapsedMillis == 0) {
+            return 0;
+        }
+        return validatedDevices * (double) TimeUnit.SECONDS.toMillis(1) / elapsedMillis;
+    }
+
+    /**
+     * @return true if every device of the batch has been validated
+     */
+    public boolean isComplete() {
+        return validatedDevices == totalDevices;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("validated %d of %d devices (%d passed, %d failed) in %d ms,"
+                        + " %.1f devices/s", validatedDevices, totalDevices, passedDevices,
+                getFailedDevices(), elapsedMillis, getDevicesPerSecond());
+    }
+}
@@ -1,11 +1,13 @@
 package hirs.attestationca.service;
 
+import java.util.Collection;
 import java.util.Set;
 
 import hirs.data.persist.Device;
 import hirs.data.persist.SupplyChainValidationSummary;
 import hirs.data.persist.certificate.EndorsementCredential;
 import hirs.data.persist.certificate.PlatformCredential;
+import hirs.utils.Callback;
 
 
 /**
@@ -27,6 +29,20 @@ public interface SupplyChainValidationService {
                                                      Set<PlatformCredential> pc,
                                                      Device device);
 
+    /**
+     * Validates the supply chains of many devices, for instance to re-validate a fleet after the
+     * supply chain policy or a CA changes. The endorsement and platform credentials of the
+     * devices are retrieved in bulk, devices are validated in parallel under the current supply
+     * chain policy, and their summaries are saved in batches.
+     *
+     * @param devices the devices to validate
+     * @param progress an optional callback, called with the progress after each batch of devices
+     *                 is validated and saved
+     * @return the progress of the completed validation
+     */
+    SupplyChainValidationProgress validateSupplyChains(
+            Collection<Device> devices, Callback<SupplyChainValidationProgress, Void> progress);
+
     /**
      * A supplemental method that handles validating just the quote post main validation.
      *
@@ -15,25 +15,31 @@ import hirs.data.persist.TPMMeasurementRecord;
 import hirs.data.persist.PCRPolicy;
 import hirs.data.persist.ArchivableEntity;
 import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogCache;
+import hirs.tpm.eventlog.TCGEventLogDiff;
 import hirs.tpm.eventlog.TpmPcrEvent;
-import hirs.utils.BouncyCastleUtils;
+import hirs.utils.Callback;
 import hirs.utils.ReferenceManifestValidator;
 import hirs.validation.SupplyChainCredentialValidator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.bouncycastle.util.encoders.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.LinkedList;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Level;
@@ -46,7 +52,6 @@ import hirs.data.persist.SupplyChainPolicy;
 import hirs.data.persist.SupplyChainValidation;
 import hirs.data.persist.SupplyChainValidationSummary;
 import hirs.data.persist.certificate.Certificate;
-import hirs.data.persist.certificate.CertificateAuthorityCredential;
 import hirs.data.persist.certificate.EndorsementCredential;
 import hirs.data.persist.certificate.PlatformCredential;
 import hirs.data.persist.ReferenceManifest;
@@ -58,6 +63,7 @@ import hirs.persist.DBManagerException;
 import hirs.persist.PersistenceConfiguration;
 import hirs.persist.PolicyManager;
 import hirs.validation.CredentialValidator;
+import hirs.validation.DeltaValidationResult;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -82,11 +88,18 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
     private CertificateManager certificateManager;
     private CredentialValidator supplyChainCredentialValidator;
     private CrudManager<SupplyChainValidationSummary> supplyChainValidatorSummaryManager;
+    private TrustChainIndex trustChainIndex;
 
     private static final Logger LOGGER
             = LogManager.getLogger(SupplyChainValidationServiceImpl.class);
     private static final int VALUE_INDEX = 1;
 
+    /**
+     * The number of devices whose credentials are retrieved and whose summaries are saved at
+     * once by {@link #validateSupplyChains(Collection, Callback)}.
+     */
+    static final int VALIDATION_BATCH_SIZE = 100;
+
     /**
      * Constructor.
      *
@@ -110,6 +123,7 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
         this.referenceManifestManager = referenceManifestManager;
         this.supplyChainValidatorSummaryManager = supplyChainValidatorSummaryManager;
         this.supplyChainCredentialValidator = supplyChainCredentialValidator;
+        this.trustChainIndex = new TrustChainIndex(certificateManager);
     }
 
     /**
@@ -123,14 +137,142 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
      * @return A summary of the validation results.
      */
     @Override
-    @SuppressWarnings("methodlength")
     public SupplyChainValidationSummary validateSupplyChain(final EndorsementCredential ec,
                                                             final Set<PlatformCredential> pcs,
                                                             final Device device) {
+        SupplyChainValidationSummary summary = validateSupplyChain(ec, pcs, device,
+                getSupplyChainPolicy());
+        try {
+            supplyChainValidatorSummaryManager.save(summary);
+        } catch (DBManagerException ex) {
+            LOGGER.error("Failed to save Supply Chain summary", ex);
+        }
+
+        return summary;
+    }
+
+    /**
+     * Validates the supply chains of many devices. The devices are taken in batches of
+     * {@link #VALIDATION_BATCH_SIZE}. The endorsement and platform credentials of a batch are
+     * retrieved with one query each, its devices are validated on a pool of one thread per
+     * processor, and their summaries are saved in one transaction. Devices whose credentials
+     * were issued under the same CA chain share the CA key store built for it by the
+     * {@link TrustChainIndex}.
+     *
+     * @param devices the devices to validate
+     * @param progress an optional callback, called with the progress after each batch of devices
+     *                 is validated and saved
+     * @return the progress of the completed validation
+     */
+    @Override
+    public SupplyChainValidationProgress validateSupplyChains(
+            final Collection<Device> devices,
+            final Callback<SupplyChainValidationProgress, Void> progress) {
+        final SupplyChainPolicy policy = getSupplyChainPolicy();
+        final long start = System.nanoTime();
+        List<Device> deviceList = new ArrayList<>(devices);
+        int validated = 0;
+        int passed = 0;
+        SupplyChainValidationProgress current =
+                new SupplyChainValidationProgress(deviceList.size(), 0, 0, 0);
+        LOGGER.info("Validating supply chains of {} devices.", deviceList.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+        try {
+            for (int i = 0; i < deviceList.size(); i += VALIDATION_BATCH_SIZE) {
+                List<Device> batch = deviceList.subList(i,
+                        Math.min(i + VALIDATION_BATCH_SIZE, deviceList.size()));
+                List<SupplyChainValidationSummary> summaries =
+                        validateBatch(batch, policy, executor);
+                try {
+                    supplyChainValidatorSummaryManager.saveAll(summaries);
+                } catch (DBManagerException ex) {
+                    LOGGER.error("Failed to save Supply Chain summaries", ex);
+                }
+
+                validated += summaries.size();
+                for (SupplyChainValidationSummary summary : summaries) {
+                    if (summary.getOverallValidationResult() == PASS) {
+                        passed++;
+                    }
+                }
+                current = new SupplyChainValidationProgress(deviceList.size(), validated,
+                        passed, System.nanoTime() - start);
+                LOGGER.info("Supply chain validation: {}", current);
+                if (progress != null) {
+                    progress.call(current);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return current;
+    }
+
+    private List<SupplyChainValidationSummary> validateBatch(
+            final List<Device> batch, final SupplyChainPolicy policy,
+            final ExecutorService executor) {
+        List<UUID> deviceIds = new ArrayList<>();
+        for (Device device : batch) {
+            deviceIds.add(device.getId());
+        }
+
+        final Map<UUID, EndorsementCredential> ecs = new HashMap<>();
+        for (EndorsementCredential ec : EndorsementCredential.select(certificateManager)
+                .byDeviceIds(deviceIds).getCertificates()) {
+            ecs.put(ec.getDevice().getId(), ec);
+        }
+        final Map<UUID, Set<PlatformCredential>> pcs = new HashMap<>();
+        for (PlatformCredential pc : PlatformCredential.select(certificateManager)
+                .byDeviceIds(deviceIds).getCertificates()) {
+            UUID deviceId = pc.getDevice().getId();
+            if (!pcs.containsKey(deviceId)) {
+                pcs.put(deviceId, new HashSet<>());
+            }
+            pcs.get(deviceId).add(pc);
+        }
+
+        List<Callable<SupplyChainValidationSummary>> tasks = new ArrayList<>();
+        for (final Device device : batch) {
+            tasks.add(new Callable<SupplyChainValidationSummary>() {
+                @Override
+                public SupplyChainValidationSummary call() {
+                    return validateSupplyChain(ecs.get(device.getId()),
+                            pcs.get(device.getId()), device, policy);
+                }
+            });
+        }
+
+        List<SupplyChainValidationSummary> summaries = new ArrayList<>();
+        try {
+            for (Future<SupplyChainValidationSummary> future : executor.invokeAll(tasks)) {
+                summaries.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating supply chains", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to validate supply chain", e.getCause());
+        }
+        return summaries;
+    }
+
+    private SupplyChainPolicy getSupplyChainPolicy() {
         final Appraiser supplyChainAppraiser = appraiserManager.getAppraiser(
                 SupplyChainAppraiser.NAME);
-        SupplyChainPolicy policy = (SupplyChainPolicy) policyManager.getDefaultPolicy(
-                supplyChainAppraiser);
+        return (SupplyChainPolicy) policyManager.getDefaultPolicy(supplyChainAppraiser);
+    }
+
+    /**
+     * Validates the supply chain of a device in accordance to the given policy, and stores the
+     * device with its credentials. The summary is not saved.
+     */
+    @SuppressWarnings("methodlength")
+    private SupplyChainValidationSummary validateSupplyChain(final EndorsementCredential ec,
+                                                             final Set<PlatformCredential> pcs,
+                                                             final Device device,
+                                                             final SupplyChainPolicy policy) {
         boolean acceptExpiredCerts = policy.isExpiredCertificateValidationEnabled();
         PlatformCredential baseCredential = null;
         String componentFailures = "";
@@ -257,18 +399,13 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
             validations.add(validateFirmware(device, policy.getPcrPolicy()));
         }
 
-        // Generate validation summary, save it, and return it.
+        // Generate validation summary and return it.
         SupplyChainValidationSummary summary
                 = new SupplyChainValidationSummary(device, validations);
         if (baseCredential != null) {
             baseCredential.setComponentFailures(componentFailures);
             this.certificateManager.update(baseCredential);
         }
-        try {
-            supplyChainValidatorSummaryManager.save(summary);
-        } catch (DBManagerException ex) {
-            LOGGER.error("Failed to save Supply Chain summary", ex);
-        }
 
         return summary;
     }
@@ -421,10 +558,9 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
             }
 
             if (passed) {
-                TCGEventLog logProcessor;
                 try {
-                    logProcessor = new TCGEventLog(supportReferenceManifest.getRimBytes());
-                    baseline = logProcessor.getExpectedPCRValues();
+                    baseline = TCGEventLogCache.getExpectedPCRValues(
+                            supportReferenceManifest.getRimBytes());
                 } catch (CertificateException cEx) {
                     LOGGER.error(cEx);
                 } catch (NoSuchAlgorithmException noSaEx) {
@@ -478,15 +614,12 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
                         try {
                             if (measurement.getPlatformManufacturer().equals(manufacturer)) {
                                 tcgMeasurementLog = new TCGEventLog(measurement.getRimBytes());
-                                tcgEventLog = new TCGEventLog(
+                                tcgEventLog = TCGEventLogCache.getEventLog(
                                         supportReferenceManifest.getRimBytes());
-                                for (TpmPcrEvent tpe : tcgEventLog.getEventList()) {
-                                    if (!tpe.eventCompare(
-                                            tcgMeasurementLog.getEventByNumber(
-                                                    tpe.getEventNumber()))) {
-                                        tpmPcrEvents.add(tpe);
-                                    }
-                                }
+                                tpmPcrEvents.addAll(new TCGEventLogDiff(
+                                        tcgEventLog.getEventList(),
+                                        tcgMeasurementLog.getEventList())
+                                        .getMismatchedReferenceEvents());
                             }
                         } catch (CertificateException cEx) {
                             LOGGER.error(cEx);
@@ -717,9 +850,11 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
                     null, Level.ERROR);
         }
         LOGGER.info("Validating delta platform certificate attributes");
-        AppraisalStatus result = supplyChainCredentialValidator.
+        DeltaValidationResult result = supplyChainCredentialValidator.
                 validateDeltaPlatformCredentialAttributes(delta, deviceInfoReport,
                         base, deltaMapping);
+        // later deltas of the chain carry forward the failures of this one
+        deltaMapping.putAll(result.getDeltaFailures());
         switch (result.getAppStatus()) {
             case PASS:
                 return buildValidationRecord(validationType, PASS,
@@ -777,97 +912,13 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
     public KeyStore getCaChain(final Certificate credential) {
         KeyStore caKeyStore = null;
         try {
-            caKeyStore = caCertSetToKeystore(getCaChainRec(credential, Collections.emptySet()));
+            caKeyStore = trustChainIndex.getCaKeyStore(credential);
         } catch (KeyStoreException | IOException e) {
             LOGGER.error("Unable to assemble CA keystore", e);
         }
         return caKeyStore;
     }
 
-    /**
-     * This is a recursive method which is used to retrieve the entire CA chain
-     * (up to a trusted self-signed certificate) for the given certificate. This
-     * method will look up CA certificates that have a matching issuer
-     * organization as the given certificate, and will perform that operation
-     * recursively until all certificates for all relevant organizations have
-     * been retrieved. For that reason, the returned set of certificates may be
-     * larger than the the single trust chain for the queried certificate, but
-     * is guaranteed to include the trust chain if it exists in this class'
-     * CertificateManager.
-     * <p>
-     * Implementation notes: 1. Queries for CA certs with a subject org matching
-     * the given (argument's) issuer org 2. Add that org to
-     * queriedOrganizations, so we don't search for that organization again 3.
-     * For each returned CA cert, add that cert to the result set, and recurse
-     * with that as the argument (to go up the chain), if and only if we haven't
-     * already queried for that organization (which prevents infinite loops on
-     * certs with an identical subject and issuer org)
-     *
-     * @param credential                     the credential whose CA chain should be retrieved
-     * @param previouslyQueriedSubjects a list of organizations to refrain
-     *                                       from querying
-     * @return a Set containing all relevant CA credentials to the given
-     * certificate's organization
-     */
-    private Set<CertificateAuthorityCredential> getCaChainRec(
-            final Certificate credential,
-            final Set<String> previouslyQueriedSubjects) {
-        CertificateAuthorityCredential skiCA = null;
-        Set<CertificateAuthorityCredential> certAuthsWithMatchingIssuer = new HashSet<>();
-        if (credential.getAuthKeyId() != null
-                && !credential.getAuthKeyId().isEmpty()) {
-            byte[] bytes = Hex.decode(credential.getAuthKeyId());
-            skiCA = CertificateAuthorityCredential
-                    .select(certificateManager)
-                    .bySubjectKeyIdentifier(bytes).getCertificate();
-        }
-
-        if (skiCA == null) {
-            if (credential.getIssuerSorted() == null
-                    || credential.getIssuerSorted().isEmpty()) {
-                certAuthsWithMatchingIssuer = CertificateAuthorityCredential
-                        .select(certificateManager)
-                        .bySubject(credential.getIssuer())
-                        .getCertificates();
-            } else {
-                //Get certificates by subject organization
-                certAuthsWithMatchingIssuer = CertificateAuthorityCredential
-                        .select(certificateManager)
-                        .bySubjectSorted(credential.getIssuerSorted())
-                        .getCertificates();
-            }
-        } else {
-            certAuthsWithMatchingIssuer.add(skiCA);
-        }
-        Set<String> queriedOrganizations = new HashSet<>(previouslyQueriedSubjects);
-        queriedOrganizations.add(credential.getIssuer());
-
-        HashSet<CertificateAuthorityCredential> caCreds = new HashSet<>();
-        for (CertificateAuthorityCredential cred : certAuthsWithMatchingIssuer) {
-            caCreds.add(cred);
-            if (!BouncyCastleUtils.x500NameCompare(cred.getIssuer(),
-                    cred.getSubject())) {
-                caCreds.addAll(getCaChainRec(cred, queriedOrganizations));
-            }
-        }
-        return caCreds;
-    }
-
-    private KeyStore caCertSetToKeystore(final Set<CertificateAuthorityCredential> certs)
-            throws KeyStoreException, IOException {
-        KeyStore keyStore = KeyStore.getInstance("JKS");
-        try {
-            keyStore.load(null, "".toCharArray());
-            for (Certificate cert : certs) {
-                keyStore.setCertificateEntry(cert.getId().toString(), cert.getX509Certificate());
-            }
-        } catch (IOException | CertificateException | NoSuchAlgorithmException e) {
-            throw new IOException("Could not create and populate keystore", e);
-        }
-
-        return keyStore;
-    }
-
     private boolean checkForMultipleBaseCredentials(final String platformSerialNumber) {
         boolean multiple = false;
         PlatformCredential baseCredential = null;
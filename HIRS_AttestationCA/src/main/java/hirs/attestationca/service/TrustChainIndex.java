@@ -0,0 +1,170 @@
+package hirs.attestationca.service;
+
+import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.persist.CertificateManager;
+import hirs.utils.BouncyCastleUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.IOException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the stored {@link CertificateAuthorityCredential}s, used to assemble the
+ * CA chain of a credential without querying the database at every hop of the chain.
+ * <p>
+ * The CA credentials are loaded with a single query and indexed by subject key identifier,
+ * subject and sorted subject. The index is reloaded whenever the trust chain version reported
+ * by the {@link CertificateManager} changes, which happens when CA credentials are uploaded,
+ * archived, restored or deleted. KeyStores assembled from the index are shared by every
+ * credential with the same CA chain and must not be modified.
+ */
+final class TrustChainIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger(TrustChainIndex.class);
+
+    private final CertificateManager certificateManager;
+    private volatile Snapshot snapshot;
+
+    /**
+     * CA credentials indexed as of a single trust chain version.
+     */
+    private static final class Snapshot {
+        private final String version;
+        private final Map<String, CertificateAuthorityCredential> bySubjectKeyId =
+                new HashMap<>();
+        private final Map<String, Set<CertificateAuthorityCredential>> bySubject =
+                new HashMap<>();
+        private final Map<String, Set<CertificateAuthorityCredential>> bySubjectSorted =
+                new HashMap<>();
+        private final Map<Set<UUID>, KeyStore> keyStores = new ConcurrentHashMap<>();
+
+        private Snapshot(final String version,
+                         final Set<CertificateAuthorityCredential> caCredentials) {
+            this.version = version;
+            for (CertificateAuthorityCredential cred : caCredentials) {
+                byte[] subjectKeyId = cred.getSubjectKeyIdentifier();
+                if (subjectKeyId != null) {
+                    bySubjectKeyId.putIfAbsent(Hex.toHexString(subjectKeyId), cred);
+                }
+                bySubject.computeIfAbsent(cred.getSubject(), k -> new HashSet<>()).add(cred);
+                bySubjectSorted.computeIfAbsent(cred.getSubjectSorted(), k -> new HashSet<>())
+                        .add(cred);
+            }
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param certificateManager the certificate manager holding the CA credentials
+     */
+    TrustChainIndex(final CertificateManager certificateManager) {
+        this.certificateManager = certificateManager;
+    }
+
+    /**
+     * Retrieves the CA chain of the given credential in a KeyStore, following the issuer of
+     * each CA credential until a self-signed credential is reached. CA credentials are matched
+     * by subject key identifier if the credential has an authority key identifier, and by
+     * (sorted) subject otherwise, so the returned KeyStore may hold more than the single trust
+     * chain of the credential. Credentials with the same CA chain share the KeyStore.
+     *
+     * @param credential the credential whose CA chain should be retrieved
+     * @return a KeyStore containing all relevant CA credentials to the given credential
+     * @throws KeyStoreException if the KeyStore can't be created
+     * @throws IOException if the KeyStore can't be populated
+     */
+    KeyStore getCaKeyStore(final Certificate credential) throws KeyStoreException, IOException {
+        Snapshot current = current();
+        Set<CertificateAuthorityCredential> caCreds = new HashSet<>();
+        addCaChain(current, credential, caCreds);
+        Set<UUID> ids = new HashSet<>();
+        for (CertificateAuthorityCredential cred : caCreds) {
+            ids.add(cred.getId());
+        }
+        KeyStore keyStore = current.keyStores.get(ids);
+        if (keyStore == null) {
+            keyStore = toKeyStore(caCreds);
+            current.keyStores.put(Collections.unmodifiableSet(ids), keyStore);
+        }
+        return keyStore;
+    }
+
+    private Snapshot current() {
+        String version = certificateManager.getTrustChainVersion();
+        Snapshot current = snapshot;
+        if (current == null || version == null || !version.equals(current.version)) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || version == null
+                        || !version.equals(current.version)) {
+                    LOGGER.debug("Indexing CA credentials for trust chain version {}", version);
+                    current = new Snapshot(version, CertificateAuthorityCredential
+                            .select(certificateManager).getCertificates());
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static void addCaChain(final Snapshot index, final Certificate credential,
+                                   final Set<CertificateAuthorityCredential> caCreds) {
+        CertificateAuthorityCredential skiCA = null;
+        if (credential.getAuthKeyId() != null && !credential.getAuthKeyId().isEmpty()) {
+            skiCA = index.bySubjectKeyId.get(
+                    Hex.toHexString(Hex.decode(credential.getAuthKeyId())));
+        }
+
+        Set<CertificateAuthorityCredential> certAuthsWithMatchingIssuer;
+        if (skiCA != null) {
+            certAuthsWithMatchingIssuer = Collections.singleton(skiCA);
+        } else if (credential.getIssuerSorted() == null
+                || credential.getIssuerSorted().isEmpty()) {
+            certAuthsWithMatchingIssuer = index.bySubject.get(credential.getIssuer());
+        } else {
+            certAuthsWithMatchingIssuer = index.bySubjectSorted.get(
+                    credential.getIssuerSorted());
+        }
+        if (certAuthsWithMatchingIssuer == null) {
+            return;
+        }
+
+        for (CertificateAuthorityCredential cred : certAuthsWithMatchingIssuer) {
+            // credentials already in the set have been followed, which also stops cycles
+            if (caCreds.add(cred) && !BouncyCastleUtils.x500NameCompare(cred.getIssuer(),
+                    cred.getSubject())) {
+                addCaChain(index, cred, caCreds);
+            }
+        }
+    }
+
+    private static KeyStore toKeyStore(final Set<CertificateAuthorityCredential> certs)
+            throws KeyStoreException, IOException {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try {
+            keyStore.load(null, "".toCharArray());
+            for (Certificate cert : certs) {
+                keyStore.setCertificateEntry(cert.getId().toString(),
+                        cert.getX509Certificate());
+            }
+        } catch (IOException | CertificateException | NoSuchAlgorithmException e) {
+            throw new IOException("Could not create and populate keystore", e);
+        }
+
+        return keyStore;
+    }
+}
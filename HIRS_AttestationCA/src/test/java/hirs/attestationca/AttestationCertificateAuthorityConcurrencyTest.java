@@ -0,0 +1,355 @@
+package hirs.attestationca;
+
+import com.google.protobuf.ByteString;
+import hirs.attestationca.configuration.provisionerTpm2.ProvisionerTpm2;
+import hirs.attestationca.service.SupplyChainValidationProgress;
+import hirs.attestationca.service.SupplyChainValidationService;
+import hirs.data.persist.Device;
+import hirs.data.persist.DeviceGroup;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.SupplyChainValidationSummary;
+import hirs.data.persist.certificate.EndorsementCredential;
+import hirs.data.persist.certificate.PlatformCredential;
+import hirs.data.persist.info.ComponentInfo;
+import hirs.data.service.DeviceRegisterImpl;
+import hirs.persist.DBCertificateManager;
+import hirs.persist.DBDeviceGroupManager;
+import hirs.persist.DBDeviceManager;
+import hirs.persist.DBManager;
+import hirs.persist.DBReferenceManifestManager;
+import hirs.persist.TPM2ProvisionerState;
+import hirs.utils.Callback;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.util.BigIntegers;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stress test that provisions many devices through a single
+ * {@link AbstractAttestationCertificateAuthority} at once, as the ACA servlet does when several
+ * provisioners connect concurrently, and checks that no request picks up the state of another.
+ * Also checks what a provisioned device keeps across the steps of provisioning.
+ */
+public class AttestationCertificateAuthorityConcurrencyTest extends SpringPersistenceTest {
+
+    private static final int DEVICE_COUNT = 200;
+    private static final int THREAD_COUNT = 16;
+    private static final int RSA_KEY_SIZE = 2048;
+    private static final int RSA_MODULUS_LENGTH = 256;
+    private static final int PUBLIC_AREA_HEADER_LENGTH = 34;
+    private static final int TIMEOUT_MINUTES = 5;
+    private static final String PACCOR_OUTPUT = "{\"COMPONENTS\": ["
+            + "{\"MANUFACTURER\": \"Intel\", \"MODEL\": \"Core i7\", \"SERIAL\": \"1234\","
+            + " \"REVISION\": \"1\"},"
+            + "{\"MANUFACTURER\": \"Intel Corporation\", \"MODEL\": \"82580 Gigabit\","
+            + " \"SERIAL\": \"90:e2:ba:31:83:10\", \"REVISION\": \"\"}]}";
+
+    private AbstractAttestationCertificateAuthority aca;
+    private DBManager<TPM2ProvisionerState> tpm2ProvisionerStateDBManager;
+    private DBDeviceManager deviceManager;
+    private byte[] ekPublicArea;
+    private byte[] akPublicArea;
+
+    /**
+     * Sets up an ACA backed by the test database, which passes supply chain validation for
+     * every device.
+     *
+     * @throws Exception if the ACA keys or certificate can't be generated
+     */
+    @BeforeClass
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(RSA_KEY_SIZE);
+        KeyPair acaKeyPair = keyPairGenerator.generateKeyPair();
+        ekPublicArea = toPublicArea((RSAPublicKey) keyPairGenerator.generateKeyPair().getPublic());
+        akPublicArea = toPublicArea((RSAPublicKey) keyPairGenerator.generateKeyPair().getPublic());
+
+        deviceManager = new DBDeviceManager(sessionFactory);
+        DBDeviceGroupManager deviceGroupManager = new DBDeviceGroupManager(sessionFactory);
+        deviceGroupManager.saveDeviceGroup(new DeviceGroup(DeviceGroup.DEFAULT_GROUP));
+        tpm2ProvisionerStateDBManager = new DBManager<>(TPM2ProvisionerState.class,
+                sessionFactory);
+
+        aca = new AbstractAttestationCertificateAuthority(
+                new PassingSupplyChainValidationService(), acaKeyPair.getPrivate(),
+                selfSign(acaKeyPair), null, new DBCertificateManager(sessionFactory),
+                new DBReferenceManifestManager(sessionFactory),
+                new DeviceRegisterImpl(deviceManager, deviceGroupManager), 1,
+                deviceManager, tpm2ProvisionerStateDBManager) {
+        };
+    }
+
+    /**
+     * Removes the provisioned devices, certificates and provisioner states.
+     */
+    @AfterClass
+    public void teardown() {
+        new DBCertificateManager(sessionFactory).deleteAll();
+        tpm2ProvisionerStateDBManager.deleteAll();
+        new DBManager<>(SupplyChainValidationSummary.class, sessionFactory).deleteAll();
+        deviceManager.deleteAll();
+        new DBDeviceGroupManager(sessionFactory).deleteAll();
+    }
+
+    /**
+     * Provisions {@value #DEVICE_COUNT} devices on {@value #THREAD_COUNT} threads, and checks
+     * that each device is issued a certificate with a unique serial number and keeps its own
+     * TPM quote.
+     *
+     * @throws Exception if provisioning a device fails
+     */
+    @Test
+    public void testConcurrentProvisioning() throws Exception {
+        List<byte[]> claims = new ArrayList<>();
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            claims.add(buildIdentityClaim(i).toByteArray());
+        }
+
+        List<byte[]> claimResponses = runConcurrently(claims,
+                claim -> aca.processIdentityClaimTpm2(claim));
+        for (byte[] response : claimResponses) {
+            Assert.assertTrue(response.length > 0);
+        }
+
+        Map<String, byte[]> noncesByClaim = new HashMap<>();
+        for (TPM2ProvisionerState state
+                : tpm2ProvisionerStateDBManager.getList(TPM2ProvisionerState.class)) {
+            noncesByClaim.put(Arrays.toString(state.getIdentityClaim()), state.getNonce());
+        }
+        Assert.assertEquals(noncesByClaim.size(), DEVICE_COUNT);
+
+        List<byte[]> requests = new ArrayList<>();
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            byte[] nonce = noncesByClaim.get(Arrays.toString(claims.get(i)));
+            Assert.assertNotNull(nonce);
+            requests.add(ProvisionerTpm2.CertificateRequest.newBuilder()
+                    .setNonce(ByteString.copyFrom(nonce))
+                    .setQuote(ByteString.copyFrom(quote(i), StandardCharsets.UTF_8))
+                    .build().toByteArray());
+        }
+
+        List<byte[]> certificateResponses = runConcurrently(requests,
+                request -> aca.processCertificateRequest(request));
+
+        CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+        Set<BigInteger> serialNumbers = new HashSet<>();
+        for (byte[] response : certificateResponses) {
+            byte[] certificate = ProvisionerTpm2.CertificateResponse.parseFrom(response)
+                    .getCertificate().toByteArray();
+            Assert.assertTrue(certificate.length > 0);
+            X509Certificate issued = (X509Certificate) certificateFactory.generateCertificate(
+                    new ByteArrayInputStream(certificate));
+            Assert.assertTrue(serialNumbers.add(issued.getSerialNumber()));
+        }
+
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            Device device = deviceManager.getDevice(hostname(i));
+            Assert.assertEquals(new String(device.getDeviceInfo().getTPMInfo().getTpmQuoteHash(),
+                    StandardCharsets.UTF_8), quoteHash(i));
+        }
+    }
+
+    /**
+     * Tests that a certificate request with a TPM quote, which replaces the device info report
+     * of the device, keeps the components parsed from the PACCOR output of the identity claim.
+     *
+     * @throws Exception if provisioning the device fails
+     */
+    @Test
+    public void testQuoteKeepsPaccorComponents() throws Exception {
+        final int deviceIndex = DEVICE_COUNT;
+        byte[] claim = buildIdentityClaim(deviceIndex).toBuilder()
+                .setPaccorOutput(PACCOR_OUTPUT)
+                .build().toByteArray();
+        Assert.assertTrue(aca.processIdentityClaimTpm2(claim).length > 0);
+        assertPaccorComponents(deviceManager.getDevice(hostname(deviceIndex)));
+
+        byte[] nonce = null;
+        for (TPM2ProvisionerState state
+                : tpm2ProvisionerStateDBManager.getList(TPM2ProvisionerState.class)) {
+            if (Arrays.equals(state.getIdentityClaim(), claim)) {
+                nonce = state.getNonce();
+            }
+        }
+        Assert.assertNotNull(nonce);
+        byte[] response = aca.processCertificateRequest(
+                ProvisionerTpm2.CertificateRequest.newBuilder()
+                        .setNonce(ByteString.copyFrom(nonce))
+                        .setQuote(ByteString.copyFrom(quote(deviceIndex), StandardCharsets.UTF_8))
+                        .build().toByteArray());
+        Assert.assertTrue(response.length > 0);
+
+        Device device = deviceManager.getDevice(hostname(deviceIndex));
+        Assert.assertEquals(new String(device.getDeviceInfo().getTPMInfo().getTpmQuoteHash(),
+                StandardCharsets.UTF_8), quoteHash(deviceIndex));
+        assertPaccorComponents(device);
+    }
+
+    private static void assertPaccorComponents(final Device device) throws Exception {
+        List<ComponentInfo> expected = ComponentInfo.fromPaccorOutput(PACCOR_OUTPUT);
+        List<ComponentInfo> actual = device.getDeviceInfo().getPaccorComponents();
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i).getComponentManufacturer(),
+                    expected.get(i).getComponentManufacturer());
+            Assert.assertEquals(actual.get(i).getComponentModel(),
+                    expected.get(i).getComponentModel());
+            Assert.assertEquals(actual.get(i).getComponentSerial(),
+                    expected.get(i).getComponentSerial());
+            Assert.assertEquals(actual.get(i).getComponentRevision(),
+                    expected.get(i).getComponentRevision());
+        }
+    }
+
+    /**
+     * A request handled by the ACA.
+     */
+    private interface AcaRequest {
+        byte[] process(byte[] request);
+    }
+
+    private static List<byte[]> runConcurrently(final List<byte[]> requests,
+                                                final AcaRequest acaRequest)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            Collection<Callable<byte[]>> tasks = new ArrayList<>();
+            for (byte[] request : requests) {
+                tasks.add(() -> acaRequest.process(request));
+            }
+            List<byte[]> responses = new ArrayList<>();
+            for (Future<byte[]> response
+                    : executor.invokeAll(tasks, TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                responses.add(response.get());
+            }
+            return responses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ProvisionerTpm2.IdentityClaim buildIdentityClaim(final int deviceIndex) {
+        ProvisionerTpm2.DeviceInfo deviceInfo = ProvisionerTpm2.DeviceInfo.newBuilder()
+                .setFw(ProvisionerTpm2.FirmwareInfo.newBuilder()
+                        .setBiosVendor("vendor")
+                        .setBiosVersion("1.0")
+                        .setBiosReleaseDate("01/01/2020"))
+                .setHw(ProvisionerTpm2.HardwareInfo.newBuilder()
+                        .setManufacturer("manufacturer")
+                        .setProductName("product")
+                        .setProductVersion("1.0")
+                        .setSystemSerialNumber("serial-" + deviceIndex))
+                .setNw(ProvisionerTpm2.NetworkInfo.newBuilder()
+                        .setHostname(hostname(deviceIndex))
+                        .setIpAddress("10.0.0.1")
+                        .setMacAddress("00:00:00:00:00:00"))
+                .setOs(ProvisionerTpm2.OsInfo.newBuilder()
+                        .setOsName("Linux")
+                        .setOsVersion("5.0")
+                        .setOsArch("x86_64")
+                        .setDistribution("distribution")
+                        .setDistributionRelease("1"))
+                .build();
+        return ProvisionerTpm2.IdentityClaim.newBuilder()
+                .setDv(deviceInfo)
+                .setEkPublicArea(ByteString.copyFrom(ekPublicArea))
+                .setAkPublicArea(ByteString.copyFrom(akPublicArea))
+                .build();
+    }
+
+    private static String hostname(final int deviceIndex) {
+        return "device-" + deviceIndex;
+    }
+
+    private static String quoteHash(final int deviceIndex) {
+        return "hash-" + deviceIndex;
+    }
+
+    private static String quote(final int deviceIndex) {
+        return "quote:" + quoteHash(deviceIndex) + " signature:sig-" + deviceIndex;
+    }
+
+    /**
+     * Lays out an RSA public key the way a TPM 2.0 public area does: a header followed by the
+     * modulus.
+     */
+    private static byte[] toPublicArea(final RSAPublicKey publicKey) {
+        byte[] modulus = BigIntegers.asUnsignedByteArray(RSA_MODULUS_LENGTH,
+                publicKey.getModulus());
+        byte[] publicArea = new byte[PUBLIC_AREA_HEADER_LENGTH + RSA_MODULUS_LENGTH];
+        System.arraycopy(modulus, 0, publicArea, PUBLIC_AREA_HEADER_LENGTH, modulus.length);
+        return publicArea;
+    }
+
+    private static X509Certificate selfSign(final KeyPair keyPair) throws Exception {
+        X500Name name = new X500Name("CN=Test ACA");
+        Date notBefore = new Date();
+        Date notAfter = new Date(notBefore.getTime() + TimeUnit.DAYS.toMillis(1));
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name,
+                BigInteger.ONE, notBefore, notAfter, name, keyPair.getPublic());
+        return new JcaX509CertificateConverter().getCertificate(builder.build(
+                new JcaContentSignerBuilder("SHA256WithRSA").build(keyPair.getPrivate())));
+    }
+
+    /**
+     * Supply chain validation service that passes every device and skips quote validation.
+     */
+    private final class PassingSupplyChainValidationService
+            implements SupplyChainValidationService {
+        private final DBManager<SupplyChainValidationSummary> summaryManager =
+                new DBManager<>(SupplyChainValidationSummary.class, sessionFactory);
+
+        @Override
+        public SupplyChainValidationSummary validateSupplyChain(
+                final EndorsementCredential ec, final Set<PlatformCredential> pc,
+                final Device device) {
+            return summaryManager.save(new SupplyChainValidationSummary(device,
+                    Collections.emptyList()));
+        }
+
+        @Override
+        public SupplyChainValidationProgress validateSupplyChains(
+                final Collection<Device> devices,
+                final Callback<SupplyChainValidationProgress, Void> progress) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SupplyChainValidationSummary validateQuote(final Device device) {
+            return null;
+        }
+    }
+}
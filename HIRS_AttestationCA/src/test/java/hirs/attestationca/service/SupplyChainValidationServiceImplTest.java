@@ -23,6 +23,7 @@ import hirs.persist.DBDeviceManager;
 import hirs.persist.DeviceGroupManager;
 import hirs.persist.DeviceManager;
 import hirs.persist.PolicyManager;
+import hirs.utils.Callback;
 import hirs.validation.CredentialValidator;
 import hirs.validation.SupplyChainCredentialValidator;
 import org.mockito.ArgumentCaptor;
@@ -42,9 +43,14 @@ import java.nio.file.Paths;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -52,9 +58,11 @@ import static hirs.data.persist.AppraisalStatus.Status.FAIL;
 import static hirs.data.persist.AppraisalStatus.Status.PASS;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -343,6 +351,63 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
 
 
 
+    /**
+     * Tests that the supply chains of several devices are validated with their own credentials,
+     * that the summaries are saved together, and that the progress is reported.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public final void testValidateSupplyChains() {
+        when(policy.isEcValidationEnabled()).thenReturn(true);
+        when(policy.isPcValidationEnabled()).thenReturn(true);
+        when(policy.isExpiredCertificateValidationEnabled()).thenReturn(true);
+
+        doReturn(new AppraisalStatus(PASS, "")).when(supplyChainCredentialValidator).
+                validateEndorsementCredential(eq(ec), any(KeyStore.class), eq(true));
+        doReturn(new AppraisalStatus(PASS, "")).when(supplyChainCredentialValidator).
+                validatePlatformCredential(eq(pc), any(KeyStore.class), eq(true));
+
+        // the second device has no credentials
+        when(device.getId()).thenReturn(UUID.randomUUID());
+        when(ec.getDevice()).thenReturn(device);
+        when(pc.getDevice()).thenReturn(device);
+        when(certificateManager.get(isA(EndorsementCredential.Selector.class)))
+                .thenReturn(Collections.<Certificate>singleton(ec));
+        when(certificateManager.get(isA(PlatformCredential.Selector.class)))
+                .thenReturn(Collections.<Certificate>singleton(pc));
+        Device other = mock(Device.class);
+        when(other.getId()).thenReturn(UUID.randomUUID());
+
+        final List<SupplyChainValidationProgress> reported = new ArrayList<>();
+        SupplyChainValidationProgress progress = service.validateSupplyChains(
+                Arrays.asList(device, other), new Callback<SupplyChainValidationProgress, Void>() {
+                    @Override
+                    public Void call(final SupplyChainValidationProgress current) {
+                        reported.add(current);
+                        return null;
+                    }
+                });
+
+        Assert.assertTrue(progress.isComplete());
+        Assert.assertEquals(progress.getTotalDevices(), 2);
+        Assert.assertEquals(progress.getPassedDevices(), 1);
+        Assert.assertEquals(progress.getFailedDevices(), 1);
+        Assert.assertEquals(reported, Collections.singletonList(progress));
+
+        ArgumentCaptor<Collection> summariesCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(supplyChainValidationSummaryDBManager).saveAll(summariesCaptor.capture());
+        verify(supplyChainValidationSummaryDBManager, never())
+                .save(any(SupplyChainValidationSummary.class));
+        Map<Device, AppraisalStatus.Status> results = new HashMap<>();
+        for (SupplyChainValidationSummary summary
+                : (Collection<SupplyChainValidationSummary>) summariesCaptor.getValue()) {
+            results.put(summary.getDevice(), summary.getOverallValidationResult());
+        }
+        Assert.assertEquals(results.get(device), PASS);
+        Assert.assertEquals(results.get(other), FAIL);
+        verify(certificateManager, times(1)).get(isA(EndorsementCredential.Selector.class));
+    }
+
     /**
      * All enabled, EC is null.
      */
@@ -628,6 +693,52 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
         realCertMan.delete(intelCa);
     }
 
+    /**
+     * Puts an Intel PC and Intel CA in the DB, retrieves the CA chain of the PC twice, then
+     * archives the CA and checks that the chain no longer contains it.
+     * @throws URISyntaxException failed to parse certificate file location.
+     * @throws IOException couldn't create certificates from file.
+     * @throws KeyStoreException was unable to retrieve keystore.
+     */
+    @Test
+    public final void testGetPcCaChainAfterArchive() throws URISyntaxException, IOException,
+            KeyStoreException {
+        CertificateManager realCertMan = new DBCertificateManager(sessionFactory);
+
+        SupplyChainValidationServiceImpl mostlyMockedService = new SupplyChainValidationServiceImpl(
+                policyManager,
+                appraiserManager,
+                realCertMan,
+                null,
+                supplyChainValidationSummaryDBManager,
+                supplyChainCredentialValidator
+        );
+
+        CertificateAuthorityCredential intelCa = new CertificateAuthorityCredential(
+                Files.readAllBytes(Paths.get(getClass().getResource(
+                        INTEL_CA).toURI()))
+        );
+
+        PlatformCredential platformCredential = new PlatformCredential(
+                Files.readAllBytes(Paths.get(getClass().getResource(
+                        NUC_PC).toURI())));
+
+        realCertMan.save(platformCredential);
+        realCertMan.save(intelCa);
+
+        KeyStore ks = mostlyMockedService.getCaChain(platformCredential);
+        Assert.assertNotNull(ks.getCertificate(intelCa.getId().toString()));
+        Assert.assertSame(mostlyMockedService.getCaChain(platformCredential), ks);
+
+        intelCa.archive();
+        realCertMan.update(intelCa);
+
+        Assert.assertEquals(mostlyMockedService.getCaChain(platformCredential).size(), 0);
+
+        realCertMan.delete(platformCredential);
+        realCertMan.delete(intelCa);
+    }
+
     /**
      * Puts an Intel PC, STM CA, and GS CA in the DB, attempts to retrieve the CAs from the PC. None
      * should match.
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import hirs.FilteredRecordsList;
 import hirs.persist.CriteriaModifier;
+import hirs.persist.KeysetPaging;
 import hirs.persist.OrderedListQuerier;
 
 /**
@@ -44,6 +45,33 @@ public final class OrderedListQueryDataTableAdapter<T> {
         return getOrderedList(clazz, dbManager, dataTableInput, orderColumnName, defaultModifier);
     }
 
+    /**
+     * Gets the ordered list of records using a default, no-op criteria modifier, paging through
+     * the records with keyset pagination.
+     * @param clazz the type of objects to query for
+     * @param dbManager the db manager to execute the actual query
+     * @param dataTableInput the JS DataTable query abstraction
+     * @param orderColumnName the name of the column (java object field name) to query on
+     * @param paging the keyset paging state of the table
+     * @param <T> the parameter type
+     * @return the filtered record list
+     */
+    public static <T> FilteredRecordsList<T> getOrderedList(final Class<? extends T> clazz,
+        final OrderedListQuerier<T> dbManager,
+        final DataTableInput dataTableInput,
+        final String orderColumnName,
+        final KeysetPaging paging) {
+
+        CriteriaModifier defaultModifier = new CriteriaModifier() {
+            @Override
+            public void modify(final Criteria criteria) {
+                // Do nothing
+            }
+        };
+        return getOrderedList(clazz, dbManager, dataTableInput, orderColumnName, defaultModifier,
+                paging);
+    }
+
     /**
      * Gets the ordered list of records.
      * @param clazz the type of objects to query for
@@ -58,6 +86,27 @@ public final class OrderedListQueryDataTableAdapter<T> {
         final OrderedListQuerier<T> dbManager, final DataTableInput dataTableInput,
         final String orderColumnName,
         final CriteriaModifier criteriaModifier) {
+        return getOrderedList(clazz, dbManager, dataTableInput, orderColumnName, criteriaModifier,
+                null);
+    }
+
+    /**
+     * Gets the ordered list of records, paging through the records with keyset pagination if
+     * a paging state is given.
+     * @param clazz the type of objects to query for
+     * @param dbManager the db manager to execute the actual query
+     * @param dataTableInput the JS DataTable query abstraction
+     * @param orderColumnName the name of the column (java object field name) to query on
+     * @param criteriaModifier the criteria modifier
+     * @param paging the keyset paging state of the table, or null to page with offsets
+     * @param <T> the parameter type
+     * @return the filtered record list
+     */
+    public static <T> FilteredRecordsList<T> getOrderedList(final Class<? extends T> clazz,
+        final OrderedListQuerier<T> dbManager, final DataTableInput dataTableInput,
+        final String orderColumnName,
+        final CriteriaModifier criteriaModifier,
+        final KeysetPaging paging) {
 
         Map<String, Boolean> searchableColumnMap = new HashMap<>();
         for (Column column : dataTableInput.getColumns()) {
@@ -70,9 +119,15 @@ public final class OrderedListQueryDataTableAdapter<T> {
             isAscending = orders.get(0).isAscending();
         }
 
+        if (paging == null) {
+            return dbManager.getOrderedList(clazz, orderColumnName, isAscending,
+                    dataTableInput.getStart(), dataTableInput.getLength(),
+                    dataTableInput.getSearch().getValue(),
+                    searchableColumnMap, criteriaModifier);
+        }
         return dbManager.getOrderedList(clazz, orderColumnName, isAscending,
                 dataTableInput.getStart(), dataTableInput.getLength(),
                 dataTableInput.getSearch().getValue(),
-                searchableColumnMap, criteriaModifier);
+                searchableColumnMap, criteriaModifier, paging);
     }
 }
@@ -37,6 +37,7 @@ import hirs.persist.CertificateManager;
 import hirs.persist.CriteriaModifier;
 import hirs.persist.CrudManager;
 import hirs.persist.DBManagerException;
+import hirs.persist.KeysetPaging;
 import hirs.persist.OrderedListQuerier;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -58,6 +59,8 @@ public class CertificateRequestPageController extends PageController<NoPageParam
 
     private final CertificateManager certificateManager;
     private final OrderedListQuerier<Certificate> dataTableQuerier;
+    // certificate tables grow with every provisioned device, so they are paged by keyset
+    private final KeysetPaging paging = new KeysetPaging();
 
     private CertificateAuthorityCredential certificateAuthorityCredential;
 
@@ -209,7 +212,7 @@ public class CertificateRequestPageController extends PageController<NoPageParam
         FilteredRecordsList records
                 = OrderedListQueryDataTableAdapter.getOrderedList(
                         getCertificateClass(certificateType), dataTableQuerier,
-                        input, orderColumnName, criteriaModifier);
+                        input, orderColumnName, criteriaModifier, paging);
 
         // special parsing for platform credential
         // Add the EndorsementCredential for each PlatformCredential based on the
@@ -306,6 +309,7 @@ public class CertificateRequestPageController extends PageController<NoPageParam
             messages.addError(dbError);
             LOGGER.error(dbError, ex);
         }
+        paging.invalidate();
 
         model.put(MESSAGES_ATTRIBUTE, messages);
         return redirectTo(getCertificatePage(certificateType), new NoPageParams(), model, attr);
@@ -414,6 +418,7 @@ public class CertificateRequestPageController extends PageController<NoPageParam
                         certificateManager);
             }
         }
+        paging.invalidate();
 
         //Add messages to the model
         model.put(MESSAGES_ATTRIBUTE, messages);
@@ -30,6 +30,7 @@ import hirs.data.persist.certificate.Certificate;
 import hirs.data.persist.certificate.DeviceAssociatedCertificate;
 import hirs.persist.DBManager;
 import hirs.persist.DeviceManager;
+import hirs.persist.KeysetPaging;
 
 /**
  * Controller for the Device page.
@@ -39,6 +40,8 @@ import hirs.persist.DeviceManager;
 public class DevicesPageController extends PageController<NoPageParams> {
 
     private final DeviceManager deviceManager;
+    // the device table grows with every provisioned device, so it is paged by keyset
+    private final KeysetPaging paging = new KeysetPaging();
     private final DBManager<Certificate> certificateDBManager;
     private static final Logger LOGGER = getLogger(DevicesPageController.class);
 
@@ -86,7 +89,7 @@ public class DevicesPageController extends PageController<NoPageParams> {
         // get all the devices
         FilteredRecordsList<Device> deviceList =
                 OrderedListQueryDataTableAdapter.getOrderedList(Device.class,
-                        deviceManager, input, orderColumnName);
+                        deviceManager, input, orderColumnName, paging);
 
         FilteredRecordsList<HashMap<String, Object>> record
                 = retrieveDevicesAndAssociatedCertificates(deviceList);
@@ -10,6 +10,8 @@ import hirs.persist.CertificateManager;
 import hirs.persist.DBManagerException;
 import hirs.persist.ReferenceManifestManager;
 import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogCache;
+import hirs.tpm.eventlog.TCGEventLogDiff;
 import hirs.attestationca.portal.page.Page;
 import hirs.attestationca.portal.page.PageController;
 import hirs.attestationca.portal.page.PageMessages;
@@ -234,12 +236,12 @@ public class ReferenceManifestDetailsPageController
                     .getRIM();
             if (support != null) {
                 baseRim.setAssociatedRim(support.getId());
-                logProcessor = new TCGEventLog(support.getRimBytes());
+                logProcessor = TCGEventLogCache.getEventLog(support.getRimBytes());
             }
         } else {
             support = SupportReferenceManifest.select(referenceManifestManager)
                     .byEntityId(baseRim.getAssociatedRim()).getRIM();
-            logProcessor = new TCGEventLog(support.getRimBytes());
+            logProcessor = TCGEventLogCache.getEventLog(support.getRimBytes());
         }
         // going to have to pull the filename and grab that from the DB
         // to get the id to make the link
@@ -338,19 +340,18 @@ public class ReferenceManifestDetailsPageController
         boolean sigDb = false;
         boolean forbiddenDbx = false;
 
+        // parse a private copy of the log, since its events are flagged for this page
         TCGEventLog logProcessor = new TCGEventLog(support.getRimBytes());
         LinkedList<TpmPcrEvent> tpmPcrEvents = new LinkedList<>();
         TCGEventLog measurementsProcess;
         if (measurements != null) {
             measurementsProcess = new TCGEventLog((measurements.getRimBytes()));
-            for (TpmPcrEvent tpe : logProcessor.getEventList()) {
-                if (!tpe.eventCompare(
-                        measurementsProcess.getEventByNumber(
-                                tpe.getEventNumber()))) {
-                    tpe.setError(true);
-                }
-                tpmPcrEvents.add(tpe);
+            TCGEventLogDiff diff = new TCGEventLogDiff(logProcessor.getEventList(),
+                    measurementsProcess.getEventList());
+            for (TpmPcrEvent tpe : diff.getMismatchedReferenceEvents()) {
+                tpe.setError(true);
             }
+            tpmPcrEvents.addAll(logProcessor.getEventList());
             data.put("events", tpmPcrEvents);
         } else {
             data.put("events", logProcessor.getEventList());
@@ -446,7 +447,7 @@ public class ReferenceManifestDetailsPageController
                         .getPlatformManufacturer()).getRIM();
 
         if (support != null) {
-            supportLog = new TCGEventLog(support.getRimBytes());
+            supportLog = TCGEventLogCache.getEventLog(support.getRimBytes());
             data.put("supportFilename", support.getFileName());
             data.put("supportId", support.getId());
         }
@@ -462,14 +463,10 @@ public class ReferenceManifestDetailsPageController
 
         TCGEventLog measurementLog = new TCGEventLog(measurements.getRimBytes());
         if (supportLog != null) {
-            TpmPcrEvent measurementEvent;
-            for (TpmPcrEvent tpe : supportLog.getEventList()) {
-                measurementEvent = measurementLog.getEventByNumber(tpe.getEventNumber());
-                if (!tpe.eventCompare(measurementEvent)) {
-                    supportEvents.add(tpe);
-                    livelogEvents.add(measurementEvent);
-                }
-            }
+            TCGEventLogDiff diff = new TCGEventLogDiff(supportLog.getEventList(),
+                    measurementLog.getEventList());
+            supportEvents.addAll(diff.getMismatchedReferenceEvents());
+            livelogEvents.addAll(diff.getMismatchedEvents());
         }
 
         data.put("supportEvents", supportEvents);
@@ -193,6 +193,7 @@ public class ReferenceManifestPageController
         boolean supportRIM = false;
         BaseReferenceManifest base;
         SupportReferenceManifest support;
+        Set<BaseReferenceManifest> baseRims = null;
 
         // loop through the files
         for (MultipartFile file : files) {
@@ -206,12 +207,15 @@ public class ReferenceManifestPageController
             //Store only if it was parsed
             if (rim != null) {
                 if (supportRIM) {
-                    // look for associated base/support
-                    Set<BaseReferenceManifest> rims = BaseReferenceManifest
-                            .select(referenceManifestManager).getRIMs();
+                    // look for associated base/support, reusing the base RIMs and their
+                    // parsed payloads until another base RIM is uploaded
+                    if (baseRims == null) {
+                        baseRims = BaseReferenceManifest
+                                .select(referenceManifestManager).getRIMs();
+                    }
                     support = (SupportReferenceManifest) rim;
                     // update information for associated support rim
-                    for (BaseReferenceManifest dbRim : rims) {
+                    for (BaseReferenceManifest dbRim : baseRims) {
                         for (SwidResource swid : dbRim.parseResource()) {
                             if (swid.getName().equals(rim.getFileName())) {
                                 support.setSwidTagVersion(dbRim.getSwidTagVersion());
@@ -226,6 +230,7 @@ public class ReferenceManifestPageController
                     }
                 } else {
                     base = (BaseReferenceManifest) rim;
+                    baseRims = null;
 
                     for (SwidResource swid : base.parseResource()) {
                         support = SupportReferenceManifest.select(referenceManifestManager)
@@ -443,14 +448,26 @@ public class ReferenceManifestPageController
                 existingManifest = SupportReferenceManifest
                         .select(referenceManifestManager)
                         .includeArchived()
-                        .byHashCode(referenceManifest.getRimHash())
+                        .byRimDigest(referenceManifest.getRimDigest())
                         .getRIM();
+                if (existingManifest == null) {
+                    existingManifest = SupportReferenceManifest
+                            .select(referenceManifestManager)
+                            .includeArchived()
+                            .getLegacyRIM(referenceManifest.getRimBytes());
+                }
             } else {
                 existingManifest = BaseReferenceManifest
                         .select(referenceManifestManager)
                         .includeArchived()
-                        .byHashCode(referenceManifest.getRimHash())
+                        .byRimDigest(referenceManifest.getRimDigest())
                         .getRIM();
+                if (existingManifest == null) {
+                    existingManifest = BaseReferenceManifest
+                            .select(referenceManifestManager)
+                            .includeArchived()
+                            .getLegacyRIM(referenceManifest.getRimBytes());
+                }
             }
         } catch (DBManagerException e) {
             final String failMessage = String.format("Querying for existing certificate "
@@ -479,6 +496,10 @@ public class ReferenceManifestPageController
         }
 
         try {
+            // RIMs stored before digests were recorded are only found by their contents, so
+            // record the digest of such a RIM for the next upload to find
+            boolean digestRecorded = existingManifest.backfillRimDigest();
+
             // if an identical RIM is archived, update the existing RIM to
             // unarchive it and change the creation date
             if (existingManifest.isArchived()) {
@@ -490,6 +511,8 @@ public class ReferenceManifestPageController
                         = String.format("Pre-existing RIM found and unarchived (%s): ", fileName);
                 messages.addSuccess(successMsg);
                 LOGGER.info(successMsg);
+            } else if (digestRecorded) {
+                referenceManifestManager.update(existingManifest);
             }
         } catch (DBManagerException dbmEx) {
             final String failMessage = String.format("Found an identical pre-existing RIM in the "
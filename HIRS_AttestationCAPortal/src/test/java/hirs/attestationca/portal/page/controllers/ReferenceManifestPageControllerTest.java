@@ -8,6 +8,8 @@ import hirs.attestationca.portal.page.PageControllerTest;
 import hirs.attestationca.portal.page.PageMessages;
 import java.io.IOException;
 import java.util.Set;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.mock.web.MockMultipartFile;
@@ -33,6 +35,8 @@ public class ReferenceManifestPageControllerTest extends PageControllerTest {
 
     @Autowired
     private ReferenceManifestManager referenceManifestManager;
+    @Autowired
+    private SessionFactory sessionFactory;
     private MockMultipartFile validRimFile;
     private MockMultipartFile nonValidRimFile;
 
@@ -148,6 +152,43 @@ public class ReferenceManifestPageControllerTest extends PageControllerTest {
         Assert.assertTrue(newRim.getCreateTime().getTime() > rim.getCreateTime().getTime());
     }
 
+    /**
+     * Tests that uploading a RIM that was stored before RIM digests were recorded finds the
+     * stored RIM by its contents, instead of storing it again, and records its digest.
+     *
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    @Rollback
+    public void uploadFindsRimWithoutDigest() throws Exception {
+        ReferenceManifest rim = uploadTestRim();
+        Session session = sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            session.createQuery("update ReferenceManifest set rimDigest = null").executeUpdate();
+            session.getTransaction().commit();
+        } finally {
+            session.close();
+        }
+        Assert.assertNull(BaseReferenceManifest.select(referenceManifestManager)
+                .byRimDigest(rim.getRimDigest())
+                .getRIM());
+
+        // upload the same RIM again
+        getMockMvc().perform(MockMvcRequestBuilders
+                .fileUpload("/reference-manifests/upload")
+                .file(validRimFile))
+                .andExpect(status().is3xxRedirection())
+                .andReturn();
+
+        Set<ReferenceManifest> records = referenceManifestManager.get(BaseReferenceManifest
+                .select(referenceManifestManager).includeArchived());
+        Assert.assertEquals(records.size(), 1);
+        ReferenceManifest storedRim = records.iterator().next();
+        Assert.assertEquals(storedRim.getId(), rim.getId());
+        Assert.assertEquals(storedRim.getRimDigest(), rim.getRimDigest());
+    }
+
     private ReferenceManifest uploadTestRim() throws Exception {
         MvcResult result = getMockMvc().perform(MockMvcRequestBuilders
                 .fileUpload("/reference-manifests/upload")
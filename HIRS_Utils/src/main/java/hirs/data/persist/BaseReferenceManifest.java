@@ -1,8 +1,8 @@
 package hirs.data.persist;
 
-import hirs.persist.DBReferenceManifestManager;
 import hirs.persist.ReferenceManifestManager;
 import hirs.persist.ReferenceManifestSelector;
+import hirs.utils.SwidTagSchema;
 import hirs.utils.xjc.BaseElement;
 import hirs.utils.xjc.Directory;
 import hirs.utils.xjc.FilesystemItem;
@@ -15,17 +15,15 @@ import org.apache.logging.log4j.Logger;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.UnmarshalException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
-import javax.xml.validation.Schema;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -36,8 +34,6 @@ import java.util.Map;
 public class BaseReferenceManifest extends ReferenceManifest {
     private static final Logger LOGGER = LogManager.getLogger(BaseReferenceManifest.class);
 
-    private static JAXBContext jaxbContext;
-
     @Column
     private String swidName = null;
     @Column
@@ -78,6 +74,9 @@ public class BaseReferenceManifest extends ReferenceManifest {
     private String linkHref = null;
     private String linkRel = null;
 
+    // parsed payload of the swidtag, so it is only unmarshalled once per instance
+    private transient List<SwidResource> resources = null;
+
     /**
      * This class enables the retrieval of BaseReferenceManifest by their attributes.
      */
@@ -156,6 +155,7 @@ public class BaseReferenceManifest extends ReferenceManifest {
 
         // begin parsing valid swid tag
         if (si != null) {
+            this.resources = Collections.emptyList();
             setTagId(si.getTagId());
             this.swidName = si.getName();
             this.swidCorpus = si.isCorpus() ? 1 : 0;
@@ -197,7 +197,8 @@ public class BaseReferenceManifest extends ReferenceManifest {
                             }
                             break;
                         case "Payload":
-                            parseResource((ResourceCollection) element.getValue());
+                            this.resources = parseResource(
+                                    (ResourceCollection) element.getValue());
                             break;
                         case "Signature":
                             // left blank for a followup issue enhancement
@@ -277,12 +278,17 @@ public class BaseReferenceManifest extends ReferenceManifest {
     }
 
     /**
-     * Default method for parsing the payload element.
+     * Default method for parsing the payload element. The payload is only parsed the first
+     * time this is called on an instance.
      *
      * @return a collection of payload objects.
      */
     public final List<SwidResource> parseResource() {
-        return parseResource((ResourceCollection) this.getBaseElementFromBytes("Payload"));
+        if (resources == null) {
+            resources = parseResource(
+                    (ResourceCollection) this.getBaseElementFromBytes("Payload"));
+        }
+        return new ArrayList<>(resources);
     }
 
     /**
@@ -292,7 +298,7 @@ public class BaseReferenceManifest extends ReferenceManifest {
      * @return a collection of payload objects.
      */
     public final List<SwidResource> parseResource(final ResourceCollection rc) {
-        List<SwidResource> resources = new ArrayList<>();
+        List<SwidResource> parsedResources = new ArrayList<>();
 
         try {
             if (rc != null) {
@@ -302,12 +308,13 @@ public class BaseReferenceManifest extends ReferenceManifest {
                             Directory directory = (Directory) meta;
                             for (FilesystemItem fsi : directory.getDirectoryOrFile()) {
                                 if (fsi != null) {
-                                    resources.add(new SwidResource(
+                                    parsedResources.add(new SwidResource(
                                             (hirs.utils.xjc.File) fsi, null));
                                 }
                             }
                         } else if (meta instanceof hirs.utils.xjc.File) {
-                            resources.add(new SwidResource((hirs.utils.xjc.File) meta, null));
+                            parsedResources.add(new SwidResource(
+                                    (hirs.utils.xjc.File) meta, null));
                         }
                     }
                 }
@@ -318,7 +325,7 @@ public class BaseReferenceManifest extends ReferenceManifest {
                     + "particular formatting of this SwidTag's Payload.");
         }
 
-        return resources;
+        return parsedResources;
     }
 
     /**
@@ -331,16 +338,9 @@ public class BaseReferenceManifest extends ReferenceManifest {
      */
     private JAXBElement unmarshallSwidTag(final InputStream stream) throws IOException {
         JAXBElement jaxbe = null;
-        Schema schema;
 
         try {
-            schema = DBReferenceManifestManager.getSchemaObject();
-            if (jaxbContext == null) {
-                jaxbContext = JAXBContext.newInstance(SCHEMA_PACKAGE);
-            }
-            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-            unmarshaller.setSchema(schema);
-            jaxbe = (JAXBElement) unmarshaller.unmarshal(stream);
+            jaxbe = (JAXBElement) SwidTagSchema.unmarshal(stream);
         } catch (UnmarshalException umEx) {
             LOGGER.error(String.format("Error validating swidtag file!%n%s%n%s",
                     umEx.getMessage(), umEx.toString()));
@@ -90,9 +90,10 @@ public class DeviceGroup extends UserDefinedEntity {
         return new ScheduledJobInfo(DEFAULT_JOB_FREQUENCY_MS);
     }
 
+    // merges are not cascaded to the devices, as a group's copies of its devices may be stale
+    // and would overwrite concurrent updates made to those devices
     @JsonIgnore
-    @OneToMany(cascade = { CascadeType.PERSIST, CascadeType.MERGE },
-            fetch = FetchType.EAGER, mappedBy = "deviceGroup")
+    @OneToMany(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER, mappedBy = "deviceGroup")
     private final Set<Device> devices = new HashSet<>();
 
     @Column(nullable = false)
@@ -1,5 +1,6 @@
 package hirs.data.persist;
 
+import hirs.data.persist.info.ComponentInfo;
 import hirs.data.persist.info.NetworkInfo;
 import hirs.data.persist.info.OSInfo;
 import hirs.data.persist.info.HardwareInfo;
@@ -8,9 +9,13 @@ import hirs.data.persist.info.FirmwareInfo;
 import hirs.data.persist.baseline.TpmWhiteListBaseline;
 import static org.apache.logging.log4j.LogManager.getLogger;
 
+import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderColumn;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -21,7 +26,11 @@ import javax.xml.bind.annotation.XmlSeeAlso;
 import hirs.utils.VersionHelper;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * A <code>DeficeInfoReport</code> is a <code>Report</code> used to transfer the
@@ -81,6 +90,11 @@ public class DeviceInfoReport extends Report implements Serializable {
     @Transient
     private String paccorOutputString;
 
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER,
+            targetEntity = ComponentInfo.class, orphanRemoval = true)
+    @OrderColumn(name = "paccorComponentIndex")
+    private List<ComponentInfo> paccorComponents = new ArrayList<>();
+
     /**
      * Default constructor necessary for marshalling/unmarshalling.
      */
@@ -315,10 +329,41 @@ public class DeviceInfoReport extends Report implements Serializable {
     }
 
     /**
-     * Set the string returned from PACCOR's allcomponents.sh script.
+     * Set the string returned from PACCOR's allcomponents.sh script, and parse the components
+     * it lists. If the string can't be parsed, the report has no components, and the error is
+     * reported when the components are validated.
      * @param paccorOutputString the string returned from PACCOR's allcomponents.sh script
      */
     public void setPaccorOutputString(String paccorOutputString) {
         this.paccorOutputString = paccorOutputString;
+        paccorComponents.clear();
+        try {
+            paccorComponents.addAll(ComponentInfo.fromPaccorOutput(paccorOutputString));
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.warn("Could not parse the components of the PACCOR output: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the components listed in the string returned from PACCOR's allcomponents.sh script,
+     * which are parsed when the string is set and stored with this report.
+     * @return unmodifiable list of the components, which is empty if there are none
+     */
+    public List<ComponentInfo> getPaccorComponents() {
+        return Collections.unmodifiableList(paccorComponents);
+    }
+
+    /**
+     * Set the components of this report to copies of the given components, such as those of an
+     * earlier report of the same device whose PACCOR output is no longer available.
+     * @param components the components to copy into this report
+     */
+    public void setPaccorComponents(final List<ComponentInfo> components) {
+        paccorComponents.clear();
+        for (ComponentInfo component : components) {
+            paccorComponents.add(new ComponentInfo(component.getComponentManufacturer(),
+                    component.getComponentModel(), component.getComponentSerial(),
+                    component.getComponentRevision()));
+        }
     }
 }
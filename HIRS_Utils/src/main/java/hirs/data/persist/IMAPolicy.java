@@ -6,6 +6,7 @@ import hirs.data.persist.baseline.ImaBaseline;
 import hirs.data.persist.baseline.ImaAcceptableRecordBaseline;
 import hirs.data.persist.baseline.HasBaselines;
 import hirs.data.persist.baseline.Baseline;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import org.apache.logging.log4j.LogManager;
@@ -24,6 +25,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 
 /**
@@ -50,6 +52,7 @@ public class IMAPolicy extends Policy implements HasBaselines {
     private static final boolean DEFAULT_PCR_VALIDATION = false;
     private static final boolean DEFAULT_DELTA_REPORT_POLICY = true;
     private static final boolean DEFAULT_PARTIAL_PATH_POLICY = true;
+    private static final int FINGERPRINT_PRIME = 31;
 
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "Whitelists",
@@ -91,6 +94,9 @@ public class IMAPolicy extends Policy implements HasBaselines {
     @Transient
     private Multimap<String, String> pathEquivalences = null;
 
+    @Transient
+    private PathEquivalenceTrie pathEquivalenceTrie = null;
+
     /**
      * Constructor used to initialize IMAPolicy object.
      *
@@ -486,4 +492,47 @@ public class IMAPolicy extends Policy implements HasBaselines {
         this.pathEquivalences = bidirectionalEquivalences;
         return this.pathEquivalences;
     }
+
+    /**
+     * Returns the path equivalences of this policy, as returned by
+     * {@link #getPathEquivalences()}, compiled into a prefix trie. The trie is built once and
+     * reused, so that finding the paths equivalent to a path does not visit every equivalence.
+     *
+     * @return the compiled path equivalences
+     */
+    public final synchronized PathEquivalenceTrie getPathEquivalenceTrie() {
+        if (pathEquivalenceTrie == null) {
+            pathEquivalenceTrie = new PathEquivalenceTrie(getPathEquivalences());
+        }
+        return pathEquivalenceTrie;
+    }
+
+    /**
+     * Returns a fingerprint of the baselines of this policy, the role of each, and the settings
+     * that determine how measurement records are appraised against them.  The fingerprint
+     * changes whenever the baselines are changed or replaced, so a measurement record that was
+     * appraised under this policy need not be appraised again while it is unchanged.
+     *
+     * @return the fingerprint of this policy's baselines and settings
+     * @see ImaBaseline#getFingerprint()
+     */
+    @JsonIgnore
+    public final long getBaselineFingerprint() {
+        long fingerprint = Objects.hash(getId(), failOnUnknowns, validatePcr, partialPathEnable);
+        fingerprint = addBaselineFingerprints(fingerprint, getRequiredSets());
+        fingerprint = addBaselineFingerprints(fingerprint, getWhitelists());
+        fingerprint = addBaselineFingerprints(fingerprint, getBlacklists());
+        fingerprint = addBaselineFingerprints(fingerprint, getIgnoreSets());
+        return fingerprint;
+    }
+
+    private static long addBaselineFingerprints(final long fingerprint,
+                                                final List<? extends ImaBaseline<?>> baselines) {
+        long result = fingerprint * FINGERPRINT_PRIME + baselines.size();
+        for (ImaBaseline<?> baseline : baselines) {
+            result = result * FINGERPRINT_PRIME + Objects.hashCode(baseline.getId());
+            result = result * FINGERPRINT_PRIME + baseline.getFingerprint();
+        }
+        return result;
+    }
 }
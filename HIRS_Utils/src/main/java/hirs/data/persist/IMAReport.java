@@ -28,6 +28,13 @@ import static org.apache.logging.log4j.LogManager.getLogger;
  * based upon the order in which the files were measured. The ordering is
  * important because the TPM hash value can only be verified if the order is
  * correct.
+ * <p>
+ * The records are loaded lazily, so a report read from the database must
+ * either be read with {@link hirs.persist.ReportManager#getCompleteReport(java.util.UUID)}
+ * or still be attached to its session before its records are read or the
+ * report is serialized to XML. Otherwise, the records of a report are best
+ * streamed with {@link hirs.persist.ReportManager#iterateOverImaRecords} and
+ * counted with {@link hirs.persist.ReportManager#getImaRecordCount(java.util.UUID)}.
  */
 @XmlAccessorType(XmlAccessType.NONE)
 @XmlRootElement
@@ -47,7 +54,7 @@ public class IMAReport extends Report {
     private int index;
 
     @XmlElement
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER,
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY,
             mappedBy = "report")
     @Access(AccessType.FIELD)
     @JsonIgnore
@@ -136,7 +143,12 @@ public class IMAReport extends Report {
      * Gets the list of IMA records.  The <code>IMAMeasurementRecords</code> are
      * lazily loaded and this method will have to be called within a transaction
      * in order to properly load and return all of the records related to the
-     * report.
+     * report, or on a report read with
+     * {@link hirs.persist.ReportManager#getCompleteReport(java.util.UUID)}.
+     * Otherwise, a <code>LazyInitializationException</code> is thrown; the
+     * records of such a report can be streamed with
+     * {@link hirs.persist.ReportManager#iterateOverImaRecords} instead, which
+     * also avoids holding all of them in memory.
      *
      * @return list of IMA measurement records
      */
@@ -186,7 +198,11 @@ public class IMAReport extends Report {
     }
 
     /**
-     * Method returns the number of records in the IMA report.
+     * Method returns the number of records in the IMA report.  Like
+     * {@link #getRecords()}, this loads the lazily loaded records, so the
+     * records of a report that is no longer attached to a session are counted
+     * with {@link hirs.persist.ReportManager#getImaRecordCount(java.util.UUID)}
+     * instead.
      * @return the number of records found in the IMA Report
      */
     public int getRecordCount() {
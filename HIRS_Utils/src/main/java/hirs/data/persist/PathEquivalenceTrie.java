@@ -0,0 +1,78 @@
+package hirs.data.persist;
+
+import com.google.common.collect.Multimap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The path equivalences of an {@link IMAPolicy} compiled into a prefix trie of directory paths.
+ * Finding the paths equivalent to a file path walks the trie once along the path, so it takes
+ * time proportional to the length of the path rather than to the number of equivalence rules,
+ * and does not compile or evaluate any regular expressions.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class PathEquivalenceTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * A node of the trie, reached by following the characters of a directory path from the root.
+     */
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private List<String> equivalentPrefixes = Collections.emptyList();
+    }
+
+    /**
+     * Compiles the given path equivalences into a trie.
+     *
+     * @param pathEquivalences a Multimap relating each directory to its equivalent directories,
+     *                         as returned by {@link IMAPolicy#getPathEquivalences()}
+     */
+    public PathEquivalenceTrie(final Multimap<String, String> pathEquivalences) {
+        for (Map.Entry<String, Collection<String>> equivalence
+                : pathEquivalences.asMap().entrySet()) {
+            Node node = root;
+            for (char c : equivalence.getKey().toCharArray()) {
+                Node child = node.children.get(c);
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            node.equivalentPrefixes = Collections.unmodifiableList(
+                    new ArrayList<>(equivalence.getValue()));
+        }
+    }
+
+    /**
+     * Adds the paths that are equivalent to the given path to a collection. A path is equivalent
+     * if it is the given path with a leading directory replaced by one of that directory's
+     * equivalent directories. The given path itself is not added.
+     *
+     * @param path the path whose equivalent paths should be found
+     * @param equivalentPaths the collection to add the equivalent paths to
+     */
+    public void addEquivalentPaths(final String path, final Collection<String> equivalentPaths) {
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.children.get(path.charAt(i));
+            if (node == null) {
+                return;
+            }
+            if (!node.equivalentPrefixes.isEmpty()) {
+                String remainder = path.substring(i + 1);
+                for (String equivalentPrefix : node.equivalentPrefixes) {
+                    equivalentPaths.add(equivalentPrefix.concat(remainder));
+                }
+            }
+        }
+    }
+}
@@ -6,9 +6,11 @@ import javax.persistence.Access;
 import javax.persistence.AccessType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.Preconditions;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.annotations.Type;
@@ -24,7 +26,8 @@ import javax.xml.bind.annotation.XmlRootElement;
  * loaded into the DB and displayed in the ACA.
  */
 @Entity
-@Table(name = "ReferenceManifest")
+@Table(name = "ReferenceManifest",
+        indexes = { @Index(name = "rim_digest_index", columnList = "rimDigest") })
 @XmlRootElement(name = "ReferenceManifest")
 @XmlAccessorType(XmlAccessType.FIELD)
 @Access(AccessType.FIELD)
@@ -61,6 +64,7 @@ public abstract class ReferenceManifest extends ArchivableEntity {
     public static final String SCHEMA_PACKAGE = "hirs.utils.xjc";
 
     private static final Logger LOGGER = LogManager.getLogger(ReferenceManifest.class);
+    private static final int DIGEST_HEX_LENGTH = 64;
 
     /**
      * Holds the name of the 'rimHash' field.
@@ -69,6 +73,13 @@ public abstract class ReferenceManifest extends ArchivableEntity {
     @Column(nullable = false)
     @JsonIgnore
     private final int rimHash;
+    /**
+     * Holds the name of the 'rimDigest' field.
+     */
+    public static final String RIM_DIGEST_FIELD = "rimDigest";
+    @Column(length = DIGEST_HEX_LENGTH)
+    @JsonIgnore
+    private String rimDigest;
     @Column(columnDefinition = "blob", nullable = false)
     @JsonIgnore
     private byte[] rimBytes;
@@ -97,6 +108,7 @@ public abstract class ReferenceManifest extends ArchivableEntity {
         super();
         this.rimBytes = null;
         this.rimHash = 0;
+        this.rimDigest = null;
         this.rimType = null;
         this.platformManufacturer = null;
         this.platformManufacturerId = null;
@@ -119,6 +131,7 @@ public abstract class ReferenceManifest extends ArchivableEntity {
 
         this.rimBytes = rimBytes.clone();
         this.rimHash = Arrays.hashCode(this.rimBytes);
+        this.rimDigest = DigestUtils.sha256Hex(this.rimBytes);
     }
 
     /**
@@ -283,6 +296,31 @@ public abstract class ReferenceManifest extends ArchivableEntity {
         return rimHash;
     }
 
+    /**
+     * Getter for the SHA-256 digest of the Reference Integrity Manifest bytes, used to look up
+     * a stored RIM by its contents.
+     *
+     * @return the digest as a lowercase hex string, or null for RIMs stored before the digest
+     * was recorded
+     */
+    public String getRimDigest() {
+        return rimDigest;
+    }
+
+    /**
+     * Records the SHA-256 digest of the bytes of a RIM stored before the digest was recorded,
+     * so that it can be looked up by its digest once it is updated.
+     *
+     * @return true if the digest was missing and has been recorded, false if it was already set
+     */
+    public boolean backfillRimDigest() {
+        if (rimDigest != null) {
+            return false;
+        }
+        rimDigest = DigestUtils.sha256Hex(rimBytes);
+        return true;
+    }
+
     @Override
     public int hashCode() {
         return getRimHash();
@@ -3,7 +3,7 @@ package hirs.data.persist;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import hirs.persist.ReferenceManifestManager;
 import hirs.persist.ReferenceManifestSelector;
-import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogCache;
 import hirs.tpm.eventlog.TpmPcrEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -133,9 +133,9 @@ public class SupportReferenceManifest extends ReferenceManifest {
      */
     public String[] getExpectedPCRList() {
         try {
-            TCGEventLog logProcessor = new TCGEventLog(this.getRimBytes());
-            this.pcrHash = Arrays.hashCode(logProcessor.getExpectedPCRValues());
-            return logProcessor.getExpectedPCRValues();
+            String[] expectedPcrs = TCGEventLogCache.getExpectedPCRValues(this.getRimBytes());
+            this.pcrHash = Arrays.hashCode(expectedPcrs);
+            return expectedPcrs;
         } catch (CertificateException cEx) {
             LOGGER.error(cEx);
         } catch (NoSuchAlgorithmException noSaEx) {
@@ -149,14 +149,13 @@ public class SupportReferenceManifest extends ReferenceManifest {
 
     /**
      * Getter method for the event log that should be present in the support RIM.
+     * The events are shared through the {@link TCGEventLogCache} and are unmodifiable.
      *
      * @return list of TPM PCR Events for display
      */
     public Collection<TpmPcrEvent> getEventLog() {
-        TCGEventLog logProcessor = null;
         try {
-            logProcessor = new TCGEventLog(this.getRimBytes());
-            return logProcessor.getEventList();
+            return TCGEventLogCache.getEventLog(this.getRimBytes()).getEventList();
         } catch (CertificateException cEx) {
             LOGGER.error(cEx);
         } catch (NoSuchAlgorithmException noSaEx) {
@@ -118,7 +118,8 @@ public class BroadRepoImaBaseline extends QueryableRecordImaBaseline
     }
 
     @Override
-    public void configureCriteriaForBaselineRecords(final Criteria criteria, final int bucket) {
+    public void configureCriteriaForBaselineRecords(final Criteria criteria, final int shard,
+                                                    final int shardCount) {
         criteria.add(Restrictions.eq("id", getId()))
                 .setProjection(Projections.projectionList()
                         .add(Projections.property(
@@ -133,11 +134,11 @@ public class BroadRepoImaBaseline extends QueryableRecordImaBaseline
                                 ), IMABaselineRecord.HASH_FIELD)
                 );
 
-        criteria.add(Restrictions.eq(
+        criteria.add(Restrictions.in(
                 String.format("%s.%s",
                         RepoPackage.PACKAGE_RECORDS_FIELD,
                         IMABaselineRecord.BUCKET_FIELD),
-                bucket)
+                IMABaselineRecord.getBucketsOfShard(shard, shardCount))
         );
         criteria.createAlias(REPO_PACKAGES_FIELD, REPO_PACKAGES_FIELD);
         criteria.createAlias(
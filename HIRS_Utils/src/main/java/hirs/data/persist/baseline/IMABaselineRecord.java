@@ -1,5 +1,7 @@
 package hirs.data.persist.baseline;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,9 +30,11 @@ public class IMABaselineRecord extends AbstractImaBaselineRecord {
      * IMABaselineRecords are randomly assigned buckets based on a hash of their path.  These
      * bucket values are used to artificially segment the baseline into equal divisions for
      * simultaneous multithreaded retrieval.  This defines the number of distinct bucket values that
-     * will be used in this process.
+     * will be used in this process.  Retrieval is split into shards of several buckets each (see
+     * {@link #getBucketsOfShard(int, int)}), so this is the largest number of shards a baseline
+     * can be retrieved in.
      */
-    public static final int FILENAME_HASH_BUCKET_COUNT = 4;
+    public static final int FILENAME_HASH_BUCKET_COUNT = 256;
 
     /**
      * Holds the name of the 'bucket' field.
@@ -87,13 +91,35 @@ public class IMABaselineRecord extends AbstractImaBaselineRecord {
      * @param path the path to hash
      * @return the hash of the path
      */
-    private static int getBucket(final String path) {
+    public static int getBucket(final String path) {
         if (path == null) {
             throw new IllegalArgumentException("Cannot get bucket for null value");
         }
         return Math.abs(getPartialPath(path).hashCode()) % FILENAME_HASH_BUCKET_COUNT;
     }
 
+    /**
+     * Returns the buckets that make up one shard when the buckets are split into the given
+     * number of shards.  Every bucket is in exactly one shard, so records saved with a bucket
+     * computed under an earlier, smaller {@link #FILENAME_HASH_BUCKET_COUNT} are still retrieved,
+     * though they are spread over fewer shards.
+     *
+     * @param shard the shard, from 0 to <code>shardCount - 1</code>
+     * @param shardCount the number of shards, from 1 to {@link #FILENAME_HASH_BUCKET_COUNT}
+     * @return the buckets in the shard
+     */
+    public static List<Integer> getBucketsOfShard(final int shard, final int shardCount) {
+        Preconditions.checkArgument(shardCount > 0 && shardCount <= FILENAME_HASH_BUCKET_COUNT,
+                "shardCount must be between 1 and %s", FILENAME_HASH_BUCKET_COUNT);
+        Preconditions.checkArgument(shard >= 0 && shard < shardCount,
+                "shard must be between 0 and %s", shardCount - 1);
+        List<Integer> buckets = new ArrayList<>();
+        for (int bucket = shard; bucket < FILENAME_HASH_BUCKET_COUNT; bucket += shardCount) {
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
     /**
      * Default constructor necessary for Hibernate.
      */
@@ -1,5 +1,6 @@
 package hirs.data.persist.baseline;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import hirs.data.persist.IMAMeasurementRecord;
 import hirs.data.persist.IMAPolicy;
 import hirs.ima.matching.BatchImaMatchStatus;
@@ -10,6 +11,7 @@ import javax.persistence.Access;
 import javax.persistence.AccessType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 
@@ -25,6 +27,9 @@ import java.util.Date;
 @Entity
 @Access(AccessType.FIELD)
 public abstract class ImaBaseline<T extends AbstractImaBaselineRecord> extends Baseline {
+    private static final long MIX_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final int MIX_SHIFT = 32;
+
     @Column
     @Type(type = "timestamp")
     private Date date;
@@ -85,6 +90,50 @@ public abstract class ImaBaseline<T extends AbstractImaBaselineRecord> extends B
             IMAPolicy imaPolicy
     );
 
+    /**
+     * Returns a fingerprint of the records of this baseline, which changes whenever records are
+     * added to or removed from it.  An appraisal result that depends only on this baseline's
+     * records remains valid for as long as its fingerprint is unchanged.
+     *
+     * @return the fingerprint of this baseline's records
+     */
+    @JsonIgnore
+    public abstract long getFingerprint();
+
+    /**
+     * Computes a fingerprint of the paths and hashes of a collection of records that does not
+     * depend on the order of the records.
+     *
+     * @param records the records to fingerprint
+     * @return the fingerprint of the records
+     */
+    public static long getFingerprint(
+            final Collection<? extends AbstractImaBaselineRecord> records) {
+        long fingerprint = records.size();
+        for (AbstractImaBaselineRecord record : records) {
+            long hash = 0;
+            if (record.getPath() != null) {
+                hash = record.getPath().hashCode();
+            }
+            if (record.getHash() != null) {
+                hash = hash * MIX_MULTIPLIER + Arrays.hashCode(record.getHash().getDigest());
+            }
+            fingerprint += mix(hash);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Scrambles the bits of a value, so that sums of scrambled values are unlikely to collide.
+     *
+     * @param value the value to scramble
+     * @return the scrambled value
+     */
+    protected static long mix(final long value) {
+        long hash = value * MIX_MULTIPLIER;
+        return hash ^ (hash >>> MIX_SHIFT);
+    }
+
     /**
      * Set this <code>IMABaselines</code>'s <code>date</code>, which can either
      * be the date that it was added, or some other date such as the patch date
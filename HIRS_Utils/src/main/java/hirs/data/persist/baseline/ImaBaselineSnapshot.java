@@ -0,0 +1,215 @@
+package hirs.data.persist.baseline;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import hirs.data.persist.Digest;
+import hirs.repository.RepoPackage;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * An immutable, in-memory copy of the {@link IMABaselineRecord}s of a
+ * {@link QueryableRecordImaBaseline}, indexed by path, partial path and hash. Appraisals look up
+ * the records related to the measurements of a report in the snapshot, instead of reading every
+ * record of the baseline from the database.
+ * <p>
+ * The records of a baseline are the measurements of its <code>RepoPackage</code>s, which do not
+ * change once a package has been measured. A snapshot therefore keeps the records of each
+ * package along with the date the package was measured, so that refreshing it after the
+ * packages of its baseline have changed only requires the records of the packages that were
+ * added or measured since.
+ */
+public final class ImaBaselineSnapshot {
+
+    private static final long UNMEASURED = -1;
+
+    private static final ImaBaselineSnapshot EMPTY = new ImaBaselineSnapshot(0,
+            Collections.<UUID, Long>emptyMap(),
+            Collections.<UUID, Set<IMABaselineRecord>>emptyMap());
+
+    private final long version;
+    private final ImmutableMap<UUID, Long> packageVersions;
+    private final ImmutableMap<UUID, Set<IMABaselineRecord>> packageRecords;
+    private final ImmutableSet<IMABaselineRecord> records;
+    private final ImmutableSetMultimap<String, IMABaselineRecord> recordsByPath;
+    private final ImmutableSetMultimap<String, IMABaselineRecord> recordsByPartialPath;
+    private final ImmutableSetMultimap<Digest, IMABaselineRecord> recordsByHash;
+
+    private ImaBaselineSnapshot(final long version, final Map<UUID, Long> packageVersions,
+                                final Map<UUID, Set<IMABaselineRecord>> packageRecords) {
+        this.version = version;
+        this.packageVersions = ImmutableMap.copyOf(packageVersions);
+        this.packageRecords = ImmutableMap.copyOf(packageRecords);
+
+        ImmutableSet.Builder<IMABaselineRecord> recordsBuilder = ImmutableSet.builder();
+        ImmutableSetMultimap.Builder<String, IMABaselineRecord> pathBuilder =
+                ImmutableSetMultimap.builder();
+        ImmutableSetMultimap.Builder<String, IMABaselineRecord> partialPathBuilder =
+                ImmutableSetMultimap.builder();
+        ImmutableSetMultimap.Builder<Digest, IMABaselineRecord> hashBuilder =
+                ImmutableSetMultimap.builder();
+        for (Set<IMABaselineRecord> recordsOfPackage : packageRecords.values()) {
+            for (IMABaselineRecord record : recordsOfPackage) {
+                recordsBuilder.add(record);
+                if (record.getPath() != null) {
+                    pathBuilder.put(record.getPath(), record);
+                    partialPathBuilder.put(record.getPartialPath(), record);
+                }
+                if (record.getHash() != null) {
+                    hashBuilder.put(record.getHash(), record);
+                }
+            }
+        }
+        this.records = recordsBuilder.build();
+        this.recordsByPath = pathBuilder.build();
+        this.recordsByPartialPath = partialPathBuilder.build();
+        this.recordsByHash = hashBuilder.build();
+    }
+
+    /**
+     * Returns a snapshot of a baseline without any packages, from which the snapshot of a
+     * baseline can be refreshed the first time it is used.
+     *
+     * @return an empty snapshot
+     */
+    public static ImaBaselineSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the version of this snapshot, which increases each time a snapshot is refreshed.
+     *
+     * @return the version of this snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of distinct records in this snapshot.
+     *
+     * @return the number of records
+     */
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * Returns the ids of the given packages whose records are not in this snapshot, either
+     * because they were added to the baseline or because they have been measured since this
+     * snapshot was taken.
+     *
+     * @param packages the current packages of the baseline
+     * @return the ids of the packages whose records must be read to refresh this snapshot
+     */
+    public Set<UUID> getChangedPackages(final Collection<RepoPackage> packages) {
+        Set<UUID> changedPackages = new HashSet<>();
+        for (RepoPackage repoPackage : packages) {
+            UUID id = repoPackage.getId();
+            if (!packageVersions.containsKey(id)
+                    || packageVersions.get(id) != getPackageVersion(repoPackage)) {
+                changedPackages.add(id);
+            }
+        }
+        return changedPackages;
+    }
+
+    /**
+     * Determines whether this snapshot holds the records of exactly the given packages, as they
+     * are currently measured.
+     *
+     * @param packages the current packages of the baseline
+     * @return true if this snapshot does not need to be refreshed
+     */
+    public boolean isCurrent(final Collection<RepoPackage> packages) {
+        return packages.size() == packageVersions.size()
+                && getChangedPackages(packages).isEmpty();
+    }
+
+    /**
+     * Creates a new snapshot holding the records of the given packages. The records of packages
+     * that have not changed since this snapshot was taken are reused, and the records of the
+     * packages returned by {@link #getChangedPackages(Collection)} must be given.
+     *
+     * @param packages the current packages of the baseline
+     * @param changedPackageRecords the records of each changed package
+     * @return the refreshed snapshot
+     */
+    public ImaBaselineSnapshot refresh(final Collection<RepoPackage> packages,
+            final Map<UUID, ? extends Collection<IMABaselineRecord>> changedPackageRecords) {
+        Map<UUID, Long> newVersions = new HashMap<>();
+        Map<UUID, Set<IMABaselineRecord>> newRecords = new HashMap<>();
+        for (RepoPackage repoPackage : packages) {
+            UUID id = repoPackage.getId();
+            newVersions.put(id, getPackageVersion(repoPackage));
+            if (changedPackageRecords.containsKey(id)) {
+                newRecords.put(id, ImmutableSet.copyOf(changedPackageRecords.get(id)));
+            } else if (packageRecords.containsKey(id)) {
+                newRecords.put(id, packageRecords.get(id));
+            } else {
+                throw new IllegalArgumentException("Records of package " + id + " not given");
+            }
+        }
+        return new ImaBaselineSnapshot(version + 1, newVersions, newRecords);
+    }
+
+    /**
+     * Returns every distinct record in this snapshot.
+     *
+     * @return the records of this snapshot
+     */
+    public Set<IMABaselineRecord> getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the records whose path is one of the given paths, and, if partial paths are
+     * enabled, the records whose partial path (file name) is one of the given paths.
+     *
+     * @param paths the paths to look up
+     * @param partialPathEnable whether records should also be found by their partial path
+     * @return the matching records
+     */
+    public Set<IMABaselineRecord> getRecordsByPath(final Collection<String> paths,
+                                                   final boolean partialPathEnable) {
+        Set<IMABaselineRecord> matchingRecords = new LinkedHashSet<>();
+        for (String path : paths) {
+            matchingRecords.addAll(recordsByPath.get(path));
+            if (partialPathEnable) {
+                matchingRecords.addAll(recordsByPartialPath.get(path));
+            }
+        }
+        return matchingRecords;
+    }
+
+    /**
+     * Returns the records whose hash is one of the given hashes.
+     *
+     * @param hashes the hashes to look up
+     * @return the matching records
+     */
+    public Set<IMABaselineRecord> getRecordsByHash(final Collection<Digest> hashes) {
+        Set<IMABaselineRecord> matchingRecords = new LinkedHashSet<>();
+        for (Digest hash : hashes) {
+            matchingRecords.addAll(recordsByHash.get(hash));
+        }
+        return matchingRecords;
+    }
+
+    private static long getPackageVersion(final RepoPackage repoPackage) {
+        Date measurementDate = repoPackage.getMeasurementDate();
+        if (measurementDate == null) {
+            return UNMEASURED;
+        }
+        return measurementDate.getTime();
+    }
+}
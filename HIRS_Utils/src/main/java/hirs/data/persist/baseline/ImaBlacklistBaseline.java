@@ -7,12 +7,18 @@ import hirs.data.persist.IMAPolicy;
 import hirs.data.persist.ImaBlacklistRecord;
 import hirs.ima.matching.BatchImaMatchStatus;
 import hirs.ima.matching.ImaBlacklistRecordMatcher;
+import hirs.ima.matching.ImaRecordBloomFilter;
 import hirs.persist.ImaBaselineRecordManager;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.Lob;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -24,12 +30,28 @@ import java.util.Set;
  * filename, or a certain hash, or both.
  */
 @Entity
+@Access(AccessType.FIELD)
 public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
+    // large enough to hold the filter of several million records
+    private static final int MAX_RECORD_FILTER_SIZE = 16777215;
+
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER,
             orphanRemoval = true, mappedBy = "baseline")
     @JsonIgnore
     private Set<ImaBlacklistRecord> imaBlacklistRecords;
 
+    @Lob
+    @Column(nullable = true, length = MAX_RECORD_FILTER_SIZE)
+    @Access(AccessType.PROPERTY)
+    @JsonIgnore
+    private byte[] recordFilter;
+
+    @Transient
+    private ImaRecordBloomFilter bloomFilter;
+
+    @Transient
+    private Long fingerprint;
+
     /**
      * Construct a new ImaBlacklistBaseline.
      *
@@ -56,7 +78,16 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
         Preconditions.checkArgument(records != null, "Records cannot be null");
         Preconditions.checkArgument(imaPolicy != null, "IMA policy cannot be null");
         return new ImaBlacklistRecordMatcher(imaBlacklistRecords, imaPolicy, this)
-                .batchMatch(records);
+                .batchMatch(records, getBloomFilter());
+    }
+
+    @Override
+    @JsonIgnore
+    public final synchronized long getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = getFingerprint(imaBlacklistRecords);
+        }
+        return fingerprint;
     }
 
     /**
@@ -67,6 +98,7 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
      */
     public final boolean addToBaseline(final ImaBlacklistRecord record) {
         record.setBaseline(this);
+        invalidateRecordCaches();
         return imaBlacklistRecords.add(record);
     }
 
@@ -78,6 +110,7 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
      */
     public final boolean removeFromBaseline(final ImaBlacklistRecord record) {
         record.setBaseline(null);
+        invalidateRecordCaches();
         return imaBlacklistRecords.remove(record);
     }
 
@@ -88,6 +121,7 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
      */
     public final void setBaselineRecords(final Set<ImaBlacklistRecord> records) {
         Preconditions.checkNotNull(records);
+        invalidateRecordCaches();
         imaBlacklistRecords.clear();
         imaBlacklistRecords.addAll(records);
         for (ImaBlacklistRecord record : records) {
@@ -104,4 +138,51 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
     public final Set<ImaBlacklistRecord> getRecords() {
         return Collections.unmodifiableSet(imaBlacklistRecords);
     }
+
+    /**
+     * Returns the Bloom filter over the records of this baseline, which rules out most
+     * measurement records before they are looked up.  The filter is restored from the copy stored
+     * with this baseline when possible, and rebuilt after the records have changed.
+     *
+     * @return the filter over the records of this baseline
+     */
+    private synchronized ImaRecordBloomFilter getBloomFilter() {
+        if (bloomFilter == null) {
+            bloomFilter = ImaRecordBloomFilter.restore(recordFilter, imaBlacklistRecords, false);
+            recordFilter = null;
+        }
+        return bloomFilter;
+    }
+
+    /**
+     * Discards the Bloom filter and the fingerprint of the records, which are computed again
+     * when next needed.  Called whenever the records change.
+     */
+    private synchronized void invalidateRecordCaches() {
+        bloomFilter = null;
+        recordFilter = null;
+        fingerprint = null;
+    }
+
+    /**
+     * Returns the serialized Bloom filter over the records of this baseline, so that it is
+     * stored with them.  Needed for Hibernate due to the AccessType.PROPERTY configuration on
+     * the filter.
+     *
+     * @return the serialized filter
+     */
+    private byte[] getRecordFilter() {
+        return getBloomFilter().toByteArray();
+    }
+
+    /**
+     * Sets the stored Bloom filter over the records of this baseline.  Needed for Hibernate due
+     * to the AccessType.PROPERTY configuration on the filter.
+     *
+     * @param recordFilter the serialized filter
+     */
+    private synchronized void setRecordFilter(final byte[] recordFilter) {
+        this.recordFilter = recordFilter;
+        this.bloomFilter = null;
+    }
 }
@@ -13,6 +13,7 @@ import hirs.data.persist.IMAPolicy;
 import hirs.data.persist.ImaIgnoreSetRecord;
 import hirs.ima.matching.BatchImaMatchStatus;
 import hirs.ima.matching.ImaIgnoreSetRecordMatcher;
+import hirs.ima.matching.ImaRecordBloomFilter;
 import hirs.persist.ImaBaselineRecordManager;
 import hirs.utils.RegexFilePathMatcher;
 
@@ -24,9 +25,12 @@ import java.util.Set;
 import javax.persistence.Access;
 import javax.persistence.AccessType;
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.Lob;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
 
@@ -41,12 +45,27 @@ import org.apache.logging.log4j.Logger;
 public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
     private static final Logger LOGGER = getLogger(ImaIgnoreSetBaseline.class);
 
+    // large enough to hold the filter of several million records
+    private static final int MAX_RECORD_FILTER_SIZE = 16777215;
+
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER,
             orphanRemoval = true, mappedBy = "baseline")
     @Access(AccessType.PROPERTY)
     @JsonIgnore
     private Set<ImaIgnoreSetRecord> imaIgnoreSetRecords;
 
+    @Lob
+    @Column(nullable = true, length = MAX_RECORD_FILTER_SIZE)
+    @Access(AccessType.PROPERTY)
+    @JsonIgnore
+    private byte[] recordFilter;
+
+    @Transient
+    private ImaRecordBloomFilter bloomFilter;
+
+    @Transient
+    private Long fingerprint;
+
     /**
      * Constructor used to initialize ImaIgnoreSetBaseline object. Makes an empty
      * <code>Set</code> of Strings and passes up the user provided name.
@@ -117,6 +136,7 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
             return false;
         }
 
+        invalidateRecordCaches();
         boolean retVal = imaIgnoreSetRecords.remove(record);
         if (retVal) {
             record.setBaseline(null);
@@ -161,7 +181,16 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
         Preconditions.checkArgument(records != null, "Records cannot be null");
         Preconditions.checkArgument(imaPolicy != null, "IMA policy cannot be null");
         return new ImaIgnoreSetRecordMatcher(imaIgnoreSetRecords, imaPolicy, this)
-                .batchMatch(records);
+                .batchMatch(records, getBloomFilter());
+    }
+
+    @Override
+    @JsonIgnore
+    public final synchronized long getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = getFingerprint(imaIgnoreSetRecords);
+        }
+        return fingerprint;
     }
 
     /**
@@ -190,8 +219,57 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
      *
      * @param imaIgnoreSetRecords IMA ignore set records to set
      */
-    private void setImaIgnoreSetRecords(final Set<ImaIgnoreSetRecord> imaIgnoreSetRecords) {
+    private synchronized void setImaIgnoreSetRecords(
+            final Set<ImaIgnoreSetRecord> imaIgnoreSetRecords) {
         this.imaIgnoreSetRecords = imaIgnoreSetRecords;
+        fingerprint = null;
+    }
+
+    /**
+     * Returns the serialized Bloom filter over the IMA ignore records, so that it is stored with
+     * them.  Needed for Hibernate due to the AccessType.PROPERTY configuration on the filter.
+     *
+     * @return the serialized filter
+     */
+    private byte[] getRecordFilter() {
+        return getBloomFilter().toByteArray();
+    }
+
+    /**
+     * Sets the stored Bloom filter over the IMA ignore records.  Needed for Hibernate due to the
+     * AccessType.PROPERTY configuration on the filter.
+     *
+     * @param recordFilter the serialized filter
+     */
+    private synchronized void setRecordFilter(final byte[] recordFilter) {
+        this.recordFilter = recordFilter;
+        this.bloomFilter = null;
+    }
+
+    /**
+     * Returns the Bloom filter over the IMA ignore records, which rules out most measurement
+     * records before their paths are matched against the ignore patterns.  The filter is
+     * restored from the copy stored with this baseline when possible, and rebuilt after the
+     * records have changed.
+     *
+     * @return the filter over the IMA ignore records
+     */
+    private synchronized ImaRecordBloomFilter getBloomFilter() {
+        if (bloomFilter == null) {
+            bloomFilter = ImaRecordBloomFilter.restore(recordFilter, imaIgnoreSetRecords, true);
+            recordFilter = null;
+        }
+        return bloomFilter;
+    }
+
+    /**
+     * Discards the Bloom filter and the fingerprint of the records, which are computed again
+     * when next needed.  Called whenever the records change.
+     */
+    private synchronized void invalidateRecordCaches() {
+        bloomFilter = null;
+        recordFilter = null;
+        fingerprint = null;
     }
 
     /**
@@ -211,6 +289,7 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
                     + "passed to ImaIgnoreSetBaseline.addOnlyToBaseline");
             throw new IllegalArgumentException("null ignore set record");
         }
+        invalidateRecordCaches();
         if (imaIgnoreSetRecords.add(record)) {
             LOGGER.info("added file path " + record.getPath()
                     + " to ImaIgnoreSetBaseline " + getName());
@@ -231,6 +310,7 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
      * @return a boolean indicating if the removal was successful
      */
     public final boolean removeOnlyBaseline(final ImaIgnoreSetRecord record) {
+        invalidateRecordCaches();
         return imaIgnoreSetRecords.remove(record);
     }
 }
@@ -1,5 +1,6 @@
 package hirs.data.persist.baseline;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.Preconditions;
 import hirs.data.persist.Digest;
 import hirs.data.persist.IMAMeasurementRecord;
@@ -10,19 +11,23 @@ import hirs.ima.matching.ImaAcceptableHashRecordMatcher;
 import hirs.ima.matching.ImaAcceptablePathAndHashRecordMatcher;
 import hirs.ima.matching.ImaRecordMatcher;
 import hirs.persist.ImaBaselineRecordManager;
-import hirs.utils.Callback;
+import hirs.repository.RepoPackage;
 import org.hibernate.Criteria;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
  * This class defines the basis of operation for a baseline that supports querying
  * a persistence layer for its component {@link IMABaselineRecord}s.  A QueryableRecordImaBaseline
- * uses this functionality to implement its <code>contains</code> method.
+ * uses this functionality to implement its <code>contains</code> method, looking up the records
+ * related to a report in the {@link ImaBaselineSnapshot} kept by the record manager rather than
+ * reading every record of the baseline.
  */
 public abstract class QueryableRecordImaBaseline extends ImaAcceptableRecordBaseline {
     /**
@@ -65,19 +70,8 @@ public abstract class QueryableRecordImaBaseline extends ImaAcceptableRecordBase
             }
         }
 
-        Collection<IMABaselineRecord> retrievedRecords = recordManager.iterateOverBaselineRecords(
-                this, new Callback<IMABaselineRecord, IMABaselineRecord>() {
-                    @Override
-                    public IMABaselineRecord call(final IMABaselineRecord baselineRecord) {
-                        if (pathsToFind.contains(baselineRecord.getPath())) {
-                            return baselineRecord;
-                        } else if (imaPolicy.isPartialPathEnable()
-                                && pathsToFind.contains(baselineRecord.getPartialPath())) {
-                            return baselineRecord;
-                        }
-                        return null;
-                    }
-        });
+        Collection<IMABaselineRecord> retrievedRecords = recordManager.getBaselineSnapshot(this)
+                .getRecordsByPath(pathsToFind, imaPolicy.isPartialPathEnable());
 
         return new ImaAcceptablePathAndHashRecordMatcher(retrievedRecords, imaPolicy, this)
                 .batchMatch(records);
@@ -105,16 +99,8 @@ public abstract class QueryableRecordImaBaseline extends ImaAcceptableRecordBase
                 .map(IMAMeasurementRecord::getHash)
                 .collect(Collectors.toSet());
 
-        Collection<IMABaselineRecord> retrievedRecords = recordManager.iterateOverBaselineRecords(
-                this, new Callback<IMABaselineRecord, IMABaselineRecord>() {
-                    @Override
-                    public IMABaselineRecord call(final IMABaselineRecord baselineRecord) {
-                        if (hashesToFind.contains(baselineRecord.getHash())) {
-                            return baselineRecord;
-                        }
-                        return null;
-                    }
-                });
+        Collection<IMABaselineRecord> retrievedRecords = recordManager.getBaselineSnapshot(this)
+                .getRecordsByHash(hashesToFind);
 
         return new ImaAcceptableHashRecordMatcher(retrievedRecords, imaPolicy, this)
                 .batchMatch(records);
@@ -132,25 +118,56 @@ public abstract class QueryableRecordImaBaseline extends ImaAcceptableRecordBase
             throw new IllegalArgumentException("ImaBaselineRecordManager cannot be null");
         }
 
-        return recordManager.iterateOverBaselineRecords(
-                this, new Callback<IMABaselineRecord, IMABaselineRecord>() {
-            @Override
-            public IMABaselineRecord call(final IMABaselineRecord param) {
-                if (!foundRecords.contains(param)) {
-                    return param;
-                }
-                return null;
+        Collection<IMABaselineRecord> records = new ArrayList<>();
+        for (IMABaselineRecord record : recordManager.getBaselineSnapshot(this).getRecords()) {
+            if (!foundRecords.contains(record)) {
+                records.add(record);
             }
-        });
+        }
+        return records;
     }
 
+    /**
+     * Returns a fingerprint of the packages of this baseline and the dates they were measured.
+     * The records of a package do not change once it has been measured, so the fingerprint
+     * changes whenever the records of this baseline do, without reading them.
+     *
+     * @return the fingerprint of this baseline's packages
+     */
+    @Override
+    @JsonIgnore
+    public final long getFingerprint() {
+        Set<RepoPackage> packages = getRepositoryPackages();
+        long fingerprint = packages.size();
+        for (RepoPackage repoPackage : packages) {
+            UUID id = repoPackage.getId();
+            long hash = id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+            if (repoPackage.getMeasurementDate() != null) {
+                hash = mix(hash) + repoPackage.getMeasurementDate().getTime();
+            }
+            fingerprint += mix(hash);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Get the <code>Set</code> of <code>RepoPackage</code>s whose measurements are the
+     * {@link IMABaselineRecord}s of this baseline.
+     *
+     * @return the RepoPackages of this baseline
+     */
+    public abstract Set<RepoPackage> getRepositoryPackages();
+
     /**
      * This method configures the provided criteria to retrieve all of its component
-     * {@link IMABaselineRecord}s.  The given bucket should be used by the receiving code
-     * to only retrieve {@link IMABaselineRecord}s that are in the given bucket.
+     * {@link IMABaselineRecord}s.  The given shard should be used by the receiving code
+     * to only retrieve {@link IMABaselineRecord}s whose bucket is in the given shard, as given
+     * by {@link IMABaselineRecord#getBucketsOfShard(int, int)}.
      *
      * @param criteria the criteria to configure
-     * @param bucket the bucket that should be configured on the criteria
+     * @param shard the shard that should be configured on the criteria
+     * @param shardCount the number of shards the records are split into
      */
-    public abstract void configureCriteriaForBaselineRecords(Criteria criteria, int bucket);
+    public abstract void configureCriteriaForBaselineRecords(Criteria criteria, int shard,
+                                                             int shardCount);
 }
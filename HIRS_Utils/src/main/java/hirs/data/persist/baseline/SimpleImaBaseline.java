@@ -17,6 +17,7 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
 import java.net.URL;
 import java.util.Collection;
 import java.util.Collections;
@@ -52,6 +53,9 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
     @Column(nullable = true)
     private URL yumRepoURL;
 
+    @Transient
+    private Long fingerprint;
+
     private static final Logger LOGGER = getLogger(ImaBaseline.class);
 
     /**
@@ -131,7 +135,7 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
             return false;
         }
 
-        boolean retVal = imaRecords.remove(record);
+        boolean retVal = removeOnlyBaseline(record);
         if (retVal) {
             record.setBaseline(null);
         }
@@ -196,6 +200,15 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
                 .batchMatch(records);
     }
 
+    @Override
+    @JsonIgnore
+    public final synchronized long getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = getFingerprint(imaRecords);
+        }
+        return fingerprint;
+    }
+
     @Override
     public Collection<IMABaselineRecord> getRecordsExcept(
             final ImaBaselineRecordManager recordManager,
@@ -260,6 +273,7 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
 
         } else  {
             imaRecords.add(record);
+            fingerprint = null;
             LOGGER.debug("record added: {}", record);
         }
 
@@ -273,7 +287,8 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
      *            record to remove
      * @return a boolean indicating if the removal was successful
      */
-    final boolean removeOnlyBaseline(final IMABaselineRecord record) {
+    final synchronized boolean removeOnlyBaseline(final IMABaselineRecord record) {
+        fingerprint = null;
         return imaRecords.remove(record);
     }
 
@@ -302,7 +317,8 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
      *
      * @param imaRecords IMA records
      */
-    private void setImaRecords(final Set<IMABaselineRecord> imaRecords) {
+    private synchronized void setImaRecords(final Set<IMABaselineRecord> imaRecords) {
         this.imaRecords = imaRecords;
+        fingerprint = null;
     }
 }
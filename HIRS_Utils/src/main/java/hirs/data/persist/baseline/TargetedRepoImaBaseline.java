@@ -141,7 +141,8 @@ public class TargetedRepoImaBaseline extends QueryableRecordImaBaseline
     }
 
     @Override
-    public void configureCriteriaForBaselineRecords(final Criteria criteria, final int bucket) {
+    public void configureCriteriaForBaselineRecords(final Criteria criteria, final int shard,
+                                                    final int shardCount) {
         criteria.add(Restrictions.eq("id", getId()))
                 .setProjection(Projections.projectionList()
                         .add(Projections.property(
@@ -156,11 +157,11 @@ public class TargetedRepoImaBaseline extends QueryableRecordImaBaseline
                         ), IMABaselineRecord.HASH_FIELD)
                 );
 
-        criteria.add(Restrictions.eq(
+        criteria.add(Restrictions.in(
                 String.format("%s.%s",
                         RepoPackage.PACKAGE_RECORDS_FIELD,
                         IMABaselineRecord.BUCKET_FIELD),
-                bucket)
+                IMABaselineRecord.getBucketsOfShard(shard, shardCount))
         );
         criteria.createAlias(REPO_PACKAGES_FIELD, REPO_PACKAGES_FIELD);
         criteria.createAlias(
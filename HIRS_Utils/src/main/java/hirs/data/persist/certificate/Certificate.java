@@ -247,6 +247,16 @@ public abstract class Certificate extends ArchivableEntity {
     @Transient
     private X509Certificate parsedX509Cert = null;
 
+    // decoded once from certificateBytes and shared by every accessor; never modified after
+    @Transient
+    private CertificateType parsedCertificateType = null;
+
+    @Transient
+    private AttributeCertificate parsedAttributeCert = null;
+
+    @Transient
+    private X509AttributeCertificateHolder parsedAttributeCertHolder = null;
+
     private String signatureAlgorithm;
     private String publicKeyAlgorithm;
     private String keyUsage;
@@ -518,6 +528,10 @@ public abstract class Certificate extends ArchivableEntity {
      * @throws java.io.IOException if there is a problem extracting information from the certificate
      */
     protected CertificateType getCertificateType() throws IOException {
+        if (parsedCertificateType != null) {
+            return parsedCertificateType;
+        }
+
         //Parse the certificate into a sequence
         ASN1Sequence testCred1 = (ASN1Sequence) ASN1Primitive.fromByteArray(this.certificateBytes);
         ASN1Sequence testSeq = (ASN1Sequence) ((ASN1Object) testCred1.toArray()[0]);
@@ -525,17 +539,19 @@ public abstract class Certificate extends ArchivableEntity {
         if (testSeq.toArray()[0] instanceof ASN1Integer) {
              if (testSeq.toArray().length >= MIN_ATTR_CERT_LENGTH) {
                  // Attribute Certificate
-                 return CertificateType.ATTRIBUTE_CERTIFICATE;
+                 parsedCertificateType = CertificateType.ATTRIBUTE_CERTIFICATE;
              } else {
                  // V1 X509Certificate
-                 return CertificateType.X509_CERTIFICATE;
+                 parsedCertificateType = CertificateType.X509_CERTIFICATE;
              }
         } else if (testSeq.toArray()[0] instanceof DERTaggedObject) {
             // V2 or V3 X509Certificate
-            return CertificateType.X509_CERTIFICATE;
+            parsedCertificateType = CertificateType.X509_CERTIFICATE;
+        } else {
+            parsedCertificateType = CertificateType.INVALID_CERTIFICATE;
         }
 
-        return CertificateType.INVALID_CERTIFICATE;
+        return parsedCertificateType;
     }
 
     private boolean isPEM(final String possiblePEM) {
@@ -824,7 +840,9 @@ public abstract class Certificate extends ArchivableEntity {
     }
 
     /**
-     * Retrieve the original X509 attribute certificate.
+     * Retrieve the original X509 attribute certificate. It is built from the decoded
+     * Attribute Certificate the first time it is requested, and the same instance is returned
+     * afterwards.
      *
      * @return the original X509 attribute certificate
      * @throws IOException if there is a problem deserializing the certificate as an X509
@@ -832,11 +850,21 @@ public abstract class Certificate extends ArchivableEntity {
      */
     @JsonIgnore
     public X509AttributeCertificateHolder getX509AttributeCertificateHolder() throws IOException {
-        return new X509AttributeCertificateHolder(certificateBytes);
+        if (parsedAttributeCertHolder == null) {
+            try {
+                parsedAttributeCertHolder =
+                        new X509AttributeCertificateHolder(getAttributeCertificate());
+            } catch (ClassCastException | IllegalArgumentException e) {
+                throw new IOException("Cannot construct X509AttributeCertificateHolder from the"
+                        + " certificate bytes", e);
+            }
+        }
+        return parsedAttributeCertHolder;
     }
 
     /**
-     * Retrieve the original Attribute Certificate.
+     * Retrieve the original Attribute Certificate. The certificate bytes are decoded the first
+     * time it is requested, and the same instance is returned afterwards.
      *
      * @return the original Attribute Certificate
      * @throws IOException if there is a problem deserializing the certificate as an X509
@@ -844,9 +872,11 @@ public abstract class Certificate extends ArchivableEntity {
      */
     @JsonIgnore
     public AttributeCertificate getAttributeCertificate() throws IOException {
-        AttributeCertificate attCertificate = AttributeCertificate
-                .getInstance(ASN1Primitive.fromByteArray(certificateBytes));
-        return attCertificate;
+        if (parsedAttributeCert == null) {
+            parsedAttributeCert = AttributeCertificate
+                    .getInstance(ASN1Primitive.fromByteArray(certificateBytes));
+        }
+        return parsedAttributeCert;
     }
 
     /**
@@ -47,6 +47,7 @@ import java.nio.file.Path;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.text.ParseException;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -159,6 +160,18 @@ public class EndorsementCredential extends DeviceAssociatedCertificate {
             setFieldValue(DEVICE_ID_FIELD, device);
             return this;
         }
+
+        /**
+         * Specify the device ids that certificates may have to be considered as matching, so
+         * that the certificates of several devices are retrieved with one query.
+         *
+         * @param devices the device ids to query
+         * @return this instance (for chaining further calls)
+         */
+        public Selector byDeviceIds(final Collection<UUID> devices) {
+            setFieldValues(DEVICE_ID_FIELD, devices);
+            return this;
+        }
     }
 
     /**
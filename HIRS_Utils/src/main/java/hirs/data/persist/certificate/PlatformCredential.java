@@ -11,6 +11,7 @@ import hirs.persist.CertificateManager;
 import hirs.persist.CertificateSelector;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -191,6 +192,18 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
             setFieldValue(DEVICE_ID_FIELD, device);
             return this;
         }
+
+        /**
+         * Specify the device ids that certificates may have to be considered as matching, so
+         * that the certificates of several devices are retrieved with one query.
+         *
+         * @param devices the device ids to query
+         * @return this instance (for chaining further calls)
+         */
+        public Selector byDeviceIds(final Collection<UUID> devices) {
+            setFieldValues(DEVICE_ID_FIELD, devices);
+            return this;
+        }
     }
 
     @Column
@@ -246,6 +259,11 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     @Transient
     private EndorsementCredential endorsementCredential = null;
 
+    // decoded once from the attribute certificate; initialized lazily, not by an initializer,
+    // because the superclass constructor may already have decoded it
+    @Transient
+    private Map<String, Object> parsedAttributes;
+
     private String platformChainType = Strings.EMPTY;
     private boolean isDeltaChain = false;
 
@@ -317,7 +335,7 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     public boolean isSignatureValid(final ContentVerifierProvider verifierProvider)
         throws IOException {
             AttributeCertificate attCert = getAttributeCertificate();
-            AttributeCertificateInfo acinfo = getAttributeCertificate().getAcinfo();
+            AttributeCertificateInfo acinfo = attCert.getAcinfo();
 
             // Check if the algorithm identifier is the same
             if (!isAlgIdEqual(acinfo.getSignature(), attCert.getSignatureAlgorithm())) {
@@ -733,13 +751,20 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     }
 
     /**
-     * Get the Platform Configuration Attribute from the Platform Certificate.
+     * Get the Platform Configuration Attribute from the Platform Certificate. The attributes
+     * are decoded the first time they are requested, and the same unmodifiable map, holding the
+     * same attribute objects, is returned afterwards; the attribute objects must not be
+     * modified.
      * @return a map with all the attributes
      * @throws IllegalArgumentException when there is a parsing error
      * @throws IOException when reading the certificate.
      */
     public Map<String, Object> getAllAttributes()
             throws IllegalArgumentException, IOException {
+        if (parsedAttributes != null) {
+            return parsedAttributes;
+        }
+
         Map<String, Object> attributes = new HashMap<>();
         ASN1Sequence attributeSequence;
         // Check all attributes for Platform Configuration
@@ -779,7 +804,8 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
                     break;
             }
         }
-        return attributes;
+        parsedAttributes = Collections.unmodifiableMap(attributes);
+        return parsedAttributes;
     }
 
     /**
@@ -802,10 +828,9 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      */
     public PlatformConfiguration getPlatformConfiguration()
             throws IllegalArgumentException, IOException {
-
-        if (getAttribute("platformConfiguration") != null
-                && getAttribute("platformConfiguration") instanceof PlatformConfiguration) {
-            return (PlatformConfiguration) getAttribute("platformConfiguration");
+        Object platformConfiguration = getAttribute("platformConfiguration");
+        if (platformConfiguration instanceof PlatformConfiguration) {
+            return (PlatformConfiguration) platformConfiguration;
         }
 
         return null;
@@ -819,9 +844,9 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      */
     public URIReference getPlatformConfigurationURI()
             throws IllegalArgumentException, IOException {
-        if (getAttribute("platformConfigurationURI") != null
-                && getAttribute("platformConfigurationURI") instanceof URIReference) {
-            return (URIReference) getAttribute("platformConfigurationURI");
+        Object platformConfigurationUri = getAttribute("platformConfigurationURI");
+        if (platformConfigurationUri instanceof URIReference) {
+            return (URIReference) platformConfigurationUri;
         }
         return null;
     }
@@ -834,9 +859,9 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      */
     public TBBSecurityAssertion getTBBSecurityAssertion()
             throws IllegalArgumentException, IOException {
-        if (getAttribute("tbbSecurityAssertion") != null
-                && getAttribute("tbbSecurityAssertion") instanceof TBBSecurityAssertion) {
-            return (TBBSecurityAssertion) getAttribute("tbbSecurityAssertion");
+        Object tbbSecurityAssertion = getAttribute("tbbSecurityAssertion");
+        if (tbbSecurityAssertion instanceof TBBSecurityAssertion) {
+            return (TBBSecurityAssertion) tbbSecurityAssertion;
         }
         return null;
     }
@@ -1,5 +1,8 @@
 package hirs.data.persist.info;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.annotations.DiscriminatorOptions;
 import org.springframework.util.Assert;
@@ -12,7 +15,10 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.xml.bind.annotation.XmlElement;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 
@@ -25,6 +31,14 @@ import java.util.Objects;
 @DiscriminatorOptions(force = true)
 public class ComponentInfo implements Serializable {
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String PACCOR_COMPONENTS = "COMPONENTS";
+    private static final String PACCOR_MANUFACTURER = "MANUFACTURER";
+    private static final String PACCOR_MODEL = "MODEL";
+    private static final String PACCOR_SERIAL = "SERIAL";
+    private static final String PACCOR_REVISION = "REVISION";
+
     @Id
     @Column(name = "componentInfo_id")
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -115,6 +129,79 @@ public class ComponentInfo implements Serializable {
         }
     }
 
+    /**
+     * Parses the output from PACCOR's allcomponents.sh script into ComponentInfo objects. The
+     * output is read with a streaming parser up to the end of its first COMPONENTS array, and
+     * the fields of each component other than its manufacturer, model, serial number and
+     * revision are skipped.
+     *
+     * @param paccorOutput the output from PACCOR's allcomponents.sh
+     * @return a list of ComponentInfo objects built from paccorOutput, which is empty if the
+     * output is empty or lists no components
+     * @throws IOException if something goes wrong parsing the JSON
+     */
+    public static List<ComponentInfo> fromPaccorOutput(final String paccorOutput)
+            throws IOException {
+        List<ComponentInfo> componentInfoList = new ArrayList<>();
+        if (StringUtils.isEmpty(paccorOutput)) {
+            return componentInfoList;
+        }
+
+        try (JsonParser parser = JSON_FACTORY.createParser(paccorOutput)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME
+                        && PACCOR_COMPONENTS.equals(parser.getCurrentName())) {
+                    if (parser.nextToken() == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            componentInfoList.add(parsePaccorComponent(parser));
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+
+        return componentInfoList;
+    }
+
+    private static ComponentInfo parsePaccorComponent(final JsonParser parser)
+            throws IOException {
+        String manufacturer = null;
+        String model = null;
+        String serial = null;
+        String revision = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            String text = null;
+            if (value != JsonToken.VALUE_NULL) {
+                text = parser.getText();
+            }
+            switch (fieldName) {
+                case PACCOR_MANUFACTURER:
+                    manufacturer = text;
+                    break;
+                case PACCOR_MODEL:
+                    model = text;
+                    break;
+                case PACCOR_SERIAL:
+                    serial = text;
+                    break;
+                case PACCOR_REVISION:
+                    revision = text;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new ComponentInfo(manufacturer, model, serial, revision);
+    }
+
     /**
      * Determines whether the given properties represent a
      * ComponentInfo that will be useful in validation.
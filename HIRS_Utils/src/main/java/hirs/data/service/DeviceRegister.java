@@ -2,6 +2,7 @@ package hirs.data.service;
 
 import hirs.data.persist.Device;
 import hirs.data.persist.DeviceInfoReport;
+import hirs.persist.DBUnitOfWork;
 
 /**
  * Interface defining methods for registering a device with the system.
@@ -17,6 +18,16 @@ public interface DeviceRegister {
      */
     Device saveOrUpdateDevice(DeviceInfoReport report);
 
+    /**
+     * Registers a device in to the system using a device info report, as part of a unit of
+     * work. The device is only saved or updated once the unit of work is committed.
+     * If the device doesn't exist, the device is added to the default group.
+     * @param report the device info report
+     * @param unitOfWork the unit of work to add the save or update of the device to
+     * @return the device to be created or updated
+     */
+    Device saveOrUpdateDevice(DeviceInfoReport report, DBUnitOfWork unitOfWork);
+
     /**
      * Registers a device with the specified name.
      * @param deviceName the device name
@@ -3,6 +3,7 @@ package hirs.data.service;
 import hirs.data.persist.Device;
 import hirs.data.persist.DeviceGroup;
 import hirs.data.persist.DeviceInfoReport;
+import hirs.persist.DBUnitOfWork;
 import hirs.persist.DeviceGroupManager;
 import hirs.persist.DeviceManager;
 import org.apache.logging.log4j.LogManager;
@@ -49,6 +50,25 @@ public class DeviceRegisterImpl implements DeviceRegister {
         return registerDeviceToManager(deviceName, null);
     }
 
+    @Override
+    public Device saveOrUpdateDevice(final DeviceInfoReport report,
+                                     final DBUnitOfWork unitOfWork) {
+        String deviceName = report.getNetworkInfo().getHostname();
+        Device savedDevice = deviceManager.getDevice(deviceName);
+
+        if (savedDevice != null) {
+            LOGGER.debug("device found, updating device");
+            savedDevice.setDeviceInfo(report);
+            unitOfWork.update(savedDevice);
+            return savedDevice;
+        }
+
+        LOGGER.debug("device not found, saving new device");
+        Device newDevice = createDevice(deviceName, report);
+        unitOfWork.save(newDevice);
+        return newDevice;
+    }
+
     private Device registerDeviceToManager(final String deviceName, final DeviceInfoReport report) {
         Device savedDevice = deviceManager.getDevice(deviceName);
 
@@ -60,10 +80,15 @@ public class DeviceRegisterImpl implements DeviceRegister {
         }
 
         LOGGER.debug("device not found, saving new device");
+        Device newDevice = createDevice(deviceName, report);
+        deviceManager.saveDevice(newDevice);
+        return newDevice;
+    }
+
+    private Device createDevice(final String deviceName, final DeviceInfoReport report) {
         Device newDevice = new Device(deviceName, report);
         DeviceGroup group = deviceGroupManager.getDeviceGroup(DeviceGroup.DEFAULT_GROUP);
         newDevice.setDeviceGroup(group);
-        deviceManager.saveDevice(newDevice);
         return newDevice;
     }
 }
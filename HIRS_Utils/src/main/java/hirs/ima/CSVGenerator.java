@@ -13,7 +13,11 @@ import hirs.data.persist.info.OSInfo;
 import hirs.data.persist.baseline.TPMBaseline;
 import hirs.data.persist.info.TPMInfo;
 import hirs.data.persist.TPMMeasurementRecord;
+import hirs.data.persist.baseline.QueryableRecordImaBaseline;
+import hirs.data.persist.baseline.SimpleImaBaseline;
+import hirs.persist.ImaBaselineRecordManager;
 import hirs.tpm.TPMBaselineGenerator.TPMBaselineFields;
+import hirs.utils.Callback;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
@@ -21,8 +25,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Class used to generate CSV from baselines and ignore sets.  These utility functions are useful
@@ -31,6 +45,7 @@ import java.util.HashMap;
 public final class CSVGenerator {
 
     private static final Logger LOGGER = LogManager.getLogger(CSVGenerator.class);
+    private static final int BUFFER_SIZE = 65536;
 
     /**
      * Private constructor, should never be called.
@@ -48,26 +63,100 @@ public final class CSVGenerator {
      * @return CSV in a String
      */
     public static String imaRecordsToCsv(final ImaAcceptableRecordBaseline imaBaseline) {
+        StringWriter writer = new StringWriter();
+        try {
+            imaRecordsToCsv(imaBaseline, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes all IMA records of the given baseline, as held by the baseline object, to a writer
+     * as CSV. Each record is written as it is read, so the CSV is never held in memory.
+     *
+     * @param imaBaseline baseline
+     * @param writer the writer to write the CSV to, which is not closed
+     * @throws IOException if the CSV cannot be written
+     */
+    public static void imaRecordsToCsv(final ImaAcceptableRecordBaseline imaBaseline,
+                                       final Writer writer) throws IOException {
         LOGGER.info("Retrieved and parsing all records");
-        StringBuilder sb = new StringBuilder();
         for (IMABaselineRecord record : imaBaseline.getBaselineRecords()) {
-            String stringHashValue;
-            Digest theHash = record.getHash();
-            if (theHash == null) {
-                stringHashValue = "";
-            } else {
-                final byte[] digest = theHash.getDigest();
-                final char[] hash = Hex.encodeHex(digest);
-                stringHashValue = String.valueOf(hash);
+            writeImaRecord(record, writer);
+        }
+    }
+
+    /**
+     * Writes all IMA records of the given baseline to a writer as CSV, reading the records
+     * from the database with the given record manager instead of from the baseline object. The
+     * records of a {@link SimpleImaBaseline} are written in the order they were saved; the
+     * records of a {@link QueryableRecordImaBaseline} are written in no particular order. Only
+     * the records being written are held in memory, so baselines of any size can be exported.
+     *
+     * @param imaBaseline the saved baseline
+     * @param recordManager the record manager used to read the records
+     * @param writer the writer to write the CSV to, which is not closed
+     * @return the number of records written
+     * @throws IOException if the CSV cannot be written
+     */
+    public static long imaRecordsToCsv(final ImaAcceptableRecordBaseline imaBaseline,
+                                       final ImaBaselineRecordManager recordManager,
+                                       final Writer writer) throws IOException {
+        final AtomicLong count = new AtomicLong();
+        final AtomicReference<IOException> failure = new AtomicReference<>();
+        Callback<IMABaselineRecord, Void> callback = new Callback<IMABaselineRecord, Void>() {
+            @Override
+            public Void call(final IMABaselineRecord record) {
+                // records of a repository baseline are read by several threads at once
+                synchronized (writer) {
+                    if (failure.get() == null) {
+                        try {
+                            writeImaRecord(record, writer);
+                            count.incrementAndGet();
+                        } catch (IOException e) {
+                            failure.set(e);
+                        }
+                    }
+                }
+                return null;
             }
+        };
 
-            sb.append("\"")
-                    .append(record.getPath().replace("\"", "\"\""))
-                    .append("\",")
-                    .append(stringHashValue)
-                    .append(System.lineSeparator());
+        LOGGER.info("Streaming all records of baseline {}", imaBaseline.getName());
+        if (imaBaseline instanceof SimpleImaBaseline) {
+            recordManager.iterateOverBaselineRecords((SimpleImaBaseline) imaBaseline, callback);
+        } else if (imaBaseline instanceof QueryableRecordImaBaseline) {
+            recordManager.iterateOverBaselineRecords(
+                    (QueryableRecordImaBaseline) imaBaseline, callback);
+        } else {
+            imaRecordsToCsv(imaBaseline, writer);
+            return imaBaseline.getBaselineRecords().size();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return count.get();
+    }
+
+    private static void writeImaRecord(final IMABaselineRecord record, final Writer writer)
+            throws IOException {
+        String stringHashValue;
+        Digest theHash = record.getHash();
+        if (theHash == null) {
+            stringHashValue = "";
+        } else {
+            final byte[] digest = theHash.getDigest();
+            final char[] hash = Hex.encodeHex(digest);
+            stringHashValue = String.valueOf(hash);
         }
-        return sb.toString();
+
+        writer.append("\"")
+                .append(record.getPath().replace("\"", "\"\""))
+                .append("\",")
+                .append(stringHashValue)
+                .append(System.lineSeparator());
     }
 
     /**
@@ -77,16 +166,32 @@ public final class CSVGenerator {
      * @return CSV in a String
      */
     public static String ignoreSetToCsv(final ImaIgnoreSetBaseline ignoreSetBaseline) {
+        StringWriter writer = new StringWriter();
+        try {
+            ignoreSetToCsv(ignoreSetBaseline, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes all of the file paths of records that should be ignored to a writer as CSV.
+     *
+     * @param ignoreSetBaseline ignoreSetBaseline
+     * @param writer the writer to write the CSV to, which is not closed
+     * @throws IOException if the CSV cannot be written
+     */
+    public static void ignoreSetToCsv(final ImaIgnoreSetBaseline ignoreSetBaseline,
+                                      final Writer writer) throws IOException {
         LOGGER.info("Retrieved and parsing all records");
-        StringBuilder sb = new StringBuilder();
         for (ImaIgnoreSetRecord record : ignoreSetBaseline.getImaIgnoreRecords()) {
-            sb.append(record.getPath())
+            writer.append(record.getPath())
                     .append(",")
                     .append(StringUtils.defaultString(record.getDescription()))
                     .append(",")
                     .append(System.lineSeparator());
         }
-        return sb.toString();
     }
 
     /**
@@ -97,26 +202,40 @@ public final class CSVGenerator {
      * @return the resulting CSV in a String
      */
     public static String blacklistToCsv(final ImaBlacklistBaseline blacklistBaseline) {
-        StringBuilder sb = new StringBuilder();
-        CSVPrinter csvPrinter;
+        StringWriter writer = new StringWriter();
         try {
-            csvPrinter = CSVFormat.DEFAULT.withRecordSeparator(System.lineSeparator()).print(sb);
-            for (ImaBlacklistRecord record : blacklistBaseline.getRecords()) {
-                String digest = "";
-                Digest hash = record.getHash();
-                if (hash != null) {
-                    digest = hash.toString();
-                }
-                csvPrinter.printRecord(
-                        nullToEmpty(record.getPath()),
-                        digest,
-                        nullToEmpty(record.getDescription())
-                );
-            }
+            blacklistToCsv(blacklistBaseline, writer);
         } catch (IOException e) {
             throw new RuntimeException("Could not instantiate CSV printer");
         }
-        return sb.toString();
+        return writer.toString();
+    }
+
+    /**
+     * Serializes an {@link ImaBlacklistBaseline} into CSV written to a writer, whose rows
+     * represent entries in the baseline.
+     *
+     * @param blacklistBaseline the baseline to serialize
+     * @param writer the writer to write the CSV to, which is not closed
+     * @throws IOException if the CSV cannot be written
+     */
+    public static void blacklistToCsv(final ImaBlacklistBaseline blacklistBaseline,
+                                      final Writer writer) throws IOException {
+        CSVPrinter csvPrinter =
+                CSVFormat.DEFAULT.withRecordSeparator(System.lineSeparator()).print(writer);
+        for (ImaBlacklistRecord record : blacklistBaseline.getRecords()) {
+            String digest = "";
+            Digest hash = record.getHash();
+            if (hash != null) {
+                digest = hash.toString();
+            }
+            csvPrinter.printRecord(
+                    nullToEmpty(record.getPath()),
+                    digest,
+                    nullToEmpty(record.getDescription())
+            );
+        }
+        csvPrinter.flush();
     }
 
     /**
@@ -126,8 +245,25 @@ public final class CSVGenerator {
      * @return CSV in a String
      */
     public static String tpmRecordsToCsv(final TPMBaseline tpmBaseline) {
+        StringWriter writer = new StringWriter();
+        try {
+            tpmRecordsToCsv(tpmBaseline, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the device information and TPM records of the TPMBaseline to a writer as CSV.
+     *
+     * @param tpmBaseline tpmBaseline
+     * @param writer the writer to write the CSV to, which is not closed
+     * @throws IOException if the CSV cannot be written
+     */
+    public static void tpmRecordsToCsv(final TPMBaseline tpmBaseline, final Writer writer)
+            throws IOException {
         LOGGER.info("Retrieved and parsing all records");
-        StringBuilder sb = new StringBuilder();
         // Add device info records to the map
         HashMap<TPMBaselineFields, String> map = new HashMap<TPMBaselineFields, String>();
         final FirmwareInfo firmwareInfo = tpmBaseline.getFirmwareInfo();
@@ -154,18 +290,37 @@ public final class CSVGenerator {
         map.put(TPMBaselineFields.TPM_VERSION_REV_MAJOR, "" + tpmInfo.getTPMVersionRevMajor());
         map.put(TPMBaselineFields.TPM_VERSION_REV_MINOR, "" + tpmInfo.getTPMVersionRevMinor());
         // Add device info records to the CSV file
-        sb.append(TPMBaselineFields.toCSV(map));
+        writer.append(TPMBaselineFields.toCSV(map));
 
         // Add measurement records to the CSV file
         for (TPMMeasurementRecord record : tpmBaseline.getPcrRecords()) {
             final byte[] digest = record.getHash().getDigest();
             final char[] hash = Hex.encodeHex(digest);
-            sb.append(record.getPcrId())
+            writer.append(String.valueOf(record.getPcrId()))
                     .append(",")
                     .append(String.valueOf(hash))
                     .append(System.lineSeparator());
         }
-        return sb.toString();
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer over the given stream for writing CSV, optionally
+     * compressing what is written with gzip. The writer must be closed once the CSV is written,
+     * which also closes the stream and, if compressing, writes the end of the gzip data.
+     *
+     * @param out the stream to write to
+     * @param gzip true to compress the CSV with gzip
+     * @return the writer
+     * @throws IOException if the gzip header cannot be written
+     */
+    public static Writer newCsvWriter(final OutputStream out, final boolean gzip)
+            throws IOException {
+        OutputStream stream = out;
+        if (gzip) {
+            stream = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8),
+                BUFFER_SIZE);
     }
 
     /**
@@ -9,11 +9,17 @@ import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.IMAMeasurementRecord;
 import hirs.data.persist.IntegrityReport;
 
+import hirs.persist.ImaBaselineRecordManager;
+import hirs.utils.Callback;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,6 +41,9 @@ public class SimpleImaBaselineGenerator {
     private static final Logger LOGGER
             = LogManager.getLogger(ImaBaseline.class);
 
+    private static final Pattern CSV_RECORD_PATTERN =
+            Pattern.compile("\"?(.*?)\"?,([a-fA-F0-9]{40})");
+
     /**
      * Method generates an IMA measurement baseline from a .csv file containing
      * IMA baseline records. An IMA record consists of properties associated
@@ -219,41 +228,167 @@ public class SimpleImaBaselineGenerator {
             throw new NullPointerException("in");
         }
 
-        String regex = "\"?(.*?)\"?,([a-fA-F0-9]{40})";
-        Pattern p = Pattern.compile(regex);
-
         BufferedReader reader = new BufferedReader(new InputStreamReader(
                 inStream, "UTF8"));
         String dataRow;
 
         while ((dataRow = reader.readLine()) != null) {
-            if (StringUtils.isBlank(dataRow)) {
-                continue;
-            }
-            Matcher m = p.matcher(dataRow);
-            if (!m.matches() || m.groupCount() != 2) {
-                final String msg = "row does not match regex: " + dataRow;
-                LOGGER.error(msg);
-                throw new IMABaselineGeneratorException(msg);
-            }
-
-            String path = m.group(1);
-            path = path.replace("\"\"", "\"");
-
-            try {
-                final byte[] hash = Hex.decodeHex(m.group(2).toCharArray());
-                final Digest digest = new Digest(DigestAlgorithm.SHA1, hash);
-                final IMABaselineRecord imaRecord = new IMABaselineRecord(path,
-                        digest);
+            final IMABaselineRecord imaRecord = parseCSVRecord(dataRow);
+            if (imaRecord != null) {
                 baseline.addToBaseline(imaRecord);
                 final String msg = String.format("added record %s", imaRecord);
                 LOGGER.debug(msg);
-            } catch (DecoderException e) {
-                String msg = "File " + path + " has invalid hash sting.  "
-                        + "Record not added to baseline";
-                LOGGER.error(msg, e);
             }
         }
         reader.close();
     }
+
+    /**
+     * Method imports a .csv file containing IMA baseline records into a saved
+     * IMA baseline. Unlike {@link #updateBaselineFromCSVFile}, the records are
+     * not added to the baseline object; each row is parsed as it is read and
+     * handed to {@link ImaBaselineRecordManager#importRecords}, which writes
+     * the records to the database in batches. This allows baselines of any
+     * size to be imported. Rows whose path and hash are already in the
+     * baseline, or earlier in the file, are skipped. If a row cannot be
+     * parsed, no records are imported.
+     *
+     * @param baseline
+     *            saved baseline to import the records into
+     * @param inStream
+     *            containing file contents to be read. inStream is closed by
+     *            this method.
+     * @param recordManager
+     *            record manager used to save the records
+     * @param progress
+     *            optional callback, called periodically with the number of
+     *            rows read so far
+     * @return the number of records added to the baseline
+     * @throws IOException
+     *             if error encountered reading data from input stream
+     * @throws IMABaselineGeneratorException
+     *             if a row of the input stream is not an IMA baseline record
+     */
+    public final long importBaselineFromCSVFile(final SimpleImaBaseline baseline,
+            final InputStream inStream, final ImaBaselineRecordManager recordManager,
+            final Callback<Long, Void> progress)
+            throws IOException, IMABaselineGeneratorException {
+        if (baseline == null) {
+            LOGGER.error("null argument: baseline");
+            throw new NullPointerException("baseline");
+        }
+        if (inStream == null) {
+            LOGGER.error("null argument: in");
+            throw new NullPointerException("in");
+        }
+        if (recordManager == null) {
+            LOGGER.error("null argument: recordManager");
+            throw new NullPointerException("recordManager");
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                inStream, "UTF8"))) {
+            return recordManager.importRecords(baseline, new CSVRecordIterator(reader),
+                    progress);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (CSVRecordException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Parses a row of a .csv file containing IMA baseline records.
+     *
+     * @param dataRow the row to parse
+     * @return the record, or null if the row is blank or its hash cannot be
+     *         decoded
+     * @throws IMABaselineGeneratorException if the row is not an IMA baseline
+     *             record
+     */
+    private static IMABaselineRecord parseCSVRecord(final String dataRow)
+            throws IMABaselineGeneratorException {
+        if (StringUtils.isBlank(dataRow)) {
+            return null;
+        }
+        Matcher m = CSV_RECORD_PATTERN.matcher(dataRow);
+        if (!m.matches() || m.groupCount() != 2) {
+            final String msg = "row does not match regex: " + dataRow;
+            LOGGER.error(msg);
+            throw new IMABaselineGeneratorException(msg);
+        }
+
+        String path = m.group(1);
+        path = path.replace("\"\"", "\"");
+
+        try {
+            final byte[] hash = Hex.decodeHex(m.group(2).toCharArray());
+            final Digest digest = new Digest(DigestAlgorithm.SHA1, hash);
+            return new IMABaselineRecord(path, digest);
+        } catch (DecoderException e) {
+            String msg = "File " + path + " has invalid hash sting.  "
+                    + "Record not added to baseline";
+            LOGGER.error(msg, e);
+            return null;
+        }
+    }
+
+    /**
+     * Iterates over the IMA baseline records of a .csv file, reading each row
+     * only when the next record is requested. Errors are thrown as unchecked
+     * exceptions, which {@link #importBaselineFromCSVFile} unwraps.
+     */
+    private static final class CSVRecordIterator implements Iterator<IMABaselineRecord> {
+        private final BufferedReader reader;
+        private IMABaselineRecord next;
+
+        private CSVRecordIterator(final BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    String dataRow = reader.readLine();
+                    if (dataRow == null) {
+                        break;
+                    }
+                    next = parseCSVRecord(dataRow);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (IMABaselineGeneratorException e) {
+                throw new CSVRecordException(e);
+            }
+            return next != null;
+        }
+
+        @Override
+        public IMABaselineRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            IMABaselineRecord record = next;
+            next = null;
+            return record;
+        }
+    }
+
+    /**
+     * Carries an {@link IMABaselineGeneratorException} out of a
+     * {@link CSVRecordIterator}.
+     */
+    private static final class CSVRecordException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private CSVRecordException(final IMABaselineGeneratorException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IMABaselineGeneratorException getCause() {
+            return (IMABaselineGeneratorException) super.getCause();
+        }
+    }
 }
@@ -8,6 +8,7 @@ import hirs.data.persist.enums.ReportMatchStatus;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -25,6 +26,11 @@ public class BatchImaMatchStatus<T extends AbstractImaBaselineRecord> {
     // mapping from measurement record to match statuses, one per baseline
     private Map<IMAMeasurementRecord, Set<IMAMatchStatus<T>>> matchStatuses = new HashMap<>();
 
+    // the same match statuses grouped by their status, so that the matches or mismatches of a
+    // large report can be read without visiting every record
+    private final Map<ReportMatchStatus, List<IMAMatchStatus<T>>> statusesByType =
+            new EnumMap<>(ReportMatchStatus.class);
+
     /**
      * Create an empty instance of this class.
      */
@@ -43,6 +49,7 @@ public class BatchImaMatchStatus<T extends AbstractImaBaselineRecord> {
             throw new IllegalArgumentException("Cannot construct from null matches");
         }
 
+        this.matchStatuses = new HashMap<>(matchStatuses.size() * 2);
         for (IMAMatchStatus<T> match : matchStatuses) {
             add(match);
         }
@@ -58,13 +65,13 @@ public class BatchImaMatchStatus<T extends AbstractImaBaselineRecord> {
             throw new IllegalArgumentException("Cannot add a null match status");
         }
 
-        IMAMeasurementRecord measurementRecord = status.getRecordToMatch();
-
-        if (!matchStatuses.containsKey(measurementRecord)) {
-            matchStatuses.put(measurementRecord, new HashSet<IMAMatchStatus<T>>());
+        Set<IMAMatchStatus<T>> recordStatuses = matchStatuses.get(status.getRecordToMatch());
+        if (recordStatuses == null) {
+            recordStatuses = new HashSet<>();
+            matchStatuses.put(status.getRecordToMatch(), recordStatuses);
         }
 
-        for (IMAMatchStatus<T> existingMatchStatus : matchStatuses.get(measurementRecord)) {
+        for (IMAMatchStatus<T> existingMatchStatus : recordStatuses) {
             if (existingMatchStatus.getBaseline().equals(status.getBaseline())) {
                 throw new IllegalArgumentException(String.format(
                         "A conflicting match result exists: %s",
@@ -72,7 +79,14 @@ public class BatchImaMatchStatus<T extends AbstractImaBaselineRecord> {
                 );
             }
         }
-        matchStatuses.get(measurementRecord).add(status);
+        if (recordStatuses.add(status)) {
+            List<IMAMatchStatus<T>> statusesOfType = statusesByType.get(status.getStatus());
+            if (statusesOfType == null) {
+                statusesOfType = new ArrayList<>();
+                statusesByType.put(status.getStatus(), statusesOfType);
+            }
+            statusesOfType.add(status);
+        }
     }
 
     /**
@@ -249,15 +263,33 @@ public class BatchImaMatchStatus<T extends AbstractImaBaselineRecord> {
      * @return matching IMAMatchStatuses
      */
     public Collection<IMAMatchStatus<T>> getAllMatches() {
-        List<IMAMatchStatus<T>> matches = new ArrayList<>();
-        for (Map.Entry<IMAMeasurementRecord, Set<IMAMatchStatus<T>>> e : matchStatuses.entrySet()) {
-            for (IMAMatchStatus<T> matchStatus : e.getValue()) {
-                if (matchStatus.getStatus().equals(ReportMatchStatus.MATCH)) {
-                    matches.add(matchStatus);
-                }
-            }
+        return getAllWithStatus(ReportMatchStatus.MATCH);
+    }
+
+    /**
+     * Gets a collection of all IMAMatchStatuses with a status of ReportMatchStatus.MISMATCH.
+     * Unlike iterating over {@link #getAppraisedMeasurementRecords()}, this only visits the
+     * mismatches, which are usually a small part of a report.
+     *
+     * @return mismatching IMAMatchStatuses
+     */
+    public Collection<IMAMatchStatus<T>> getAllMismatches() {
+        return getAllWithStatus(ReportMatchStatus.MISMATCH);
+    }
+
+    /**
+     * Gets a read-only view of all IMAMatchStatuses with the given status.
+     *
+     * @param reportMatchStatus the status of the IMAMatchStatuses to return
+     * @return the IMAMatchStatuses with the given status; may be empty
+     */
+    public Collection<IMAMatchStatus<T>> getAllWithStatus(
+            final ReportMatchStatus reportMatchStatus) {
+        List<IMAMatchStatus<T>> statuses = statusesByType.get(reportMatchStatus);
+        if (statuses == null) {
+            return Collections.emptyList();
         }
-        return matches;
+        return Collections.unmodifiableList(statuses);
     }
 
     /**
@@ -271,14 +303,6 @@ public class BatchImaMatchStatus<T extends AbstractImaBaselineRecord> {
         return matchStatuses.containsKey(record);
     }
 
-    private Set<IMAMatchStatus<T>> getMatchStatuses() {
-        Set<IMAMatchStatus<T>> matchSet = new HashSet<>();
-        for (Map.Entry<IMAMeasurementRecord, Set<IMAMatchStatus<T>>> e : matchStatuses.entrySet()) {
-            matchSet.addAll(e.getValue());
-        }
-        return matchSet;
-    }
-
     /**
      * Given another BatchImaMatchStatus, merge its match statuses into this instance.  Useful in
      * collecting match results from multiple baselines.
@@ -286,8 +310,10 @@ public class BatchImaMatchStatus<T extends AbstractImaBaselineRecord> {
      * @param other the other BatchImaMatchStatus whose results should be merged into this instance
      */
     public void merge(final BatchImaMatchStatus<T> other) {
-        for (IMAMatchStatus<T> match : other.getMatchStatuses()) {
-            add(match);
+        for (List<IMAMatchStatus<T>> statuses : other.statusesByType.values()) {
+            for (IMAMatchStatus<T> match : statuses) {
+                add(match);
+            }
         }
     }
 
@@ -0,0 +1,164 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.Digest;
+import hirs.data.persist.baseline.AbstractImaBaselineRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable index of IMA baseline records by hash, used by {@link ImaRecordMatcher} to find
+ * the baseline records related to a measurement.
+ * <p>
+ * Rather than keying a map by a <code>String</code> or <code>Digest</code> object per record,
+ * the index packs each distinct digest into a fixed number of <code>long</code> words (three for
+ * SHA-1, four for SHA-256, plus a word holding the algorithm and length) stored inline in one
+ * open-addressing table with linear probing. Records sharing a digest are chained through an
+ * <code>int</code> array. Looking up a digest reads its bytes directly and allocates nothing
+ * but the list of results.
+ *
+ * @param <T> the type of IMA baseline record in the index
+ */
+final class DigestIndex<T extends AbstractImaBaselineRecord> {
+    private static final int EMPTY = -1;
+    private static final int BYTES_PER_WORD = Long.BYTES;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int HEADER_SHIFT = 32;
+    private static final int MIX_SHIFT = 31;
+    private static final long MIX_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final int words;
+    private final int mask;
+    private final long[] keys;
+    private final int[] heads;
+    private final int[] next;
+    private final Object[] values;
+
+    /**
+     * Builds an index of the given records by their hashes. Records without a hash are not
+     * indexed.
+     *
+     * @param records the records to index
+     */
+    DigestIndex(final Collection<T> records) {
+        int maxLength = 0;
+        int count = 0;
+        for (T record : records) {
+            Digest hash = record.getHash();
+            if (hash != null) {
+                maxLength = Math.max(maxLength, hash.getAlgorithm().getLengthInBytes());
+                count++;
+            }
+        }
+
+        words = 1 + (maxLength + BYTES_PER_WORD - 1) / BYTES_PER_WORD;
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) * 2;
+        mask = capacity - 1;
+        keys = new long[capacity * words];
+        heads = new int[capacity];
+        Arrays.fill(heads, EMPTY);
+        next = new int[count];
+        values = new Object[count];
+
+        int entry = 0;
+        for (T record : records) {
+            Digest hash = record.getHash();
+            if (hash == null) {
+                continue;
+            }
+            byte[] bytes = hash.getDigest();
+            long header = header(hash, bytes);
+            int slot = findSlot(header, bytes);
+            if (heads[slot] == EMPTY) {
+                int base = slot * words;
+                keys[base] = header;
+                for (int w = 1; w < words; w++) {
+                    keys[base + w] = word(bytes, w - 1);
+                }
+            }
+            values[entry] = record;
+            next[entry] = heads[slot];
+            heads[slot] = entry;
+            entry++;
+        }
+    }
+
+    /**
+     * Returns the records whose hash equals the given digest.
+     *
+     * @param digest the digest to look up
+     * @return the matching records, which may be empty
+     */
+    @SuppressWarnings("unchecked")
+    List<T> get(final Digest digest) {
+        if (digest == null) {
+            return Collections.emptyList();
+        }
+        byte[] bytes = digest.getDigest();
+        if (bytes.length > (words - 1) * BYTES_PER_WORD) {
+            return Collections.emptyList();
+        }
+
+        int slot = findSlot(header(digest, bytes), bytes);
+        List<T> matches = new ArrayList<>();
+        for (int entry = heads[slot]; entry != EMPTY; entry = next[entry]) {
+            matches.add((T) values[entry]);
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the slot holding the given digest, or the empty slot where it would be added.
+     */
+    private int findSlot(final long header, final byte[] bytes) {
+        int slot = hash(header, bytes) & mask;
+        while (heads[slot] != EMPTY && !keyEquals(slot, header, bytes)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean keyEquals(final int slot, final long header, final byte[] bytes) {
+        int base = slot * words;
+        if (keys[base] != header) {
+            return false;
+        }
+        for (int w = 1; w < words; w++) {
+            if (keys[base + w] != word(bytes, w - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(final long header, final byte[] bytes) {
+        long h = header;
+        for (int w = 1; w < words; w++) {
+            h = h * MIX_MULTIPLIER + word(bytes, w - 1);
+        }
+        h *= MIX_MULTIPLIER;
+        return (int) (h ^ (h >>> MIX_SHIFT));
+    }
+
+    private static long header(final Digest digest, final byte[] bytes) {
+        return ((long) digest.getAlgorithm().ordinal() << HEADER_SHIFT) | bytes.length;
+    }
+
+    /**
+     * Packs eight bytes of a digest into a big-endian word, padding past the end with zeros.
+     */
+    private static long word(final byte[] bytes, final int index) {
+        long word = 0;
+        int start = index * BYTES_PER_WORD;
+        for (int i = start; i < start + BYTES_PER_WORD; i++) {
+            word <<= Byte.SIZE;
+            if (i < bytes.length) {
+                word |= bytes[i] & BYTE_MASK;
+            }
+        }
+        return word;
+    }
+}
@@ -17,7 +17,10 @@ import java.util.Set;
  * compare {@link IMAMeasurementRecord}s against a collection of {@link ImaIgnoreSetRecord}s.
  */
 public class ImaIgnoreSetRecordMatcher extends ImaRecordMatcher<ImaIgnoreSetRecord> {
-    private Map<ImaIgnoreSetRecord, RegexFilePathMatcher> matchers = new HashMap<>();
+    private final Collection<ImaIgnoreSetRecord> records;
+
+    // regex matchers, compiled when the first record is looked up
+    private volatile Map<ImaIgnoreSetRecord, RegexFilePathMatcher> matchers = null;
 
     /**
      * Construct a new ImaBlacklistRecordMatcher.
@@ -32,10 +35,7 @@ public class ImaIgnoreSetRecordMatcher extends ImaRecordMatcher<ImaIgnoreSetReco
             final IMAPolicy imaPolicy,
             final ImaBaseline imaBaseline) {
         super(records, imaPolicy, imaBaseline);
-
-        for (ImaIgnoreSetRecord ignoreRecord : records) {
-            matchers.put(ignoreRecord, new RegexFilePathMatcher(ignoreRecord.getPath()));
-        }
+        this.records = records;
     }
 
     /**
@@ -66,7 +66,7 @@ public class ImaIgnoreSetRecordMatcher extends ImaRecordMatcher<ImaIgnoreSetReco
         Set<ImaIgnoreSetRecord> matchingRecords = getRelatedBaselineRecordsByPath(record);
 
         for (Map.Entry<ImaIgnoreSetRecord, RegexFilePathMatcher> recordMatcher
-                : matchers.entrySet()) {
+                : getMatchers().entrySet()) {
             if (recordMatcher.getValue().isMatch(record.getPath())) {
                 matchingRecords.add(recordMatcher.getKey());
             }
@@ -83,4 +83,21 @@ public class ImaIgnoreSetRecordMatcher extends ImaRecordMatcher<ImaIgnoreSetReco
             );
         }
     }
+
+    private Map<ImaIgnoreSetRecord, RegexFilePathMatcher> getMatchers() {
+        Map<ImaIgnoreSetRecord, RegexFilePathMatcher> map = matchers;
+        if (map == null) {
+            synchronized (this) {
+                map = matchers;
+                if (map == null) {
+                    map = new HashMap<>();
+                    for (ImaIgnoreSetRecord ignoreRecord : records) {
+                        map.put(ignoreRecord, new RegexFilePathMatcher(ignoreRecord.getPath()));
+                    }
+                    matchers = map;
+                }
+            }
+        }
+        return map;
+    }
 }
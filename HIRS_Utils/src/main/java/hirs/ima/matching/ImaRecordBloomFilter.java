@@ -0,0 +1,309 @@
+package hirs.ima.matching;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import hirs.data.persist.Digest;
+import hirs.data.persist.IMAMeasurementRecord;
+import hirs.data.persist.IMAPolicy;
+import hirs.data.persist.baseline.AbstractImaBaselineRecord;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.ImaBaseline;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.apache.logging.log4j.LogManager.getLogger;
+
+/**
+ * A Bloom filter over the paths, hashes and path patterns of the records of an IMA blacklist or
+ * ignore set baseline. Before a measurement record is given to the exact matcher of such a
+ * baseline, the filter can rule out that any baseline record matches it, so that the matcher
+ * only runs for the few measurement records that might be in the baseline.
+ * <p>
+ * The filter never rules out a measurement record that the matcher would match, but may let
+ * through some that it would not. It holds:
+ * <ul>
+ *   <li>the path of every record, which is looked up by the path, equivalent paths and partial
+ *       path (file name) of a measurement record</li>
+ *   <li>the partial path of every record with a full path, which is looked up by the path of a
+ *       measurement record that is itself a partial path</li>
+ *   <li>for a blacklist, the hash of every record, which is looked up by the hash of a
+ *       measurement record</li>
+ *   <li>for an ignore set, the literal prefix of every record's path pattern, which is looked up
+ *       by each prefix of the path of a measurement record with the same length</li>
+ * </ul>
+ * The contents of the filter do not depend on an IMA policy, so it can be stored with its
+ * baseline with {@link #toByteArray()} and read back with
+ * {@link #restore(byte[], Collection, boolean)}.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class ImaRecordBloomFilter {
+    private static final Logger LOGGER = getLogger(ImaRecordBloomFilter.class);
+
+    /**
+     * The probability that a key looked up in the filter is wrongly found. A measurement record
+     * is looked up by several keys, so this is kept low enough that few records that are not in
+     * the baseline are let through.
+     */
+    public static final double FALSE_POSITIVE_PROBABILITY = 0.001;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final char PATH_KEY = 'p';
+    private static final char PARTIAL_PATH_KEY = 'f';
+    private static final char HASH_KEY = 'h';
+    private static final char PREFIX_KEY = 'g';
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+    private static final String QUANTIFIERS = "?*{";
+
+    private final boolean matchPatterns;
+    private final int recordCount;
+    private final long recordFingerprint;
+    private final int[] prefixLengths;
+    private final BloomFilter<CharSequence> filter;
+    private byte[] serialized;
+
+    private ImaRecordBloomFilter(final boolean matchPatterns, final int recordCount,
+                                 final long recordFingerprint, final int[] prefixLengths,
+                                 final BloomFilter<CharSequence> filter) {
+        this.matchPatterns = matchPatterns;
+        this.recordCount = recordCount;
+        this.recordFingerprint = recordFingerprint;
+        this.prefixLengths = prefixLengths;
+        this.filter = filter;
+    }
+
+    /**
+     * Builds a filter over the given baseline records.
+     *
+     * @param records the records of the baseline
+     * @param matchPatterns true to build the filter of an ignore set, whose record paths are
+     *                      patterns and whose record hashes are not matched, or false to build
+     *                      the filter of a blacklist
+     * @return the filter
+     */
+    public static ImaRecordBloomFilter build(
+            final Collection<? extends AbstractImaBaselineRecord> records,
+            final boolean matchPatterns) {
+        List<String> keys = new ArrayList<>();
+        Set<Integer> prefixLengths = new TreeSet<>();
+        for (AbstractImaBaselineRecord record : records) {
+            String path = record.getPath();
+            if (path != null) {
+                keys.add(PATH_KEY + path);
+                if (isFullPath(path)) {
+                    keys.add(PARTIAL_PATH_KEY + IMABaselineRecord.getPartialPath(path));
+                }
+                if (matchPatterns) {
+                    // a pattern matches a path either as a regex, in which case the path starts
+                    // with its literal prefix, or as an initial substring of the path
+                    String prefix = getLiteralPrefix(path);
+                    keys.add(PREFIX_KEY + prefix);
+                    prefixLengths.add(prefix.length());
+                    if (!prefix.equals(path)) {
+                        keys.add(PREFIX_KEY + path);
+                        prefixLengths.add(path.length());
+                    }
+                }
+            }
+            if (!matchPatterns && record.getHash() != null) {
+                keys.add(HASH_KEY + record.getHash().getDigestString());
+            }
+        }
+
+        BloomFilter<CharSequence> filter = BloomFilter.create(Funnels.unencodedCharsFunnel(),
+                Math.max(keys.size(), 1), FALSE_POSITIVE_PROBABILITY);
+        for (String key : keys) {
+            filter.put(key);
+        }
+
+        int[] lengths = new int[prefixLengths.size()];
+        int i = 0;
+        for (int length : prefixLengths) {
+            lengths[i++] = length;
+        }
+        return new ImaRecordBloomFilter(matchPatterns, records.size(),
+                ImaBaseline.getFingerprint(records), lengths, filter);
+    }
+
+    /**
+     * Reads a filter previously written by {@link #toByteArray()}. If the stored filter was not
+     * built in the same way from exactly the given records, for instance because records were
+     * saved to or deleted from the baseline without it, or if it cannot be read, a new filter is
+     * built from the given records instead.
+     *
+     * @param bytes the stored filter, which may be null
+     * @param records the current records of the baseline
+     * @param matchPatterns true if the filter is the filter of an ignore set, as for
+     *                      {@link #build(Collection, boolean)}
+     * @return the stored filter, or a new filter if it is not current
+     */
+    public static ImaRecordBloomFilter restore(
+            final byte[] bytes,
+            final Collection<? extends AbstractImaBaselineRecord> records,
+            final boolean matchPatterns) {
+        if (bytes != null) {
+            try {
+                ImaRecordBloomFilter stored = fromByteArray(bytes);
+                if (stored.matchPatterns == matchPatterns
+                        && stored.recordCount == records.size()
+                        && stored.recordFingerprint == ImaBaseline.getFingerprint(records)) {
+                    return stored;
+                }
+                LOGGER.debug("stored IMA record filter is out of date; rebuilding");
+            } catch (IOException e) {
+                LOGGER.warn("could not read stored IMA record filter; rebuilding", e);
+            }
+        }
+        return build(records, matchPatterns);
+    }
+
+    /**
+     * Determines whether any record of the baseline might match the given measurement record
+     * under the given IMA policy. If this returns false, no record matches it.
+     *
+     * @param record the measurement record to look up
+     * @param imaPolicy the IMA policy whose partial path and path equivalence settings the
+     *                  matcher will use
+     * @return false if no baseline record matches the measurement record, or true if one might
+     */
+    public boolean mightMatch(final IMAMeasurementRecord record, final IMAPolicy imaPolicy) {
+        Digest hash = record.getHash();
+        if (!matchPatterns && hash != null
+                && filter.mightContain(HASH_KEY + hash.getDigestString())) {
+            return true;
+        }
+
+        String path = record.getPath();
+        if (path == null) {
+            return false;
+        }
+        if (filter.mightContain(PATH_KEY + path)) {
+            return true;
+        }
+        if (imaPolicy.isPartialPathEnable()) {
+            if (isFullPath(path)) {
+                if (filter.mightContain(PATH_KEY + IMABaselineRecord.getPartialPath(path))) {
+                    return true;
+                }
+            } else if (filter.mightContain(PARTIAL_PATH_KEY + path)) {
+                return true;
+            }
+        }
+
+        // equivalences are symmetric, so a record path is equivalent to this path exactly when
+        // this path is equivalent to the record path
+        Set<String> equivalentPaths = new HashSet<>();
+        imaPolicy.getPathEquivalenceTrie().addEquivalentPaths(path, equivalentPaths);
+        for (String equivalentPath : equivalentPaths) {
+            if (filter.mightContain(PATH_KEY + equivalentPath)) {
+                return true;
+            }
+        }
+
+        for (int length : prefixLengths) {
+            if (length > path.length()) {
+                break;
+            }
+            if (filter.mightContain(PREFIX_KEY + path.substring(0, length))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes this filter to a byte array, from which it can be read back with
+     * {@link #restore(byte[], Collection, boolean)}.
+     *
+     * @return the serialized filter
+     */
+    public synchronized byte[] toByteArray() {
+        if (serialized == null) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeBoolean(matchPatterns);
+                out.writeInt(recordCount);
+                out.writeLong(recordFingerprint);
+                out.writeInt(prefixLengths.length);
+                for (int length : prefixLengths) {
+                    out.writeInt(length);
+                }
+                filter.writeTo(out);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not serialize IMA record filter", e);
+            }
+            serialized = bytes.toByteArray();
+        }
+        return Arrays.copyOf(serialized, serialized.length);
+    }
+
+    private static ImaRecordBloomFilter fromByteArray(final byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown IMA record filter format");
+            }
+            boolean matchPatterns = in.readBoolean();
+            int recordCount = in.readInt();
+            long recordFingerprint = in.readLong();
+            int[] prefixLengths = new int[in.readInt()];
+            for (int i = 0; i < prefixLengths.length; i++) {
+                prefixLengths[i] = in.readInt();
+            }
+            BloomFilter<CharSequence> filter =
+                    BloomFilter.readFrom(in, Funnels.unencodedCharsFunnel());
+            ImaRecordBloomFilter restored = new ImaRecordBloomFilter(matchPatterns, recordCount,
+                    recordFingerprint, prefixLengths, filter);
+            restored.serialized = Arrays.copyOf(bytes, bytes.length);
+            return restored;
+        }
+    }
+
+    /**
+     * Returns the longest string that every path matched by the given pattern starts with, as a
+     * regular expression matched against the whole path. Escaped characters are included, and
+     * the prefix ends before the first other metacharacter, or one character earlier if that
+     * metacharacter makes the preceding character optional. A pattern with alternatives has an
+     * empty prefix.
+     *
+     * @param pattern the regular expression
+     * @return the literal prefix of the pattern, which may be empty
+     */
+    static String getLiteralPrefix(final String pattern) {
+        if (pattern.indexOf('|') >= 0) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\' && i + 1 < pattern.length()
+                    && !Character.isLetterOrDigit(pattern.charAt(i + 1))) {
+                prefix.append(pattern.charAt(++i));
+            } else if (REGEX_METACHARACTERS.indexOf(c) >= 0) {
+                if (QUANTIFIERS.indexOf(c) >= 0 && prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            } else {
+                prefix.append(c);
+            }
+        }
+        return prefix.toString();
+    }
+
+    private static boolean isFullPath(final String path) {
+        return path.startsWith("/");
+    }
+}
@@ -2,18 +2,19 @@ package hirs.ima.matching;
 
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.Multimap;
-import hirs.data.persist.Digest;
 import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.IMAMeasurementRecord;
 import hirs.data.persist.IMAPolicy;
 import hirs.data.persist.baseline.AbstractImaBaselineRecord;
 import hirs.data.persist.baseline.ImaBaseline;
+import hirs.data.persist.enums.ReportMatchStatus;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * This class contains the logic used to match IMA measurement records against
@@ -24,13 +25,18 @@ import java.util.Set;
  * @param <T> the type of IMA baseline record that this class matches against
  */
 public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
+    /**
+     * The number of measurement records in a batch above which the batch is matched in parallel.
+     */
+    public static final int PARALLEL_BATCH_THRESHOLD = 1000;
+
     private final IMAPolicy imaPolicy;
     private final ImaBaseline imaBaseline;
     private final Collection<T> records;
 
-    // lookup maps
-    private Multimap<String, T> pathMap = null;
-    private Multimap<String, T> hashMap = null;
+    // lookup maps, built on first use and shared by the threads matching a batch
+    private volatile Multimap<String, T> pathMap = null;
+    private volatile DigestIndex<T> hashIndex = null;
 
     /**
      * Construct a new IMARecordMatcher.
@@ -72,19 +78,54 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
     /**
      * Given a collection of measurement records, populate and return a BatchImaMatchStatus
      * instance containing the match results according to this ImaRecordMatcher's matching
-     * behavior and the given IMA policy, baseline, and baseline records.
+     * behavior and the given IMA policy, baseline, and baseline records.  Batches larger than
+     * {@link #PARALLEL_BATCH_THRESHOLD} are matched in parallel, so implementations of
+     * {@link #contains(IMAMeasurementRecord)} must be safe to call from several threads.
      *
      * @param records the measurement records to match to baseline records
      * @return a BatchImaMatchStatus containing the match status of all the given records
      */
     public BatchImaMatchStatus<T> batchMatch(final Collection<IMAMeasurementRecord> records) {
-        List<IMAMatchStatus<T>> matchStatuses = new ArrayList<>();
-        for (IMAMeasurementRecord record : records) {
-            matchStatuses.add(contains(record));
+        return batchMatch(records, null);
+    }
+
+    /**
+     * Given a collection of measurement records, populate and return a BatchImaMatchStatus
+     * instance containing the match results as {@link #batchMatch(Collection)} does, except
+     * that records ruled out by the given filter over this matcher's baseline records are
+     * given an UNKNOWN status without being looked up.
+     *
+     * @param records the measurement records to match to baseline records
+     * @param filter a filter built from this matcher's baseline records, or null to look up
+     *               every record
+     * @return a BatchImaMatchStatus containing the match status of all the given records
+     */
+    public BatchImaMatchStatus<T> batchMatch(final Collection<IMAMeasurementRecord> records,
+                                             final ImaRecordBloomFilter filter) {
+        List<IMAMatchStatus<T>> matchStatuses;
+        if (records.size() > PARALLEL_BATCH_THRESHOLD) {
+            // records are matched independently, so large reports are split across the
+            // fork/join pool; the lookup maps are safe to build and read from several threads
+            matchStatuses = records.parallelStream()
+                    .map(record -> match(record, filter))
+                    .collect(Collectors.toList());
+        } else {
+            matchStatuses = new ArrayList<>(records.size());
+            for (IMAMeasurementRecord record : records) {
+                matchStatuses.add(match(record, filter));
+            }
         }
         return new BatchImaMatchStatus<>(matchStatuses);
     }
 
+    private IMAMatchStatus<T> match(final IMAMeasurementRecord record,
+                                    final ImaRecordBloomFilter filter) {
+        if (filter != null && record != null && !filter.mightMatch(record, imaPolicy)) {
+            return new IMAMatchStatus<>(record, ReportMatchStatus.UNKNOWN, imaBaseline);
+        }
+        return contains(record);
+    }
+
     /**
      * Gets all IMA baseline records that are related to the given IMA measurement record
      * as determined by path similarity or equivalency.  This method respects the IMA policy
@@ -98,16 +139,13 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
             throw new IllegalArgumentException("Cannot match on null record.");
         }
 
-        if (pathMap == null) {
-            pathMap = createPathMap(this.records);
-        }
-
+        Multimap<String, T> paths = getPathMap();
         final Set<T> matchingRecords = new HashSet<>();
-        matchingRecords.addAll(pathMap.get(record.getPath()));
+        matchingRecords.addAll(paths.get(record.getPath()));
 
         if (imaPolicy.isPartialPathEnable() && isFullPath(record.getPath())) {
             for (T matchingPartialRecord
-                    : pathMap.get(IMABaselineRecord.getPartialPath(record.getPath()))) {
+                    : paths.get(IMABaselineRecord.getPartialPath(record.getPath()))) {
 
                 // ensure that we're not about to match two unequal full paths
                 if (isFullPath(matchingPartialRecord.getPath())
@@ -134,11 +172,35 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
             throw new IllegalArgumentException("Cannot match on null record.");
         }
 
-        if (hashMap == null) {
-            hashMap = createHashMap(this.records);
+        return new HashSet<>(getHashIndex().get(record.getHash()));
+    }
+
+    private Multimap<String, T> getPathMap() {
+        Multimap<String, T> map = pathMap;
+        if (map == null) {
+            synchronized (this) {
+                map = pathMap;
+                if (map == null) {
+                    map = createPathMap(this.records);
+                    pathMap = map;
+                }
+            }
         }
+        return map;
+    }
 
-        return new HashSet<>(hashMap.get(record.getHash().toString()));
+    private DigestIndex<T> getHashIndex() {
+        DigestIndex<T> index = hashIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = hashIndex;
+                if (index == null) {
+                    index = new DigestIndex<>(this.records);
+                    hashIndex = index;
+                }
+            }
+        }
+        return index;
     }
 
     private Multimap<String, T> createPathMap(
@@ -157,21 +219,6 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
         return mapBuilder.build();
     }
 
-    private Multimap<String, T> createHashMap(
-            final Collection<T> imaBaselineRecords) {
-        ImmutableListMultimap.Builder<String, T> mapBuilder =
-                ImmutableListMultimap.builder();
-
-        for (T record : imaBaselineRecords) {
-            Digest hash = record.getHash();
-            if (hash != null) {
-                mapBuilder.put(hash.toString(), record);
-            }
-        }
-
-        return mapBuilder.build();
-    }
-
     /**
      * Calculates all paths that should be considered as 'matching' the given path, according to
      * the given IMAPolicy, including the original path itself.  For instance, if partial paths are
@@ -186,17 +233,10 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
     public static Collection<String> getMatchingPaths(
             final IMAPolicy imaPolicy,
             final String targetPath) {
-        Multimap<String, String> pathEquivalences = imaPolicy.getPathEquivalences();
         Set<String> pathsToFind = new HashSet<>();
 
         pathsToFind.add(targetPath);
-        for (String path : pathEquivalences.keySet()) {
-            if (targetPath.startsWith(path)) {
-                for (String equivalentPath : pathEquivalences.get(path)) {
-                    pathsToFind.add(targetPath.replaceFirst(path, equivalentPath));
-                }
-            }
-        }
+        imaPolicy.getPathEquivalenceTrie().addEquivalentPaths(targetPath, pathsToFind);
 
         if (imaPolicy.isPartialPathEnable() && isFullPath(targetPath)) {
             pathsToFind.add(IMABaselineRecord.getPartialPath(targetPath));
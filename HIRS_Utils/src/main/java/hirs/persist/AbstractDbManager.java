@@ -37,6 +37,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -442,6 +443,47 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
         }
     }
 
+    /**
+     * Saves the <code>Object</code>s in the database in a single transaction. The session is
+     * flushed and cleared after every JDBC batch, so that the saved objects are not held by it.
+     *
+     * @param objects objects to save
+     * @throws DBManagerException if an object has previously been saved or an
+     * error occurs while trying to save them to the database
+     */
+    protected void doSaveAll(final Collection<T> objects) throws DBManagerException {
+        LOGGER.debug("saving {} objects", objects.size());
+        if (objects.contains(null)) {
+            LOGGER.debug("null object argument");
+            throw new NullPointerException("object");
+        }
+
+        int batchSize = Math.max(((SessionFactoryImpl) factory).getSettings().getJdbcBatchSize(),
+                1);
+        Transaction tx = null;
+        Session session = factory.getCurrentSession();
+        try {
+            tx = session.beginTransaction();
+            int count = 0;
+            for (T object : objects) {
+                session.save(object);
+                if (++count % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.getTransaction().commit();
+        } catch (Exception e) {
+            final String msg = "unable to save objects";
+            LOGGER.error(msg, e);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw new DBManagerException(msg, e);
+        }
+    }
+
     /**
      * Updates an object stored in the database. This updates the database
      * entries to reflect the new values that should be set.
@@ -759,6 +801,38 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
             final String columnToOrder, final boolean ascending, final int firstResult,
             final int maxResults, final String search, final Map<String, Boolean> searchableColumns,
             final CriteriaModifier criteriaModifier) throws DBManagerException {
+        return doGetOrderedList(clazz, columnToOrder, ascending, firstResult, maxResults, search,
+                searchableColumns, criteriaModifier, null);
+    }
+
+    /**
+     * Returns a list of all <code>T</code>s that are ordered by a column and
+     * direction (ASC, DESC) that is provided by the user, as
+     * {@link #doGetOrderedList(Class, String, boolean, int, int, String, Map, CriteriaModifier)}
+     * does. If a {@link KeysetPaging} is given, pages that follow a previously queried page are
+     * found by seeking past its last record, and record counts are reused while they are kept.
+     *
+     * @param clazz class type of <code>T</code>s to search for (may be null to
+     * use Class&lt;T&gt;)
+     * @param columnToOrder - Column to be ordered
+     * @param ascending - direction of sort
+     * @param firstResult starting point of first result in set
+     * @param maxResults total number we want returned for display in table
+     * @param search string of criteria to be matched to visible columns
+     * @param searchableColumns Map of String and boolean values with column
+     * headers and whether they should be searched. Boolean is true if field provides a
+     * typical String that can be searched by Hibernate without transformation.
+     * @param criteriaModifier - a way to modify the criteria used in the query
+     * @param paging the keyset paging state of the list, or null to page with offsets
+     * @return FilteredRecordsList object with query data
+     * @throws DBManagerException if unable to create the list
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    protected FilteredRecordsList<T> doGetOrderedList(final Class<? extends T> clazz,
+            final String columnToOrder, final boolean ascending, final int firstResult,
+            final int maxResults, final String search, final Map<String, Boolean> searchableColumns,
+            final CriteriaModifier criteriaModifier, final KeysetPaging paging)
+            throws DBManagerException {
         LOGGER.debug("Getting object list");
         Class<? extends T> searchClass = clazz;
         if (clazz == null) {
@@ -776,60 +850,48 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
             LOGGER.debug("updating object in db");
             tx = session.beginTransaction();
 
-            //Returns totalResults in the given entity
-            Criteria criteria = session.createCriteria(searchClass)
-                    .setProjection(Projections.countDistinct("id"));
-            criteriaModifier.modify(criteria);
-
-            Long totalResultCount = (Long) criteria.uniqueResult();
-
-            Long recordsFiltered = totalResultCount;
-            Conjunction and = Restrictions.conjunction();
-            if (totalResultCount != 0) {
-                //Builds the search criteria from all of the searchable columns
-                if (searchableColumns != null) {
-                    // Search for all words in all searchable columns
-                    String[] searchWords = search.split(" ");
-                    for (String word : searchWords) {
-                        // Every word must be in at least one column
-                        Disjunction or = Restrictions.disjunction();
-                        for (Map.Entry<String, Boolean> entry : searchableColumns.entrySet()) {
-                            if (entry.getValue()) {
-                                or.add(ilike(entry.getKey(), word, MatchMode.ANYWHERE));
-                            } else {
-                                or.add(ilikeCast(entry.getKey(), word));
-                            }
-                        }
-                        and.add(or);
-                    }
-                }
+            //Builds the search criteria from all of the searchable columns
+            Conjunction and = getSearchCriterion(search, searchableColumns);
 
-                //Retrieves a count of all the records after being filtered
-                criteria.setProjection(Projections.countDistinct("id"))
-                        .add(and);
-                recordsFiltered = (Long) criteria.uniqueResult();
+            long[] counts = null;
+            if (paging != null) {
+                counts = paging.getCounts(searchClass, search);
+            }
+            Long totalResultCount;
+            Long recordsFiltered;
+            if (counts != null) {
+                totalResultCount = counts[0];
+                recordsFiltered = counts[1];
+            } else {
+                //Returns totalResults in the given entity
+                Criteria criteria = session.createCriteria(searchClass)
+                        .setProjection(Projections.countDistinct("id"));
+                criteriaModifier.modify(criteria);
+
+                totalResultCount = (Long) criteria.uniqueResult();
+
+                recordsFiltered = totalResultCount;
+                if (totalResultCount != 0) {
+                    //Retrieves a count of all the records after being filtered
+                    criteria.setProjection(Projections.countDistinct("id"))
+                            .add(and);
+                    recordsFiltered = (Long) criteria.uniqueResult();
+                }
+                if (paging != null) {
+                    paging.putCounts(searchClass, search, totalResultCount, recordsFiltered);
+                }
             }
 
             if (recordsFiltered != 0) {
-                //Generates an inner query that handles the searching, paging,
-                //and sorting of the data.  The query returns distinct ids in
-                //order based on these values
-                Criteria uniqueSubCriteria = session.createCriteria(searchClass)
-                        .setProjection(
-                                Projections.distinct(
-                                        Projections.property("id")))
-                        .add(and)
-                        .setFirstResult(firstResult)
-                        .setMaxResults(maxResults);
-                criteriaModifier.modify(uniqueSubCriteria);
-                if (ascending) {
-                    uniqueSubCriteria.addOrder(Order.asc(columnToOrder));
+                List ids;
+                if (paging == null) {
+                    ids = getOrderedIds(session, searchClass, columnToOrder, ascending,
+                            firstResult, maxResults, and, criteriaModifier);
                 } else {
-                    uniqueSubCriteria.addOrder(Order.desc(columnToOrder));
+                    ids = getOrderedIds(session, searchClass, columnToOrder, ascending,
+                            firstResult, maxResults, search, and, criteriaModifier, paging);
                 }
 
-                List ids = uniqueSubCriteria.list();
-
                 //Values take the unique identities that passed all other
                 //criteria and returns the desired entity.  Queries needed to be
                 //separated in order to keep pagination and distinct results
@@ -840,11 +902,7 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
                 criteriaModifier.modify(finalCriteria);
 
                 //Checks the order and validates before returning the values
-                if (ascending) {
-                    finalCriteria.addOrder(Order.asc(columnToOrder));
-                } else {
-                    finalCriteria.addOrder(Order.desc(columnToOrder));
-                }
+                addOrder(finalCriteria, columnToOrder, ascending, paging != null);
 
                 List list = finalCriteria.list();
                 for (Object o : list) {
@@ -870,6 +928,208 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
         return aqr;
     }
 
+    /**
+     * Builds a criterion that requires every word of the search string to be in at least one
+     * of the searchable columns.
+     */
+    private Conjunction getSearchCriterion(final String search,
+                                           final Map<String, Boolean> searchableColumns) {
+        Conjunction and = Restrictions.conjunction();
+        if (searchableColumns != null) {
+            // Search for all words in all searchable columns
+            String[] searchWords = search.split(" ");
+            for (String word : searchWords) {
+                // Every word must be in at least one column
+                Disjunction or = Restrictions.disjunction();
+                for (Map.Entry<String, Boolean> entry : searchableColumns.entrySet()) {
+                    if (entry.getValue()) {
+                        or.add(ilike(entry.getKey(), word, MatchMode.ANYWHERE));
+                    } else {
+                        or.add(ilikeCast(entry.getKey(), word));
+                    }
+                }
+                and.add(or);
+            }
+        }
+        return and;
+    }
+
+    /**
+     * Returns the distinct ids of a page of records, skipping the preceding records with an
+     * offset.
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    private List getOrderedIds(final Session session, final Class<? extends T> searchClass,
+            final String columnToOrder, final boolean ascending, final int firstResult,
+            final int maxResults, final Criterion search,
+            final CriteriaModifier criteriaModifier) {
+        //Generates an inner query that handles the searching, paging,
+        //and sorting of the data.  The query returns distinct ids in
+        //order based on these values
+        Criteria uniqueSubCriteria = session.createCriteria(searchClass)
+                .setProjection(
+                        Projections.distinct(
+                                Projections.property("id")))
+                .add(search)
+                .setFirstResult(firstResult)
+                .setMaxResults(maxResults);
+        criteriaModifier.modify(uniqueSubCriteria);
+        addOrder(uniqueSubCriteria, columnToOrder, ascending, false);
+        return uniqueSubCriteria.list();
+    }
+
+    /**
+     * Returns the distinct ids of a page of records, seeking past the last record of the
+     * preceding page if it is known, and keeps the last record of this page for the page that
+     * follows it. Seeking reads the ordered rows without a distinct projection, which would make
+     * the database read every following row, so ids repeated by joins of the criteria modifier
+     * are skipped here instead.
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    private List getOrderedIds(final Session session, final Class<? extends T> searchClass,
+            final String columnToOrder, final boolean ascending, final int firstResult,
+            final int maxResults, final String search, final Criterion searchCriterion,
+            final CriteriaModifier criteriaModifier, final KeysetPaging paging) {
+        Object[] seekFrom = null;
+        if (firstResult > 0) {
+            KeysetPaging.Boundary boundary = paging.getBoundary(searchClass, columnToOrder,
+                    ascending, search, firstResult);
+            if (boundary == null) {
+                return getOrderedIds(session, searchClass, columnToOrder, ascending,
+                        firstResult, maxResults, search, searchCriterion, criteriaModifier,
+                        paging, true);
+            }
+            seekFrom = new Object[] {boundary.getSortValue(), boundary.getId()};
+        }
+
+        Set<Object> ids = new LinkedHashSet<>();
+        Object[] last = null;
+        while (true) {
+            Criteria seekCriteria = session.createCriteria(searchClass)
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.property(columnToOrder))
+                            .add(Projections.property("id")))
+                    .add(searchCriterion)
+                    .setMaxResults(maxResults);
+            criteriaModifier.modify(seekCriteria);
+            if (seekFrom != null) {
+                seekCriteria.add(seekPast(columnToOrder, ascending, seekFrom[0],
+                        (Serializable) seekFrom[1]));
+            }
+            addOrder(seekCriteria, columnToOrder, ascending, true);
+
+            List rows = seekCriteria.list();
+            for (Object row : rows) {
+                last = (Object[]) row;
+                ids.add(last[1]);
+                if (ids.size() == maxResults) {
+                    break;
+                }
+            }
+            if (ids.size() == maxResults || rows.size() < maxResults) {
+                break;
+            }
+            if (last[0] == null) {
+                // the rows were repeated by joins up to a null sort value, which cannot be
+                // sought past
+                return getOrderedIds(session, searchClass, columnToOrder, ascending,
+                        firstResult, maxResults, search, searchCriterion, criteriaModifier,
+                        paging, true);
+            }
+            seekFrom = last;
+        }
+        keepBoundary(paging, searchClass, columnToOrder, ascending, search,
+                firstResult + ids.size(), last);
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Returns the distinct ids of a page of records that cannot be sought, skipping the
+     * preceding records with an offset, and keeps the last record of the page for the page
+     * that follows it.
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    private List getOrderedIds(final Session session, final Class<? extends T> searchClass,
+            final String columnToOrder, final boolean ascending, final int firstResult,
+            final int maxResults, final String search, final Criterion searchCriterion,
+            final CriteriaModifier criteriaModifier, final KeysetPaging paging,
+            final boolean useOffset) {
+        Criteria uniqueSubCriteria = session.createCriteria(searchClass)
+                .setProjection(Projections.distinct(Projections.projectionList()
+                        .add(Projections.property(columnToOrder))
+                        .add(Projections.property("id"))))
+                .add(searchCriterion)
+                .setFirstResult(firstResult)
+                .setMaxResults(maxResults);
+        criteriaModifier.modify(uniqueSubCriteria);
+        addOrder(uniqueSubCriteria, columnToOrder, ascending, true);
+
+        List<Object> ids = new ArrayList<>();
+        Object[] last = null;
+        for (Object row : uniqueSubCriteria.list()) {
+            last = (Object[]) row;
+            ids.add(last[1]);
+        }
+        keepBoundary(paging, searchClass, columnToOrder, ascending, search,
+                firstResult + ids.size(), last);
+        return ids;
+    }
+
+    @SuppressWarnings("checkstyle:parameternumber")
+    private static void keepBoundary(final KeysetPaging paging, final Class<?> searchClass,
+            final String columnToOrder, final boolean ascending, final String search,
+            final int position, final Object[] last) {
+        if (last != null && last[0] != null) {
+            paging.putBoundary(searchClass, columnToOrder, ascending, search, position,
+                    last[0], (Serializable) last[1]);
+        }
+    }
+
+    /**
+     * Builds a criterion matching the records that are ordered after the given record when
+     * ordering by the given column and then by id. Null values are ordered before every other
+     * value, so they follow the record when ordering in descending order.
+     */
+    private static Criterion seekPast(final String columnToOrder, final boolean ascending,
+                                      final Object value, final Serializable id) {
+        if ("id".equals(columnToOrder)) {
+            return seekPastId(ascending, id);
+        }
+        Criterion sameValue = Restrictions.and(Restrictions.eq(columnToOrder, value),
+                seekPastId(ascending, id));
+        if (ascending) {
+            return Restrictions.or(Restrictions.gt(columnToOrder, value), sameValue);
+        }
+        return Restrictions.or(Restrictions.lt(columnToOrder, value), sameValue,
+                Restrictions.isNull(columnToOrder));
+    }
+
+    private static Criterion seekPastId(final boolean ascending, final Serializable id) {
+        if (ascending) {
+            return Restrictions.gt("id", id);
+        }
+        return Restrictions.lt("id", id);
+    }
+
+    /**
+     * Orders the criteria by the given column, and then by id if a total order is needed.
+     */
+    private static void addOrder(final Criteria criteria, final String columnToOrder,
+                                 final boolean ascending, final boolean orderById) {
+        if (ascending) {
+            criteria.addOrder(Order.asc(columnToOrder));
+        } else {
+            criteria.addOrder(Order.desc(columnToOrder));
+        }
+        if (orderById && !"id".equals(columnToOrder)) {
+            if (ascending) {
+                criteria.addOrder(Order.asc("id"));
+            } else {
+                criteria.addOrder(Order.desc("id"));
+            }
+        }
+    }
+
     /**
      * Returns the <code>SessionFactory</code>. The <code>SessionFactory</code>
      * can be used by sub-classes to make database calls.
@@ -889,6 +1149,20 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
         return factory.openStatelessSession();
     }
 
+    /**
+     * Returns the fetch size to set on a scrolled query so that its results are streamed from
+     * the database instead of being read into memory at once.
+     *
+     * @return fetch size for streaming queries
+     */
+    protected final int getStreamingFetchSize() {
+        if (getConfiguredImplementation() == DBManager.DBImpl.MYSQL) {
+            // provides a hint to the JDBC connector that records should be streamed
+            return Integer.MIN_VALUE;
+        }
+        return 1;
+    }
+
 
     /**
      * Helper method in order to properly cast columns that are not Strings into
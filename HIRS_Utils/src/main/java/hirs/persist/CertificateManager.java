@@ -39,4 +39,13 @@ public interface CertificateManager {
      * @return true if the deletion succeeded, false otherwise
      */
     boolean delete(Certificate certificate);
+
+    /**
+     * Returns a value that changes whenever a CertificateAuthorityCredential is added,
+     * archived, restored or deleted. Callers holding trust chain data derived from the stored
+     * CA credentials compare it against the value they started from to detect changes.
+     *
+     * @return the current version of the stored trust chain certificates
+     */
+    String getTrustChainVersion();
 }
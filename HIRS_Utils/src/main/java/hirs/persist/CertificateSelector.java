@@ -15,7 +15,9 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -333,6 +335,22 @@ public abstract class CertificateSelector<T extends Certificate> {
         fieldValueSelections.put(name, valueToAssign);
     }
 
+    /**
+     * Set a field name and the values it may match, any one of which a certificate must have to
+     * be considered as matching.
+     *
+     * @param name the field name to query
+     * @param values the values to query, not empty or null
+     */
+    protected void setFieldValues(final String name, final Collection<?> values) {
+        Preconditions.checkArgument(
+                values != null && !values.isEmpty(),
+                String.format("field values (%s) cannot be null or empty.", name)
+        );
+
+        fieldValueSelections.put(name, new ArrayList<>(values));
+    }
+
     /**
      * Retrieve the result set as a single {@link Certificate}.
      * This method is best used when selecting on a unique attribute.
@@ -432,7 +450,12 @@ public abstract class CertificateSelector<T extends Certificate> {
         Conjunction conj = new Conjunction();
 
         for (Map.Entry<String, Object> fieldValueEntry : fieldValueSelections.entrySet()) {
-            conj.add(Restrictions.eq(fieldValueEntry.getKey(), fieldValueEntry.getValue()));
+            if (fieldValueEntry.getValue() instanceof Collection) {
+                conj.add(Restrictions.in(fieldValueEntry.getKey(),
+                        (Collection<?>) fieldValueEntry.getValue()));
+            } else {
+                conj.add(Restrictions.eq(fieldValueEntry.getKey(), fieldValueEntry.getValue()));
+            }
         }
 
         if (this.excludeArchivedCertificates) {
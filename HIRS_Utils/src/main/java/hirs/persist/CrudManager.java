@@ -3,6 +3,7 @@ package hirs.persist;
 import org.hibernate.criterion.Criterion;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -29,6 +30,16 @@ public interface CrudManager<T> extends OrderedListQuerier<T> {
      */
     T save(T object) throws DBManagerException;
 
+    /**
+     * Saves the <code>Object</code>s in the database in a single transaction, so that the
+     * inserts can be batched. Either every object is saved or none is.
+     *
+     * @param objects objects to save
+     * @throws DBManagerException if an object has previously been saved or an
+     * error occurs while trying to save them to the database
+     */
+    void saveAll(Collection<T> objects) throws DBManagerException;
+
     /**
      * Updates an object stored in the database. This updates the database
      * entries to reflect the new values that should be set.
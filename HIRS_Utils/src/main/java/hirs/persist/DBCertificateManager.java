@@ -1,14 +1,21 @@
 package hirs.persist;
 
 import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Projections;
 
+import java.io.Serializable;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is used to persist and retrieve {@link Certificate}s into and from a database.
@@ -18,6 +25,13 @@ public class DBCertificateManager extends DBManager<Certificate>
 
     private static final Logger LOGGER = LogManager.getLogger(DBCertificateManager.class);
 
+    /**
+     * Count of CA credential changes made through this class loader, which covers changes
+     * the database version alone can't tell apart (such as a delete and a save of another
+     * certificate within the same millisecond).
+     */
+    private static final AtomicLong TRUST_CHAIN_CHANGES = new AtomicLong();
+
     /**
      * Creates a new {@link DBCertificateManager} that uses the default
      * database.
@@ -59,6 +73,141 @@ public class DBCertificateManager extends DBManager<Certificate>
         );
     }
 
+    /**
+     * Returns a value that changes whenever a CertificateAuthorityCredential is added,
+     * archived, restored or deleted, including changes made by other applications sharing
+     * the database. It is built from the number of stored CA credentials, the number of
+     * archived ones and the latest creation and archive times.
+     *
+     * @return the current version of the stored trust chain certificates
+     * @throws DBManagerException if an error occurs while querying the database
+     */
+    @Override
+    public String getTrustChainVersion() throws DBManagerException {
+        StringBuilder version = new StringBuilder().append(TRUST_CHAIN_CHANGES.get());
+        Transaction tx = null;
+        Session session = getFactory().getCurrentSession();
+        try {
+            tx = session.beginTransaction();
+            Object[] stamp = (Object[]) session
+                    .createCriteria(CertificateAuthorityCredential.class)
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.rowCount())
+                            .add(Projections.count(Certificate.ARCHIVE_FIELD))
+                            .add(Projections.max("createTime"))
+                            .add(Projections.max(Certificate.ARCHIVE_FIELD)))
+                    .uniqueResult();
+            tx.commit();
+            for (Object value : stamp) {
+                version.append(':');
+                if (value instanceof Date) {
+                    version.append(((Date) value).getTime());
+                } else {
+                    version.append(value);
+                }
+            }
+        } catch (Exception e) {
+            final String msg = "unable to retrieve trust chain version";
+            LOGGER.error(msg, e);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw new DBManagerException(msg, e);
+        }
+        return version.toString();
+    }
+
+    /**
+     * Saves a certificate, recording a trust chain change for CA credentials.
+     *
+     * @param certificate the certificate to save
+     * @return the saved certificate
+     * @throws DBManagerException if the certificate could not be saved
+     */
+    @Override
+    protected Certificate doSave(final Certificate certificate) throws DBManagerException {
+        Certificate saved = super.doSave(certificate);
+        recordChange(certificate);
+        return saved;
+    }
+
+    /**
+     * Updates a certificate, recording a trust chain change for CA credentials, which
+     * covers CA credentials being archived or restored.
+     *
+     * @param certificate the certificate to update
+     * @throws DBManagerException if the certificate could not be updated
+     */
+    @Override
+    protected void doUpdate(final Certificate certificate) throws DBManagerException {
+        super.doUpdate(certificate);
+        recordChange(certificate);
+    }
+
+    /**
+     * Deletes a certificate, recording a trust chain change for CA credentials.
+     *
+     * @param certificate the certificate to delete
+     * @return true if the certificate was found and deleted
+     * @throws DBManagerException if the certificate could not be deleted
+     */
+    @Override
+    protected boolean doDelete(final Certificate certificate) throws DBManagerException {
+        boolean deleted = super.doDelete(certificate);
+        recordChange(certificate);
+        return deleted;
+    }
+
+    /**
+     * Deletes the certificate with the given id. A trust chain change is recorded, as the
+     * type of the deleted certificate is not known here.
+     *
+     * @param id id of the certificate to delete
+     * @return true if the certificate was found and deleted
+     * @throws DBManagerException if the certificate could not be deleted
+     */
+    @Override
+    protected boolean doDelete(final Serializable id) throws DBManagerException {
+        boolean deleted = super.doDelete(id);
+        TRUST_CHAIN_CHANGES.incrementAndGet();
+        return deleted;
+    }
+
+    /**
+     * Deletes the certificate with the given name. A trust chain change is recorded, as the
+     * type of the deleted certificate is not known here.
+     *
+     * @param name name of the certificate to delete
+     * @return true if the certificate was found and deleted
+     * @throws DBManagerException if the certificate could not be deleted
+     */
+    @Override
+    protected boolean doDelete(final String name) throws DBManagerException {
+        boolean deleted = super.doDelete(name);
+        TRUST_CHAIN_CHANGES.incrementAndGet();
+        return deleted;
+    }
+
+    /**
+     * Deletes every certificate and records a trust chain change.
+     *
+     * @return the number of certificates deleted
+     * @throws DBManagerException if the certificates could not be deleted
+     */
+    @Override
+    protected int doDeleteAll() throws DBManagerException {
+        int deleted = super.doDeleteAll();
+        TRUST_CHAIN_CHANGES.incrementAndGet();
+        return deleted;
+    }
+
+    private static void recordChange(final Certificate certificate) {
+        if (certificate instanceof CertificateAuthorityCredential) {
+            TRUST_CHAIN_CHANGES.incrementAndGet();
+        }
+    }
+
     /**
      * Remove a certificate from the database.
      *
@@ -105,6 +105,15 @@ public class DBManager<T> extends AbstractDbManager<T> {
         retryTemplate.registerListener(retryListener);
     }
 
+    /**
+     * Creates a unit of work that commits its operations in a single transaction on the
+     * database of this manager, retried with the same settings as this manager's transactions.
+     * @return a new, empty unit of work
+     */
+    public final DBUnitOfWork newUnitOfWork() {
+        return new DBUnitOfWork(getFactory(), retryTemplate);
+    }
+
     /**
      * Runs a Criteria query using the given collection of Criterion over the
      * associated class.
@@ -189,6 +198,24 @@ public class DBManager<T> extends AbstractDbManager<T> {
         });
     }
 
+    /**
+     * Saves the <code>Object</code>s in the database in a single transaction, so that the
+     * inserts can be batched. Either every object is saved or none is.
+     *
+     * @param objects objects to save
+     * @throws DBManagerException if an object has previously been saved or an
+     * error occurs while trying to save them to the database
+     */
+    public final void saveAll(final Collection<T> objects) throws DBManagerException {
+        retryTemplate.execute(new RetryCallback<Void, DBManagerException>() {
+            @Override
+            public Void doWithRetry(final RetryContext context) throws DBManagerException {
+                doSaveAll(objects);
+                return null;
+            }
+        });
+    }
+
     /**
      * Updates an object stored in the database. This updates the database
      * entries to reflect the new values that should be set.
@@ -409,6 +436,50 @@ public class DBManager<T> extends AbstractDbManager<T> {
                 });
     }
 
+    /**
+     * Returns a list of all <code>T</code>s that are ordered by a column and
+     * direction (ASC, DESC) that is provided by the user, paging through the list with the
+     * given {@link KeysetPaging}. Pages that follow a previously queried page are found by
+     * seeking past its last record instead of with an offset, and record counts are reused
+     * while they are kept.
+     *
+     * @param clazz class type of <code>T</code>s to search for (may be null to
+     * use Class&lt;T&gt;)
+     * @param columnToOrder Column to be ordered
+     * @param ascending direction of sort
+     * @param firstResult starting point of first result in set
+     * @param maxResults total number we want returned for display in table
+     * @param search string of criteria to be matched to visible columns
+     * @param searchableColumns Map of String and boolean values with column
+     * headers and whether they should be searched. Boolean is true if field provides a
+     * typical String that can be searched by Hibernate without transformation.
+     * @param criteriaModifier a way to modify the criteria used in the query
+     * @param paging the keyset paging state of the list
+     * @return FilteredRecordsList object with query data
+     * @throws DBManagerException if unable to create the list
+     */
+    @Override
+    @SuppressWarnings("checkstyle:parameternumber")
+    public final FilteredRecordsList<T> getOrderedList(
+            final Class<? extends T> clazz, final String columnToOrder,
+            final boolean ascending, final int firstResult,
+            final int maxResults, final String search,
+            final Map<String, Boolean> searchableColumns, final CriteriaModifier criteriaModifier,
+            final KeysetPaging paging)
+            throws DBManagerException {
+
+        return retryTemplate.execute(
+                new RetryCallback<FilteredRecordsList<T>, DBManagerException>() {
+                    @Override
+                    public FilteredRecordsList<T> doWithRetry(final RetryContext context)
+                            throws DBManagerException {
+                        return doGetOrderedList(clazz, columnToOrder, ascending,
+                                firstResult, maxResults,
+                                search, searchableColumns, criteriaModifier, paging);
+                    }
+                });
+    }
+
     /**
      * Deletes the object from the database. This removes all of the database
      * entries that stored information with regards to the this object.
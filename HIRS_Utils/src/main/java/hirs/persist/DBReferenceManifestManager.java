@@ -1,20 +1,19 @@
 package hirs.persist;
 
 import hirs.data.persist.ReferenceManifest;
+import hirs.data.persist.SupportReferenceManifest;
+import hirs.tpm.eventlog.TCGEventLogCache;
+import hirs.utils.SwidTagSchema;
 import org.hibernate.SessionFactory;
 
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.io.InputStream;
-import java.io.IOException;
-import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.xml.sax.SAXException;
 
 /**
  * This class is used to persist and retrieve {@link ReferenceManifest}s into
@@ -24,13 +23,6 @@ public class DBReferenceManifestManager extends DBManager<ReferenceManifest>
         implements ReferenceManifestManager {
 
     private static final Logger LOGGER = LogManager.getLogger(DBReferenceManifestManager.class);
-    /**
-     * The variable that establishes a schema factory for xml processing.
-     */
-    public static final SchemaFactory SCHEMA_FACTORY
-            = SchemaFactory.newInstance(ReferenceManifest.SCHEMA_LANGUAGE);
-
-    private static Schema schema;
 
     /**
      * Default Constructor.
@@ -43,35 +35,13 @@ public class DBReferenceManifestManager extends DBManager<ReferenceManifest>
     }
 
     /**
-     * This method sets the xml schema for processing RIMs.
+     * This method returns the xml schema for processing RIMs, which is compiled once by
+     * {@link SwidTagSchema}.
      *
      * @return the schema
      */
     public static final Schema getSchemaObject() {
-        if (schema == null) {
-            InputStream is = null;
-            try {
-                is = ReferenceManifest.class
-                        .getClassLoader()
-                        .getResourceAsStream(ReferenceManifest.SCHEMA_URL);
-                schema = SCHEMA_FACTORY.newSchema(new StreamSource(is));
-            } catch (SAXException saxEx) {
-                LOGGER.error(String.format("Error setting schema for validation!%n%s",
-                    saxEx.getMessage()));
-            } finally {
-                if (is != null) {
-                    try {
-                        is.close();
-                    } catch (IOException ioEx) {
-                        LOGGER.error(String.format("Error closing input stream%n%s",
-                                ioEx.getMessage()));
-                    }
-                } else {
-                    LOGGER.error("Input stream variable is null");
-                }
-            }
-        }
-        return schema;
+        return SwidTagSchema.getSchema();
     }
 
     /**
@@ -97,6 +67,85 @@ public class DBReferenceManifestManager extends DBManager<ReferenceManifest>
         );
     }
 
+    /**
+     * Updates a ReferenceManifest in the database. A support RIM's parsed event log is
+     * dropped from the {@link TCGEventLogCache}, which also covers archived RIMs.
+     *
+     * @param referenceManifest the ReferenceManifest to update
+     * @throws DBManagerException if an error occurs while updating the database
+     */
+    @Override
+    protected void doUpdate(final ReferenceManifest referenceManifest)
+            throws DBManagerException {
+        super.doUpdate(referenceManifest);
+        invalidateEventLog(referenceManifest);
+    }
+
+    /**
+     * Deletes a ReferenceManifest from the database and drops a support RIM's parsed
+     * event log from the {@link TCGEventLogCache}.
+     *
+     * @param referenceManifest the ReferenceManifest to delete
+     * @return true if the ReferenceManifest was found and deleted
+     * @throws DBManagerException if an error occurs while deleting from the database
+     */
+    @Override
+    protected boolean doDelete(final ReferenceManifest referenceManifest)
+            throws DBManagerException {
+        boolean deleted = super.doDelete(referenceManifest);
+        invalidateEventLog(referenceManifest);
+        return deleted;
+    }
+
+    /**
+     * Deletes the ReferenceManifest with the given id. The cached event logs are cleared,
+     * as the contents of the deleted RIM are not known here.
+     *
+     * @param id id of the ReferenceManifest to delete
+     * @return true if the ReferenceManifest was found and deleted
+     * @throws DBManagerException if an error occurs while deleting from the database
+     */
+    @Override
+    protected boolean doDelete(final Serializable id) throws DBManagerException {
+        boolean deleted = super.doDelete(id);
+        TCGEventLogCache.invalidateAll();
+        return deleted;
+    }
+
+    /**
+     * Deletes the ReferenceManifest with the given name. The cached event logs are cleared,
+     * as the contents of the deleted RIM are not known here.
+     *
+     * @param name name of the ReferenceManifest to delete
+     * @return true if the ReferenceManifest was found and deleted
+     * @throws DBManagerException if an error occurs while deleting from the database
+     */
+    @Override
+    protected boolean doDelete(final String name) throws DBManagerException {
+        boolean deleted = super.doDelete(name);
+        TCGEventLogCache.invalidateAll();
+        return deleted;
+    }
+
+    /**
+     * Deletes every ReferenceManifest and clears the cached event logs.
+     *
+     * @return the number of ReferenceManifests deleted
+     * @throws DBManagerException if an error occurs while deleting from the database
+     */
+    @Override
+    protected int doDeleteAll() throws DBManagerException {
+        int deleted = super.doDeleteAll();
+        TCGEventLogCache.invalidateAll();
+        return deleted;
+    }
+
+    private static void invalidateEventLog(final ReferenceManifest referenceManifest) {
+        if (referenceManifest instanceof SupportReferenceManifest) {
+            TCGEventLogCache.invalidate(referenceManifest.getRimBytes());
+        }
+    }
+
     /**
      * Remove a ReferenceManifest from the database.
      *
@@ -3,21 +3,23 @@ package hirs.persist;
 import hirs.FilteredRecordsList;
 import hirs.data.bean.SimpleImaRecordBean;
 import hirs.data.persist.IMAMeasurementRecord;
-import hirs.data.persist.IMAReport;
-import hirs.data.persist.IntegrityReport;
+import hirs.data.persist.Digest;
 import hirs.data.persist.Report;
-import hirs.data.persist.ReportSummary;
 import hirs.persist.imarecord.DbImaRecordQueryForDevice;
 import hirs.persist.imarecord.DbImaRecordQueryForDeviceSinceLastFullReport;
 import hirs.persist.imarecord.DbImaRecordQueryForNone;
 import hirs.persist.imarecord.DbImaRecordQueryForReport;
 import hirs.persist.imarecord.DbImaRecordQueryParameters;
+import hirs.utils.Callback;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
 import org.hibernate.criterion.Conjunction;
 import org.hibernate.criterion.Disjunction;
@@ -28,9 +30,11 @@ import org.hibernate.criterion.Restrictions;
 import org.hibernate.transform.Transformers;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
@@ -42,6 +46,31 @@ import static org.hibernate.criterion.Restrictions.ilike;
  */
 public class DBReportManager extends DBManager<Report> implements ReportManager {
     private static final Logger LOGGER = getLogger(DBReportManager.class);
+    private static final int LOGGING_INTERVAL = 500;
+
+    private static final String IMA_IDS_OF_REPORT_QUERY
+            = "select r.id from IntegrityReport ir"
+            + " join ir.reports r"
+            + " where ir.id = :id"
+            + " and r.class = IMAReport";
+
+    private static final String IMA_IDS_OF_DEVICE_QUERY
+            = "select r.id from ReportSummary rs"
+            + " join rs.report.reports r"
+            + " where rs.clientHostname = :id"
+            + " and r.class = IMAReport";
+
+    private static final String IMA_BOOT_CYCLES_OF_DEVICE_QUERY
+            = "select ima.id, ima.createTime, ima.bootcycleId, ima.index"
+            + " from IMAReport ima"
+            + " where ima.id in"
+            + " (" + IMA_IDS_OF_DEVICE_QUERY + ")";
+    private static final int CREATE_TIME_COLUMN = 1;
+    private static final int BOOT_CYCLE_COLUMN = 2;
+    private static final int START_INDEX_COLUMN = 3;
+
+    private static final String IMA_RECORD_COUNT_QUERY
+            = "select count(*) from IMAMeasurementRecord r where r.report.id = :id";
 
     /**
      * Creates a new <code>DBReportManager</code> that uses the provided sessionFactory
@@ -289,6 +318,102 @@ public class DBReportManager extends DBManager<Report> implements ReportManager
         }
     }
 
+    /**
+     * Iterates over the <code>IMAMeasurementRecord</code>s of an <code>IMAReport</code> with a
+     * forward-only scroll over a <code>StatelessSession</code>, so that the records are read
+     * from the database only as they are iterated over and are never held in a session cache.
+     *
+     * @param imaReportId id of the <code>IMAReport</code> whose records should be iterated over
+     * @param callback the callback to run on each record
+     * @param <T> the return type of the callback
+     * @return the collection of objects returned as results from the given Callback
+     * @throws ReportManagerException if unable to iterate over the records
+     */
+    @Override
+    public final <T> Collection<T> iterateOverImaRecords(
+            final UUID imaReportId,
+            final Callback<IMAMeasurementRecord, T> callback)
+            throws ReportManagerException {
+        if (imaReportId == null) {
+            throw new IllegalArgumentException("IMA report id cannot be null");
+        }
+        if (callback == null) {
+            throw new IllegalArgumentException("callback cannot be null");
+        }
+
+        LOGGER.debug("iterating over records of IMA report: {}", imaReportId);
+        final List<T> results = new ArrayList<>();
+        StatelessSession statelessSession = getStatelessSession();
+        try {
+            Transaction tx = statelessSession.beginTransaction();
+            ScrollableResults records = statelessSession
+                    .createCriteria(IMAMeasurementRecord.class)
+                    .add(Restrictions.eq("report.id", imaReportId))
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.property("path"))
+                            .add(Projections.property("hash")))
+                    .addOrder(Order.asc("id"))
+                    .setReadOnly(true)
+                    .setFetchSize(getStreamingFetchSize())
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            int count = 0;
+            while (records.next()) {
+                T result = callback.call(new IMAMeasurementRecord(
+                        (String) records.get(0), (Digest) records.get(1)));
+                if (result != null) {
+                    results.add(result);
+                }
+                if (++count % LOGGING_INTERVAL == 0) {
+                    LOGGER.debug("IMA record iteration: examined {} records", count);
+                }
+            }
+            records.close();
+            tx.commit();
+        } catch (HibernateException e) {
+            final String msg = "unable to iterate over records of IMA report " + imaReportId;
+            LOGGER.error(msg, e);
+            throw new ReportManagerException(msg, e);
+        } finally {
+            statelessSession.close();
+        }
+        return results;
+    }
+
+    /**
+     * Counts the <code>IMAMeasurementRecord</code>s of an <code>IMAReport</code> with an HQL
+     * count query, so that neither the report nor its records are loaded.
+     *
+     * @param imaReportId id of the <code>IMAReport</code> whose records should be counted
+     * @return the number of records of the report
+     * @throws ReportManagerException if unable to count the records
+     */
+    @Override
+    public final long getImaRecordCount(final UUID imaReportId) throws ReportManagerException {
+        if (imaReportId == null) {
+            throw new IllegalArgumentException("IMA report id cannot be null");
+        }
+
+        LOGGER.debug("counting records of IMA report: {}", imaReportId);
+        Transaction tx = null;
+        Session session = getFactory().getCurrentSession();
+        try {
+            tx = session.beginTransaction();
+            Long count = (Long) session.createQuery(IMA_RECORD_COUNT_QUERY)
+                    .setParameter("id", imaReportId)
+                    .uniqueResult();
+            tx.commit();
+            return count;
+        } catch (HibernateException e) {
+            final String msg = "unable to count records of IMA report " + imaReportId;
+            LOGGER.error(msg, e);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw new ReportManagerException(msg, e);
+        }
+    }
+
     /**
      * Updates a <code>Report</code>. This updates the database entries
      * to reflect the new values that should be set.
@@ -344,9 +469,11 @@ public class DBReportManager extends DBManager<Report> implements ReportManager
             final int maxResults,
             final String search,
             final Map<String, Boolean> searchableColumns) {
-        IntegrityReport report = (IntegrityReport)
-                getReport(UUID.fromString(id));
-        IMAReport imaReport = report.extractReport(IMAReport.class);
+        List<UUID> imaReportIds = getImaIds(IMA_IDS_OF_REPORT_QUERY, UUID.fromString(id));
+        if (imaReportIds.isEmpty()) {
+            throw new IllegalArgumentException("Report " + id + " does not contain an IMAReport");
+        }
+        final UUID imaReportId = imaReportIds.get(0);
 
         Transaction tx = null;
         Session session = getFactory().getCurrentSession();
@@ -363,14 +490,14 @@ public class DBReportManager extends DBManager<Report> implements ReportManager
             // measurement records associated with report id.
             Criteria cr = session.createCriteria(
                     IMAMeasurementRecord.class)
-                    .add(Restrictions.eq("report.id", imaReport.getId()))
+                    .add(Restrictions.eq("report.id", imaReportId))
                     .setProjection(Projections.countDistinct("id"));
             Long totalResultCount = (Long) cr.uniqueResult();
 
             // This second query finds the number of IMA
             // measurement records matching the filter
             cr = session.createCriteria(IMAMeasurementRecord.class)
-                    .add(Restrictions.eq("report.id", imaReport.getId()))
+                    .add(Restrictions.eq("report.id", imaReportId))
                     .setProjection(Projections.countDistinct("id"));
 
             // Filter using the search terms provided by the user
@@ -387,7 +514,7 @@ public class DBReportManager extends DBManager<Report> implements ReportManager
                 // records associated with a particular report id.
                 cr = session.createCriteria(IMAMeasurementRecord.class)
                         .add(and)
-                        .add(Restrictions.eq("report.id", imaReport.getId()))
+                        .add(Restrictions.eq("report.id", imaReportId))
                         .setProjection(Projections.projectionList()
                                 .add(Projections.property("hash"), "hash")
                                 .add(Projections.property("path"), "path")
@@ -540,44 +667,36 @@ public class DBReportManager extends DBManager<Report> implements ReportManager
     /**
      * Method retrieves all ima report ids associated with the latest full ima
      * report (as determined by a starting index of 0 and the most recent
-     * report create time) of provided device id.
+     * report create time) of provided device id. Only the ids, create times,
+     * boot cycles and indexes of the reports are queried, so that neither the
+     * reports nor their records are loaded.
      * @param id of device
      * @return list of IMA report ids
      */
     private List<UUID> getImaIdsOfRecentBootCycle(final String id) {
-
-        ReportSummaryManager reportSummaryManager =
-                new DBReportSummaryManager(getFactory());
-        List<ReportSummary> reportSummary = reportSummaryManager
-                .getReportSummaryListByHostname(id);
-
-        List<IMAReport> imaReports = new ArrayList<>();
-        for (ReportSummary summary : reportSummary) {
-            IntegrityReport integrityReport = (IntegrityReport) summary
-                    .getReport();
-            imaReports.add(integrityReport.extractReport(IMAReport.class));
-        }
+        List<Object[]> imaReports = getImaIds(IMA_BOOT_CYCLES_OF_DEVICE_QUERY, id);
 
         String bootCycleId = "";
         Date createTime = null;
         List<UUID> imaReportIds = new ArrayList<>();
 
         // Retrieve most recent IMAReport where index is 0.
-        for (IMAReport report : imaReports) {
+        for (Object[] report : imaReports) {
+            Date reportCreateTime = (Date) report[CREATE_TIME_COLUMN];
             if (createTime == null) {
-                createTime = report.getCreateTime();
-                bootCycleId = report.getBootcycleId();
-            } else if (createTime.before(report.getCreateTime())
-                    && report.getIndex() == 0) {
-                createTime = report.getCreateTime();
-                bootCycleId = report.getBootcycleId();
+                createTime = reportCreateTime;
+                bootCycleId = (String) report[BOOT_CYCLE_COLUMN];
+            } else if (createTime.before(reportCreateTime)
+                    && (Integer) report[START_INDEX_COLUMN] == 0) {
+                createTime = reportCreateTime;
+                bootCycleId = (String) report[BOOT_CYCLE_COLUMN];
             }
         }
 
         // Retrieve all IMAReports corresponding to bootCycleID.
-        for (IMAReport report : imaReports) {
-            if (report.getBootcycleId().equals(bootCycleId)) {
-                imaReportIds.add(report.getId());
+        for (Object[] report : imaReports) {
+            if (Objects.equals(report[BOOT_CYCLE_COLUMN], bootCycleId)) {
+                imaReportIds.add((UUID) report[0]);
             }
         }
         return imaReportIds;
@@ -586,25 +705,40 @@ public class DBReportManager extends DBManager<Report> implements ReportManager
     /**
      * Method retrieves all ima report ids corresponding to provided
      * device id.
-     * device.
      * @param id of device
      * @return list of IMA report ids
      */
     private List<UUID> getImaIdsOfDevice(final String id) {
+        return getImaIds(IMA_IDS_OF_DEVICE_QUERY, id);
+    }
 
-        ReportSummaryManager reportSummaryManager =
-                new DBReportSummaryManager(getFactory());
-        List<ReportSummary> reportSummary = reportSummaryManager
-                .getReportSummaryListByHostname(id);
-
-        List<UUID> imaReportIds = new ArrayList<>();
-        for (ReportSummary summary : reportSummary) {
-            IntegrityReport integrityReport = (IntegrityReport) summary
-                    .getReport();
-            imaReportIds.add(integrityReport.extractReport(IMAReport.class)
-                    .getId());
+    /**
+     * Runs an HQL query for the ids, or other columns, of IMA reports without
+     * loading the reports themselves.
+     * @param hql the query, which has an <code>id</code> parameter
+     * @param id the value of the <code>id</code> parameter
+     * @param <T> the type of each result row
+     * @return the result rows of the query
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> getImaIds(final String hql, final Object id) {
+        Transaction tx = null;
+        Session session = getFactory().getCurrentSession();
+        try {
+            tx = session.beginTransaction();
+            List<T> results = session.createQuery(hql)
+                    .setParameter("id", id)
+                    .list();
+            tx.commit();
+            return results;
+        } catch (HibernateException e) {
+            LOGGER.error("unable to retrieve IMA report ids", e);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw e;
         }
-        return imaReportIds;
     }
 
     private Conjunction buildImaRecordSearchFilter(final String search, final
@@ -0,0 +1,209 @@
+package hirs.persist;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.Assigned;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.Type;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the saves, updates and deletes of a single processing step, such as one stage of
+ * provisioning a device, and commits them to the database in a single transaction. With JDBC
+ * batching enabled in the {@link HibernateConfiguration}, the statements of consecutive
+ * operations on the same table are sent to the database together, rather than one round trip
+ * and one transaction per entity.
+ * <p>
+ * Operations are applied in the order they were added when {@link #commit()} is called. If the
+ * transaction fails with an error that {@link DBManager}s retry, the whole unit is rolled back
+ * and applied again. Identifiers generated for entities saved during a failed attempt are
+ * cleared first, so the entities, and any entities saved along with them through cascades,
+ * are inserted again.
+ * <p>
+ * A unit of work is not thread safe, and should only be committed once.
+ */
+public class DBUnitOfWork {
+
+    private static final Logger LOGGER = LogManager.getLogger(DBUnitOfWork.class);
+
+    private final SessionFactory factory;
+    private final RetryTemplate retryTemplate;
+    private final List<Operation> operations = new ArrayList<>();
+
+    /**
+     * An operation applied to the session of the unit of work.
+     */
+    private interface Operation {
+        void apply(Session session);
+    }
+
+    /**
+     * Records the entities that are saved with a generated identifier during an attempt to
+     * commit the unit, including those saved through cascades.
+     */
+    private static final class GeneratedIdTracker extends EmptyInterceptor {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Object> savedEntities = new ArrayList<>();
+
+        @Override
+        public boolean onSave(final Object entity, final Serializable id, final Object[] state,
+                              final String[] propertyNames, final Type[] types) {
+            savedEntities.add(entity);
+            return false;
+        }
+    }
+
+    /**
+     * Creates a new <code>DBUnitOfWork</code>.
+     *
+     * @param sessionFactory the session factory to use to connect to the database
+     * @param retryTemplate the template used to retry the transaction of the unit
+     */
+    public DBUnitOfWork(final SessionFactory sessionFactory, final RetryTemplate retryTemplate) {
+        if (sessionFactory == null) {
+            throw new IllegalArgumentException("DBUnitOfWork requires a SessionFactory");
+        }
+        if (retryTemplate == null) {
+            throw new IllegalArgumentException("DBUnitOfWork requires a RetryTemplate");
+        }
+        this.factory = sessionFactory;
+        this.retryTemplate = retryTemplate;
+    }
+
+    /**
+     * Adds the save of a new entity to the unit. The identifier of the entity is generated
+     * when the unit is committed.
+     *
+     * @param entity the entity to save
+     */
+    public void save(final Object entity) {
+        if (entity == null) {
+            throw new NullPointerException("entity");
+        }
+        operations.add(session -> session.save(entity));
+    }
+
+    /**
+     * Adds the update of a previously saved entity to the unit. As with
+     * {@link DBManager#update(Object)}, the state of the entity is merged into the database
+     * when the unit is committed.
+     *
+     * @param entity the entity to update
+     */
+    public void update(final Object entity) {
+        if (entity == null) {
+            throw new NullPointerException("entity");
+        }
+        operations.add(session -> session.merge(entity));
+    }
+
+    /**
+     * Adds the delete of a previously saved entity to the unit. The entity is looked up by its
+     * identifier when the unit is committed, as an earlier update in the unit may already have
+     * loaded it into the session, and is not deleted if it no longer exists.
+     *
+     * @param entity the entity to delete
+     */
+    public void delete(final Object entity) {
+        if (entity == null) {
+            throw new NullPointerException("entity");
+        }
+        operations.add(session -> {
+            Class<?> clazz = Hibernate.getClass(entity);
+            Serializable id = factory.getClassMetadata(clazz)
+                    .getIdentifier(entity, (SessionImplementor) session);
+            Object persisted = session.get(clazz, id);
+            if (persisted != null) {
+                session.delete(persisted);
+            }
+        });
+    }
+
+    /**
+     * Adds an action to run within the transaction of the unit, after the operations added
+     * before it have been applied. This is used to update an entity with the identifier of an
+     * entity saved earlier in the same unit. The action is run again if the unit is retried.
+     *
+     * @param action the action to run
+     */
+    public void run(final Runnable action) {
+        if (action == null) {
+            throw new NullPointerException("action");
+        }
+        operations.add(session -> action.run());
+    }
+
+    /**
+     * Applies every operation of the unit in a single transaction, retrying the whole unit on
+     * lock or stale state errors.
+     *
+     * @throws DBManagerException if the transaction could not be committed
+     */
+    public void commit() throws DBManagerException {
+        if (operations.isEmpty()) {
+            return;
+        }
+        retryTemplate.execute(new RetryCallback<Void, DBManagerException>() {
+            @Override
+            public Void doWithRetry(final RetryContext context) throws DBManagerException {
+                doCommit();
+                return null;
+            }
+        });
+    }
+
+    private void doCommit() throws DBManagerException {
+        LOGGER.debug("committing unit of work with {} operations", operations.size());
+        GeneratedIdTracker tracker = new GeneratedIdTracker();
+        Session session = factory.withOptions().interceptor(tracker).openSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            for (Operation operation : operations) {
+                operation.apply(session);
+            }
+            tx.commit();
+        } catch (Exception e) {
+            final String msg = "unable to commit unit of work";
+            LOGGER.error(msg, e);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            clearGeneratedIds(session, tracker.savedEntities);
+            throw new DBManagerException(msg, e);
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Clears the identifiers that were generated for entities during a rolled back attempt,
+     * so they are treated as new entities if the unit is retried.
+     */
+    private void clearGeneratedIds(final Session session, final List<Object> savedEntities) {
+        SessionFactoryImplementor factoryImplementor = (SessionFactoryImplementor) factory;
+        for (Object entity : savedEntities) {
+            ClassMetadata metadata = factory.getClassMetadata(Hibernate.getClass(entity));
+            if (metadata == null || factoryImplementor.getIdentifierGenerator(
+                    metadata.getEntityName()) instanceof Assigned) {
+                continue;
+            }
+            metadata.setIdentifier(entity, null, (SessionImplementor) session);
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package hirs.persist;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import hirs.data.persist.Digest;
 import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.ImaBaselineSnapshot;
 import hirs.data.persist.OptionalDigest;
 import hirs.data.persist.baseline.QueryableRecordImaBaseline;
 import hirs.data.persist.baseline.SimpleImaBaseline;
 
+import hirs.repository.RepoPackage;
 import hirs.utils.Callback;
-import hirs.utils.Job;
-import hirs.utils.JobExecutor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Criteria;
@@ -19,17 +24,29 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.transform.Transformers;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
@@ -40,6 +57,37 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
     private static final Logger LOGGER =
             LogManager.getLogger(DbImaBaselineRecordManager.class);
     private static final int LOGGING_INTERVAL = 500;
+    private static final int PACKAGE_BATCH_SIZE = 500;
+    private static final long SCAN_THREAD_KEEP_ALIVE_SECONDS = 60;
+    private static final String REBUCKET_QUERY =
+            "update IMABaselineRecord set bucket = :bucket where id in (:ids)";
+
+    /**
+     * The default number of shards the records of a repository baseline are read in, which is
+     * the number of processors, but no fewer than four.
+     */
+    public static final int DEFAULT_SCAN_SHARD_COUNT = Math.min(
+            Math.max(Runtime.getRuntime().availableProcessors(), 4),
+            IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+
+    /**
+     * The number of records whose buckets are recomputed in each transaction by
+     * {@link #rebucketRecords()}.
+     */
+    public static final int REBUCKET_BATCH_SIZE = 1000;
+
+    /**
+     * The default total number of records held by the snapshots of all baselines.
+     */
+    public static final long DEFAULT_SNAPSHOT_RECORD_BUDGET = 1000000;
+
+    private final Object snapshotLock = new Object();
+    private volatile Cache<UUID, ImaBaselineSnapshot> snapshots =
+            createSnapshotCache(DEFAULT_SNAPSHOT_RECORD_BUDGET);
+    private volatile long snapshotRecordBudget = DEFAULT_SNAPSHOT_RECORD_BUDGET;
+
+    private final ThreadPoolExecutor scanExecutor = createScanExecutor(DEFAULT_SCAN_SHARD_COUNT);
+    private volatile int scanShardCount = DEFAULT_SCAN_SHARD_COUNT;
 
     /**
      * Creates a new <code>DBImaBaselineRecordManager</code> that uses the default
@@ -52,6 +100,44 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
         super(IMABaselineRecord.class, sessionFactory);
     }
 
+    private static Cache<UUID, ImaBaselineSnapshot> createSnapshotCache(final long recordBudget) {
+        return CacheBuilder.newBuilder()
+                // a single segment, so that one snapshot may use the whole budget
+                .concurrencyLevel(1)
+                .maximumWeight(recordBudget)
+                .weigher(new Weigher<UUID, ImaBaselineSnapshot>() {
+                    @Override
+                    public int weigh(final UUID baselineId, final ImaBaselineSnapshot snapshot) {
+                        return snapshot.size();
+                    }
+                })
+                .build();
+    }
+
+    private static ThreadPoolExecutor createScanExecutor(final int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                SCAN_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("ima-baseline-scan-%d")
+                        .setDaemon(true)
+                        .build(),
+                new RejectedExecutionHandler() {
+                    // unlike CallerRunsPolicy, also runs shards once the executor is shut down
+                    @Override
+                    public void rejectedExecution(final Runnable task,
+                                                  final ThreadPoolExecutor executor) {
+                        task.run();
+                    }
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Stores a new <code>IMABaselineRecord</code>. This stores a new
      * <code>IMABaselineRecord</code> to be managed by the <code>IMABaselineRecordManager</code>.
@@ -232,6 +318,119 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
         }
     }
 
+    /**
+     * Imports a stream of {@link IMABaselineRecord}s into a saved baseline within a single
+     * transaction. The records are written with JDBC batch inserts by an
+     * {@link ImaBaselineRecordImporter}, which never holds more than one batch of records.
+     *
+     * @param baseline the saved baseline to add the records to
+     * @param records the records to import
+     * @param progress an optional callback, called after each batch with the number of records
+     *                 read from the iterator so far
+     * @return the number of records added to the baseline
+     * @throws ImaBaselineRecordManagerException if the baseline has not been saved or the
+     *               records cannot be saved
+     */
+    @Override
+    public final long importRecords(final SimpleImaBaseline baseline,
+                                    final Iterator<IMABaselineRecord> records,
+                                    final Callback<Long, Void> progress)
+            throws ImaBaselineRecordManagerException {
+        if (baseline == null || baseline.getId() == null) {
+            throw new ImaBaselineRecordManagerException("Records cannot be imported into a"
+                    + " baseline that has not been saved.");
+        }
+        if (records == null) {
+            throw new ImaBaselineRecordManagerException("records cannot be null");
+        }
+
+        LOGGER.debug("importing records into ima baseline: {}", baseline.getName());
+        Transaction tx = null;
+        Session session = getFactory().getCurrentSession();
+        try {
+            tx = session.beginTransaction();
+            long imported = new ImaBaselineRecordImporter(session, baseline)
+                    .importRecords(records, getStreamingFetchSize(), progress);
+            tx.commit();
+            return imported;
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to import records", e);
+            if (tx != null) {
+                LOGGER.debug("Rolling back transaction");
+                tx.rollback();
+            }
+            if (e instanceof HibernateException) {
+                throw new ImaBaselineRecordManagerException(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Iterates over the {@link IMABaselineRecord}s of the given saved baseline, in the order
+     * they were saved, and calls the given Callback on each record. Only the path and hash of
+     * each record are read, through a forward-only cursor of a <code>StatelessSession</code>,
+     * so neither the baseline's record set nor the records are held by a session.
+     *
+     * @param baseline    the saved baseline whose {@link IMABaselineRecord}s we should iterate
+     *                    over
+     * @param callback    the callback to run on each record
+     * @param <T>         the return type of the callback
+     * @return the total collection of objects returned as results from the given Callback
+     * @throws ImaBaselineRecordManagerException if the baseline has not been saved or the
+     *               records cannot be read
+     */
+    @Override
+    public final <T> Collection<T> iterateOverBaselineRecords(
+            final SimpleImaBaseline baseline,
+            final Callback<IMABaselineRecord, T> callback)
+            throws ImaBaselineRecordManagerException {
+        if (baseline == null || baseline.getId() == null) {
+            throw new ImaBaselineRecordManagerException("Cannot iterate over the records of a"
+                    + " baseline that has not been saved.");
+        }
+        if (callback == null) {
+            throw new ImaBaselineRecordManagerException("callback cannot be null");
+        }
+
+        LOGGER.debug("iterating over records of ima baseline: {}", baseline.getName());
+        final List<T> results = new ArrayList<>();
+        StatelessSession statelessSession = getStatelessSession();
+        try {
+            Transaction tx = statelessSession.beginTransaction();
+            ScrollableResults records = statelessSession
+                    .createCriteria(IMABaselineRecord.class)
+                    .add(Restrictions.eq("baseline.id", baseline.getId()))
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.property(IMABaselineRecord.PATH_FIELD))
+                            .add(Projections.property(IMABaselineRecord.HASH_FIELD)))
+                    .addOrder(Order.asc("id"))
+                    .setReadOnly(true)
+                    .setFetchSize(getStreamingFetchSize())
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            int count = 0;
+            while (records.next()) {
+                OptionalDigest digest = (OptionalDigest) records.get(1);
+                T result = callback.call(new IMABaselineRecord(
+                        (String) records.get(0), digest.asDigest()));
+                if (result != null) {
+                    results.add(result);
+                }
+                if (++count % LOGGING_INTERVAL == 0) {
+                    LOGGER.debug("IMA record iteration: examined {} records", count);
+                }
+            }
+            records.close();
+            tx.commit();
+        } catch (HibernateException e) {
+            LOGGER.error("Unable to iterate over records", e);
+            throw new ImaBaselineRecordManagerException(e);
+        } finally {
+            statelessSession.close();
+        }
+        return results;
+    }
+
     /**
      * Iterates over the {@link IMABaselineRecord}s in the given baseline, and calls the given
      * Callback on each record.  If the callback returns a non-null value, the returned value will
@@ -242,51 +441,64 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
      * @param <T>         the return type of the callback
      * @return the total collection of objects returned as results from the given Callback
      */
+    @Override
     public final <T> Collection<T> iterateOverBaselineRecords(
             final QueryableRecordImaBaseline baseline,
             final Callback<IMABaselineRecord, T> callback) {
         final Collection<T> allResults = new ConcurrentLinkedQueue<>();
-        Collection<Callable<Void>> tasks = new ArrayList<>();
-
-        int fetchSize;
-        switch (getConfiguredImplementation()) {
-            case MYSQL:
-                fetchSize = Integer.MIN_VALUE;
-                break;
-            case HSQL:
-            default:
-                fetchSize = 1;
-        }
-
-        DBImpl impl = getConfiguredImplementation();
-        if (impl == DBImpl.MYSQL) {
-            // provides a hint to the JDBC connector that records should be streamed
-            fetchSize = Integer.MIN_VALUE;
-        } else if (impl == DBImpl.HSQL) {
-            fetchSize = 1;
-        }
+        iterateOverBaselineRecords(baseline, callback, new Callback<T, Void>() {
+            @Override
+            public Void call(final T result) {
+                allResults.add(result);
+                return null;
+            }
+        });
+        return allResults;
+    }
 
-        final AtomicInteger recCounter = new AtomicInteger();
-        for (int i = 0; i < IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT; i++) {
-            final int bucket = i;
-            final int finalFetchSize = fetchSize;
-            tasks.add(new Callable<Void>() {
+    /**
+     * Iterates over the {@link IMABaselineRecord}s in the given baseline, and calls the given
+     * Callback on each record, passing each non-null value it returns to the given consumer.
+     * The records are split into {@link #getScanShardCount()} shards by their bucket, and the
+     * shards are read in parallel on the executor of this manager, which runs at most that many
+     * shards at once across all iterations. When the executor is saturated, the shards are read
+     * by the calling thread instead, as they are once this manager has been
+     * {@link #shutdown() shut down}. As the callback and consumer are called by the thread
+     * reading each shard, a slow consumer slows the reading of the records down rather than
+     * letting results pile up.
+     *
+     * @param baseline    the baseline whose {@link IMABaselineRecord}s we should iterate over
+     * @param callback    the callback to run on each record, from several threads at once
+     * @param consumer    the consumer of the results of the callback, called from several
+     *                    threads at once
+     * @param <T>         the return type of the callback
+     * @return the number of records iterated over
+     */
+    @Override
+    public final <T> long iterateOverBaselineRecords(
+            final QueryableRecordImaBaseline baseline,
+            final Callback<IMABaselineRecord, T> callback,
+            final Callback<T, Void> consumer) {
+        final int shardCount = scanShardCount;
+        final int fetchSize = getStreamingFetchSize();
+        final AtomicLong recCounter = new AtomicLong();
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            final int shard = i;
+            futures.add(scanExecutor.submit(new Callable<Void>() {
                 @Override
                 public Void call() throws Exception {
-                    LOGGER.debug(String.format(
-                            "IMA record iteration: starting examiner thread %d",
-                            bucket
-                    ));
-                    List<T> results = new LinkedList<>();
-
+                    LOGGER.debug("IMA record iteration: starting scan of shard {} of {}",
+                            shard, shardCount);
                     StatelessSession statelessSession = getStatelessSession();
                     try {
                         Transaction tx = statelessSession.beginTransaction();
                         Criteria criteria = statelessSession.createCriteria(baseline.getClass());
-                        baseline.configureCriteriaForBaselineRecords(criteria, bucket);
+                        baseline.configureCriteriaForBaselineRecords(criteria, shard,
+                                shardCount);
                         criteria.setResultTransformer(Transformers.ALIAS_TO_ENTITY_MAP);
                         criteria.setReadOnly(true);
-                        criteria.setFetchSize(finalFetchSize);
+                        criteria.setFetchSize(fetchSize);
                         ScrollableResults records = criteria.scroll(ScrollMode.FORWARD_ONLY);
 
                         Map entry;
@@ -300,45 +512,268 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
                             baselineRecord = new IMABaselineRecord(path, digest.asDigest());
                             T result = callback.call(baselineRecord);
                             if (result != null) {
-                                results.add(result);
+                                consumer.call(result);
                             }
-                            int count = recCounter.incrementAndGet();
+                            long count = recCounter.incrementAndGet();
                             if (count % LOGGING_INTERVAL == 0) {
-                                LOGGER.debug(String.format(
-                                        "IMA record iteration: examined %d records", count
-                                ));
+                                LOGGER.debug("IMA record iteration: examined {} records",
+                                        count);
                             }
                         }
                         tx.commit();
-                    } catch (Exception e) {
-                        throw e;
                     } finally {
                         statelessSession.close();
                     }
-
-                    allResults.addAll(results);
                     return null;
                 }
-            });
+            }));
         }
 
-        JobExecutor executor = new JobExecutor();
-        Job<Void> job = new Job<>(tasks);
-        executor.scheduleJob(job);
-
         try {
-            executor.shutdown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            LOGGER.error("IMA record iteration failed", e.getCause());
+            cancelAll(futures);
+            throw new DBManagerException(e.getCause());
         } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
             throw new DBManagerException(e);
         }
+        return recCounter.get();
+    }
+
+    private static void cancelAll(final List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Returns the number of shards the records of a repository baseline are split into when
+     * iterating over them, which is also the number of threads that read records at once.
+     *
+     * @return the number of shards
+     */
+    public final int getScanShardCount() {
+        return scanShardCount;
+    }
+
+    /**
+     * Sets the number of shards the records of a repository baseline are split into when
+     * iterating over them, which is also the number of threads that read records at once. This
+     * is best set to about the number of cores of the database server, and may be changed while
+     * iterations are running; those iterations finish with the shard count they started with.
+     * <p>
+     * Records are read by the bucket stored with them, so records saved under an earlier
+     * {@link IMABaselineRecord#FILENAME_HASH_BUCKET_COUNT} are only spread over as many shards
+     * as there were buckets then until {@link #rebucketRecords()} has been run.
+     *
+     * @param shardCount the number of shards, from 1 to
+     *                   {@link IMABaselineRecord#FILENAME_HASH_BUCKET_COUNT}
+     */
+    public final synchronized void setScanShardCount(final int shardCount) {
+        if (shardCount < 1 || shardCount > IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT) {
+            throw new IllegalArgumentException(String.format(
+                    "shard count must be between 1 and %d",
+                    IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT));
+        }
+        // the core pool size may never exceed the maximum pool size
+        if (shardCount > scanExecutor.getMaximumPoolSize()) {
+            scanExecutor.setMaximumPoolSize(shardCount);
+            scanExecutor.setCorePoolSize(shardCount);
+        } else {
+            scanExecutor.setCorePoolSize(shardCount);
+            scanExecutor.setMaximumPoolSize(shardCount);
+        }
+        scanShardCount = shardCount;
+        LOGGER.info("IMA baseline records are now read in {} shards", shardCount);
+    }
+
+    /**
+     * Returns the total number of records the kept snapshots of all baselines may hold.
+     *
+     * @return the snapshot record budget
+     */
+    public final long getSnapshotRecordBudget() {
+        return snapshotRecordBudget;
+    }
+
+    /**
+     * Sets the total number of records the kept snapshots of all baselines may hold. When a new
+     * snapshot would exceed the budget, the least recently used snapshots are dropped, and a
+     * snapshot larger than the whole budget is not kept at all. Changing the budget drops all
+     * kept snapshots.
+     *
+     * @param recordBudget the snapshot record budget, at least 1
+     */
+    public final void setSnapshotRecordBudget(final long recordBudget) {
+        if (recordBudget < 1) {
+            throw new IllegalArgumentException("snapshot record budget must be at least 1");
+        }
+        synchronized (snapshotLock) {
+            snapshots = createSnapshotCache(recordBudget);
+            snapshotRecordBudget = recordBudget;
+        }
+        LOGGER.info("IMA baseline snapshots may now hold {} records", recordBudget);
+    }
+
+    /**
+     * Stops the threads that read the shards of repository baselines, letting the shards being
+     * read finish. Records may still be iterated over afterwards, one shard at a time, by the
+     * calling thread.
+     */
+    public final void shutdown() {
+        LOGGER.debug("shutting down IMA baseline record scan executor");
+        scanExecutor.shutdown();
+    }
+
+    /**
+     * Returns whether this manager has been {@link #shutdown() shut down}.
+     *
+     * @return true if this manager has been shut down, otherwise false
+     */
+    public final boolean isShutdown() {
+        return scanExecutor.isShutdown();
+    }
+
+    /**
+     * Recomputes the stored bucket of every {@link IMABaselineRecord} whose bucket was computed
+     * under an earlier {@link IMABaselineRecord#FILENAME_HASH_BUCKET_COUNT}. Records are
+     * updated in batches of {@link #REBUCKET_BATCH_SIZE}, each in its own transaction, so this
+     * may be run while the records are in use.
+     *
+     * @return the number of records whose bucket was updated
+     */
+    @Override
+    public final long rebucketRecords() {
+        LOGGER.info("recomputing buckets of IMA baseline records");
+        long lastId = Long.MIN_VALUE;
+        long updated = 0;
+        StatelessSession statelessSession = getStatelessSession();
+        try {
+            List<?> rows;
+            do {
+                Transaction tx = statelessSession.beginTransaction();
+                rows = statelessSession.createCriteria(IMABaselineRecord.class)
+                        .add(Restrictions.gt("id", lastId))
+                        .setProjection(Projections.projectionList()
+                                .add(Projections.property("id"))
+                                .add(Projections.property(IMABaselineRecord.PATH_FIELD))
+                                .add(Projections.property(IMABaselineRecord.BUCKET_FIELD)))
+                        .addOrder(Order.asc("id"))
+                        .setMaxResults(REBUCKET_BATCH_SIZE)
+                        .list();
+
+                Map<Integer, List<Long>> idsByBucket = new HashMap<>();
+                for (Object row : rows) {
+                    Object[] values = (Object[]) row;
+                    lastId = (Long) values[0];
+                    int bucket = IMABaselineRecord.getBucket((String) values[1]);
+                    if (bucket != (Integer) values[2]) {
+                        if (!idsByBucket.containsKey(bucket)) {
+                            idsByBucket.put(bucket, new ArrayList<Long>());
+                        }
+                        idsByBucket.get(bucket).add(lastId);
+                    }
+                }
+                for (Map.Entry<Integer, List<Long>> entry : idsByBucket.entrySet()) {
+                    updated += statelessSession.createQuery(REBUCKET_QUERY)
+                            .setInteger("bucket", entry.getKey())
+                            .setParameterList("ids", entry.getValue())
+                            .executeUpdate();
+                }
+                tx.commit();
+            } while (rows.size() == REBUCKET_BATCH_SIZE);
+        } catch (HibernateException e) {
+            LOGGER.error("Unable to recompute buckets of records", e);
+            throw new ImaBaselineRecordManagerException(e);
+        } finally {
+            statelessSession.close();
+        }
+        LOGGER.info("recomputed buckets of {} IMA baseline records", updated);
+        return updated;
+    }
+
+    /**
+     * Returns an in-memory snapshot of the {@link IMABaselineRecord}s in the given baseline. The
+     * snapshot of each baseline is kept while the kept snapshots hold no more than
+     * {@link #getSnapshotRecordBudget()} records, and when the packages of the baseline have
+     * changed it is refreshed by reading only the records of the packages that were added or
+     * measured since it was taken.
+     *
+     * @param baseline the baseline whose records should be returned
+     * @return the snapshot of the records in the baseline
+     */
+    @Override
+    public final ImaBaselineSnapshot getBaselineSnapshot(
+            final QueryableRecordImaBaseline baseline) {
+        Set<RepoPackage> packages = baseline.getRepositoryPackages();
+        UUID baselineId = baseline.getId();
+        if (baselineId == null) {
+            return refreshSnapshot(ImaBaselineSnapshot.empty(), packages);
+        }
 
-        if (job.getState() != Job.State.COMPLETED) {
-            LOGGER.error("Appraisal job finished in state {}", job.getState().toString());
-            for (String s : job.getAllFailures()) {
-                throw new DBManagerException(s);
+        ImaBaselineSnapshot snapshot = snapshots.getIfPresent(baselineId);
+        if (snapshot != null && snapshot.isCurrent(packages)) {
+            return snapshot;
+        }
+        synchronized (snapshotLock) {
+            snapshot = snapshots.getIfPresent(baselineId);
+            if (snapshot == null) {
+                snapshot = ImaBaselineSnapshot.empty();
+            } else if (snapshot.isCurrent(packages)) {
+                return snapshot;
             }
+            snapshot = refreshSnapshot(snapshot, packages);
+            snapshots.put(baselineId, snapshot);
         }
+        return snapshot;
+    }
 
-        return allResults;
+    private ImaBaselineSnapshot refreshSnapshot(final ImaBaselineSnapshot snapshot,
+                                                final Set<RepoPackage> packages) {
+        Set<UUID> changedPackages = snapshot.getChangedPackages(packages);
+        LOGGER.debug("refreshing IMA baseline snapshot: reading records of {} of {} packages",
+                changedPackages.size(), packages.size());
+
+        Map<UUID, Set<IMABaselineRecord>> changedRecords = new HashMap<>();
+        for (UUID id : changedPackages) {
+            changedRecords.put(id, new HashSet<IMABaselineRecord>());
+        }
+
+        String recordsAlias = RepoPackage.PACKAGE_RECORDS_FIELD;
+        StatelessSession statelessSession = getStatelessSession();
+        try {
+            Transaction tx = statelessSession.beginTransaction();
+            for (List<UUID> batch : Iterables.partition(changedPackages, PACKAGE_BATCH_SIZE)) {
+                Criteria criteria = statelessSession.createCriteria(RepoPackage.class)
+                        .createAlias(RepoPackage.PACKAGE_RECORDS_FIELD, recordsAlias)
+                        .add(Restrictions.in("id", batch))
+                        .setProjection(Projections.projectionList()
+                                .add(Projections.property("id"))
+                                .add(Projections.property(String.format("%s.%s",
+                                        recordsAlias, IMABaselineRecord.PATH_FIELD)))
+                                .add(Projections.property(String.format("%s.%s",
+                                        recordsAlias, IMABaselineRecord.HASH_FIELD))))
+                        .setReadOnly(true)
+                        .setFetchSize(getStreamingFetchSize());
+                ScrollableResults results = criteria.scroll(ScrollMode.FORWARD_ONLY);
+                while (results.next()) {
+                    Object[] row = results.get();
+                    OptionalDigest digest = (OptionalDigest) row[2];
+                    changedRecords.get((UUID) row[0]).add(
+                            new IMABaselineRecord((String) row[1], digest.asDigest()));
+                }
+                results.close();
+            }
+            tx.commit();
+        } finally {
+            statelessSession.close();
+        }
+
+        return snapshot.refresh(packages, changedRecords);
     }
 }
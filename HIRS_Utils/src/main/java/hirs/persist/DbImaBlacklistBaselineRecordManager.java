@@ -283,7 +283,8 @@ public class DbImaBlacklistBaselineRecordManager extends DBManager<ImaBlacklistR
                     try {
                         Transaction tx = statelessSession.beginTransaction();
                         Criteria criteria = statelessSession.createCriteria(baseline.getClass());
-                        baseline.configureCriteriaForBaselineRecords(criteria, bucket);
+                        baseline.configureCriteriaForBaselineRecords(criteria, bucket,
+                                ImaBlacklistRecord.FILENAME_HASH_BUCKET_COUNT);
                         criteria.setResultTransformer(Transformers.ALIAS_TO_ENTITY_MAP);
                         criteria.setReadOnly(true);
                         criteria.setFetchSize(finalFetchSize);
@@ -63,12 +63,21 @@ public class HibernateConfiguration {
     @Value("${persistence.hibernate.provider}")
     private String provider;
 
+    @Value("${persistence.hibernate.batchSize:50}")
+    private String batchSize;
+
     @Value("${persistence.db.maxTransactionRetryAttempts}")
     private int maxTransactionRetryAttempts;
 
     @Value("${persistence.db.retryWaitTimeMilliseconds}")
     private long retryWaitTimeMilliseconds;
 
+    @Value("${persistence.db.imaBaselineScanShardCount:0}")
+    private int imaBaselineScanShardCount;
+
+    @Value("${persistence.db.imaBaselineSnapshotRecordBudget:0}")
+    private long imaBaselineSnapshotRecordBudget;
+
     /**
      * @return bean to resolve injected Value.
      * property expressions for beans.
@@ -108,6 +117,8 @@ public class HibernateConfiguration {
         properties.put("hibernate.hbm2ddl.auto", ddl);
         properties.put("hibernate.dialect", dialect);
         properties.put("hibernate.current_session_context_class", "thread");
+        properties.put("hibernate.jdbc.batch_size", batchSize);
+        properties.put("hibernate.order_updates", "true");
         return properties;
     }
 
@@ -154,4 +165,22 @@ public class HibernateConfiguration {
     public long retryWaitTimeMilliseconds() {
         return retryWaitTimeMilliseconds;
     }
+
+    /**
+     * Bean holding the number of shards the records of a repository IMA baseline are read in.
+     * @return the shard count, or 0 to use the default
+     */
+    @Bean(name = "imaBaselineScanShardCount")
+    public int imaBaselineScanShardCount() {
+        return imaBaselineScanShardCount;
+    }
+
+    /**
+     * Bean holding the total number of records the IMA baseline snapshots may hold.
+     * @return the record budget, or 0 to use the default
+     */
+    @Bean(name = "imaBaselineSnapshotRecordBudget")
+    public long imaBaselineSnapshotRecordBudget() {
+        return imaBaselineSnapshotRecordBudget;
+    }
 }
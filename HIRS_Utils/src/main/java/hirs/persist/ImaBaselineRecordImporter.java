@@ -0,0 +1,256 @@
+package hirs.persist;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import hirs.data.persist.OptionalDigest;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.SimpleImaBaseline;
+import hirs.utils.Callback;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PostInsertIdentifierGenerator;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Imports a stream of {@link IMABaselineRecord}s into a saved {@link SimpleImaBaseline} within
+ * the current transaction of a <code>Session</code>. Records are written in batches of
+ * {@link #BATCH_SIZE} with a JDBC batch insert built from the Hibernate mapping of
+ * <code>IMABaselineRecord</code>, so that neither the records nor the baseline's record set
+ * are held by the session.
+ * <p>
+ * A record whose path and hash are already in the baseline, or earlier in the stream, is
+ * skipped. The keys of the imported records are kept in Bloom filters, so only the few records
+ * that the filters cannot rule out are looked up in the database.
+ */
+final class ImaBaselineRecordImporter {
+    private static final Logger LOGGER = LogManager.getLogger(ImaBaselineRecordImporter.class);
+
+    /**
+     * The number of records written to the database at once.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    private static final int FILTER_CAPACITY = 1000000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final String BASELINE_PROPERTY = "baseline";
+
+    private final Session session;
+    private final SimpleImaBaseline baseline;
+    private final AbstractEntityPersister persister;
+    private final List<BloomFilter<CharSequence>> filters = new ArrayList<>();
+    private int lastFilterSize;
+
+    /**
+     * Creates an importer that writes records to the given baseline.
+     *
+     * @param session the session, whose transaction must already be started
+     * @param baseline the saved baseline to add the records to
+     */
+    ImaBaselineRecordImporter(final Session session, final SimpleImaBaseline baseline) {
+        this.session = session;
+        this.baseline = baseline;
+        this.persister = (AbstractEntityPersister) ((SessionFactoryImplementor)
+                session.getSessionFactory()).getEntityPersister(IMABaselineRecord.class.getName());
+    }
+
+    /**
+     * Imports the given records into the baseline.
+     *
+     * @param records the records to import, which are read once
+     * @param fetchSize the fetch size used to stream the keys of existing records
+     * @param progress an optional callback, called after each batch with the number of records
+     *                 read so far
+     * @return the number of records added to the baseline
+     */
+    long importRecords(final Iterator<IMABaselineRecord> records, final int fetchSize,
+                       final Callback<Long, Void> progress) {
+        addExistingRecordKeys(fetchSize);
+
+        long read = 0;
+        long imported = 0;
+        List<IMABaselineRecord> batch = new ArrayList<>(BATCH_SIZE);
+        Set<String> batchKeys = new HashSet<>();
+        while (records.hasNext()) {
+            IMABaselineRecord record = records.next();
+            read++;
+            String key = getKey(record.getPath(), record.getHash().getDigest());
+            if (mightContain(key) && (batchKeys.contains(key) || isSaved(record))) {
+                LOGGER.debug("skipping duplicate record {}", record);
+            } else {
+                batch.add(record);
+                batchKeys.add(key);
+                put(key);
+            }
+
+            if (batch.size() == BATCH_SIZE) {
+                imported += insert(batch);
+                batch.clear();
+                batchKeys.clear();
+                reportProgress(read, progress);
+            }
+        }
+        imported += insert(batch);
+        reportProgress(read, progress);
+        LOGGER.info("imported {} of {} records into baseline {}",
+                imported, read, baseline.getName());
+        return imported;
+    }
+
+    private void reportProgress(final long read, final Callback<Long, Void> progress) {
+        LOGGER.debug("IMA baseline import: read {} records", read);
+        if (progress != null) {
+            progress.call(read);
+        }
+    }
+
+    private void addExistingRecordKeys(final int fetchSize) {
+        ScrollableResults results = session.createCriteria(IMABaselineRecord.class)
+                .add(Restrictions.eq(BASELINE_PROPERTY, baseline))
+                .setProjection(Projections.projectionList()
+                        .add(Projections.property(IMABaselineRecord.PATH_FIELD))
+                        .add(Projections.property(IMABaselineRecord.HASH_FIELD)))
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        while (results.next()) {
+            OptionalDigest hash = (OptionalDigest) results.get(1);
+            if (hash != null) {
+                put(getKey((String) results.get(0), hash.getDigest()));
+            }
+        }
+        results.close();
+    }
+
+    private boolean isSaved(final IMABaselineRecord record) {
+        Long count = (Long) session.createCriteria(IMABaselineRecord.class)
+                .add(Restrictions.eq(BASELINE_PROPERTY, baseline))
+                .add(Restrictions.eq(IMABaselineRecord.PATH_FIELD, record.getPath()))
+                .add(Restrictions.eq(IMABaselineRecord.HASH_FIELD,
+                        record.getHash().asOptionalDigest()))
+                .setProjection(Projections.rowCount())
+                .uniqueResult();
+        return count > 0;
+    }
+
+    private boolean mightContain(final String key) {
+        for (BloomFilter<CharSequence> filter : filters) {
+            if (filter.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(final String key) {
+        // a full filter would let through too many keys, so another one is started
+        if (filters.isEmpty() || lastFilterSize == FILTER_CAPACITY) {
+            filters.add(BloomFilter.create(Funnels.unencodedCharsFunnel(), FILTER_CAPACITY,
+                    FALSE_POSITIVE_PROBABILITY));
+            lastFilterSize = 0;
+        }
+        filters.get(filters.size() - 1).put(key);
+        lastFilterSize++;
+    }
+
+    private static String getKey(final String path, final byte[] digest) {
+        return path + '\0' + Hex.encodeHexString(digest);
+    }
+
+    private int insert(final List<IMABaselineRecord> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        final SessionImplementor sessionImplementor = (SessionImplementor) session;
+        final IdentifierGenerator idGenerator = persister.getIdentifierGenerator();
+        final boolean generateIds = !(idGenerator instanceof PostInsertIdentifierGenerator);
+        session.doWork(new Work() {
+            @Override
+            public void execute(final Connection connection) throws SQLException {
+                try (PreparedStatement statement =
+                             connection.prepareStatement(getInsertSql(generateIds))) {
+                    for (IMABaselineRecord record : batch) {
+                        int index = 1;
+                        if (generateIds) {
+                            Serializable id = idGenerator.generate(sessionImplementor, record);
+                            persister.getIdentifierType().nullSafeSet(statement, id, index,
+                                    sessionImplementor);
+                            index += persister.getIdentifierColumnNames().length;
+                        }
+                        setPropertyValues(statement, record, index, sessionImplementor);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+        });
+        return batch.size();
+    }
+
+    private void setPropertyValues(final PreparedStatement statement,
+                                   final IMABaselineRecord record, final int firstIndex,
+                                   final SessionImplementor sessionImplementor)
+            throws SQLException {
+        Type[] types = persister.getPropertyTypes();
+        boolean[] insertable = persister.getPropertyInsertability();
+        Object[] values = persister.getPropertyValues(record);
+        int index = firstIndex;
+        for (int i = 0; i < types.length; i++) {
+            if (!insertable[i]) {
+                continue;
+            }
+            Type type = types[i];
+            Object value = values[i];
+            if (type.isEntityType()) {
+                // the only association of a record is its baseline, which is bound by its id
+                type = ((EntityType) type).getIdentifierOrUniqueKeyType(
+                        sessionImplementor.getFactory());
+                value = baseline.getId();
+            }
+            type.nullSafeSet(statement, value, index, sessionImplementor);
+            index += persister.getPropertyColumnNames(i).length;
+        }
+    }
+
+    private String getInsertSql(final boolean includeId) {
+        List<String> columns = new ArrayList<>();
+        if (includeId) {
+            for (String column : persister.getIdentifierColumnNames()) {
+                columns.add(column);
+            }
+        }
+        boolean[] insertable = persister.getPropertyInsertability();
+        for (int i = 0; i < insertable.length; i++) {
+            if (insertable[i]) {
+                for (String column : persister.getPropertyColumnNames(i)) {
+                    columns.add(column);
+                }
+            }
+        }
+        return "insert into " + persister.getTableName()
+                + " (" + StringUtils.join(columns, ", ") + ")"
+                + " values (" + StringUtils.repeat("?", ", ", columns.size()) + ")";
+    }
+}
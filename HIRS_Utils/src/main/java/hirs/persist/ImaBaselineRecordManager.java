@@ -2,11 +2,13 @@ package hirs.persist;
 
 import hirs.data.persist.Digest;
 import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.ImaBaselineSnapshot;
 import hirs.data.persist.baseline.QueryableRecordImaBaseline;
 import hirs.data.persist.baseline.SimpleImaBaseline;
 import hirs.utils.Callback;
 
 import java.util.Collection;
+import java.util.Iterator;
 
 /**
  * A <code>ImaBaselineRecordManager</code> manages <code>IMABaselineRecord</code>s. It has support
@@ -75,6 +77,24 @@ public interface ImaBaselineRecordManager {
      */
     boolean deleteRecord(IMABaselineRecord record) throws ImaBaselineRecordManagerException;
 
+    /**
+     * Imports a stream of {@link IMABaselineRecord}s into a saved baseline. The records are
+     * written to the database in batches as they are read from the iterator, without being
+     * added to the baseline object, so that baselines of any size can be imported. Records whose
+     * path and hash are already in the baseline, or earlier in the stream, are skipped. Either
+     * every record is imported or, if an exception is thrown, none is.
+     *
+     * @param baseline the saved baseline to add the records to
+     * @param records the records to import
+     * @param progress an optional callback, called periodically with the number of records read
+     *                 from the iterator so far
+     * @return the number of records added to the baseline
+     * @throws ImaBaselineRecordManagerException if the baseline has not been saved or the
+     *               records cannot be saved
+     */
+    long importRecords(SimpleImaBaseline baseline, Iterator<IMABaselineRecord> records,
+                       Callback<Long, Void> progress) throws ImaBaselineRecordManagerException;
+
     /**
      * Iterates over the {@link IMABaselineRecord}s in the given baseline, and calls the given
      * Callback on each record.  If the callback returns a non-null value, the returned value will
@@ -87,4 +107,60 @@ public interface ImaBaselineRecordManager {
      */
     <T> Collection<T> iterateOverBaselineRecords(QueryableRecordImaBaseline baseline,
                                                  Callback<IMABaselineRecord, T> callback);
+
+    /**
+     * Iterates over the {@link IMABaselineRecord}s of the given saved baseline, in the order
+     * they were saved, and calls the given Callback on each record. The records are read from
+     * the database as they are iterated over instead of from the baseline object, so only the
+     * record being handled is held in memory. If the callback returns a non-null value, the
+     * returned value will be added to a collection, which is returned when iteration is finished.
+     *
+     * @param baseline    the saved baseline whose {@link IMABaselineRecord}s we should iterate
+     *                    over
+     * @param callback    the callback to run on each record
+     * @param <T>         the return type of the callback
+     * @return the total collection of objects returned as results from the given Callback
+     * @throws ImaBaselineRecordManagerException if the baseline has not been saved or the
+     *               records cannot be read
+     */
+    <T> Collection<T> iterateOverBaselineRecords(SimpleImaBaseline baseline,
+                                                 Callback<IMABaselineRecord, T> callback)
+            throws ImaBaselineRecordManagerException;
+
+    /**
+     * Iterates over the {@link IMABaselineRecord}s in the given baseline, and calls the given
+     * Callback on each record, passing each non-null value it returns to the given consumer
+     * instead of collecting them. The records may be read by several threads at once, so the
+     * callback and consumer must be safe to call from several threads.
+     *
+     * @param baseline    the baseline whose {@link IMABaselineRecord}s we should iterate over
+     * @param callback    the callback to run on each record
+     * @param consumer    the consumer of the results of the callback
+     * @param <T>         the return type of the callback
+     * @return the number of records iterated over
+     */
+    <T> long iterateOverBaselineRecords(QueryableRecordImaBaseline baseline,
+                                        Callback<IMABaselineRecord, T> callback,
+                                        Callback<T, Void> consumer);
+
+    /**
+     * Recomputes the stored bucket of every {@link IMABaselineRecord} whose bucket was computed
+     * under an earlier {@link IMABaselineRecord#FILENAME_HASH_BUCKET_COUNT}, so that the records
+     * are spread evenly over all shards when iterated over. Records are always found whatever
+     * their stored bucket, so this may be run at any time, including while records are in use.
+     *
+     * @return the number of records whose bucket was updated
+     * @throws ImaBaselineRecordManagerException if the records cannot be updated
+     */
+    long rebucketRecords() throws ImaBaselineRecordManagerException;
+
+    /**
+     * Returns an in-memory snapshot of the {@link IMABaselineRecord}s in the given baseline that
+     * reflects its current packages. A snapshot is kept for each baseline and refreshed when
+     * its packages change, reading only the records of the packages that changed.
+     *
+     * @param baseline the baseline whose records should be returned
+     * @return the snapshot of the records in the baseline
+     */
+    ImaBaselineSnapshot getBaselineSnapshot(QueryableRecordImaBaseline baseline);
 }
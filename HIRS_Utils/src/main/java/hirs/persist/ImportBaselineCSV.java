@@ -1,6 +1,7 @@
 package hirs.persist;
 
 import hirs.data.persist.baseline.Baseline;
+import hirs.data.persist.baseline.SimpleImaBaseline;
 import hirs.ima.IMABaselineGeneratorException;
 import hirs.ima.ImaIgnoreSetBaselineGenerator;
 import hirs.ima.ImaIgnoreSetBaselineGeneratorException;
@@ -8,6 +9,7 @@ import hirs.ima.ImaBlacklistBaselineGenerator;
 import hirs.ima.SimpleImaBaselineGenerator;
 import hirs.tpm.TPMBaselineGenerator;
 import hirs.tpm.TPMBaselineGeneratorException;
+import hirs.utils.Callback;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -81,4 +83,45 @@ public final class ImportBaselineCSV {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Imports a new baseline and saves it. IMA baselines are saved empty and their records
+     * are then streamed from the CSV file into the database in batches, so that the whole
+     * baseline is never held in memory. Other baseline types are created with
+     * {@link #createBaseline(String, InputStream, String)} and then saved. If the records of an
+     * IMA baseline cannot be imported, the baseline is deleted.
+     *
+     * @param name             User defined name of baseline
+     * @param inputStream      Input stream to the CSV file
+     * @param type             Represents the type of Baseline being created (IMA, TPM)
+     * @param baselineManager  manager used to save the baseline
+     * @param recordManager    manager used to save the records of an IMA baseline
+     * @param progress         optional callback, called periodically with the number of rows
+     *                         of an IMA baseline read so far
+     * @return the saved baseline
+     */
+    public static Baseline importBaseline(final String name, final InputStream inputStream,
+            final String type, final BaselineManager baselineManager,
+            final ImaBaselineRecordManager recordManager, final Callback<Long, Void> progress) {
+        if (!type.equalsIgnoreCase("IMA")) {
+            return baselineManager.saveBaseline(createBaseline(name, inputStream, type));
+        }
+
+        LOGGER.debug("bulk import of IMA csv started");
+        SimpleImaBaseline baseline =
+                (SimpleImaBaseline) baselineManager.saveBaseline(new SimpleImaBaseline(name));
+        try (InputStream is = new BufferedInputStream(inputStream)) {
+            long imported = new SimpleImaBaselineGenerator().importBaselineFromCSVFile(
+                    baseline, is, recordManager, progress);
+            LOGGER.info("imported {} records into baseline {}", imported, name);
+            return baseline;
+        } catch (IMABaselineGeneratorException e) {
+            baselineManager.delete(baseline);
+            throw new RuntimeException("Type mismatch, verify import baseline type", e);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("unable to import baseline", e);
+            baselineManager.delete(baseline);
+            throw new RuntimeException(e);
+        }
+    }
 }
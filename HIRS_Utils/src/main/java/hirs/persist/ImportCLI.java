@@ -26,6 +26,7 @@ import org.apache.commons.cli.ParseException;
 import hirs.ima.SimpleImaBaselineGenerator;
 import hirs.ima.IMABaselineGeneratorException;
 import hirs.tpm.TPMBaselineGenerator;
+import hirs.utils.Callback;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,6 +45,7 @@ public final class ImportCLI {
     private static final String XML = "xml";
 
     private static BaselineManager baselineManager;
+    private static ImaBaselineRecordManager imaBaselineRecordManager;
 
     /**
      * Default constructor that is private to prevent this class from being
@@ -105,7 +107,16 @@ public final class ImportCLI {
                 final SimpleImaBaselineGenerator generator = new SimpleImaBaselineGenerator();
                 if (line.hasOption("csv")) {
                     LOGGER.debug("importing csv file");
-                    baseline = generator.generateBaselineFromCSVFile(name, istream);
+                    ImportBaselineCSV.importBaseline(name, istream, IMA, baselineManager,
+                            imaBaselineRecordManager, new Callback<Long, Void>() {
+                                @Override
+                                public Void call(final Long rows) {
+                                    LOGGER.info("read {} rows of {}", rows,
+                                            extraArgs[fileIndex]);
+                                    return null;
+                                }
+                            });
+                    return;
                 } else {
                     LOGGER.debug("importing IMA baseline from intgerity report xml file");
                     IntegrityReport report;
@@ -155,6 +166,7 @@ public final class ImportCLI {
         context.registerShutdownHook();
 
         baselineManager = context.getBean(BaselineManager.class);
+        imaBaselineRecordManager = context.getBean(ImaBaselineRecordManager.class);
     }
 
     private static void printHelp(final Options options) {
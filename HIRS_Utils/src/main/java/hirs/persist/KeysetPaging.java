@@ -0,0 +1,166 @@
+package hirs.persist;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyset (seek) pagination state of one ordered list, such as a table in the portal. Passing a
+ * <code>KeysetPaging</code> to
+ * {@link OrderedListQuerier#getOrderedList(Class, String, boolean, int, int, String,
+ * java.util.Map, CriteriaModifier, KeysetPaging)} changes how the list is queried:
+ * <ul>
+ *     <li>The sort value and id of the last record of each page are kept. When the page that
+ *     follows is requested, its records are found by seeking past that record on the order
+ *     column and id, instead of having the database skip every preceding record with an
+ *     offset. Pages that were not reached by paging forward, such as the last page, still use
+ *     an offset.</li>
+ *     <li>The total and filtered record counts are kept for a short time, so paging through
+ *     the list does not count every record on each request. Counts may therefore lag behind
+ *     changes to the list by up to that time, unless {@link #invalidate()} is called.</li>
+ * </ul>
+ * Ordering with keyset pagination assumes null values sort before every other value, as they
+ * do in MySQL, MariaDB and HSQLDB. A page that ends on a record with a null sort value is
+ * followed by a page found with an offset.
+ * <p>
+ * Instances are thread safe and should be shared by every query of the list they page.
+ */
+public final class KeysetPaging {
+
+    /**
+     * The default number of seconds record counts are kept.
+     */
+    public static final long DEFAULT_COUNT_SECONDS = 30;
+
+    private static final long BOUNDARY_MINUTES = 10;
+    private static final int MAX_ENTRIES = 10000;
+
+    private final Cache<List<Object>, long[]> counts;
+    private final Cache<List<Object>, Boundary> boundaries = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterWrite(BOUNDARY_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * The sort value and id of the last record before a page.
+     */
+    static final class Boundary {
+        private final Object sortValue;
+        private final Serializable id;
+
+        private Boundary(final Object sortValue, final Serializable id) {
+            this.sortValue = sortValue;
+            this.id = id;
+        }
+
+        /**
+         * @return the value of the order column of the record
+         */
+        Object getSortValue() {
+            return sortValue;
+        }
+
+        /**
+         * @return the id of the record
+         */
+        Serializable getId() {
+            return id;
+        }
+    }
+
+    /**
+     * Creates a new <code>KeysetPaging</code> that keeps record counts for
+     * {@link #DEFAULT_COUNT_SECONDS} seconds.
+     */
+    public KeysetPaging() {
+        this(DEFAULT_COUNT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a new <code>KeysetPaging</code>.
+     *
+     * @param countDuration how long record counts are kept, zero to count records on every query
+     * @param unit the unit of the duration
+     */
+    public KeysetPaging(final long countDuration, final TimeUnit unit) {
+        if (countDuration < 0) {
+            throw new IllegalArgumentException("count duration cannot be negative");
+        }
+        this.counts = CacheBuilder.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(countDuration, unit)
+                .build();
+    }
+
+    /**
+     * Discards the kept record counts and page boundaries, for instance after records have
+     * been added to or removed from the list.
+     */
+    public void invalidate() {
+        counts.invalidateAll();
+        boundaries.invalidateAll();
+    }
+
+    /**
+     * Returns the kept total and filtered record counts of a query.
+     *
+     * @param clazz the class of the records
+     * @param search the search string of the query
+     * @return the total and filtered counts, or null if they are not known
+     */
+    long[] getCounts(final Class<?> clazz, final String search) {
+        return counts.getIfPresent(Arrays.<Object>asList(clazz, search));
+    }
+
+    /**
+     * Keeps the total and filtered record counts of a query.
+     *
+     * @param clazz the class of the records
+     * @param search the search string of the query
+     * @param total the total number of records
+     * @param filtered the number of records matching the search
+     */
+    void putCounts(final Class<?> clazz, final String search, final long total,
+                   final long filtered) {
+        counts.put(Arrays.<Object>asList(clazz, search), new long[] {total, filtered});
+    }
+
+    /**
+     * Returns the last record before the page of a query starting at the given position.
+     *
+     * @param clazz the class of the records
+     * @param columnToOrder the order column of the query
+     * @param ascending the direction of the query
+     * @param search the search string of the query
+     * @param position the position of the first record of the page
+     * @return the boundary of the page, or null if it is not known
+     */
+    Boundary getBoundary(final Class<?> clazz, final String columnToOrder,
+                         final boolean ascending, final String search, final int position) {
+        return boundaries.getIfPresent(
+                Arrays.<Object>asList(clazz, columnToOrder, ascending, search, position));
+    }
+
+    /**
+     * Keeps the last record before the page of a query starting at the given position.
+     *
+     * @param clazz the class of the records
+     * @param columnToOrder the order column of the query
+     * @param ascending the direction of the query
+     * @param search the search string of the query
+     * @param position the position of the first record of the page
+     * @param sortValue the value of the order column of the last record before the page
+     * @param id the id of the last record before the page
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    void putBoundary(final Class<?> clazz, final String columnToOrder, final boolean ascending,
+                     final String search, final int position, final Object sortValue,
+                     final Serializable id) {
+        boundaries.put(Arrays.<Object>asList(clazz, columnToOrder, ascending, search, position),
+                new Boundary(sortValue, id));
+    }
+}
@@ -64,4 +64,40 @@ public interface OrderedListQuerier<T> {
             int maxResults, String search,
             Map<String, Boolean> searchableColumns, CriteriaModifier criteriaModifier)
             throws DBManagerException;
+
+    /**
+     * Returns a list of all <code>T</code>s that are ordered by a column and
+     * direction (ASC, DESC) that is provided by the user, paging through the list with the
+     * given {@link KeysetPaging}. Pages that follow a previously queried page are found by
+     * seeking past its last record instead of with an offset, and record counts are reused
+     * while they are kept. Implementations that do not support keyset paging query the list
+     * as {@link #getOrderedList(Class, String, boolean, int, int, String, Map, CriteriaModifier)}
+     * does.
+     *
+     * @param clazz class type of <code>T</code>s to search for (may be null to
+     * use Class&lt;T&gt;)
+     * @param columnToOrder Column to be ordered
+     * @param ascending direction of sort
+     * @param firstResult starting point of first result in set
+     * @param maxResults total number we want returned for display in table
+     * @param search string of criteria to be matched to visible columns
+     * @param searchableColumns Map of String and boolean values with column
+     * headers and whether they should be searched. Boolean is true if field provides a
+     * typical String that can be searched by Hibernate without transformation.
+     * @param criteriaModifier a way to modify the criteria used in the query
+     * @param paging the keyset paging state of the list
+     * @return FilteredRecordsList object with query data
+     * @throws DBManagerException if unable to create the list
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    default FilteredRecordsList<T> getOrderedList(
+            Class<? extends T> clazz, String columnToOrder,
+            boolean ascending, int firstResult,
+            int maxResults, String search,
+            Map<String, Boolean> searchableColumns, CriteriaModifier criteriaModifier,
+            KeysetPaging paging)
+            throws DBManagerException {
+        return getOrderedList(clazz, columnToOrder, ascending, firstResult, maxResults, search,
+                searchableColumns, criteriaModifier);
+    }
 }
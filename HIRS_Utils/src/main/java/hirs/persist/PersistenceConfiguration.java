@@ -33,6 +33,12 @@ public class PersistenceConfiguration {
     @Autowired
     private int maxTransactionRetryAttempts;
 
+    @Autowired
+    private int imaBaselineScanShardCount;
+
+    @Autowired
+    private long imaBaselineSnapshotRecordBudget;
+
     /**
      * Creates a {@link AppraiserManager} ready to use.
      *
@@ -219,11 +225,17 @@ public class PersistenceConfiguration {
      *
      * @return {@link ImaBaselineRecordManager}
      */
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     public ImaBaselineRecordManager imaBaselineRecordManager() {
         DbImaBaselineRecordManager manager =
                 new DbImaBaselineRecordManager(sessionFactory.getObject());
         setDbManagerRetrySettings(manager);
+        if (imaBaselineScanShardCount > 0) {
+            manager.setScanShardCount(imaBaselineScanShardCount);
+        }
+        if (imaBaselineSnapshotRecordBudget > 0) {
+            manager.setSnapshotRecordBudget(imaBaselineSnapshotRecordBudget);
+        }
         return manager;
     }
 
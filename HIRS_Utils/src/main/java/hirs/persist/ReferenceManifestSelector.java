@@ -105,6 +105,17 @@ public abstract class ReferenceManifestSelector<T extends ReferenceManifest> {
         return this;
     }
 
+    /**
+     * Specify the SHA-256 digest of the bytes that rim must match.
+     *
+     * @param rimDigest the lowercase hex SHA-256 digest of the bytes to query for
+     * @return this instance (for chaining further calls)
+     */
+    public ReferenceManifestSelector<T> byRimDigest(final String rimDigest) {
+        setFieldValue(hirs.data.persist.ReferenceManifest.RIM_DIGEST_FIELD, rimDigest);
+        return this;
+    }
+
     /**
      * Specify the file name of the object to grab.
      * @param fileName the name of the file associated with the rim
@@ -190,6 +201,25 @@ public abstract class ReferenceManifestSelector<T extends ReferenceManifest> {
         return Collections.unmodifiableSet(new HashSet<>(execute()));
     }
 
+    /**
+     * Retrieve the RIM whose bytes are the given bytes among the RIMs stored before RIM digests
+     * were recorded, which {@link #byRimDigest(String)} cannot find. Such RIMs are selected by
+     * the hash code of the bytes and compared byte for byte. Callers should record the digest
+     * of the returned RIM with {@link ReferenceManifest#backfillRimDigest()} and update it.
+     *
+     * @param rimBytes the bytes of the RIM to look for
+     * @return a matching RIM without a digest, or null if none is found
+     */
+    public T getLegacyRIM(final byte[] rimBytes) {
+        byHashCode(Arrays.hashCode(rimBytes));
+        for (T rim : execute()) {
+            if (rim.getRimDigest() == null && Arrays.equals(rim.getRimBytes(), rimBytes)) {
+                return rim;
+            }
+        }
+        return null;
+    }
+
     /**
      * Construct the criterion that can be used to query for rims matching the
      * configuration of this {@link ReferenceManifestSelector}.
@@ -4,7 +4,9 @@ import hirs.FilteredRecordsList;
 import hirs.data.bean.SimpleImaRecordBean;
 import hirs.data.persist.IMAMeasurementRecord;
 import hirs.data.persist.Report;
+import hirs.utils.Callback;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -129,6 +131,38 @@ public interface ReportManager {
      */
     Report getCompleteReport(UUID id) throws ReportManagerException;
 
+    /**
+     * Iterates over the <code>IMAMeasurementRecord</code>s of the <code>IMAReport</code>
+     * identified by <code>imaReportId</code>, and calls the given Callback on each record. The
+     * records are streamed from the database as they are iterated over, so neither the report
+     * nor all of its records are held in memory at once. Each record passed to the callback
+     * holds only its path and hash, and is not associated with a report. If the callback returns
+     * a non-null value, the returned value will be added to a collection, which is returned when
+     * iteration is finished.
+     *
+     * @param imaReportId id of the <code>IMAReport</code> whose records should be iterated over
+     * @param callback the callback to run on each record
+     * @param <T> the return type of the callback
+     * @return the collection of objects returned as results from the given Callback
+     * @throws ReportManagerException if unable to iterate over the records
+     */
+    <T> Collection<T> iterateOverImaRecords(UUID imaReportId,
+                                            Callback<IMAMeasurementRecord, T> callback)
+            throws ReportManagerException;
+
+    /**
+     * Returns the number of <code>IMAMeasurementRecord</code>s of the <code>IMAReport</code>
+     * identified by <code>imaReportId</code>. The records are counted by the database, so
+     * neither the report nor its records are loaded. Unlike
+     * {@link hirs.data.persist.IMAReport#getRecordCount()}, this may be used for a report
+     * that is no longer attached to a session.
+     *
+     * @param imaReportId id of the <code>IMAReport</code> whose records should be counted
+     * @return the number of records of the report
+     * @throws ReportManagerException if unable to count the records
+     */
+    long getImaRecordCount(UUID imaReportId) throws ReportManagerException;
+
     /**
      * Updates the contents of the <code>Report</code>.
      *
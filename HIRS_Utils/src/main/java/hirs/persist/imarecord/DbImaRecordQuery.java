@@ -10,6 +10,8 @@ import java.util.List;
 /**
  * Abstract base class for executing IMAMeasurementRecord queries. Provides standardized support for
  * querying the various counts required by DataTables for server-side paging and filtering.
+ * Subclasses select from IMAMeasurementRecord directly, restricted by report, so that only the
+ * requested page of records is read rather than every record of the matching reports.
  */
 public abstract class DbImaRecordQuery {
 
@@ -10,9 +10,8 @@ import org.hibernate.Session;
 public class DbImaRecordQueryForDevice extends DbImaRecordQuery {
 
     private static final String IMA_RECORD_QUERY
-            = "select rec from IMAReport ima"
-            + " join ima.imaRecords rec"
-            + " where ima.id in"
+            = "select rec from IMAMeasurementRecord rec"
+            + " where rec.report.id in"
             + " (select r.id from ReportSummary rs"
             + "  join rs.report.reports r"
             + "  where lower(rs.clientHostname) = lower(:id)"
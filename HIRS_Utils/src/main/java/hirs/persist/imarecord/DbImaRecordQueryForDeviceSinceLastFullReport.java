@@ -10,8 +10,8 @@ import org.hibernate.Session;
 public class DbImaRecordQueryForDeviceSinceLastFullReport extends DbImaRecordQuery {
 
     private static final String IMA_RECORD_QUERY
-            = "select rec from IMAReport ima"
-            + " join ima.imaRecords rec"
+            = "select rec from IMAMeasurementRecord rec"
+            + " join rec.report ima"
             + " where ima.id in"
             + " (select ima.id from ReportSummary rs"
             + "  join rs.report.reports ima"
@@ -11,9 +11,8 @@ import org.hibernate.Session;
 public class DbImaRecordQueryForReport extends DbImaRecordQuery {
 
     private static final String IMA_RECORD_QUERY
-            = "select rec from IMAReport ima"
-            + " join ima.imaRecords rec"
-            + " where ima.id in"
+            = "select rec from IMAMeasurementRecord rec"
+            + " where rec.report.id in"
             + " (select r.id from ReportSummary rs"
             + "  join rs.report ir"
             + "  join ir.reports r"
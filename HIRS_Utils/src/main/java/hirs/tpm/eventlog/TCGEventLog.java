@@ -4,33 +4,26 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
-import org.apache.commons.codec.DecoderException;
-import org.apache.commons.codec.binary.Hex;
-
-import hirs.data.persist.AbstractDigest;
 import hirs.data.persist.Digest;
 import hirs.data.persist.TPMMeasurementRecord;
 import hirs.data.persist.baseline.TpmWhiteListBaseline;
 import hirs.data.persist.enums.DigestAlgorithm;
-import hirs.tpm.eventlog.events.EvConstants;
 import hirs.tpm.eventlog.uefi.UefiConstants;
 import hirs.utils.HexUtils;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 
 /**
  * Class for handling different formats of TCG Event logs.
  */
 public final class TCGEventLog {
 
-    /** Logger. */
-    private static final Logger LOGGER = LogManager.getLogger(TCGEventLog.class);
     /** Name of the hash algorithm used to process the Event Log, default is SHA256.  */
     private String algorithm = "TPM_ALG_SHA256";
     /** Parsed event log array. */
@@ -59,18 +52,15 @@ public final class TCGEventLog {
     public static final int PCR_LOCALITY4_MIN = 17;
     /** Locality 4 Ends at PCR 23. */
     public static final int PCR_LOCALITY4_MAX = 23;
-    /** 2 dimensional array holding the PCR values. */
+    /** TCG algorithm IDs of the PCR banks that can be replayed from a log. */
+    private static final int[] PCR_BANK_ALGORITHMS = {TcgTpmtHa.TPM_ALG_SHA1,
+            TcgTpmtHa.TPM_ALG_SHA256, TcgTpmtHa.TPM_ALG_SHA384};
+    /** 2 dimensional array holding the PCR values of the log's algorithm. */
     private byte[][] pcrList;
     /** List of parsed events within the log. */
     private LinkedHashMap<Integer, TpmPcrEvent> eventList = new LinkedHashMap<>();
-    /** Length of PCR. Indicates which hash algorithm is used. */
-    private int pcrLength;
-    /** Name of hash algorithm. */
-    private String hashType;
-    /** Initial PCR Value to use. */
-    private String initValue;
-    /** Initial PcR Value to use for locality 4. */
-    private String initLocalityFourValue;
+    /** PCR banks replayed from the log, keyed by TCG algorithm ID. */
+    private Map<Integer, TpmPcrBank> pcrBanks = new LinkedHashMap<>();
     /** Content Output Flag use. */
     private boolean bContent = false;
     /** Event Output Flag use. */
@@ -79,16 +69,13 @@ public final class TCGEventLog {
     private boolean bEvent = false;
     /** Event Output Flag use. */
     private boolean bCryptoAgile = false;
+    /** Flag set once the log is shared through the {@link TCGEventLogCache}. */
+    private volatile boolean unmodifiable = false;
 
     /**
      * Default blank object constructor.
      */
     public TCGEventLog() {
-        this.pcrList = new byte[PCR_COUNT][EvConstants.SHA1_LENGTH];
-        initValue = INIT_SHA1_LIST;
-        initLocalityFourValue = LOCALITY4_SHA1_LIST;
-        pcrLength = EvConstants.SHA1_LENGTH;
-        hashType = HASH_STRING;
         algorithm = "TPM_ALG_SHA1";
         initPcrList();
     }
@@ -107,6 +94,9 @@ public final class TCGEventLog {
 
     /**
      * Default constructor for just the rawlog that'll set up SHA1 Log.
+     * Only the PCR index, event type and digest of each event are decoded here, which is
+     * all that is needed to calculate the expected PCR values. Event content is decoded
+     * when a description of an event is requested.
      * @param rawlog data for the event log file.
      * @param bEventFlag if true provides human readable event descriptions.
      * @param bContentFlag if true provides hex output for Content in the description.
@@ -121,19 +111,11 @@ public final class TCGEventLog {
 
         bCryptoAgile = isLogCrytoAgile(rawlog);
         if (bCryptoAgile) {
-            initValue = INIT_SHA256_LIST;
-            initLocalityFourValue = LOCALITY4_SHA256_LIST;
             algorithm = "TPM_ALG_SHA256";
-            hashType = HASH256_STRING;
-            pcrLength = EvConstants.SHA256_LENGTH;
         } else {
-            initValue = INIT_SHA1_LIST;
-            initLocalityFourValue = LOCALITY4_SHA1_LIST;
-            hashType = HASH_STRING;
             algorithm = "TPM_ALG_SHA1";
-            pcrLength = EvConstants.SHA1_LENGTH;
         }
-        this.pcrList = new byte[PCR_COUNT][pcrLength];
+        initPcrList();
         int eventNumber = 0;
         bContent = bContentFlag;
         bEvent = bEventFlag;
@@ -154,21 +136,13 @@ public final class TCGEventLog {
     }
 
     /**
-     * This method puts blank values in the pcrList.
+     * This method sets up the PCR bank of the log's algorithm with its initial values.
      */
     private void initPcrList() {
-            try {
-                for (int i = 0; i < PCR_COUNT; i++) {
-                    System.arraycopy(Hex.decodeHex(initValue.toCharArray()),
-                        0, pcrList[i], 0, pcrLength);
-                }
-                for (int i = PCR_LOCALITY4_MIN; i < PCR_LOCALITY4_MAX; i++) {
-                        System.arraycopy(Hex.decodeHex(initLocalityFourValue.toCharArray()),
-                            0, pcrList[i], 0, pcrLength);
-                    }
-            } catch (DecoderException deEx) {
-                LOGGER.error(deEx);
-            }
+        pcrBanks.clear();
+        TpmPcrBank bank = new TpmPcrBank(getEventLogHashAlgorithmID());
+        pcrBanks.put(bank.getAlgId(), bank);
+        pcrList = bank.getPcrs();
     }
 
     /**
@@ -181,17 +155,12 @@ public final class TCGEventLog {
     public TpmWhiteListBaseline createTPMBaseline(final String name) {
         TpmWhiteListBaseline baseline = new TpmWhiteListBaseline(name);
         TPMMeasurementRecord record;
-        String pcrValue;
         for (int i = 0; i < PCR_COUNT; i++) {
             if (algorithm.compareToIgnoreCase("TPM_ALG_SHA1") == 0) { // Log Was SHA1 Format
-                pcrValue = getExpectedPCRValue(i);
-                byte[] hexValue = HexUtils.hexStringToByteArray(pcrValue);
-                final Digest hash = new Digest(DigestAlgorithm.SHA1, hexValue);
+                final Digest hash = new Digest(DigestAlgorithm.SHA1, pcrList[i]);
                 record = new TPMMeasurementRecord(i, hash);
             } else {  // Log was Crypto Agile, currently assumes SHA256
-                pcrValue = getExpectedPCRValue(i);
-                byte[] hexValue = HexUtils.hexStringToByteArray(pcrValue);
-                final Digest hash = new Digest(DigestAlgorithm.SHA256, hexValue);
+                final Digest hash = new Digest(DigestAlgorithm.SHA256, pcrList[i]);
                 record = new TPMMeasurementRecord(i, hash);
             }
             baseline.addToBaseline(record);
@@ -201,62 +170,67 @@ public final class TCGEventLog {
 
     /**
      * Calculates the "Expected Values for TPM PCRs based upon Event digests in the Event Log.
-     * Uses the algorithm and eventList passed into the constructor,
+     * Every PCR bank with digests in the log (SHA1, SHA256 and SHA384) is replayed in a
+     * single pass over the eventList passed into the constructor.
      */
     private void calculatePcrValues() {
-        byte[] extendedPCR;
-        initPcrList();
+        boolean banksFound = !bCryptoAgile;
         for (TpmPcrEvent currentEvent : eventList.values()) {
-            if (currentEvent.getPcrIndex() >= 0) {   // Ignore NO_EVENTS which can have a PCR=-1
-                try {
-                    if (currentEvent.getEventType() != NO_ACTION_EVENT) {
-                        // Don't include EV_NO_ACTION event
-                        extendedPCR = extendPCR(pcrList[currentEvent.getPcrIndex()],
-                                currentEvent.getEventDigest());
-                        System.arraycopy(extendedPCR, 0, pcrList[currentEvent.getPcrIndex()],
-                                0, currentEvent.getDigestLength());
+            int index = currentEvent.getPcrIndex();
+            // Ignore NO_EVENTS which can have a PCR=-1 and don't include EV_NO_ACTION events
+            if (index < 0 || index >= PCR_COUNT || currentEvent.getEventType() == NO_ACTION_EVENT) {
+                continue;
+            }
+            if (!banksFound) {
+                // every event of a crypto agile log holds a digest for each active bank
+                for (int algId : PCR_BANK_ALGORITHMS) {
+                    if (!pcrBanks.containsKey(algId)
+                            && currentEvent.getEventDigest(algId) != null) {
+                        pcrBanks.put(algId, new TpmPcrBank(algId));
                     }
-                } catch (NoSuchAlgorithmException e) {
-                    LOGGER.error(e);
+                }
+                banksFound = true;
+            }
+            for (TpmPcrBank bank : pcrBanks.values()) {
+                byte[] eventDigest = currentEvent.getEventDigest(bank.getAlgId());
+                if (eventDigest != null) {
+                    bank.extend(index, eventDigest);
                 }
             }
         }
     }
 
     /**
-     * Extends a hash with a hash of new data.
+     * Returns all 24 PCR values for display purposes.
      *
-     * @param currentValue value to extend
-     * @param newEvent     value to extend with
-     * @return new hash resultant hash
-     * @throws NoSuchAlgorithmException if hash algorithm not supported
+     * @return Returns an array of strings representing the expected hash values for all 24 PCRs
      */
-    private byte[] extendPCR(final byte[] currentValue, final byte[] newEvent)
-            throws NoSuchAlgorithmException {
-        MessageDigest md = MessageDigest.getInstance(hashType);
-        StringBuilder sb = new StringBuilder(AbstractDigest.SHA512_DIGEST_LENGTH);
-        sb.append(Hex.encodeHexString(currentValue).toCharArray());
-        sb.append(Hex.encodeHexString(newEvent).toCharArray());
+    public String[] getExpectedPCRValues() {
+        return pcrBanks.get(getEventLogHashAlgorithmID()).getPcrValues();
+    }
 
-        try {
-            md.update(Hex.decodeHex(sb.toString().toCharArray()));
-        } catch (DecoderException deEx) {
-            LOGGER.error(deEx);
+    /**
+     * Returns all 24 PCR values of a specific PCR bank replayed from the log.
+     *
+     * @param algId TCG Algorithm Registry ID of the bank (SHA1, SHA256 or SHA384)
+     * @return the expected hash values for all 24 PCRs, or an empty array if the log
+     * holds no digests for the algorithm
+     */
+    public String[] getExpectedPCRValues(final int algId) {
+        TpmPcrBank bank = pcrBanks.get(algId);
+        if (bank == null) {
+            return new String[0];
         }
-        return md.digest();
+        return bank.getPcrValues();
     }
 
     /**
-     * Returns all 24 PCR values for display purposes.
+     * Returns the TCG Algorithm Registry IDs of the PCR banks replayed from the log.
      *
-     * @return Returns an array of strings representing the expected hash values for all 24 PCRs
+     * @return algorithm IDs, starting with the algorithm used by the log
      */
-    public String[] getExpectedPCRValues() {
-        String[] pcrs = new String[PCR_COUNT];
-        for (int i = 0; i < PCR_COUNT; i++) {
-            pcrs[i] = Hex.encodeHexString(pcrList[i]);
-        }
-        return pcrs;
+    public Set<Integer> getPcrBankAlgorithmIds() {
+        return Collections.unmodifiableSet(pcrBanks.keySet());
     }
 
 
@@ -271,10 +245,22 @@ public final class TCGEventLog {
 
     /**
      * Returns a list of event found in the Event Log.
-     * @return an arraylist of event.
+     * @return an unmodifiable collection of the events, in the order of the log.
      */
     public Collection<TpmPcrEvent> getEventList() {
-        return eventList.values();
+        return Collections.unmodifiableCollection(eventList.values());
+    }
+
+    /**
+     * Makes this log and its events unmodifiable, so that it can be shared between callers.
+     * The output flags given to {@link #toString(boolean, boolean, boolean)} then only apply
+     * to that call.
+     */
+    void makeUnmodifiable() {
+        for (TpmPcrEvent event : eventList.values()) {
+            event.makeUnmodifiable();
+        }
+        unmodifiable = true;
     }
 
     /**
@@ -302,12 +288,7 @@ public final class TCGEventLog {
      * @return Description of the log.
      */
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-        for (TpmPcrEvent event : eventList.values()) {
-            sb.append(event.toString(bEvent, bHexEvent, bContent));
-        }
-        sb.append("Event Log processing completed.\n");
-       return sb.toString();
+        return describe(bEvent, bHexEvent, bContent);
     }
 
     /**
@@ -320,11 +301,23 @@ public final class TCGEventLog {
     public String toString(final boolean bEvent,
                            final boolean bHexEvent,
                            final boolean bContent) {
-        this.bEvent = bEvent;
-        this.bHexEvent = bHexEvent;
-        this.bContent = bContent;
+        if (!unmodifiable) {
+            this.bEvent = bEvent;
+            this.bHexEvent = bHexEvent;
+            this.bContent = bContent;
+        }
+
+        return describe(bEvent, bHexEvent, bContent);
+    }
 
-        return this.toString();
+    private String describe(final boolean bEventFlag, final boolean bHexEventFlag,
+                            final boolean bContentFlag) {
+        StringBuilder sb = new StringBuilder();
+        for (TpmPcrEvent event : eventList.values()) {
+            sb.append(event.toString(bEventFlag, bHexEventFlag, bContentFlag));
+        }
+        sb.append("Event Log processing completed.\n");
+        return sb.toString();
     }
 
     /**
@@ -0,0 +1,141 @@
+package hirs.tpm.eventlog;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Cache of parsed TCG Event Logs and their expected PCR values, keyed by the SHA-256
+ * digest of the raw log. A support RIM is shared by every device of a platform model, so
+ * without the cache the same log is parsed again for every firmware validation of every
+ * device. The cache is bounded by the total size of the raw logs it holds.
+ * <p>
+ * Event logs returned by the cache are shared between callers, so they and their events are
+ * unmodifiable. Callers that flag events need to parse their own copy of the log.
+ */
+public final class TCGEventLogCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(TCGEventLogCache.class);
+
+    /** Maximum total size (in bytes) of the raw event logs represented in the cache. */
+    public static final long MAX_CACHED_LOG_BYTES = 64L * 1024 * 1024;
+
+    private static final Cache<String, CachedEventLog> CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_LOG_BYTES)
+            .weigher(new Weigher<String, CachedEventLog>() {
+                @Override
+                public int weigh(final String key, final CachedEventLog value) {
+                    return value.getRawLogLength();
+                }
+            })
+            .build();
+
+    /**
+     * Parsed event log along with the expected PCR values calculated from it.
+     */
+    private static final class CachedEventLog {
+        private final TCGEventLog eventLog;
+        private final String[] expectedPcrValues;
+        private final int rawLogLength;
+
+        private CachedEventLog(final TCGEventLog eventLog, final int rawLogLength) {
+            this.eventLog = eventLog;
+            this.expectedPcrValues = eventLog.getExpectedPCRValues();
+            this.rawLogLength = rawLogLength;
+        }
+
+        private TCGEventLog getEventLog() {
+            return eventLog;
+        }
+
+        private String[] getExpectedPcrValues() {
+            return expectedPcrValues.clone();
+        }
+
+        private int getRawLogLength() {
+            return rawLogLength;
+        }
+    }
+
+    private TCGEventLogCache() {
+    }
+
+    /**
+     * Returns the parsed event log for the given raw log, parsing and caching it if it has
+     * not been seen before.
+     *
+     * @param rawlog data for the event log file.
+     * @return the shared, parsed event log, which is unmodifiable
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate in the log cannot be parsed.
+     * @throws IOException IO Stream if event cannot be parsed.
+     */
+    public static TCGEventLog getEventLog(final byte[] rawlog)
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        return getCachedEventLog(rawlog).getEventLog();
+    }
+
+    /**
+     * Returns the expected PCR values for the given raw log, parsing and caching the log if
+     * it has not been seen before.
+     *
+     * @param rawlog data for the event log file.
+     * @return an array of strings representing the expected hash values for all 24 PCRs
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate in the log cannot be parsed.
+     * @throws IOException IO Stream if event cannot be parsed.
+     */
+    public static String[] getExpectedPCRValues(final byte[] rawlog)
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        return getCachedEventLog(rawlog).getExpectedPcrValues();
+    }
+
+    /**
+     * Removes the parsed event log for the given raw log from the cache.
+     *
+     * @param rawlog data for the event log file.
+     */
+    public static void invalidate(final byte[] rawlog) {
+        if (rawlog != null) {
+            CACHE.invalidate(DigestUtils.sha256Hex(rawlog));
+        }
+    }
+
+    /**
+     * Removes every parsed event log from the cache.
+     */
+    public static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * Returns the number of parsed event logs currently held by the cache.
+     *
+     * @return number of cached event logs
+     */
+    public static long size() {
+        return CACHE.size();
+    }
+
+    private static CachedEventLog getCachedEventLog(final byte[] rawlog)
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        String key = DigestUtils.sha256Hex(rawlog);
+        CachedEventLog cached = CACHE.getIfPresent(key);
+        if (cached == null) {
+            LOGGER.debug("Parsing event log with digest {}", key);
+            // concurrent misses for the same log may both parse it; either result is valid
+            TCGEventLog eventLog = new TCGEventLog(rawlog);
+            eventLog.makeUnmodifiable();
+            cached = new CachedEventLog(eventLog, rawlog.length);
+            CACHE.put(key, cached);
+        }
+        return cached;
+    }
+}
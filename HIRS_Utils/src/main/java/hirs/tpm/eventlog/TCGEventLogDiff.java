@@ -0,0 +1,251 @@
+package hirs.tpm.eventlog;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Class that compares the events of an event log against the events of a reference event
+ * log, such as a client's measured log against a support RIM.
+ * <p>
+ * The reference events are indexed by PCR index and digest, so each event is matched in
+ * constant time and the whole comparison is linear in the size of the logs. Events are
+ * reported as:
+ * <ul>
+ * <li>added: events with no counterpart in the reference log</li>
+ * <li>removed: reference events with no counterpart in the compared log</li>
+ * <li>changed: events at the same event number and PCR index as a reference event,
+ * but with a different digest</li>
+ * <li>reordered: events matching a reference event that was logged before a reference
+ * event already matched for the same PCR</li>
+ * </ul>
+ */
+public final class TCGEventLogDiff {
+
+    private final List<TpmPcrEvent> referenceEvents = new ArrayList<>();
+    private final List<TpmPcrEvent> events = new ArrayList<>();
+    private final List<TpmPcrEvent> addedEvents = new ArrayList<>();
+    private final List<TpmPcrEvent> removedEvents = new ArrayList<>();
+    private final Map<TpmPcrEvent, TpmPcrEvent> changedEvents = new LinkedHashMap<>();
+    private final Map<TpmPcrEvent, TpmPcrEvent> reorderedEvents = new LinkedHashMap<>();
+
+    /**
+     * Key of an event within the index: the PCR index and digest of the event.
+     */
+    private static final class EventKey {
+        private final int pcrIndex;
+        private final byte[] digest;
+        private final int hash;
+
+        private EventKey(final TpmPcrEvent event) {
+            this.pcrIndex = event.getPcrIndex();
+            this.digest = event.getEventDigest();
+            this.hash = Objects.hash(pcrIndex, Arrays.hashCode(digest));
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof EventKey)) {
+                return false;
+            }
+            EventKey that = (EventKey) obj;
+            return pcrIndex == that.pcrIndex && Arrays.equals(digest, that.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Compares all of the events of an event log against a reference event log.
+     *
+     * @param referenceEvents events of the reference log, in log order
+     * @param events events to compare against the reference, in log order
+     */
+    public TCGEventLogDiff(final Collection<TpmPcrEvent> referenceEvents,
+                           final Collection<TpmPcrEvent> events) {
+        this(referenceEvents, events, -1);
+    }
+
+    /**
+     * Compares the events of an event log against a reference event log.
+     *
+     * @param referenceEvents events of the reference log, in log order
+     * @param events events to compare against the reference, in log order
+     * @param pcr only compare events of this PCR. Use -1 to compare all PCRs.
+     */
+    public TCGEventLogDiff(final Collection<TpmPcrEvent> referenceEvents,
+                           final Collection<TpmPcrEvent> events, final int pcr) {
+        for (TpmPcrEvent event : referenceEvents) {
+            if (pcr < 0 || event.getPcrIndex() == pcr) {
+                this.referenceEvents.add(event);
+            }
+        }
+        for (TpmPcrEvent event : events) {
+            if (pcr < 0 || event.getPcrIndex() == pcr) {
+                this.events.add(event);
+            }
+        }
+        diff();
+    }
+
+    private void diff() {
+        Map<EventKey, Deque<TpmPcrEvent>> index = new HashMap<>();
+        for (TpmPcrEvent event : referenceEvents) {
+            EventKey key = new EventKey(event);
+            Deque<TpmPcrEvent> sameKey = index.get(key);
+            if (sameKey == null) {
+                sameKey = new ArrayDeque<>();
+                index.put(key, sameKey);
+            }
+            sameKey.add(event);
+        }
+
+        // match each event to the first unmatched reference event with the same key
+        Map<TpmPcrEvent, TpmPcrEvent> matched = new IdentityHashMap<>();
+        Map<Integer, Integer> lastMatchedByPcr = new HashMap<>();
+        List<TpmPcrEvent> unmatched = new ArrayList<>();
+        for (TpmPcrEvent event : events) {
+            Deque<TpmPcrEvent> sameKey = index.get(new EventKey(event));
+            if (sameKey == null || sameKey.isEmpty()) {
+                unmatched.add(event);
+                continue;
+            }
+            TpmPcrEvent reference = sameKey.poll();
+            matched.put(reference, event);
+            Integer lastMatched = lastMatchedByPcr.get(event.getPcrIndex());
+            if (lastMatched != null && reference.getEventNumber() < lastMatched) {
+                reorderedEvents.put(reference, event);
+            } else {
+                lastMatchedByPcr.put(event.getPcrIndex(), reference.getEventNumber());
+            }
+        }
+
+        // pair the remaining events with unmatched reference events at the same position
+        Map<Integer, TpmPcrEvent> unmatchedReferences = new LinkedHashMap<>();
+        for (TpmPcrEvent reference : referenceEvents) {
+            if (!matched.containsKey(reference)) {
+                unmatchedReferences.put(reference.getEventNumber(), reference);
+            }
+        }
+        for (TpmPcrEvent event : unmatched) {
+            TpmPcrEvent reference = unmatchedReferences.get(event.getEventNumber());
+            if (reference != null && reference.getPcrIndex() == event.getPcrIndex()) {
+                unmatchedReferences.remove(event.getEventNumber());
+                changedEvents.put(reference, event);
+            } else {
+                addedEvents.add(event);
+            }
+        }
+        removedEvents.addAll(unmatchedReferences.values());
+    }
+
+    /**
+     * Returns true if every event matched the reference log, in the same order.
+     *
+     * @return true if the logs match
+     */
+    public boolean isMatch() {
+        return addedEvents.isEmpty() && removedEvents.isEmpty()
+                && changedEvents.isEmpty() && reorderedEvents.isEmpty();
+    }
+
+    /**
+     * Returns the events that have no counterpart in the reference log.
+     *
+     * @return added events, in log order
+     */
+    public List<TpmPcrEvent> getAddedEvents() {
+        return Collections.unmodifiableList(addedEvents);
+    }
+
+    /**
+     * Returns the reference events that have no counterpart in the compared log.
+     *
+     * @return removed reference events, in reference log order
+     */
+    public List<TpmPcrEvent> getRemovedEvents() {
+        return Collections.unmodifiableList(removedEvents);
+    }
+
+    /**
+     * Returns the reference events whose digest changed in the compared log.
+     *
+     * @return map of each changed reference event to its event in the compared log
+     */
+    public Map<TpmPcrEvent, TpmPcrEvent> getChangedEvents() {
+        return Collections.unmodifiableMap(changedEvents);
+    }
+
+    /**
+     * Returns the reference events that were logged out of order in the compared log.
+     *
+     * @return map of each reordered reference event to its event in the compared log
+     */
+    public Map<TpmPcrEvent, TpmPcrEvent> getReorderedEvents() {
+        return Collections.unmodifiableMap(reorderedEvents);
+    }
+
+    /**
+     * Returns every reference event that was removed, changed or reordered.
+     *
+     * @return mismatched reference events, in reference log order
+     */
+    public List<TpmPcrEvent> getMismatchedReferenceEvents() {
+        Map<TpmPcrEvent, Boolean> mismatched = new IdentityHashMap<>();
+        for (TpmPcrEvent event : removedEvents) {
+            mismatched.put(event, Boolean.TRUE);
+        }
+        for (TpmPcrEvent event : changedEvents.keySet()) {
+            mismatched.put(event, Boolean.TRUE);
+        }
+        for (TpmPcrEvent event : reorderedEvents.keySet()) {
+            mismatched.put(event, Boolean.TRUE);
+        }
+        return inLogOrder(referenceEvents, mismatched);
+    }
+
+    /**
+     * Returns every event of the compared log that was added, changed or reordered.
+     *
+     * @return mismatched events, in log order
+     */
+    public List<TpmPcrEvent> getMismatchedEvents() {
+        Map<TpmPcrEvent, Boolean> mismatched = new IdentityHashMap<>();
+        for (TpmPcrEvent event : addedEvents) {
+            mismatched.put(event, Boolean.TRUE);
+        }
+        for (TpmPcrEvent event : changedEvents.values()) {
+            mismatched.put(event, Boolean.TRUE);
+        }
+        for (TpmPcrEvent event : reorderedEvents.values()) {
+            mismatched.put(event, Boolean.TRUE);
+        }
+        return inLogOrder(events, mismatched);
+    }
+
+    private static List<TpmPcrEvent> inLogOrder(final List<TpmPcrEvent> log,
+                                                final Map<TpmPcrEvent, Boolean> selected) {
+        List<TpmPcrEvent> result = new ArrayList<>(selected.size());
+        for (TpmPcrEvent event : log) {
+            if (selected.containsKey(event)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,119 @@
+package hirs.tpm.eventlog;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Class for replaying event digests into a single bank of PCRs.
+ * A bank holds the 24 PCRs for one hash algorithm and reuses a single MessageDigest
+ * for every extend, writing each result directly back into the PCR it extends.
+ */
+final class TpmPcrBank {
+
+    /** Value of every byte of the locality 4 PCRs (17 to 22) after a reset. */
+    private static final byte LOCALITY4_PCR_BYTE = (byte) 0xff;
+
+    /** TCG Algorithm Registry ID of the bank's hash algorithm. */
+    private final int algId;
+    /** Digest used for every extend of this bank. */
+    private final MessageDigest md;
+    /** Length (in bytes) of each PCR in the bank. */
+    private final int pcrLength;
+    /** 2 dimensional array holding the PCR values. */
+    private final byte[][] pcrs;
+
+    /**
+     * Constructor that sets up the bank with the initial PCR values.
+     *
+     * @param algId TCG Algorithm Registry ID of the bank (SHA1, SHA256 or SHA384)
+     */
+    TpmPcrBank(final int algId) {
+        this.algId = algId;
+        try {
+            this.md = MessageDigest.getInstance(javaAlgorithmName(algId));
+        } catch (NoSuchAlgorithmException noSaEx) {
+            // SHA-1, SHA-256 and SHA-384 are required of every Java platform
+            throw new IllegalStateException(noSaEx);
+        }
+        this.pcrLength = TcgTpmtHa.tcgAlgLength(algId);
+        this.pcrs = new byte[TCGEventLog.PCR_COUNT][pcrLength];
+        for (int i = TCGEventLog.PCR_LOCALITY4_MIN; i < TCGEventLog.PCR_LOCALITY4_MAX; i++) {
+            Arrays.fill(pcrs[i], LOCALITY4_PCR_BYTE);
+        }
+    }
+
+    /**
+     * Maps a TCG Algorithm Registry ID onto the name used by MessageDigest.
+     *
+     * @param algId TCG Algorithm Registry ID
+     * @return MessageDigest algorithm name
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     */
+    private static String javaAlgorithmName(final int algId)
+            throws NoSuchAlgorithmException {
+        switch (algId) {
+            case TcgTpmtHa.TPM_ALG_SHA1:
+                return "SHA-1";
+            case TcgTpmtHa.TPM_ALG_SHA256:
+                return "SHA-256";
+            case TcgTpmtHa.TPM_ALG_SHA384:
+                return "SHA-384";
+            default:
+                throw new NoSuchAlgorithmException("Unsupported PCR bank algorithm: "
+                        + TcgTpmtHa.tcgAlgIdtoString(algId));
+        }
+    }
+
+    /**
+     * Extends a PCR with an event digest: PCR = Hash(PCR || digest).
+     *
+     * @param index PCR index
+     * @param eventDigest digest of the event, of the same algorithm as the bank
+     */
+    void extend(final int index, final byte[] eventDigest) {
+        byte[] pcr = pcrs[index];
+        md.update(pcr);
+        md.update(eventDigest);
+        try {
+            md.digest(pcr, 0, pcrLength);
+        } catch (DigestException dEx) {
+            // the PCR buffer is always the length of the digest
+            throw new IllegalStateException(dEx);
+        }
+    }
+
+    /**
+     * Returns the TCG Algorithm Registry ID of the bank.
+     *
+     * @return algorithm ID
+     */
+    int getAlgId() {
+        return algId;
+    }
+
+    /**
+     * Returns the PCR array backing this bank. Callers must not modify it.
+     *
+     * @return PCR values indexed by PCR number
+     */
+    byte[][] getPcrs() {
+        return pcrs;
+    }
+
+    /**
+     * Returns all 24 PCR values as hex strings.
+     *
+     * @return expected hash values for all 24 PCRs
+     */
+    String[] getPcrValues() {
+        String[] values = new String[TCGEventLog.PCR_COUNT];
+        for (int i = 0; i < TCGEventLog.PCR_COUNT; i++) {
+            values[i] = Hex.encodeHexString(pcrs[i]);
+        }
+        return values;
+    }
+}
@@ -87,24 +87,23 @@ public class TpmPcrEvent {
      */
     private String errata = "Unknown";
     /**
-     * Description for toString support.
+     * Description for toString support, built on first request.
      */
-    private String description = "";
+    private String description = null;
     /**
-     * Length (in bytes) of a pcr.
+     * Flag set once the spec version and errata have been read from an EfiSpecIdEvent.
      */
-    private int digestLength = 0;
+    private volatile boolean specIdProcessed = false;
     /**
-     * Event hash for SHA1 event logs.
-     */
-    private byte[] eventDataSha1hash;
-    /**
-     * Event hash for Crypto Agile events.
+     * Length (in bytes) of a pcr.
      */
-    private byte[] eventDataSha256hash;
-    private EvPostCode evPostCode;
+    private int digestLength = 0;
     private int eventNumber;
     private boolean error = false;
+    /**
+     * Flag set once the event belongs to a log shared through the {@link TCGEventLogCache}.
+     */
+    private volatile boolean unmodifiable = false;
 
     /**
      * Constructor.
@@ -139,6 +138,24 @@ public class TpmPcrEvent {
         return digestCopy;
     }
 
+    /**
+     * Returns the digest of the event for a given hash algorithm without copying it.
+     * Used when replaying the event log into PCR banks.
+     *
+     * @param algId TCG Algorithm Registry ID of the digest
+     * @return the digest, or null if the event holds no digest for the algorithm
+     */
+    byte[] getEventDigest(final int algId) {
+        int eventAlgId = TcgTpmtHa.TPM_ALG_SHA256;
+        if (logFormat == 1) {
+            eventAlgId = TcgTpmtHa.TPM_ALG_SHA1;
+        }
+        if (algId == eventAlgId) {
+            return digest;
+        }
+        return null;
+    }
+
     /**
      * Returns a hex representation of the event digest.
      * @return hex string
@@ -218,6 +235,7 @@ public class TpmPcrEvent {
      * @return specification version
      */
     public String getSpecVersion() {
+        processSpecIdEvent();
         return version;
     }
 
@@ -228,9 +246,34 @@ public class TpmPcrEvent {
      * @return Errata version
      */
     public String getSpecErrataVersion() {
+        processSpecIdEvent();
         return errata;
     }
 
+    /**
+     * Reads the spec version and errata from the event content if this event is a
+     * TCG_EfiSpecIdEvent. The content is only decoded the first time this is called.
+     */
+    private void processSpecIdEvent() {
+        if (specIdProcessed) {
+            return;
+        }
+        if (eventType == EvConstants.EV_NO_ACTION && eventContent != null) {
+            try {
+                EvNoAction noAction = new EvNoAction(eventContent);
+                if (noAction.isSpecIDEvent()) {
+                    EvEfiSpecIdEvent specID = noAction.getEvEfiSpecIdEvent();
+                    version = specID.getVersionMajor() + "." + specID.getVersionMinor();
+                    errata = specID.getErrata();
+                }
+            } catch (UnsupportedEncodingException ueEx) {
+                LOGGER.error(ueEx);
+            }
+        }
+        // set last, so events shared between threads never expose a partial result
+        specIdProcessed = true;
+    }
+
     /**
      * Sets the event data after processing.
      *
@@ -264,6 +307,7 @@ public class TpmPcrEvent {
      * @param eventNumber position in the list
      */
     public final void setEventNumber(final int eventNumber) {
+        checkModifiable();
         this.eventNumber = eventNumber;
     }
 
@@ -274,7 +318,6 @@ public class TpmPcrEvent {
      */
     protected void setEventContent(final byte[] eventData) {
         eventContent = new byte[eventData.length];
-        evPostCode = new EvPostCode(eventContent);
         System.arraycopy(eventData, 0, eventContent, 0, eventData.length);
     }
 
@@ -309,14 +352,7 @@ public class TpmPcrEvent {
                 try {
                     noAction = new EvNoAction(eventContent);
                     sb.append(noAction.toString());
-                    if (noAction.isSpecIDEvent()) {
-                        // this should be in the constructor
-                        EvEfiSpecIdEvent specID = noAction.getEvEfiSpecIdEvent();
-                        version = String.format("%s.%s",
-                                specID.getVersionMajor(),
-                                specID.getVersionMinor());
-                        errata = specID.getErrata();
-                    }
+                    processSpecIdEvent();
                 } catch (UnsupportedEncodingException ueEx) {
                     LOGGER.error(ueEx);
                     sb.append(ueEx.toString());
@@ -443,6 +479,7 @@ public class TpmPcrEvent {
      * @param length number of bytes in a PCR for the event.
      */
     public void setDigestLength(final int length) {
+        checkModifiable();
         digestLength = length;
     }
 
@@ -457,6 +494,9 @@ public class TpmPcrEvent {
 
     /**
      * Parses the event content and creates a human readable description of each event.
+     * The description is cached, so the event content is only decoded the first time
+     * this is called. An event of a shared event log is never changed; its description of
+     * the given content is built afresh on each call instead.
      *
      * @param event        the byte array holding the event data.
      * @param eventContent the byte array holding the event content.
@@ -468,71 +508,120 @@ public class TpmPcrEvent {
      */
     public String processEvent(final byte[] event, final byte[] eventContent, final int eventNumber)
             throws CertificateException, NoSuchAlgorithmException, IOException {
+        if (unmodifiable) {
+            StringBuilder sb = new StringBuilder();
+            describeHeader(sb, eventNumber);
+            describeContent(sb, eventContent);
+            return sb.toString();
+        }
+        if (description == null) {
+            this.eventNumber = eventNumber;
+            StringBuilder sb = new StringBuilder();
+            describeHeader(sb, eventNumber);
+            describeContent(sb, eventContent);
+            description = sb.toString();
+        }
+        return description;
+    }
+
+    /**
+     * Returns the human readable description of the event, decoding the event content
+     * on first use. Content that cannot be decoded is reported in the description
+     * rather than thrown, since the digest fields have already been parsed.
+     *
+     * @return String description of the event.
+     */
+    private String getDescription() {
+        if (description == null) {
+            if (digest == null || eventContent == null) {
+                // nothing was parsed for this event
+                return "";
+            }
+            StringBuilder sb = new StringBuilder();
+            describeHeader(sb, eventNumber);
+            try {
+                describeContent(sb, eventContent);
+            } catch (CertificateException | NoSuchAlgorithmException | IOException ex) {
+                LOGGER.error(ex);
+                sb.append(ex.toString());
+            }
+            description = sb.toString();
+        }
+        return description;
+    }
+
+    /**
+     * Appends the event number, PCR index, event type and digest to a description.
+     *
+     * @param sb the description being built.
+     * @param number the event number to describe the event with.
+     */
+    private void describeHeader(final StringBuilder sb, final int number) {
         int eventID = (int) eventType;
-        this.eventNumber = eventNumber;
-        description += "Event# " + eventNumber + ": ";
-        description += "Index PCR[" + getPcrIndex() + "]\n";
-        description += "Event Type: 0x" + Long.toHexString(eventType) + " " + eventString(eventID);
-        description += "\n";
+        sb.append("Event# ").append(number).append(": ");
+        sb.append("Index PCR[").append(getPcrIndex()).append("]\n");
+        sb.append("Event Type: 0x").append(Long.toHexString(eventType)).append(' ')
+                .append(eventString(eventID));
+        sb.append('\n');
         if (logFormat == 1) {   // Digest
-            description += "digest (SHA-1): " + Hex.encodeHexString(this.digest);
+            sb.append("digest (SHA-1): ").append(Hex.encodeHexString(this.digest));
         } else {
-            description += "digest (SHA256): " + Hex.encodeHexString(this.digest);
+            sb.append("digest (SHA256): ").append(Hex.encodeHexString(this.digest));
         }
         if (eventID != UefiConstants.SIZE_4) {
-            description += "\n";
+            sb.append('\n');
         }
-        // Calculate both the SHA1 and SHA256 on the event since this will equal the digest
-        // field of about half the log messages.
-        MessageDigest md1 = MessageDigest.getInstance("SHA-1");
-        md1.update(event);
-        eventDataSha1hash = md1.digest();
-        MessageDigest md2 = MessageDigest.getInstance("SHA-256");
-        md2.update(event);
-        eventDataSha256hash = md2.digest();
-
-        switch (eventID) {
+    }
+
+    /**
+     * Decodes the event content based upon the event type and appends it to a description.
+     *
+     * @param sb           the description being built.
+     * @param eventContent the byte array holding the event content.
+     * @throws CertificateException     if the event contains an event that cannot be processed.
+     * @throws NoSuchAlgorithmException if an event contains an unsupported algorithm.
+     * @throws IOException              if the event cannot be parsed.
+     */
+    private void describeContent(final StringBuilder sb, final byte[] eventContent)
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        switch ((int) eventType) {
             case EvConstants.EV_PREBOOT_CERT:
-                description += " EV_PREBOOT_CERT" + "\n";
+                sb.append(" EV_PREBOOT_CERT" + "\n");
                 break;
             case EvConstants.EV_POST_CODE:
                 EvPostCode postCode = new EvPostCode(eventContent);
-                description += "Event Content:\n" + postCode.toString();
+                sb.append("Event Content:\n" + postCode.toString());
                 break;
             case EvConstants.EV_UNUSED:
                 break;
             case EvConstants.EV_NO_ACTION:
                 EvNoAction noAction = new EvNoAction(eventContent);
-                description += "Event Content:\n" + noAction.toString();
-                if (noAction.isSpecIDEvent()) {
-                    EvEfiSpecIdEvent specID = noAction.getEvEfiSpecIdEvent();
-                    version = specID.getVersionMajor() + "." + specID.getVersionMinor();
-                    errata = specID.getErrata();
-                }
+                sb.append("Event Content:\n" + noAction.toString());
+                processSpecIdEvent();
                 break;
             case EvConstants.EV_SEPARATOR:
                 if (EvPostCode.isAscii(eventContent)) {
                     String separatorEventData = new String(eventContent, StandardCharsets.UTF_8);
                     if (!this.isBlank(eventContent)) {
-                        description += "Separator event content = " + separatorEventData;
+                        sb.append("Separator event content = " + separatorEventData);
                     }
                 }
                 break;
             case EvConstants.EV_ACTION:
-                description += "Event Content:\n"
-                        + new String(eventContent, StandardCharsets.UTF_8);
+                sb.append("Event Content:\n"
+                        + new String(eventContent, StandardCharsets.UTF_8));
                 break;
             case EvConstants.EV_EVENT_TAG:
                 EvEventTag eventTag = new EvEventTag(eventContent);
-                description += eventTag.toString();
+                sb.append(eventTag.toString());
                 break;
             case EvConstants.EV_S_CRTM_CONTENTS:
                 EvSCrtmContents sCrtmContents = new EvSCrtmContents(eventContent);
-                description += "Event Content:\n   " + sCrtmContents.toString();
+                sb.append("Event Content:\n   " + sCrtmContents.toString());
                 break;
             case EvConstants.EV_S_CRTM_VERSION:
                 EvSCrtmVersion sCrtmVersion = new EvSCrtmVersion(eventContent);
-                description += "Event Content:\n" + sCrtmVersion.toString();
+                sb.append("Event Content:\n" + sCrtmVersion.toString());
                 break;
             case EvConstants.EV_CPU_MICROCODE:
                 break;
@@ -542,11 +631,11 @@ public class TpmPcrEvent {
                 break;
             case EvConstants.EV_COMPACT_HASH:
                 EvCompactHash compactHash = new EvCompactHash(eventContent);
-                description += "Event Content:\n" + compactHash.toString();
+                sb.append("Event Content:\n" + compactHash.toString());
                 break;
             case EvConstants.EV_IPL:
                 EvIPL ipl = new EvIPL(eventContent);
-                description += "Event Content:\n" + ipl.toString();
+                sb.append("Event Content:\n" + ipl.toString());
                 break;
             case EvConstants.EV_IPL_PARTITION_DATA:
                 break;
@@ -563,45 +652,44 @@ public class TpmPcrEvent {
             case EvConstants.EV_EFI_VARIABLE_DRIVER_CONFIG:
                 UefiVariable efiVar = new UefiVariable(eventContent);
                 String efiVarDescription = efiVar.toString().replace("\n", "\n   ");
-                description += "Event Content:\n   " + efiVarDescription.substring(0,
-                        efiVarDescription.length() - INDENT_3);
+                sb.append("Event Content:\n   " + efiVarDescription.substring(0,
+                        efiVarDescription.length() - INDENT_3));
                 break;
             case EvConstants.EV_EFI_VARIABLE_BOOT:
-                description += "Event Content:\n" + new UefiVariable(eventContent).toString();
+                sb.append("Event Content:\n" + new UefiVariable(eventContent).toString());
                 break;
             case EvConstants.EV_EFI_BOOT_SERVICES_APPLICATION:
                 EvEfiBootServicesApp bootServices = new EvEfiBootServicesApp(eventContent);
-                description += "Event Content:\n" + bootServices.toString();
+                sb.append("Event Content:\n" + bootServices.toString());
                 break;
             case EvConstants.EV_EFI_BOOT_SERVICES_DRIVER: // same as EV_EFI_BOOT_SERVICES_APP
                 EvEfiBootServicesApp bootDriver = new EvEfiBootServicesApp(eventContent);
-                description += "Event Content:\n" + bootDriver.toString();
+                sb.append("Event Content:\n" + bootDriver.toString());
                 break;
             case EvConstants.EV_EFI_RUNTIME_SERVICES_DRIVER:
                 break;
             case EvConstants.EV_EFI_GPT_EVENT:
-                description += "Event Content:\n" + new EvEfiGptPartition(eventContent).toString();
+                sb.append("Event Content:\n" + new EvEfiGptPartition(eventContent).toString());
                 break;
             case EvConstants.EV_EFI_ACTION:
-                description += new String(eventContent, StandardCharsets.UTF_8);
+                sb.append(new String(eventContent, StandardCharsets.UTF_8));
                 break;
             case EvConstants.EV_EFI_PLATFORM_FIRMWARE_BLOB:
-                description += "Event Content:\n"
-                        + new UefiFirmware(eventContent).toString();
+                sb.append("Event Content:\n"
+                        + new UefiFirmware(eventContent).toString());
                 break;
             case EvConstants.EV_EFI_HANDOFF_TABLES:
                 EvEfiHandoffTable efiTable = new EvEfiHandoffTable(eventContent);
-                description += "Event Content:\n" + efiTable.toString();
+                sb.append("Event Content:\n" + efiTable.toString());
                 break;
             case EvConstants.EV_EFI_HCRTM_EVENT:
                 break;
             case EvConstants.EV_EFI_VARIABLE_AUTHORITY:
-                description += "Event Content:\n" + new UefiVariable(eventContent).toString();
+                sb.append("Event Content:\n" + new UefiVariable(eventContent).toString());
                 break;
             default:
-                description += " Unknown Event found" + "\n";
+                sb.append(" Unknown Event found" + "\n");
         }
-        return description;
     }
 
     /**
@@ -685,23 +773,20 @@ public class TpmPcrEvent {
      *
      * @return human readable string.
      */
-    private String eventHashCheck() {
+    private String eventHashCheck() throws NoSuchAlgorithmException {
         String result = "";
+        // Hash the event data on demand rather than for every parsed event
+        MessageDigest md;
         if (logFormat == 1) {
-            if (Arrays.equals(this.digest, eventDataSha1hash)) {
-                result
-                        += "Event digest matched hash of the event data " + "\n";
-            } else {
-                result += "Event digest DID NOT match the hash of the event data :"
-                        + Hex.encodeHexString(getEventDigest()) + "\n";
-            }
+            md = MessageDigest.getInstance("SHA-1");
         } else {
-            if (Arrays.equals(this.digest, eventDataSha256hash)) {
-                result += "Event digest matched hash of the event data " + "\n";
-            } else {
-                result += "Event digest DID NOT match the hash of the event data :"
-                        + Hex.encodeHexString(getEventDigest()) + "\n";
-            }
+            md = MessageDigest.getInstance("SHA-256");
+        }
+        if (Arrays.equals(this.digest, md.digest(event))) {
+            result += "Event digest matched hash of the event data " + "\n";
+        } else {
+            result += "Event digest DID NOT match the hash of the event data :"
+                    + Hex.encodeHexString(getEventDigest()) + "\n";
         }
         return result;
     }
@@ -747,16 +832,32 @@ public class TpmPcrEvent {
      * @param error parameter
      */
     public void setError(final boolean error) {
+        checkModifiable();
         this.error = error;
     }
 
+    /**
+     * Makes this event unmodifiable, after which its public setters throw
+     * {@link UnsupportedOperationException}.
+     */
+    void makeUnmodifiable() {
+        unmodifiable = true;
+    }
+
+    private void checkModifiable() {
+        if (unmodifiable) {
+            throw new UnsupportedOperationException(
+                    "The event belongs to a shared event log and cannot be modified");
+        }
+    }
+
     /**
      * Human readable string representing the contents of the Event Log.
      *
      * @return Description of the log.
      */
     public String toString() {
-        return description + "\n";
+        return getDescription() + "\n";
     }
 
     /**
@@ -770,7 +871,7 @@ public class TpmPcrEvent {
     public String toString(final boolean bEvent, final boolean bContent, final boolean bHexEvent) {
         StringBuilder sb = new StringBuilder();
         if (bEvent) {
-            sb.append(description);
+            sb.append(getDescription());
         }
         if (bHexEvent) {
             if (bEvent || bContent) {
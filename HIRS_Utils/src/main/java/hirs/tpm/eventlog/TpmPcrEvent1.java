@@ -78,7 +78,8 @@ public class TpmPcrEvent1 extends TpmPcrEvent {
             offset += rawEventSize.length;
             setEventData(event);
             //System.arraycopy(eventContent, 0, event, offset, eventContent.length);
-            this.processEvent(event, eventContent, eventNumber);
+            // event content is only decoded when a description is requested
+            setEventNumber(eventNumber);
         }
     }
 }
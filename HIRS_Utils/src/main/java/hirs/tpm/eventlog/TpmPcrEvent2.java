@@ -126,7 +126,24 @@ public class TpmPcrEvent2 extends TpmPcrEvent {
             offset += rawEventSize.length;
             //System.arraycopy(eventContent, 0, event, offset, eventContent.length);
             setEventData(event);
-            this.processEvent(event, eventContent, eventNumber);
+            // event content is only decoded when a description is requested
+            setEventNumber(eventNumber);
         }
     }
+
+    /**
+     * Returns the digest of the event for a given hash algorithm without copying it.
+     *
+     * @param algId TCG Algorithm Registry ID of the digest
+     * @return the digest, or null if the event holds no digest for the algorithm
+     */
+    @Override
+    byte[] getEventDigest(final int algId) {
+        for (TcgTpmtHa hash : hashlist) {
+            if (hash.getAlgId() == algId) {
+                return hash.getDigest();
+            }
+        }
+        return null;
+    }
 }
@@ -4,13 +4,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.UnmarshalException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.crypto.AlgorithmMethod;
 import javax.xml.crypto.KeySelector;
 import javax.xml.crypto.KeySelectorException;
@@ -25,15 +21,11 @@ import javax.xml.crypto.dsig.dom.DOMValidateContext;
 import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import javax.xml.crypto.dsig.keyinfo.KeyValue;
 import javax.xml.crypto.dsig.keyinfo.X509Data;
-import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.Key;
@@ -53,19 +45,13 @@ import java.util.Iterator;
 public class ReferenceManifestValidator {
     private static final String SIGNATURE_ALGORITHM_RSA_SHA256 =
                     "http://www.w3.org/2001/04/xmldsig-more#rsa-sha256";
-    private static final String SCHEMA_PACKAGE = "hirs.utils.xjc";
-    private static final String SCHEMA_URL = "swid_schema.xsd";
-    private static final String SCHEMA_LANGUAGE = XMLConstants.W3C_XML_SCHEMA_NS_URI;
-    private static final String IDENTITY_TRANSFORM = "identity_transform.xslt";
     private static final String SHA256 = "SHA-256";
     private static final int EIGHT_BIT_MASK = 0xff;
     private static final int LEFT_SHIFT = 0x100;
     private static final int RADIX = 16;
     private static final Logger LOGGER = LogManager.getLogger(ReferenceManifestValidator.class);
 
-    private Unmarshaller unmarshaller;
     private PublicKey publicKey;
-    private Schema schema;
     private String subjectKeyIdentifier;
     private boolean signatureValid, supportRimValid;
 
@@ -105,22 +91,14 @@ public class ReferenceManifestValidator {
     }
 
     /**
-     * This default constructor creates the Schema object from SCHEMA_URL immediately to save
-     * time during validation calls later.
+     * This default constructor validates swidtags against the schema compiled once by
+     * {@link SwidTagSchema}.
      */
     public ReferenceManifestValidator() {
-        try {
-            InputStream is = ReferenceManifestValidator.class
-                    .getClassLoader().getResourceAsStream(SCHEMA_URL);
-            SchemaFactory schemaFactory = SchemaFactory.newInstance(SCHEMA_LANGUAGE);
-            schema = schemaFactory.newSchema(new StreamSource(is));
-            signatureValid = false;
-            supportRimValid = false;
-            publicKey = null;
-            subjectKeyIdentifier = "";
-        } catch (SAXException e) {
-            LOGGER.warn("Error setting schema for validation!");
-        }
+        signatureValid = false;
+        supportRimValid = false;
+        publicKey = null;
+        subjectKeyIdentifier = "";
     }
 
     /**
@@ -342,10 +320,7 @@ public class ReferenceManifestValidator {
      */
     private Document validateSwidtagSchema(final Document doc) {
         try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(SCHEMA_PACKAGE);
-            unmarshaller = jaxbContext.createUnmarshaller();
-            unmarshaller.setSchema(schema);
-            unmarshaller.unmarshal(doc);
+            SwidTagSchema.unmarshal(doc);
         } catch (UnmarshalException e) {
             LOGGER.warn("Error validating swidtag file!");
         } catch (IllegalArgumentException e) {
@@ -365,13 +340,9 @@ public class ReferenceManifestValidator {
      * @return Document representation of the xml.
      */
     private Document removeXMLWhitespace(final StreamSource source) throws IOException {
-        TransformerFactory tf = TransformerFactory.newInstance();
-        Source identitySource = new StreamSource(
-                ReferenceManifestValidator.class.getClassLoader()
-                            .getResourceAsStream(IDENTITY_TRANSFORM));
         Document doc = null;
         try {
-            Transformer transformer = tf.newTransformer(identitySource);
+            Transformer transformer = SwidTagSchema.newIdentityTransformer();
             DOMResult result = new DOMResult();
             transformer.transform(source, result);
             doc = (Document) result.getNode();
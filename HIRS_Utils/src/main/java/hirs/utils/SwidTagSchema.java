@@ -0,0 +1,146 @@
+package hirs.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Holds the compiled SWID tag schema, the JAXB context of the generated SWID tag classes and
+ * the compiled identity transform used to strip whitespace from SWID tags. Each of these is
+ * expensive to create, immutable once created and safe to share between threads, so they are
+ * created once and reused by every {@link hirs.data.persist.BaseReferenceManifest} and
+ * {@link ReferenceManifestValidator}.
+ * <p>
+ * Unmarshallers are not thread safe, but are cheap to create from the shared context, so a new
+ * validating unmarshaller is created for each SWID tag. They are not kept per thread, as a
+ * thread-local unmarshaller would keep the web application's class loader reachable from pooled
+ * container threads after the application is undeployed.
+ */
+public final class SwidTagSchema {
+
+    private static final Logger LOGGER = LogManager.getLogger(SwidTagSchema.class);
+
+    private static final String SCHEMA_PACKAGE = "hirs.utils.xjc";
+    private static final String SCHEMA_URL = "swid_schema.xsd";
+    private static final String SCHEMA_LANGUAGE = XMLConstants.W3C_XML_SCHEMA_NS_URI;
+    private static final String IDENTITY_TRANSFORM = "identity_transform.xslt";
+
+    /**
+     * Lazily creates the shared schema, JAXB context and transform the first time they are
+     * used.
+     */
+    private static final class Holder {
+        private static final Schema SCHEMA = compileSchema();
+        private static final JAXBContext CONTEXT = createContext();
+        private static final Templates IDENTITY = compileIdentityTransform();
+    }
+
+    private SwidTagSchema() {
+        // prevent construction
+    }
+
+    /**
+     * Returns the compiled SWID tag schema.
+     *
+     * @return the schema, or null if it could not be compiled
+     */
+    public static Schema getSchema() {
+        return Holder.SCHEMA;
+    }
+
+    /**
+     * Unmarshals a SWID tag, validating it against the schema.
+     *
+     * @param stream the stream of the SWID tag
+     * @return the unmarshalled root element of the SWID tag
+     * @throws JAXBException if the SWID tag cannot be unmarshalled or is not valid
+     */
+    public static Object unmarshal(final InputStream stream) throws JAXBException {
+        return createUnmarshaller().unmarshal(stream);
+    }
+
+    /**
+     * Unmarshals a parsed SWID tag, validating it against the schema.
+     *
+     * @param node the document or element of the SWID tag
+     * @return the unmarshalled root element of the SWID tag
+     * @throws JAXBException if the SWID tag cannot be unmarshalled or is not valid
+     */
+    public static Object unmarshal(final Node node) throws JAXBException {
+        return createUnmarshaller().unmarshal(node);
+    }
+
+    /**
+     * Creates a transformer that strips all whitespace from an XML document, including indents
+     * and spaces added for human-readability.
+     *
+     * @return a new transformer
+     * @throws TransformerConfigurationException if the identity transform could not be compiled
+     */
+    public static Transformer newIdentityTransformer() throws TransformerConfigurationException {
+        if (Holder.IDENTITY == null) {
+            throw new TransformerConfigurationException(
+                    "Identity transform could not be compiled");
+        }
+        return Holder.IDENTITY.newTransformer();
+    }
+
+    private static Unmarshaller createUnmarshaller() throws JAXBException {
+        if (Holder.CONTEXT == null) {
+            throw new JAXBException("JAXB context for " + SCHEMA_PACKAGE
+                    + " could not be created");
+        }
+        Unmarshaller unmarshaller = Holder.CONTEXT.createUnmarshaller();
+        unmarshaller.setSchema(Holder.SCHEMA);
+        return unmarshaller;
+    }
+
+    private static Schema compileSchema() {
+        try (InputStream is = SwidTagSchema.class.getClassLoader()
+                .getResourceAsStream(SCHEMA_URL)) {
+            if (is == null) {
+                LOGGER.error("Unable to find schema " + SCHEMA_URL);
+                return null;
+            }
+            return SchemaFactory.newInstance(SCHEMA_LANGUAGE).newSchema(new StreamSource(is));
+        } catch (SAXException | IOException e) {
+            LOGGER.error(String.format("Error setting schema for validation!%n%s",
+                    e.getMessage()));
+            return null;
+        }
+    }
+
+    private static JAXBContext createContext() {
+        try {
+            return JAXBContext.newInstance(SCHEMA_PACKAGE);
+        } catch (JAXBException e) {
+            LOGGER.error("Error creating JAXB context for " + SCHEMA_PACKAGE, e);
+            return null;
+        }
+    }
+
+    private static Templates compileIdentityTransform() {
+        try (InputStream is = SwidTagSchema.class.getClassLoader()
+                .getResourceAsStream(IDENTITY_TRANSFORM)) {
+            return TransformerFactory.newInstance().newTemplates(new StreamSource(is));
+        } catch (TransformerConfigurationException | IOException e) {
+            LOGGER.error("Error compiling identity transform", e);
+            return null;
+        }
+    }
+}
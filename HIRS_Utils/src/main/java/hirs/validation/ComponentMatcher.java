@@ -0,0 +1,338 @@
+package hirs.validation;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import hirs.data.persist.certificate.attributes.ComponentIdentifier;
+import hirs.data.persist.info.ComponentInfo;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.asn1.DERUTF8String;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Matches the components listed in a platform credential against the components reported by a
+ * device. Every platform credential component must match a different device component, and the
+ * device may report extra components.
+ * <p>
+ * A platform credential component matches a device component with the same manufacturer whose
+ * model, serial number and revision are equal to those of the platform credential component, or
+ * for which the platform credential component leaves the field empty. The components are
+ * normalized once into {@link ComponentKey}s, and the device components are indexed by every
+ * combination of fields a platform credential component may specify, so each platform
+ * credential component is matched with one lookup. Components with a serial number are matched
+ * first, then those with a revision, and then the rest, so that a less specific component does
+ * not take the device component that a more specific one needs.
+ */
+public final class ComponentMatcher {
+    private static final Logger LOGGER = LogManager.getLogger(ComponentMatcher.class);
+
+    private static final Interner<ComponentKey> KEYS = Interners.newWeakInterner();
+
+    // bits of the fields a lookup key specifies, besides the manufacturer
+    private static final int MODEL = 1;
+    private static final int SERIAL = 2;
+    private static final int REVISION = 4;
+    private static final int ALL_FIELDS = MODEL | SERIAL | REVISION;
+
+    private ComponentMatcher() {
+    }
+
+    /**
+     * Matches the given platform credential components against the given device components.
+     *
+     * @param pcComponents the platform credential components, whose fields may have surrounding
+     *                     whitespace
+     * @param deviceComponents the components reported by the device
+     * @return the result of the match
+     */
+    public static Result match(final Collection<ComponentIdentifier> pcComponents,
+                               final Collection<ComponentInfo> deviceComponents) {
+        Map<ComponentKey, Deque<DeviceComponent>> index = new HashMap<>();
+        for (ComponentInfo info : deviceComponents) {
+            DeviceComponent component = new DeviceComponent(ComponentKey.of(info));
+            for (int fields = 0; fields <= ALL_FIELDS; fields++) {
+                ComponentKey lookupKey = component.key.select(fields);
+                Deque<DeviceComponent> candidates = index.get(lookupKey);
+                if (candidates == null) {
+                    candidates = new ArrayDeque<>();
+                    index.put(lookupKey, candidates);
+                }
+                candidates.add(component);
+            }
+        }
+
+        // most specific components first
+        List<ComponentKey> withSerial = new ArrayList<>();
+        List<ComponentKey> withRevision = new ArrayList<>();
+        List<ComponentKey> others = new ArrayList<>();
+        for (ComponentIdentifier pcComponent : pcComponents) {
+            ComponentKey key = ComponentKey.of(pcComponent);
+            if (!key.serial.isEmpty()) {
+                withSerial.add(key);
+            } else if (!key.revision.isEmpty()) {
+                withRevision.add(key);
+            } else {
+                others.add(key);
+            }
+        }
+
+        List<ComponentKey> ordered = new ArrayList<>(withSerial);
+        ordered.addAll(withRevision);
+        ordered.addAll(others);
+        List<ComponentKey> unmatched = new ArrayList<>();
+        int matched = 0;
+        for (ComponentKey key : ordered) {
+            if (take(index.get(key.select(key.getSpecifiedFields())))) {
+                matched++;
+            } else {
+                unmatched.add(key);
+            }
+        }
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("matched {} of {} platform credential components against {} device"
+                    + " components", matched, matched + unmatched.size(), deviceComponents.size());
+        }
+        return new Result(matched, unmatched);
+    }
+
+    private static boolean take(final Deque<DeviceComponent> candidates) {
+        if (candidates == null) {
+            return false;
+        }
+        // a device component is in several indexes, so those matched through another are skipped
+        DeviceComponent candidate;
+        while ((candidate = candidates.poll()) != null) {
+            if (!candidate.matched) {
+                candidate.matched = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A device component, which matches at most one platform credential component.
+     */
+    private static final class DeviceComponent {
+        private final ComponentKey key;
+        private boolean matched;
+
+        private DeviceComponent(final ComponentKey key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * The normalized manufacturer, model, serial number and revision of a component. Fields are
+     * trimmed, and a missing serial number or revision is empty. Keys are interned, so the many
+     * identical components of a server share one key.
+     */
+    public static final class ComponentKey {
+        private final String manufacturer;
+        private final String model;
+        private final String serial;
+        private final String revision;
+        private final int hashCode;
+
+        private ComponentKey(final String manufacturer, final String model,
+                             final String serial, final String revision) {
+            this.manufacturer = manufacturer;
+            this.model = model;
+            this.serial = serial;
+            this.revision = revision;
+            this.hashCode = Objects.hash(manufacturer, model, serial, revision);
+        }
+
+        /**
+         * Returns the key of a platform credential component.
+         *
+         * @param component the component
+         * @return the interned key
+         */
+        public static ComponentKey of(final ComponentIdentifier component) {
+            return KEYS.intern(new ComponentKey(normalize(component.getComponentManufacturer()),
+                    normalize(component.getComponentModel()),
+                    normalize(component.getComponentSerial()),
+                    normalize(component.getComponentRevision())));
+        }
+
+        /**
+         * Returns the key of a component reported by a device.
+         *
+         * @param component the component
+         * @return the interned key
+         */
+        public static ComponentKey of(final ComponentInfo component) {
+            return KEYS.intern(new ComponentKey(normalize(component.getComponentManufacturer()),
+                    normalize(component.getComponentModel()),
+                    normalize(component.getComponentSerial()),
+                    normalize(component.getComponentRevision())));
+        }
+
+        private static String normalize(final DERUTF8String value) {
+            if (value == null) {
+                return StringUtils.EMPTY;
+            }
+            return normalize(value.getString());
+        }
+
+        private static String normalize(final String value) {
+            if (value == null) {
+                return StringUtils.EMPTY;
+            }
+            return value.trim();
+        }
+
+        /**
+         * Returns the lookup key that has the manufacturer of this key and only the given other
+         * fields, the rest of which are null.
+         */
+        private ComponentKey select(final int fields) {
+            if (fields == ALL_FIELDS) {
+                return this;
+            }
+            String selectedModel = null;
+            String selectedSerial = null;
+            String selectedRevision = null;
+            if ((fields & MODEL) != 0) {
+                selectedModel = model;
+            }
+            if ((fields & SERIAL) != 0) {
+                selectedSerial = serial;
+            }
+            if ((fields & REVISION) != 0) {
+                selectedRevision = revision;
+            }
+            return new ComponentKey(manufacturer, selectedModel, selectedSerial,
+                    selectedRevision);
+        }
+
+        private int getSpecifiedFields() {
+            int fields = 0;
+            if (!model.isEmpty()) {
+                fields |= MODEL;
+            }
+            if (!serial.isEmpty()) {
+                fields |= SERIAL;
+            }
+            if (!revision.isEmpty()) {
+                fields |= REVISION;
+            }
+            return fields;
+        }
+
+        /**
+         * @return the trimmed manufacturer
+         */
+        public String getManufacturer() {
+            return manufacturer;
+        }
+
+        /**
+         * @return the trimmed model
+         */
+        public String getModel() {
+            return model;
+        }
+
+        /**
+         * @return the trimmed serial number, which is empty if there is none
+         */
+        public String getSerial() {
+            return serial;
+        }
+
+        /**
+         * @return the trimmed revision, which is empty if there is none
+         */
+        public String getRevision() {
+            return revision;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ComponentKey)) {
+                return false;
+            }
+            ComponentKey other = (ComponentKey) obj;
+            return hashCode == other.hashCode
+                    && Objects.equals(manufacturer, other.manufacturer)
+                    && Objects.equals(model, other.model)
+                    && Objects.equals(serial, other.serial)
+                    && Objects.equals(revision, other.revision);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Manufacturer=%s, Model=%s, Serial=%s, Revision=%s",
+                    manufacturer, model, serial, revision);
+        }
+    }
+
+    /**
+     * The result of matching platform credential components against device components.
+     */
+    public static final class Result {
+        private final int matchedCount;
+        private final List<ComponentKey> unmatchedComponents;
+
+        private Result(final int matchedCount, final List<ComponentKey> unmatchedComponents) {
+            this.matchedCount = matchedCount;
+            this.unmatchedComponents = Collections.unmodifiableList(unmatchedComponents);
+        }
+
+        /**
+         * @return true if every platform credential component matched a device component
+         */
+        public boolean isMatch() {
+            return unmatchedComponents.isEmpty();
+        }
+
+        /**
+         * @return the number of platform credential components that matched a device component
+         */
+        public int getMatchedCount() {
+            return matchedCount;
+        }
+
+        /**
+         * @return the platform credential components that matched no device component, with the
+         *         components that have a serial number first
+         */
+        public List<ComponentKey> getUnmatchedComponents() {
+            return unmatchedComponents;
+        }
+
+        /**
+         * Describes the unmatched components, one per line and each ending with a semicolon.
+         *
+         * @return the description, which is empty if every component matched
+         */
+        public String getMessage() {
+            StringBuilder sb = new StringBuilder();
+            for (ComponentKey component : unmatchedComponents) {
+                sb.append(String.format("%s;%n", component));
+            }
+            return sb.toString();
+        }
+    }
+}
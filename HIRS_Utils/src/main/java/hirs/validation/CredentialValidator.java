@@ -46,10 +46,10 @@ public interface CredentialValidator {
      * @param base the base credential from the same identity request
      *                              as the delta credential.
      * @param deltaMapping delta certificates associated with the
-     *                          delta supply validation.
-     * @return the result of the validation.
+     *                          delta supply validation, which is not modified
+     * @return the result of the validation, with the delta credentials that failed
      */
-    AppraisalStatus validateDeltaPlatformCredentialAttributes(PlatformCredential delta,
+    DeltaValidationResult validateDeltaPlatformCredentialAttributes(PlatformCredential delta,
                                                         DeviceInfoReport deviceInfoReport,
                                                         PlatformCredential base,
                                                         Map<PlatformCredential,
@@ -0,0 +1,54 @@
+package hirs.validation;
+
+import hirs.data.persist.AppraisalStatus;
+import hirs.data.persist.SupplyChainValidation;
+import hirs.data.persist.certificate.PlatformCredential;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The result of validating the attributes of a delta platform credential chain. Besides the
+ * overall status, it holds a failed validation record for each delta credential of the chain
+ * whose component changes are invalid. Each validation returns its own result, so validations
+ * may run concurrently.
+ */
+public class DeltaValidationResult extends AppraisalStatus {
+    private final Map<PlatformCredential, SupplyChainValidation> deltaFailures;
+
+    /**
+     * Creates a result without delta credential failures.
+     *
+     * @param appStatus the overall status
+     * @param message the overall message
+     */
+    public DeltaValidationResult(final Status appStatus, final String message) {
+        this(appStatus, message, Collections.emptyMap());
+    }
+
+    /**
+     * Creates a result.
+     *
+     * @param appStatus the overall status
+     * @param message the overall message
+     * @param deltaFailures the failed validation record of each delta credential whose
+     *                      component changes are invalid
+     */
+    public DeltaValidationResult(
+            final Status appStatus, final String message,
+            final Map<PlatformCredential, SupplyChainValidation> deltaFailures) {
+        super(appStatus, message);
+        this.deltaFailures = Collections.unmodifiableMap(new LinkedHashMap<>(deltaFailures));
+    }
+
+    /**
+     * Gets the delta credentials whose component changes are invalid, with the failed
+     * validation record of each.
+     *
+     * @return unmodifiable map of failed delta credentials, which is empty if there are none
+     */
+    public Map<PlatformCredential, SupplyChainValidation> getDeltaFailures() {
+        return deltaFailures;
+    }
+}
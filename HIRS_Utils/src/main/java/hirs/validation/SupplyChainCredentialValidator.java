@@ -1,8 +1,7 @@
 package hirs.validation;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hirs.data.persist.AppraisalStatus;
 import hirs.data.persist.info.ComponentInfo;
 import hirs.data.persist.DeviceInfoReport;
@@ -36,6 +35,7 @@ import java.security.NoSuchProviderException;
 import java.security.PublicKey;
 import java.security.Security;
 import java.security.SignatureException;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateExpiredException;
 import java.security.cert.CertificateNotYetValidException;
@@ -46,9 +46,9 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -95,7 +95,19 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
      */
     public static final String FIRMWARE_VALID = "Firmware validated";
 
-    private static final Map<PlatformCredential, StringBuilder> DELTA_FAILURES = new HashMap<>();
+    /**
+     * Maximum number of signature verification results held in memory.
+     */
+    private static final int MAX_CACHED_SIGNATURES = 10000;
+
+    /**
+     * Results of verifying a certificate's signature with a signing certificate, keyed by the
+     * SHA-256 fingerprints of both certificates. The certificates of a trust chain are shared
+     * by every device of a manufacturer, so each link is only verified once.
+     */
+    private static final Cache<String, Boolean> VERIFIED_SIGNATURES = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_SIGNATURES)
+            .build();
 
     /*
      * Ensure that BouncyCastle is configured as a javax.security.Security provider, as this
@@ -117,34 +129,25 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
      * @param paccorOutput the output from PACCOR's allcomoponents.sh
      * @return a list of ComponentInfo objects built from paccorOutput
      * @throws IOException if something goes wrong parsing the JSON
+     * @see ComponentInfo#fromPaccorOutput(String)
      */
     public static List<ComponentInfo> getComponentInfoFromPaccorOutput(final String paccorOutput)
             throws IOException {
-        List<ComponentInfo> componentInfoList = new ArrayList<>();
-
-        if (StringUtils.isNotEmpty(paccorOutput)) {
-            ObjectMapper objectMapper = new ObjectMapper(new JsonFactory());
-            JsonNode rootNode = objectMapper.readTree(paccorOutput);
-            Iterator<JsonNode> jsonComponentNodes
-                    = rootNode.findValue("COMPONENTS").elements();
-            while (jsonComponentNodes.hasNext()) {
-                JsonNode next = jsonComponentNodes.next();
-                componentInfoList.add(new ComponentInfo(
-                        getJSONNodeValueAsText(next, "MANUFACTURER"),
-                        getJSONNodeValueAsText(next, "MODEL"),
-                        getJSONNodeValueAsText(next, "SERIAL"),
-                        getJSONNodeValueAsText(next, "REVISION")));
-            }
-        }
-
-        return componentInfoList;
+        return ComponentInfo.fromPaccorOutput(paccorOutput);
     }
 
-    private static String getJSONNodeValueAsText(final JsonNode node, final String fieldName) {
-        if (node.hasNonNull(fieldName)) {
-            return node.findValue(fieldName).asText();
+    /**
+     * Gets the components of a device, which are parsed from its PACCOR output when the report
+     * is created. The output is only parsed here for reports that have no parsed components,
+     * such as those unmarshalled from XML.
+     */
+    private static List<ComponentInfo> getComponentInfo(final DeviceInfoReport deviceInfoReport)
+            throws IOException {
+        List<ComponentInfo> components = deviceInfoReport.getPaccorComponents();
+        if (components != null && !components.isEmpty()) {
+            return components;
         }
-        return null;
+        return getComponentInfoFromPaccorOutput(deviceInfoReport.getPaccorOutputString());
     }
 
     /**
@@ -270,11 +273,11 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
      * @param basePlatformCredential the base credential from the same identity request
      *                              as the delta credential.
      * @param deltaMapping delta certificates associated with the
-     *                          delta supply validation.
-     * @return the result of the validation.
+     *                          delta supply validation, which is not modified
+     * @return the result of the validation, with the delta credentials that failed
      */
     @Override
-    public AppraisalStatus validateDeltaPlatformCredentialAttributes(
+    public DeltaValidationResult validateDeltaPlatformCredentialAttributes(
             final PlatformCredential deltaPlatformCredential,
             final DeviceInfoReport deviceInfoReport,
             final PlatformCredential basePlatformCredential,
@@ -285,17 +288,17 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         if (deltaPlatformCredential == null) {
             message = baseErrorMessage + "a delta platform certificate";
             LOGGER.error(message);
-            return new AppraisalStatus(FAIL, message);
+            return new DeltaValidationResult(FAIL, message);
         }
         if (deviceInfoReport == null) {
             message = baseErrorMessage + "a device info report";
             LOGGER.error(message);
-            return new AppraisalStatus(FAIL, message);
+            return new DeltaValidationResult(FAIL, message);
         }
         if (basePlatformCredential == null) {
             message = baseErrorMessage + "a base platform credential";
             LOGGER.error(message);
-            return new AppraisalStatus(FAIL, message);
+            return new DeltaValidationResult(FAIL, message);
         }
 
         if (!basePlatformCredential.getPlatformSerial()
@@ -306,7 +309,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
                     deltaPlatformCredential.getPlatformSerial(),
                     basePlatformCredential.getPlatformSerial());
             LOGGER.error(message);
-            return new AppraisalStatus(FAIL, message);
+            return new DeltaValidationResult(FAIL, message);
         }
 
         // parse out the provided delta and its specific chain.
@@ -518,8 +521,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         String paccorOutputString = deviceInfoReport.getPaccorOutputString();
         String unmatchedComponents;
         try {
-            List<ComponentInfo> componentInfoList
-                    = getComponentInfoFromPaccorOutput(paccorOutputString);
+            List<ComponentInfo> componentInfoList = getComponentInfo(deviceInfoReport);
             unmatchedComponents = validateV2p0PlatformCredentialComponentsExpectingExactMatch(
                     validPcComponents, componentInfoList);
             fieldValidation &= unmatchedComponents.isEmpty();
@@ -550,12 +552,14 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
      * are valid.
      *
      * @param deviceInfoReport The paccor profile of device being validated against.
-     * @param deltaMapping map of delta certificates to their validated status
+     * @param deltaMapping map of delta certificates to their validated status, which is not
+     * modified
      * @param origPcComponents The component identifier list associated with the
      * base cert for this specific chain
-     * @return Appraisal Status of delta being validated.
+     * @return Appraisal Status of delta being validated, with the failed records of the delta
+     * certificates whose changes are invalid
      */
-    static AppraisalStatus validateDeltaAttributesChainV2p0(
+    static DeltaValidationResult validateDeltaAttributesChainV2p0(
             final DeviceInfoReport deviceInfoReport,
             final Map<PlatformCredential, SupplyChainValidation> deltaMapping,
             final List<ComponentIdentifier> origPcComponents) {
@@ -566,13 +570,20 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
                         && identifier.getComponentModel() != null)
                 .collect(Collectors.toList());
         List<PlatformCredential> chainCertificates = new LinkedList<>(deltaMapping.keySet());
+        Map<PlatformCredential, SupplyChainValidation> deltaFailures = new LinkedHashMap<>();
 
-        // map the components throughout the chain
+        // map the components throughout the chain by serial number, and keep those without one
+        // in a list, since several of them may be alike
         Map<String, ComponentIdentifier> chainCiMapping = new HashMap<>();
-        List<ComponentIdentifier> deltaBuildList = new LinkedList<>(validOrigPcComponents);
-        deltaBuildList.stream().forEach((ci) -> {
-            chainCiMapping.put(ci.getComponentSerial().toString(), ci);
-        });
+        List<ComponentIdentifier> chainCisWithoutSerial = new ArrayList<>();
+        for (ComponentIdentifier ci : validOrigPcComponents) {
+            String ciSerial = ComponentMatcher.ComponentKey.of(ci).getSerial();
+            if (ciSerial.isEmpty()) {
+                chainCisWithoutSerial.add(ci);
+            } else {
+                chainCiMapping.put(ciSerial, ci);
+            }
+        }
 
         Collections.sort(chainCertificates, new Comparator<PlatformCredential>() {
             @Override
@@ -591,7 +602,6 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             }
         });
 
-        String ciSerial;
         List<ArchivableEntity> certificateList = null;
         SupplyChainValidation scv = null;
         resultMessage.append("There are errors with Delta "
@@ -605,68 +615,24 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
 
             for (ComponentIdentifier ci : delta.getComponentIdentifiers()) {
                 if (ci.isVersion2()) {
-                    ciSerial = ci.getComponentSerial().toString();
-                    ComponentIdentifierV2 ciV2 = (ComponentIdentifierV2) ci;
-                    if (ciV2.isModified())  {
-                        // this won't match
-                        // check it is there
-                        if (!chainCiMapping.containsKey(ciSerial)) {
-                            fieldValidation = false;
-                            failureMsg.append(String.format(
-                                    "%s attempted MODIFIED with no prior instance.%n",
-                                    ciSerial));
-                            scv = deltaMapping.get(delta);
-                            if (scv.getResult() != AppraisalStatus.Status.PASS) {
-                                failureMsg.append(scv.getMessage());
-                            }
-                            deltaMapping.put(delta, new SupplyChainValidation(
-                                    SupplyChainValidation.ValidationType.PLATFORM_CREDENTIAL,
-                                    AppraisalStatus.Status.FAIL,
-                                    certificateList,
-                                    failureMsg.toString()));
+                    String failure = applyDeltaComponentChange((ComponentIdentifierV2) ci,
+                            chainCiMapping, chainCisWithoutSerial);
+                    if (failure != null) {
+                        fieldValidation = false;
+                        failureMsg.append(failure);
+                        if (deltaFailures.containsKey(delta)) {
+                            scv = deltaFailures.get(delta);
                         } else {
-                            chainCiMapping.put(ciSerial, ci);
-                        }
-                    } else if (ciV2.isRemoved()) {
-                        if (!chainCiMapping.containsKey(ciSerial)) {
-                            // error thrown, can't remove if it doesn't exist
-                            fieldValidation = false;
-                            failureMsg.append(String.format(
-                                    "%s attempted REMOVED with no prior instance.%n",
-                                    ciSerial));
                             scv = deltaMapping.get(delta);
-                            if (scv.getResult() != AppraisalStatus.Status.PASS) {
-                                failureMsg.append(scv.getMessage());
-                            }
-                            deltaMapping.put(delta, new SupplyChainValidation(
-                                    SupplyChainValidation.ValidationType.PLATFORM_CREDENTIAL,
-                                    AppraisalStatus.Status.FAIL,
-                                    certificateList,
-                                    failureMsg.toString()));
-                        } else {
-                            chainCiMapping.remove(ciSerial);
                         }
-                    } else if (ciV2.isAdded()) {
-                        // ADDED
-                        if (chainCiMapping.containsKey(ciSerial)) {
-                            // error, shouldn't exist
-                            fieldValidation = false;
-                            failureMsg.append(String.format(
-                                    "%s was ADDED, the serial already exists.%n",
-                                    ciSerial));
-                            scv = deltaMapping.get(delta);
-                            if (scv.getResult() != AppraisalStatus.Status.PASS) {
-                                failureMsg.append(scv.getMessage());
-                            }
-                            deltaMapping.put(delta, new SupplyChainValidation(
-                                    SupplyChainValidation.ValidationType.PLATFORM_CREDENTIAL,
-                                    AppraisalStatus.Status.FAIL,
-                                    certificateList,
-                                    failureMsg.toString()));
-                        } else {
-                            // have to add in case later it is removed
-                            chainCiMapping.put(ciSerial, ci);
+                        if (scv != null && scv.getResult() != AppraisalStatus.Status.PASS) {
+                            failureMsg.append(scv.getMessage());
                         }
+                        deltaFailures.put(delta, new SupplyChainValidation(
+                                SupplyChainValidation.ValidationType.PLATFORM_CREDENTIAL,
+                                AppraisalStatus.Status.FAIL,
+                                certificateList,
+                                failureMsg.toString()));
                     }
                 }
             }
@@ -675,22 +641,23 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         }
 
         if (!fieldValidation) {
-            return new AppraisalStatus(FAIL, resultMessage.toString());
+            return new DeltaValidationResult(FAIL, resultMessage.toString(), deltaFailures);
         }
 
         String paccorOutputString = deviceInfoReport.getPaccorOutputString();
         String unmatchedComponents;
         try {
-            List<ComponentInfo> componentInfoList
-                    = getComponentInfoFromPaccorOutput(paccorOutputString);
+            List<ComponentInfo> componentInfoList = getComponentInfo(deviceInfoReport);
+            List<ComponentIdentifier> chainComponents = new LinkedList<>(chainCiMapping.values());
+            chainComponents.addAll(chainCisWithoutSerial);
             unmatchedComponents = validateV2p0PlatformCredentialComponentsExpectingExactMatch(
-                    new LinkedList<>(chainCiMapping.values()), componentInfoList);
+                    chainComponents, componentInfoList);
             fieldValidation &= unmatchedComponents.isEmpty();
         } catch (IOException e) {
             final String baseErrorMessage = "Error parsing JSON output from PACCOR: ";
             LOGGER.error(baseErrorMessage + e.toString());
             LOGGER.error("PACCOR output string:\n" + paccorOutputString);
-            return new AppraisalStatus(ERROR, baseErrorMessage + e.getMessage());
+            return new DeltaValidationResult(ERROR, baseErrorMessage + e.getMessage());
         }
 
         if (!fieldValidation) {
@@ -698,10 +665,94 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             resultMessage.append("There are unmatched components:\n");
             resultMessage.append(unmatchedComponents);
 
-            return new AppraisalStatus(FAIL, resultMessage.toString());
+            return new DeltaValidationResult(FAIL, resultMessage.toString());
+        }
+
+        return new DeltaValidationResult(PASS, PLATFORM_ATTRIBUTES_VALID);
+    }
+
+    /**
+     * Applies a change listed in a delta platform credential to the components of the chain.
+     * Components are identified by their serial number, or by all of their fields if they have
+     * none.
+     *
+     * @param ci the changed component
+     * @param chainCiMapping the components of the chain that have a serial number, by serial
+     * @param chainCisWithoutSerial the components of the chain that have no serial number
+     * @return a description of the invalid change, or null if the change is valid
+     */
+    private static String applyDeltaComponentChange(
+            final ComponentIdentifierV2 ci,
+            final Map<String, ComponentIdentifier> chainCiMapping,
+            final List<ComponentIdentifier> chainCisWithoutSerial) {
+        ComponentMatcher.ComponentKey ciKey = ComponentMatcher.ComponentKey.of(ci);
+        String ciSerial = ciKey.getSerial();
+        if (ciSerial.isEmpty()) {
+            return applyDeltaComponentChange(ci, ciKey, chainCisWithoutSerial);
+        }
+
+        if (ci.isModified()) {
+            // this won't match
+            // check it is there
+            if (!chainCiMapping.containsKey(ciSerial)) {
+                return String.format("%s attempted MODIFIED with no prior instance.%n", ciSerial);
+            }
+            chainCiMapping.put(ciSerial, ci);
+        } else if (ci.isRemoved()) {
+            // can't remove if it doesn't exist
+            if (chainCiMapping.remove(ciSerial) == null) {
+                return String.format("%s attempted REMOVED with no prior instance.%n", ciSerial);
+            }
+        } else if (ci.isAdded()) {
+            // shouldn't exist
+            if (chainCiMapping.containsKey(ciSerial)) {
+                return String.format("%s was ADDED, the serial already exists.%n", ciSerial);
+            }
+            // have to add in case later it is removed
+            chainCiMapping.put(ciSerial, ci);
         }
+        return null;
+    }
 
-        return new AppraisalStatus(PASS, PLATFORM_ATTRIBUTES_VALID);
+    /**
+     * Applies a change to a component without a serial number. A removed component takes out a
+     * component of the chain with the same fields, and a modified component replaces one with
+     * the same manufacturer and model. An added component can't conflict with another.
+     *
+     * @param ci the changed component
+     * @param ciKey the key of the changed component
+     * @param chainCisWithoutSerial the components of the chain that have no serial number
+     * @return a description of the invalid change, or null if the change is valid
+     */
+    private static String applyDeltaComponentChange(
+            final ComponentIdentifierV2 ci, final ComponentMatcher.ComponentKey ciKey,
+            final List<ComponentIdentifier> chainCisWithoutSerial) {
+        if (ci.isAdded()) {
+            chainCisWithoutSerial.add(ci);
+            return null;
+        }
+        if (!ci.isModified() && !ci.isRemoved()) {
+            return null;
+        }
+
+        for (int i = 0; i < chainCisWithoutSerial.size(); i++) {
+            ComponentMatcher.ComponentKey priorKey =
+                    ComponentMatcher.ComponentKey.of(chainCisWithoutSerial.get(i));
+            if (ci.isRemoved() && priorKey.equals(ciKey)) {
+                chainCisWithoutSerial.remove(i);
+                return null;
+            }
+            if (ci.isModified() && priorKey.getManufacturer().equals(ciKey.getManufacturer())
+                    && priorKey.getModel().equals(ciKey.getModel())) {
+                chainCisWithoutSerial.set(i, ci);
+                return null;
+            }
+        }
+        String change = "REMOVED";
+        if (ci.isModified()) {
+            change = "MODIFIED";
+        }
+        return String.format("%s attempted %s with no prior instance.%n", ciKey, change);
     }
 
     /**
@@ -712,159 +763,27 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
      *
      * @param untrimmedPcComponents the platform credential components (may contain end whitespace)
      * @param allDeviceInfoComponents the device info report components
-     * @return true if validation passes
+     * @return a description of the unmatched components, or an empty string if all match
      */
     private static String validateV2p0PlatformCredentialComponentsExpectingExactMatch(
             final List<ComponentIdentifier> untrimmedPcComponents,
             final List<ComponentInfo> allDeviceInfoComponents) {
-        // For each manufacturer listed in the platform credential, create two lists:
-        // 1. a list of components listed in the platform credential for the manufacturer, and
-        // 2. a list of components listed in the device info for the same manufacturer
-        // Then eliminate matches from both lists. Finally, decide if the validation passes based
-        // on the leftovers in the lists and the policy in place.
-        final List<ComponentIdentifier> pcComponents = new ArrayList<>();
-        for (ComponentIdentifier component : untrimmedPcComponents) {
-            DERUTF8String componentSerial = new DERUTF8String("");
-            DERUTF8String componentRevision = new DERUTF8String("");
-            if (component.getComponentSerial() != null) {
-                componentSerial = new DERUTF8String(
-                        component.getComponentSerial().getString().trim());
-            }
-            if (component.getComponentRevision() != null) {
-                componentRevision = new DERUTF8String(
-                        component.getComponentRevision().getString().trim());
-            }
-            pcComponents.add(
-                new ComponentIdentifier(
-                        new DERUTF8String(component.getComponentManufacturer().getString().trim()),
-                        new DERUTF8String(component.getComponentModel().getString().trim()),
-                        componentSerial, componentRevision,
-                        component.getComponentManufacturerId(),
-                        component.getFieldReplaceable(),
-                        component.getComponentAddress()
-                ));
-        }
-
-        LOGGER.info("Validating the following Platform Cert components...");
-        pcComponents.forEach(component -> LOGGER.info(component.toString()));
-        LOGGER.info("...against the the following DeviceInfoReport components:");
-        allDeviceInfoComponents.forEach(component -> LOGGER.info(component.toString()));
-        Set<DERUTF8String> manufacturerSet = new HashSet<>();
-        pcComponents.forEach(component -> manufacturerSet.add(
-                component.getComponentManufacturer()));
-
-        // Create a list for unmatched components across all manufacturers to display at the end.
-        List<ComponentIdentifier> pcUnmatchedComponents = new ArrayList<>();
-
-        for (DERUTF8String derUtf8Manufacturer : manufacturerSet) {
-            List<ComponentIdentifier> pcComponentsFromManufacturer
-                    = pcComponents.stream().filter(compIdentifier
-                    -> compIdentifier.getComponentManufacturer().equals(derUtf8Manufacturer))
-                    .collect(Collectors.toList());
-
-            String pcManufacturer = derUtf8Manufacturer.getString();
-            List<ComponentInfo> deviceInfoComponentsFromManufacturer
-                    = allDeviceInfoComponents.stream().filter(componentInfo
-                    -> componentInfo.getComponentManufacturer().equals(pcManufacturer))
-                    .collect(Collectors.toList());
-
-            // For each component listed in the platform credential from this manufacturer
-            // find the ones that specify a serial number so we can match the most specific ones
-            // first.
-            List<ComponentIdentifier> pcComponentsFromManufacturerWithSerialNumber
-                    = pcComponentsFromManufacturer.stream().filter(compIdentifier
-                    -> compIdentifier.getComponentSerial() != null
-                    && StringUtils.isNotEmpty(compIdentifier.getComponentSerial().getString()))
-                    .collect(Collectors.toList());
-
-            // Now match up the components from the device info that are from the same
-            // manufacturer and have a serial number. As matches are found, remove them from
-            // both lists.
-            for (ComponentIdentifier pcComponent
-                    : pcComponentsFromManufacturerWithSerialNumber) {
-                Optional<ComponentInfo> first
-                        = deviceInfoComponentsFromManufacturer.stream()
-                        .filter(componentInfo
-                                -> StringUtils.isNotEmpty(componentInfo.getComponentSerial()))
-                        .filter(componentInfo -> componentInfo.getComponentSerial()
-                                .equals(pcComponent.getComponentSerial().getString()))
-                        .findFirst();
-
-                if (first.isPresent()) {
-                    ComponentInfo potentialMatch = first.get();
-                    if (isMatch(pcComponent, potentialMatch)) {
-                        pcComponentsFromManufacturer.remove(pcComponent);
-                        deviceInfoComponentsFromManufacturer.remove(potentialMatch);
-                    }
-                }
-            }
-
-            // For each component listed in the platform credential from this manufacturer
-            // find the ones that specify value for the revision field so we can match the most
-            // specific ones first.
-            List<ComponentIdentifier> pcComponentsFromManufacturerWithRevision
-                    = pcComponentsFromManufacturer.stream().filter(compIdentifier
-                    -> compIdentifier.getComponentRevision() != null
-                    && StringUtils.isNotEmpty(compIdentifier.getComponentRevision().getString()))
-                    .collect(Collectors.toList());
-
-            // Now match up the components from the device info that are from the same
-            // manufacturer and specify a value for the revision field. As matches are found,
-            // remove them from both lists.
-            for (ComponentIdentifier pcComponent
-                    : pcComponentsFromManufacturerWithRevision) {
-                Optional<ComponentInfo> first
-                        = deviceInfoComponentsFromManufacturer.stream()
-                        .filter(info -> StringUtils.isNotEmpty(info.getComponentRevision()))
-                        .filter(info -> info.getComponentRevision()
-                                .equals(pcComponent.getComponentRevision().getString()))
-                        .findFirst();
-
-                if (first.isPresent()) {
-                    ComponentInfo potentialMatch = first.get();
-                    if (isMatch(pcComponent, potentialMatch)) {
-                        pcComponentsFromManufacturer.remove(pcComponent);
-                        deviceInfoComponentsFromManufacturer.remove(potentialMatch);
-                    }
-                }
-            }
-
-            // The remaining components from the manufacturer have only the 2 required fields so
-            // just match them.
-            List<ComponentIdentifier> templist = new ArrayList<>(pcComponentsFromManufacturer);
-            for (ComponentIdentifier ci : templist) {
-                ComponentIdentifier pcComponent = ci;
-                Iterator<ComponentInfo> diComponentIter
-                        = deviceInfoComponentsFromManufacturer.iterator();
-                while (diComponentIter.hasNext()) {
-                    ComponentInfo potentialMatch = diComponentIter.next();
-                    if (isMatch(pcComponent, potentialMatch)) {
-                        pcComponentsFromManufacturer.remove(ci);
-                        diComponentIter.remove();
-                    }
-                }
-            }
-            pcUnmatchedComponents.addAll(pcComponentsFromManufacturer);
-        }
-
-        if (!pcUnmatchedComponents.isEmpty()) {
-            StringBuilder sb = new StringBuilder();
-            LOGGER.error(String.format("Platform Credential contained %d unmatched components:",
-                    pcUnmatchedComponents.size()));
-
-            int unmatchedComponentCounter = 1;
-            for (ComponentIdentifier unmatchedComponent : pcUnmatchedComponents) {
-                LOGGER.error("Unmatched component " + unmatchedComponentCounter++ + ": "
-                        + unmatchedComponent);
-                sb.append(String.format("Manufacturer=%s, Model=%s, Serial=%s, Revision=%s;%n",
-                        unmatchedComponent.getComponentManufacturer(),
-                        unmatchedComponent.getComponentModel(),
-                        unmatchedComponent.getComponentSerial(),
-                        unmatchedComponent.getComponentRevision()));
-            }
-            return sb.toString();
-        }
-        return Strings.EMPTY;
+        ComponentMatcher.Result result = ComponentMatcher.match(untrimmedPcComponents,
+                allDeviceInfoComponents);
+        if (result.isMatch()) {
+            return Strings.EMPTY;
+        }
+
+        List<ComponentMatcher.ComponentKey> pcUnmatchedComponents =
+                result.getUnmatchedComponents();
+        LOGGER.error(String.format("Platform Credential contained %d unmatched components:",
+                pcUnmatchedComponents.size()));
+        int unmatchedComponentCounter = 1;
+        for (ComponentMatcher.ComponentKey unmatchedComponent : pcUnmatchedComponents) {
+            LOGGER.error("Unmatched component " + unmatchedComponentCounter++ + ": "
+                    + unmatchedComponent);
+        }
+        return result.getMessage();
     }
 
     /**
@@ -964,49 +883,6 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         return true;
     }
 
-    /**
-     * Checks if the fields in the potentialMatch match the fields in the pcComponent,
-     * or if the relevant field in the pcComponent is empty.
-     * @param pcComponent the platform credential component
-     * @param potentialMatch the component info from a device info report
-     * @return true if the fields match exactly (null is considered the same as an empty string)
-     */
-    static boolean isMatch(final ComponentIdentifier pcComponent,
-                           final ComponentInfo potentialMatch) {
-        boolean matchesSoFar = true;
-
-        matchesSoFar &= isMatchOrEmptyInPlatformCert(
-                potentialMatch.getComponentManufacturer(),
-                pcComponent.getComponentManufacturer()
-        );
-
-        matchesSoFar &= isMatchOrEmptyInPlatformCert(
-                potentialMatch.getComponentModel(),
-                pcComponent.getComponentModel()
-        );
-
-        matchesSoFar &= isMatchOrEmptyInPlatformCert(
-                potentialMatch.getComponentSerial(),
-                pcComponent.getComponentSerial()
-        );
-
-        matchesSoFar &= isMatchOrEmptyInPlatformCert(
-                potentialMatch.getComponentRevision(),
-                pcComponent.getComponentRevision()
-        );
-
-        return matchesSoFar;
-    }
-
-    private static boolean isMatchOrEmptyInPlatformCert(
-            final String evidenceFromDevice,
-            final DERUTF8String valueInPlatformCert) {
-        if (valueInPlatformCert == null || StringUtils.isEmpty(valueInPlatformCert.getString())) {
-            return true;
-        }
-        return valueInPlatformCert.getString().equals(evidenceFromDevice);
-    }
-
     /**
      * Validates the platform credential's serial numbers with the device info's set of
      * serial numbers.
@@ -1233,6 +1109,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         boolean foundRootOfCertChain = false;
         Iterator<X509Certificate> certIterator = additionalCerts.iterator();
         X509Certificate trustedCert;
+        Map<X500Name, List<X509Certificate>> certsBySubject = null;
 
         while (!foundRootOfCertChain && certIterator.hasNext()) {
             trustedCert = certIterator.next();
@@ -1242,7 +1119,11 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
                     LOGGER.info("CA Root found.");
                     foundRootOfCertChain = true;
                 } else {
-                    foundRootOfCertChain = validateCertChain(trustedCert, additionalCerts);
+                    if (certsBySubject == null) {
+                        certsBySubject = indexBySubject(additionalCerts);
+                    }
+                    foundRootOfCertChain = validateCertChain(trustedCert, certsBySubject,
+                            new HashSet<>());
 
                     if (!foundRootOfCertChain) {
                         LOGGER.error("Root of certificate chain not found. Check for CA Cert: "
@@ -1275,19 +1156,41 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             throw new SupplyChainValidatorException(
                     "Certificate or validation certificates are null");
         }
+        return validateCertChain(cert, indexBySubject(additionalCerts), new HashSet<>());
+    }
+
+    /**
+     * Follows the chain of a public-key certificate up to a root (self-signed) cert. Signing
+     * certificates are looked up by the issuer of each certificate in the chain, and each
+     * signature verification is memoized.
+     *
+     * @param cert
+     *            certificate to validate
+     * @param certsBySubject
+     *            certs to validate against, indexed by subject DN
+     * @param chain
+     *            certs already on the chain below this one, which are not followed again
+     * @return boolean indicating if the validation was successful
+     * @throws SupplyChainValidatorException tried to validate using null certificates
+     */
+    private static boolean validateCertChain(final X509Certificate cert,
+            final Map<X500Name, List<X509Certificate>> certsBySubject,
+            final Set<X509Certificate> chain) throws SupplyChainValidatorException {
         boolean foundRootOfCertChain = false;
-        Iterator<X509Certificate> certIterator = additionalCerts.iterator();
+        List<X509Certificate> signingCandidates = certsBySubject.getOrDefault(
+                new X500Name(cert.getIssuerDN().getName()), Collections.emptyList());
+        Iterator<X509Certificate> certIterator = signingCandidates.iterator();
         X509Certificate trustedCert;
+        chain.add(cert);
 
         while (!foundRootOfCertChain && certIterator.hasNext()) {
             trustedCert = certIterator.next();
-            if (issuerMatchesSubjectDN(cert, trustedCert)
-                    && signatureMatchesPublicKey(cert, trustedCert)) {
+            if (isSignedBy(cert, trustedCert)) {
                 if (isSelfSigned(trustedCert)) {
                     LOGGER.info("CA Root found.");
                     foundRootOfCertChain = true;
-                } else if (!cert.equals(trustedCert)) {
-                    foundRootOfCertChain = validateCertChain(trustedCert, additionalCerts);
+                } else if (!chain.contains(trustedCert)) {
+                    foundRootOfCertChain = validateCertChain(trustedCert, certsBySubject, chain);
 
                     if (!foundRootOfCertChain) {
                         LOGGER.error("Root of certificate chain not found. Check for CA Cert: "
@@ -1297,9 +1200,74 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             }
         }
 
+        chain.remove(cert);
         return foundRootOfCertChain;
     }
 
+    /**
+     * Indexes certificates by their subject DN, using the same comparison as
+     * {@link #issuerMatchesSubjectDN(X509Certificate, X509Certificate)}, which ignores the
+     * ordering of DN components.
+     *
+     * @param certs the certificates to index
+     * @return the certificates, grouped by subject DN
+     */
+    private static Map<X500Name, List<X509Certificate>> indexBySubject(
+            final Set<X509Certificate> certs) {
+        Map<X500Name, List<X509Certificate>> certsBySubject = new HashMap<>();
+        for (X509Certificate cert : certs) {
+            if (cert != null) {
+                X500Name subject = new X500Name(
+                        cert.getSubjectX500Principal().getName(X500Principal.RFC1779));
+                certsBySubject.computeIfAbsent(subject, k -> new ArrayList<>()).add(cert);
+            }
+        }
+        return certsBySubject;
+    }
+
+    /**
+     * Checks if a public-key cert's signature is validated by the signing cert's public key,
+     * reusing the result of an earlier check of the same pair of certificates.
+     *
+     * @param cert
+     *            the public-key certificate with the signature to validate
+     * @param signingCert
+     *            the certificate with the public key to validate
+     * @return boolean indicating if the validation passed
+     * @throws SupplyChainValidatorException tried to validate using null certificates
+     */
+    private static boolean isSignedBy(final X509Certificate cert,
+            final X509Certificate signingCert) throws SupplyChainValidatorException {
+        String key = signatureCacheKey(cert, signingCert);
+        Boolean verified = VERIFIED_SIGNATURES.getIfPresent(key);
+        if (verified == null) {
+            verified = signatureMatchesPublicKey(cert, signingCert);
+            VERIFIED_SIGNATURES.put(key, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * Builds the key of a signature verification result from the fingerprints of both certs.
+     *
+     * @param cert the certificate with the signature
+     * @param signingCert the certificate with the public key
+     * @return cache key for the pair of certificates
+     * @throws SupplyChainValidatorException if either certificate can't be encoded
+     */
+    private static String signatureCacheKey(final X509Certificate cert,
+            final X509Certificate signingCert) throws SupplyChainValidatorException {
+        if (cert == null || signingCert == null) {
+            throw new SupplyChainValidatorException("Certificate or signing certificate is null");
+        }
+        try {
+            return DigestUtils.sha256Hex(cert.getEncoded()) + ":"
+                    + DigestUtils.sha256Hex(signingCert.getEncoded());
+        } catch (CertificateEncodingException e) {
+            throw new SupplyChainValidatorException("Unable to encode certificate", e);
+        }
+    }
+
     /**
      * Checks if the issuer info of an attribute cert matches the supposed signing cert's
      * distinguished name.
@@ -1437,24 +1405,22 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         if (cert == null) {
             throw new SupplyChainValidatorException("Certificate is null");
         }
+        String cacheKey = signatureCacheKey(cert, cert);
+        Boolean selfSigned = VERIFIED_SIGNATURES.getIfPresent(cacheKey);
+        if (selfSigned != null) {
+            return selfSigned;
+        }
         try {
             PublicKey key = cert.getPublicKey();
             cert.verify(key);
-            return true;
+            selfSigned = true;
         } catch (SignatureException | InvalidKeyException e) {
-            return false;
+            selfSigned = false;
         } catch (CertificateException | NoSuchAlgorithmException | NoSuchProviderException e) {
             LOGGER.error("Exception occurred while checking if cert is self-signed", e);
             return false;
         }
-    }
-
-    /**
-     * Getter for the collection of delta certificates that have failed and the
-     * associated message.
-     * @return unmodifiable list of failed certificates
-     */
-    public Map<PlatformCredential, StringBuilder> getDeltaFailures() {
-        return Collections.unmodifiableMap(DELTA_FAILURES);
+        VERIFIED_SIGNATURES.put(cacheKey, selfSigned);
+        return selfSigned;
     }
 }
@@ -0,0 +1,108 @@
+package hirs.data.persist;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for the {@link BaseReferenceManifest} class.
+ */
+public class BaseReferenceManifestTest {
+
+    private static final String GOOD_SWIDTAG = "/rims/generated_good.swidtag";
+    private static final int THREADS = 8;
+
+    private byte[] swidtag;
+
+    /**
+     * Reads the test swidtag.
+     *
+     * @throws IOException if the swidtag cannot be read
+     */
+    @BeforeClass
+    public void setup() throws IOException {
+        try (InputStream is = getClass().getResourceAsStream(GOOD_SWIDTAG)) {
+            swidtag = IOUtils.toByteArray(is);
+        }
+    }
+
+    /**
+     * Tests that a valid swidtag is parsed, including the files of its payload.
+     *
+     * @throws IOException if the swidtag cannot be parsed
+     */
+    @Test
+    public void testParseSwidtag() throws IOException {
+        BaseReferenceManifest rim = new BaseReferenceManifest("test.swidtag", swidtag);
+        Assert.assertNotNull(rim.getTagId());
+        Assert.assertNotNull(rim.getRimDigest());
+
+        List<SwidResource> resources = rim.parseResource();
+        Assert.assertEquals(resources.size(), 2);
+        Assert.assertEquals(resources.get(0).getName(), "Example.com.iotBase.bin1");
+        Assert.assertEquals(resources.get(1).getName(), "Example.com.iotBase.bin2");
+    }
+
+    /**
+     * Tests that every call to parseResource returns its own list of the parsed payload.
+     *
+     * @throws IOException if the swidtag cannot be parsed
+     */
+    @Test
+    public void testParseResourceReturnsCopy() throws IOException {
+        BaseReferenceManifest rim = new BaseReferenceManifest("test.swidtag", swidtag);
+
+        List<SwidResource> resources = rim.parseResource();
+        resources.clear();
+        Assert.assertEquals(rim.parseResource().size(), 2);
+    }
+
+    /**
+     * Tests that bytes which are not a swidtag are rejected.
+     *
+     * @throws IOException if the swidtag cannot be parsed, as expected
+     */
+    @Test(expectedExceptions = IOException.class)
+    public void testParseInvalidSwidtag() throws IOException {
+        new BaseReferenceManifest("test.swidtag",
+                "<SoftwareIdentity/>".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that swidtags can be parsed by several threads at once with the shared schema.
+     *
+     * @throws Exception if any unexpected errors occur
+     */
+    @Test
+    public void testParseConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS * THREADS; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return new BaseReferenceManifest(swidtag).getTagId();
+                    }
+                }));
+            }
+            String tagId = new BaseReferenceManifest(swidtag).getTagId();
+            for (Future<String> result : results) {
+                Assert.assertEquals(result.get(), tagId);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
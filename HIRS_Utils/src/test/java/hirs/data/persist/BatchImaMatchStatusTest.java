@@ -345,6 +345,28 @@ public class BatchImaMatchStatusTest {
         Assert.assertTrue(matchStatus.foundOnlyUnknown(IMA_MEASUREMENT_RECORD_5));
     }
 
+    /**
+     * Tests that the match statuses of a batch can be retrieved by their status, including
+     * after merging the results of another baseline.
+     */
+    @Test
+    public final void testGetAllWithStatus() {
+        BatchImaMatchStatus<IMABaselineRecord> matchStatus = new BatchImaMatchStatus<>(
+                Arrays.asList(IMA_MATCH_STATUS, IMA_MATCH_STATUS_3, IMA_MATCH_STATUS_5));
+
+        Assert.assertEquals(new HashSet<>(matchStatus.getAllMatches()),
+                new HashSet<>(Arrays.asList(IMA_MATCH_STATUS, IMA_MATCH_STATUS_3)));
+        Assert.assertTrue(matchStatus.getAllMismatches().isEmpty());
+        Assert.assertEquals(matchStatus.getAllWithStatus(ReportMatchStatus.UNKNOWN),
+                Collections.singletonList(IMA_MATCH_STATUS_5));
+
+        matchStatus.merge(new BatchImaMatchStatus<>(
+                Collections.singletonList(IMA_MATCH_STATUS_4)));
+        Assert.assertEquals(matchStatus.getAllMismatches(),
+                Collections.singletonList(IMA_MATCH_STATUS_4));
+        Assert.assertTrue(matchStatus.foundMismatch(IMA_MEASUREMENT_RECORD_3));
+    }
+
     /**
      * Tests that {@link BatchImaMatchStatus} evaluates equality based on its matches.
      */
@@ -3,6 +3,7 @@ package hirs.data.persist;
 import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.baseline.BroadRepoImaBaseline;
 import hirs.data.persist.baseline.Baseline;
+import hirs.data.persist.baseline.ImaBaselineSnapshot;
 import hirs.data.persist.enums.ReportMatchStatus;
 import java.io.UnsupportedEncodingException;
 import java.util.Collections;
@@ -254,6 +255,65 @@ public class BroadRepoImaBaselineTest extends SpringPersistenceTest {
         );
     }
 
+    /**
+     * Tests that the snapshot of a baseline's records is reused while the baseline's packages are
+     * unchanged, refreshed with the records of new packages after an update, and not kept when
+     * it holds more records than the snapshot record budget.
+     *
+     * @throws UnsupportedEncodingException
+     *             if an error is encountered while getting the test digest
+     */
+    @Test
+    public final void testSnapshotRefreshedAfterUpdate() throws UnsupportedEncodingException {
+        BroadRepoImaBaseline testBaseline = new BroadRepoImaBaseline(BASELINE_NAME);
+        Repository testRepo = new TestRepository("Test Repository", 0);
+        DBRepositoryManager repoManager = new DBRepositoryManager(sessionFactory);
+        testRepo = repoManager.saveRepository(testRepo);
+        RepoPackage testRepoPackage =
+                new RPMRepoPackage(NAME, VERSION1, RELEASE1, ARCHITECTURE, testRepo);
+        Set<IMABaselineRecord> imaRecords = new HashSet<>();
+        imaRecords.add(SimpleImaBaselineTest.createTestIMARecord(FILEPATH1));
+        testRepoPackage.setAllMeasurements(imaRecords, RepoPackageTest.getTestDigest());
+        repoManager.saveRepoPackage(testRepoPackage);
+        Set<Repository<?>> originalRepositories = new HashSet<>();
+        originalRepositories.add(testRepo);
+        testBaseline.setRepositories(originalRepositories);
+        testBaseline.update(repoManager);
+
+        DBBaselineManager baselineManager = new DBBaselineManager(sessionFactory);
+        BroadRepoImaBaseline savedBaseline =
+                (BroadRepoImaBaseline) baselineManager.save(testBaseline);
+        DbImaBaselineRecordManager recordManager = new DbImaBaselineRecordManager(sessionFactory);
+
+        ImaBaselineSnapshot snapshot = recordManager.getBaselineSnapshot(savedBaseline);
+        Assert.assertEquals(snapshot.getRecords(),
+                Collections.singleton(SimpleImaBaselineTest.createTestIMARecord(FILEPATH1)));
+        Assert.assertSame(recordManager.getBaselineSnapshot(savedBaseline), snapshot);
+
+        RepoPackage updatedPackage =
+                new RPMRepoPackage(NAME, VERSION2, RELEASE2, ARCHITECTURE, testRepo);
+        imaRecords = new HashSet<>();
+        imaRecords.add(SimpleImaBaselineTest.createTestIMARecord(FILEPATH2));
+        updatedPackage.setAllMeasurements(imaRecords, RepoPackageTest.getTestDigest());
+        repoManager.saveRepoPackage(updatedPackage);
+        savedBaseline.update(repoManager);
+        baselineManager.updateBaseline(savedBaseline);
+
+        ImaBaselineSnapshot refreshed = recordManager.getBaselineSnapshot(savedBaseline);
+        Assert.assertTrue(refreshed.getVersion() > snapshot.getVersion());
+        Assert.assertEquals(refreshed.size(), 2);
+        Assert.assertEquals(refreshed.getRecordsByPath(
+                Collections.singleton(FILEPATH2), false),
+                Collections.singleton(SimpleImaBaselineTest.createTestIMARecord(FILEPATH2)));
+        Assert.assertEquals(refreshed.getRecordsByPath(
+                Collections.singleton("path.file"), true).size(), 2);
+
+        recordManager.setSnapshotRecordBudget(1);
+        ImaBaselineSnapshot overBudget = recordManager.getBaselineSnapshot(savedBaseline);
+        Assert.assertEquals(overBudget.getRecords(), refreshed.getRecords());
+        Assert.assertNotSame(recordManager.getBaselineSnapshot(savedBaseline), overBudget);
+    }
+
     /**
      * Test that ensures a BroadRepoImaBaseline can correctly determine if
      * it contains any matching baseline records solely based upon a given measurement
@@ -1,5 +1,6 @@
 package hirs.data.persist;
 
+import hirs.data.persist.info.ComponentInfo;
 import hirs.data.persist.info.OSInfo;
 import hirs.data.persist.info.TPMInfo;
 import hirs.data.persist.info.NetworkInfo;
@@ -51,6 +52,16 @@ public class DeviceInfoReportTest extends SpringPersistenceTest {
 
     private static final String EXPECTED_CLIENT_VERSION = "Test.Version";
 
+    private static final String PACCOR_OUTPUT = "{\"PLATFORM\": {\"PLATFORMSERIAL\": \"0\"},"
+            + "\"COMPONENTS\": ["
+            + "{\"COMPONENTCLASS\": {\"COMPONENTCLASSVALUE\": \"00070002\"},"
+            + "\"MANUFACTURER\": \"Intel\", \"MODEL\": \"Core i7\", \"SERIAL\": null,"
+            + "\"REVISION\": \" 3.60GHz \"},"
+            + "{\"MANUFACTURER\": \"Intel Corporation\", \"MODEL\": \"I217-V\","
+            + "\"ADDRESSES\": [{\"ETHERNETMAC\": \"23:94:17:ba:86:5e\"}],"
+            + "\"FIELDREPLACEABLE\": false, \"SERIAL\": \"23:94:17:ba:86:5e\"}],"
+            + "\"PROPERTIES\": [{\"NAME\": \"uname -r\", \"VALUE\": \"3.10.0\"}]}";
+
     private ReportManager reportManager;
 
     /**
@@ -290,6 +301,48 @@ public class DeviceInfoReportTest extends SpringPersistenceTest {
         Assert.assertNull(reportManager.getReport(id));
     }
 
+    /**
+     * Tests that the components of the PACCOR output are parsed when it is set, skipping the
+     * fields that are not needed, and that an invalid output leaves the report without
+     * components.
+     */
+    @Test
+    public final void testSetPaccorOutputString() {
+        final DeviceInfoReport deviceInfoReport =
+                new DeviceInfoReport(networkInfo, osInfo, firmwareInfo, hardwareInfo, tpmInfo);
+        Assert.assertTrue(deviceInfoReport.getPaccorComponents().isEmpty());
+
+        deviceInfoReport.setPaccorOutputString(PACCOR_OUTPUT);
+        Assert.assertEquals(deviceInfoReport.getPaccorComponents(), Arrays.asList(
+                new ComponentInfo("Intel", "Core i7", null, "3.60GHz"),
+                new ComponentInfo("Intel Corporation", "I217-V", "23:94:17:ba:86:5e", null)));
+
+        deviceInfoReport.setPaccorOutputString("{\"COMPONENTS\": [{\"MANUFACTURER\": ");
+        Assert.assertTrue(deviceInfoReport.getPaccorComponents().isEmpty());
+        Assert.assertNotNull(deviceInfoReport.getPaccorOutputString());
+    }
+
+    /**
+     * Tests that the components of the PACCOR output are saved with a
+     * <code>DeviceInfoReport</code>, although the output itself is not.
+     */
+    @Test
+    public final void testSaveReportWithPaccorComponents() {
+        final DeviceInfoReport deviceInfoReport =
+                new DeviceInfoReport(networkInfo, osInfo, firmwareInfo, hardwareInfo, tpmInfo);
+        deviceInfoReport.setPaccorOutputString(PACCOR_OUTPUT);
+        final DeviceInfoReport savedReport =
+                (DeviceInfoReport) reportManager.saveReport(deviceInfoReport);
+
+        final DeviceInfoReport getReport =
+                (DeviceInfoReport) reportManager.getReport(savedReport.getId());
+        Assert.assertNull(getReport.getPaccorOutputString());
+        final List<ComponentInfo> components = getReport.getPaccorComponents();
+        Assert.assertEquals(components.size(), 2);
+        Assert.assertEquals(components.get(0).getComponentModel(), "Core i7");
+        Assert.assertEquals(components.get(1).getComponentSerial(), "23:94:17:ba:86:5e");
+    }
+
     /**
      * Creates a DeviceInfoReport instance usable for testing.
      *
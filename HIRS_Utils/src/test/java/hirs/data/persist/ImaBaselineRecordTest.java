@@ -4,6 +4,8 @@ import hirs.data.persist.enums.DigestAlgorithm;
 import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.baseline.SimpleImaBaseline;
 import java.text.ParseException;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.codec.DecoderException;
@@ -327,6 +329,35 @@ public class ImaBaselineRecordTest {
         return new Digest(DigestAlgorithm.SHA1, hash);
     }
 
+    /**
+     * Tests that every bucket is in exactly one shard, whatever the number of shards.
+     */
+    @Test
+    public final void testGetBucketsOfShard() {
+        for (int shardCount : new int[] {1, 3, IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT}) {
+            Set<Integer> buckets = new HashSet<>();
+            int total = 0;
+            for (int shard = 0; shard < shardCount; shard++) {
+                List<Integer> shardBuckets = IMABaselineRecord.getBucketsOfShard(shard, shardCount);
+                Assert.assertFalse(shardBuckets.isEmpty());
+                buckets.addAll(shardBuckets);
+                total += shardBuckets.size();
+            }
+            Assert.assertEquals(total, IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+            Assert.assertEquals(buckets.size(), IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+        }
+        int bucket = IMABaselineRecord.getBucket(PATH);
+        Assert.assertTrue(bucket >= 0 && bucket < IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+    }
+
+    /**
+     * Tests that a shard outside of the number of shards is rejected.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public final void testGetBucketsOfInvalidShard() {
+        IMABaselineRecord.getBucketsOfShard(2, 2);
+    }
+
     private IMABaselineRecord getBaselineRecord() throws ParseException {
         return getBaselineRecord(null, null);
     }
@@ -524,6 +524,40 @@ public class ImaIgnoreSetBaselineTest extends SpringPersistenceTest {
         Assert.assertEquals(testBaseline.getImaIgnoreRecords(), expectedRecords);
     }
 
+    /**
+     * Tests that the filter stored with a baseline is rebuilt when records are added to it, so
+     * that a retrieved baseline matches the added records.
+     */
+    @Test
+    public final void testContainsAfterUpdateImaIgnoreSetBaseline() {
+        final String addedPath = "/some/added/file";
+        final IMAMeasurementRecord measurementRecord =
+                getIMAMeasurementRecord(addedPath, HASH_RECORD_2);
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        final UUID id = (UUID) session.save(getDefaultBaseline());
+        session.getTransaction().commit();
+
+        session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        ImaIgnoreSetBaseline testBaseline =
+                (ImaIgnoreSetBaseline) session.get(ImaIgnoreSetBaseline.class, id);
+        Assert.assertTrue(containsUnknown(testBaseline, measurementRecord,
+                policyDisabledPartialPath));
+        testBaseline.addToBaseline(new ImaIgnoreSetRecord(addedPath, "description one"));
+        session.update(testBaseline);
+        session.getTransaction().commit();
+
+        session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        testBaseline = (ImaIgnoreSetBaseline) session.get(ImaIgnoreSetBaseline.class, id);
+        session.getTransaction().commit();
+        Assert.assertTrue(containsMatch(testBaseline, measurementRecord,
+                policyDisabledPartialPath));
+        Assert.assertTrue(containsMatch(testBaseline,
+                getIMAMeasurementRecord(PATH_RECORD_1, HASH_RECORD_2), policyDisabledPartialPath));
+    }
+
     /**
      * Tests that a <code>ImaIgnoreSetBaseline</code> can be stored in the
      * repository and deleted.
@@ -0,0 +1,65 @@
+package hirs.data.persist;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link PathEquivalenceTrie}.
+ */
+public class PathEquivalenceTrieTest {
+
+    /**
+     * Tests that the trie finds the same equivalent paths as replacing each matching prefix of
+     * the default IMA policy's equivalences.
+     */
+    @Test
+    public void testDefaultEquivalences() {
+        IMAPolicy policy = new IMAPolicy("Test Policy");
+        PathEquivalenceTrie trie = policy.getPathEquivalenceTrie();
+        Multimap<String, String> equivalences = policy.getPathEquivalences();
+
+        for (String path : Arrays.asList("/bin/ls", "/usr/bin/ls", "/usr/sbin/ls",
+                "/sbin/init", "/lib64/ld-2.17.so", "/usr/lib/libc.so", "/etc/passwd", "ls",
+                "/bin", "/bin/")) {
+            Set<String> expected = new HashSet<>();
+            for (String prefix : equivalences.keySet()) {
+                if (path.startsWith(prefix)) {
+                    for (String equivalentPrefix : equivalences.get(prefix)) {
+                        expected.add(equivalentPrefix + path.substring(prefix.length()));
+                    }
+                }
+            }
+
+            Set<String> actual = new HashSet<>();
+            trie.addEquivalentPaths(path, actual);
+            Assert.assertEquals(actual, expected, path);
+        }
+    }
+
+    /**
+     * Tests that every matching prefix of a path is replaced, including nested prefixes.
+     */
+    @Test
+    public void testNestedPrefixes() {
+        Multimap<String, String> equivalences = HashMultimap.create();
+        equivalences.put("/usr/", "/opt/");
+        equivalences.put("/usr/bin/", "/bin/");
+        equivalences.put("/usr/bin/", "/sbin/");
+        PathEquivalenceTrie trie = new PathEquivalenceTrie(equivalences);
+
+        Set<String> paths = new HashSet<>();
+        trie.addEquivalentPaths("/usr/bin/ls", paths);
+        Assert.assertEquals(paths,
+                new HashSet<>(Arrays.asList("/opt/bin/ls", "/bin/ls", "/sbin/ls")));
+
+        paths.clear();
+        trie.addEquivalentPaths("/usr", paths);
+        Assert.assertTrue(paths.isEmpty());
+    }
+}
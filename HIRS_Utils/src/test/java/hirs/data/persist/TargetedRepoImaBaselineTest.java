@@ -24,6 +24,7 @@ import hirs.repository.RepoPackage;
 import hirs.repository.Repository;
 import hirs.repository.RepositoryException;
 import hirs.repository.RepositoryUpdateService;
+import hirs.utils.Callback;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -271,6 +272,72 @@ public class TargetedRepoImaBaselineTest extends SpringPersistenceTest {
         Assert.assertTrue(DBBaselineManagerTest.isInDatabase(BASELINE_NAME, sessionFactory));
     }
 
+    /**
+     * Tests that every record of a saved baseline is iterated over exactly once, and passed to
+     * the consumer, whatever the number of shards the records are read in, and after the
+     * record manager has been shut down.
+     *
+     * @throws UnsupportedEncodingException
+     *             if an error is encountered while getting the test digest
+     */
+    @Test
+    public final void testIterateOverBaselineRecordsInShards()
+            throws UnsupportedEncodingException {
+        final int recordCount = 50;
+        TargetedRepoImaBaseline testBaseline = new TargetedRepoImaBaseline(BASELINE_NAME);
+        Repository testRepo = new TestRepository("Test Repository", 0);
+        DBRepositoryManager repoManager = new DBRepositoryManager(sessionFactory);
+        testRepo = repoManager.saveRepository(testRepo);
+        RepoPackage testRepoPackage =
+                new RPMRepoPackage(NAME, VERSION1, RELEASE1, ARCHITECTURE, testRepo);
+        Set<IMABaselineRecord> imaRecords = new HashSet<>();
+        Set<String> expectedPaths = new HashSet<>();
+        for (int i = 0; i < recordCount; i++) {
+            imaRecords.add(SimpleImaBaselineTest.createTestIMARecord(FILEPATH1 + i));
+            expectedPaths.add(FILEPATH1 + i);
+        }
+        testRepoPackage.setAllMeasurements(imaRecords, RepoPackageTest.getTestDigest());
+        repoManager.saveRepoPackage(testRepoPackage);
+        testBaseline.setRepoPackages(Collections.singleton(testRepoPackage));
+        TargetedRepoImaBaseline savedBaseline = (TargetedRepoImaBaseline)
+                new DBBaselineManager(sessionFactory).save(testBaseline);
+
+        DbImaBaselineRecordManager recordManager = new DbImaBaselineRecordManager(sessionFactory);
+        for (int shardCount : new int[] {1, 3, 7}) {
+            recordManager.setScanShardCount(shardCount);
+            List<String> paths = iterateOverPaths(recordManager, savedBaseline);
+            Assert.assertEquals(paths.size(), recordCount);
+            Assert.assertEquals(new HashSet<>(paths), expectedPaths);
+        }
+
+        recordManager.shutdown();
+        Assert.assertTrue(recordManager.isShutdown());
+        List<String> paths = iterateOverPaths(recordManager, savedBaseline);
+        Assert.assertEquals(paths.size(), recordCount);
+        Assert.assertEquals(new HashSet<>(paths), expectedPaths);
+    }
+
+    private static List<String> iterateOverPaths(final DbImaBaselineRecordManager recordManager,
+                                                 final TargetedRepoImaBaseline baseline) {
+        final List<String> paths = Collections.synchronizedList(new ArrayList<String>());
+        long count = recordManager.iterateOverBaselineRecords(baseline,
+                new Callback<IMABaselineRecord, String>() {
+                    @Override
+                    public String call(final IMABaselineRecord record) {
+                        return record.getPath();
+                    }
+                },
+                new Callback<String, Void>() {
+                    @Override
+                    public Void call(final String path) {
+                        paths.add(path);
+                        return null;
+                    }
+                });
+        Assert.assertEquals(count, paths.size());
+        return paths;
+    }
+
     /**
      * Tests the basic functionality of the contains() method.
      *
@@ -752,6 +752,36 @@ public class PlatformCredentialTest {
 
     }
 
+    /**
+     * Tests that the attribute certificate and its attributes are decoded once and shared by
+     * every accessor, and that the decoded attributes cannot be modified.
+     *
+     * @throws IOException if an IO error occurs during processing
+     * @throws URISyntaxException if there is a problem constructing the cert's URI
+     */
+    @Test
+    public final void testDecodedViewIsShared() throws IOException, URISyntaxException {
+        URL resource = this.getClass().getResource(TEST_BASE_PLATFORM_CERT_1);
+        PlatformCredential platformCert = new PlatformCredential(Paths.get(resource.toURI()));
+
+        Assert.assertSame(platformCert.getAttributeCertificate(),
+                platformCert.getAttributeCertificate());
+        Assert.assertSame(platformCert.getX509AttributeCertificateHolder(),
+                platformCert.getX509AttributeCertificateHolder());
+        Assert.assertEquals(platformCert.getX509AttributeCertificateHolder().getEncoded(),
+                platformCert.getRawBytes());
+        Assert.assertSame(platformCert.getAllAttributes(), platformCert.getAllAttributes());
+        Assert.assertSame(platformCert.getPlatformConfiguration(),
+                platformCert.getAttribute("platformConfiguration"));
+
+        try {
+            platformCert.getAllAttributes().remove("platformConfiguration");
+            Assert.fail("attributes should not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            Assert.assertNotNull(platformCert.getPlatformConfiguration());
+        }
+    }
+
     /**
      * Tests Platform Configuration Values. View platform Properties
      *
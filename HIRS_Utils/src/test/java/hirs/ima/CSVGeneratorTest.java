@@ -28,10 +28,15 @@ import hirs.data.persist.ImaBlacklistRecordTest;
 
 import javax.xml.bind.DatatypeConverter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 /**
  *
@@ -89,6 +94,35 @@ public final class CSVGeneratorTest {
         Assert.assertEquals(CSV, CSVGenerator.imaRecordsToCsv(imaBaseline));
     }
 
+    /**
+     * Tests that writing an IMA baseline to a writer produces the same CSV as the String
+     * version, and that the CSV can be read back after being compressed with gzip.
+     *
+     * @throws IOException if the CSV cannot be written or read
+     */
+    @Test
+    public void testImaRecordsToCsvWriter() throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        CSVGenerator.imaRecordsToCsv(imaBaseline, stringWriter);
+        Assert.assertEquals(stringWriter.toString(), CSV);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = CSVGenerator.newCsvWriter(bytes, true)) {
+            CSVGenerator.imaRecordsToCsv(imaBaseline, writer);
+        }
+        try (InputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            Assert.assertEquals(IOUtils.toString(in, StandardCharsets.UTF_8), CSV);
+        }
+
+        bytes = new ByteArrayOutputStream();
+        try (Writer writer = CSVGenerator.newCsvWriter(bytes, false)) {
+            CSVGenerator.blacklistToCsv(getTestImaBlacklistBaselineWithDescriptions(), writer);
+        }
+        Assert.assertEquals(new String(bytes.toByteArray(), StandardCharsets.UTF_8),
+                CSVGenerator.blacklistToCsv(getTestImaBlacklistBaselineWithDescriptions()));
+    }
+
     /**
      * Tests that an IMA blacklist baseline (whose entries have descriptions), when serialized to
      * a CSV, matches the expected output.
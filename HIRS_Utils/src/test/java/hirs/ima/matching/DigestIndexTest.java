@@ -0,0 +1,71 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.Digest;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.enums.DigestAlgorithm;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Tests for the {@link DigestIndex}.
+ */
+public class DigestIndexTest {
+    private static final int RECORD_COUNT = 10000;
+
+    /**
+     * Tests that every record of a large index is found by its hash, and that a digest that is
+     * not in the index finds nothing.
+     */
+    @Test
+    public void testGet() {
+        List<IMABaselineRecord> records = new ArrayList<>();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            records.add(new IMABaselineRecord("/file" + i, sha1(i)));
+        }
+        DigestIndex<IMABaselineRecord> index = new DigestIndex<>(records);
+
+        for (IMABaselineRecord record : records) {
+            Assert.assertEquals(index.get(record.getHash()),
+                    Collections.singletonList(record));
+        }
+        Assert.assertTrue(index.get(sha1(RECORD_COUNT)).isEmpty());
+        Assert.assertTrue(index.get(null).isEmpty());
+    }
+
+    /**
+     * Tests that all records with the same hash are found.
+     */
+    @Test
+    public void testGetSharedHash() {
+        IMABaselineRecord first = new IMABaselineRecord("/bin/ls", sha1(1));
+        IMABaselineRecord second = new IMABaselineRecord("/usr/bin/ls", sha1(1));
+        IMABaselineRecord other = new IMABaselineRecord("/bin/cat", sha1(2));
+        DigestIndex<IMABaselineRecord> index =
+                new DigestIndex<>(Arrays.asList(first, second, other));
+
+        Assert.assertEquals(new HashSet<>(index.get(sha1(1))),
+                new HashSet<>(Arrays.asList(first, second)));
+        Assert.assertEquals(index.get(sha1(2)), Collections.singletonList(other));
+    }
+
+    /**
+     * Tests that an empty index finds nothing.
+     */
+    @Test
+    public void testGetEmpty() {
+        DigestIndex<IMABaselineRecord> index =
+                new DigestIndex<>(Collections.<IMABaselineRecord>emptyList());
+        Assert.assertTrue(index.get(sha1(1)).isEmpty());
+    }
+
+    private static Digest sha1(final int value) {
+        return new Digest(DigestAlgorithm.SHA1, DigestUtils.sha1(Integer.toString(value)));
+    }
+}
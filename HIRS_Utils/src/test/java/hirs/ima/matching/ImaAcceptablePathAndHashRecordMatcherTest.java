@@ -11,6 +11,7 @@ import hirs.data.persist.SimpleImaBaselineTest;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -206,6 +207,44 @@ public class ImaAcceptablePathAndHashRecordMatcherTest {
         );
     }
 
+    /**
+     * Tests that a batch large enough to be matched in parallel produces the same results as
+     * matching each record on its own.
+     */
+    @Test
+    public void testParallelBatchMatch() {
+        SimpleImaBaseline baseline = getTestSimpleImaBaseline();
+        int recordCount = ImaRecordMatcher.PARALLEL_BATCH_THRESHOLD * 2;
+        List<IMABaselineRecord> baselineRecords = new ArrayList<>();
+        List<IMAMeasurementRecord> measurementRecords = new ArrayList<>();
+        for (int i = 0; i < recordCount; i++) {
+            String path = "/usr/bin/file" + i;
+            baselineRecords.add(new IMABaselineRecord(path, HASH_1));
+            // every third record mismatches and every fifth is unknown to the baseline
+            if (i % 5 == 0) {
+                measurementRecords.add(new IMAMeasurementRecord("/opt/file" + i, HASH_1));
+            } else if (i % 3 == 0) {
+                measurementRecords.add(new IMAMeasurementRecord(path, ONES));
+            } else {
+                measurementRecords.add(new IMAMeasurementRecord(path, HASH_1));
+            }
+        }
+
+        ImaAcceptablePathAndHashRecordMatcher matcher = new ImaAcceptablePathAndHashRecordMatcher(
+                baselineRecords, SimpleImaBaselineTest.getTestImaPolicy(false), baseline);
+        BatchImaMatchStatus<IMABaselineRecord> batchStatus =
+                matcher.batchMatch(measurementRecords);
+
+        List<IMAMatchStatus<IMABaselineRecord>> expected = new ArrayList<>();
+        for (IMAMeasurementRecord measurementRecord : measurementRecords) {
+            expected.add(matcher.contains(measurementRecord));
+        }
+        Assert.assertEquals(batchStatus, new BatchImaMatchStatus<>(expected));
+        Assert.assertEquals(batchStatus.getAllMismatches().size()
+                + batchStatus.getAllMatches().size()
+                + batchStatus.getAllWithStatus(ReportMatchStatus.UNKNOWN).size(), recordCount);
+    }
+
     private static SimpleImaBaseline getTestSimpleImaBaseline() {
         return new SimpleImaBaseline("Test IMA Baseline");
     }
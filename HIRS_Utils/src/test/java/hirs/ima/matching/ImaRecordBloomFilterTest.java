@@ -0,0 +1,163 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.Digest;
+import hirs.data.persist.IMAMeasurementRecord;
+import hirs.data.persist.IMAPolicy;
+import hirs.data.persist.ImaBlacklistRecord;
+import hirs.data.persist.ImaIgnoreSetRecord;
+import hirs.data.persist.SimpleImaBaselineTest;
+import hirs.data.persist.baseline.ImaBlacklistBaseline;
+import hirs.data.persist.baseline.ImaIgnoreSetBaseline;
+import hirs.data.persist.enums.DigestAlgorithm;
+import hirs.data.persist.enums.ReportMatchStatus;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the {@link ImaRecordBloomFilter}.
+ */
+public class ImaRecordBloomFilterTest {
+    private static final int RECORD_COUNT = 1000;
+    private static final double MAX_FALSE_POSITIVE_RATE = 0.05;
+
+    /**
+     * Tests that the literal prefix of a pattern is a prefix of every path it matches.
+     */
+    @Test
+    public void testGetLiteralPrefix() {
+        Assert.assertEquals(ImaRecordBloomFilter.getLiteralPrefix("/var/log/"), "/var/log/");
+        Assert.assertEquals(ImaRecordBloomFilter.getLiteralPrefix("/var/lib/my-lib.so"),
+                "/var/lib/my-lib");
+        Assert.assertEquals(ImaRecordBloomFilter.getLiteralPrefix("\\/usr\\/lib\\/.*.txt"),
+                "/usr/lib/");
+        Assert.assertEquals(ImaRecordBloomFilter.getLiteralPrefix("/usr/lib64?/"), "/usr/lib6");
+        Assert.assertEquals(ImaRecordBloomFilter.getLiteralPrefix("/usr/lib\\d+/"), "/usr/lib");
+        Assert.assertEquals(ImaRecordBloomFilter.getLiteralPrefix(".*foo"), "");
+        Assert.assertEquals(ImaRecordBloomFilter.getLiteralPrefix("/bin/a|/sbin/a"), "");
+    }
+
+    /**
+     * Tests that the filter of a blacklist lets through every measurement record that the
+     * blacklist matcher matches, and rules out most records that have neither a path nor a hash
+     * of the blacklist.
+     */
+    @Test
+    public void testBlacklistMightMatch() {
+        List<ImaBlacklistRecord> records = new ArrayList<>();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            switch (i % 3) {
+                case 0:
+                    records.add(new ImaBlacklistRecord("/usr/bin/file" + i));
+                    break;
+                case 1:
+                    records.add(new ImaBlacklistRecord(sha1(i)));
+                    break;
+                default:
+                    records.add(new ImaBlacklistRecord("/lib/lib" + i + ".so", sha1(i)));
+                    break;
+            }
+        }
+        ImaRecordBloomFilter filter = ImaRecordBloomFilter.build(records, false);
+
+        List<IMAMeasurementRecord> measurements = new ArrayList<>();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            measurements.add(new IMAMeasurementRecord("/bin/file" + i, sha1(-i)));
+            measurements.add(new IMAMeasurementRecord("file" + i, sha1(-i)));
+            measurements.add(new IMAMeasurementRecord("/opt/file" + i, sha1(i)));
+            measurements.add(new IMAMeasurementRecord("/usr/lib/lib" + i + ".so", sha1(i)));
+        }
+        for (boolean partialPathEnable : Arrays.asList(true, false)) {
+            IMAPolicy policy = SimpleImaBaselineTest.getTestImaPolicy(partialPathEnable);
+            ImaBlacklistRecordMatcher matcher = new ImaBlacklistRecordMatcher(records, policy,
+                    new ImaBlacklistBaseline("Test Blacklist"));
+            for (IMAMeasurementRecord measurement : measurements) {
+                if (matcher.contains(measurement).getStatus() == ReportMatchStatus.MATCH) {
+                    Assert.assertTrue(filter.mightMatch(measurement, policy),
+                            measurement.toString());
+                }
+            }
+            assertMostlyRuledOut(filter, policy, "/tmp/other");
+        }
+    }
+
+    /**
+     * Tests that the filter of an ignore set lets through every path matched by its patterns,
+     * and rules out most other paths.
+     */
+    @Test
+    public void testIgnoreSetMightMatch() {
+        List<ImaIgnoreSetRecord> records = Arrays.asList(
+                new ImaIgnoreSetRecord("/var/log/"),
+                new ImaIgnoreSetRecord("\\/usr\\/lib\\/.*.txt"),
+                new ImaIgnoreSetRecord("/usr/lib64?/cache"),
+                new ImaIgnoreSetRecord("/etc/passwd"));
+        ImaRecordBloomFilter filter = ImaRecordBloomFilter.build(records, true);
+        IMAPolicy policy = SimpleImaBaselineTest.getTestImaPolicy(true);
+        ImaIgnoreSetRecordMatcher matcher = new ImaIgnoreSetRecordMatcher(records, policy,
+                new ImaIgnoreSetBaseline("Test Ignore Set"));
+
+        for (String path : Arrays.asList("/var/log/messages", "/usr/lib/a/b.txt",
+                "/usr/lib6/cache", "/usr/lib64/cache", "/etc/passwd", "passwd")) {
+            IMAMeasurementRecord measurement = new IMAMeasurementRecord(path, sha1(0));
+            Assert.assertEquals(matcher.contains(measurement).getStatus(),
+                    ReportMatchStatus.MATCH, path);
+            Assert.assertTrue(filter.mightMatch(measurement, policy), path);
+        }
+        assertMostlyRuledOut(filter, policy, "/opt/other");
+
+        // a pattern without a literal prefix may match any path
+        filter = ImaRecordBloomFilter.build(
+                Collections.singletonList(new ImaIgnoreSetRecord(".*foo")), true);
+        Assert.assertTrue(filter.mightMatch(
+                new IMAMeasurementRecord("/opt/foo", sha1(0)), policy));
+    }
+
+    /**
+     * Tests that a stored filter is read back if it was built from the same records, and rebuilt
+     * if the records have changed since.
+     */
+    @Test
+    public void testRestore() {
+        List<ImaBlacklistRecord> records = new ArrayList<>();
+        records.add(new ImaBlacklistRecord("/usr/bin/file"));
+        records.add(new ImaBlacklistRecord(sha1(1)));
+        byte[] stored = ImaRecordBloomFilter.build(records, false).toByteArray();
+
+        Assert.assertEquals(ImaRecordBloomFilter.restore(stored, records, false).toByteArray(),
+                stored);
+        Assert.assertNotEquals(ImaRecordBloomFilter.restore(stored, records, true).toByteArray(),
+                stored);
+        Assert.assertNotNull(ImaRecordBloomFilter.restore(new byte[] {1, 2, 3}, records, false));
+
+        IMAMeasurementRecord added = new IMAMeasurementRecord("/tmp/added", sha1(2));
+        IMAPolicy policy = SimpleImaBaselineTest.getTestImaPolicy(false);
+        records.add(new ImaBlacklistRecord(sha1(2)));
+        ImaRecordBloomFilter restored = ImaRecordBloomFilter.restore(stored, records, false);
+        Assert.assertNotEquals(restored.toByteArray(), stored);
+        Assert.assertTrue(restored.mightMatch(added, policy));
+    }
+
+    private static void assertMostlyRuledOut(final ImaRecordBloomFilter filter,
+                                             final IMAPolicy policy, final String directory) {
+        int candidates = 0;
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            IMAMeasurementRecord measurement = new IMAMeasurementRecord(
+                    directory + "/file" + i, sha1(RECORD_COUNT + i));
+            if (filter.mightMatch(measurement, policy)) {
+                candidates++;
+            }
+        }
+        Assert.assertTrue(candidates < RECORD_COUNT * MAX_FALSE_POSITIVE_RATE,
+                candidates + " of " + RECORD_COUNT + " unrelated records let through");
+    }
+
+    private static Digest sha1(final int value) {
+        return new Digest(DigestAlgorithm.SHA1, DigestUtils.sha1(Integer.toString(value)));
+    }
+}
@@ -481,6 +481,56 @@ public class DBCertificateManagerTest extends SpringPersistenceTest {
         }
     }
 
+    /**
+     * Tests that the credentials of several devices can be retrieved with one query.
+     * @throws IOException if there is a problem creating the certificate
+     * @throws CertificateException if there is a problem deserializing the original X509Certificate
+     */
+    @Test
+    public void testGetCredentialsByDeviceIds() throws IOException, CertificateException {
+        CertificateManager certMan = new DBCertificateManager(sessionFactory);
+        DeviceManager deviceManager = new DBDeviceManager(sessionFactory);
+        DeviceGroupManager deviceGroupManager = new DBDeviceGroupManager(sessionFactory);
+        DeviceGroup savedDg = deviceGroupManager.saveDeviceGroup(new DeviceGroup("Default"));
+
+        List<UUID> deviceIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Device device = new Device("test_device_" + i);
+            device.setDeviceGroup(savedDg);
+            deviceIds.add(deviceManager.saveDevice(device).getId());
+        }
+
+        Set<UUID> platformCertIds = new HashSet<>();
+        String[] platformCerts = {PlatformCredentialTest.TEST_PLATFORM_CERT_2,
+                PlatformCredentialTest.TEST_PLATFORM_CERT_3};
+        for (int i = 0; i < platformCerts.length; i++) {
+            PlatformCredential platformCert = (PlatformCredential)
+                    CertificateTest.getTestCertificate(PlatformCredential.class,
+                            platformCerts[i]);
+            platformCert.setDevice(deviceManager.getDevice("test_device_" + i));
+            platformCertIds.add(certMan.save(platformCert).getId());
+        }
+        EndorsementCredential endorsementCredential =
+                (EndorsementCredential) CertificateTest.getTestCertificate(
+                        EndorsementCredential.class, CertificateTest.TEST_EC);
+        endorsementCredential.setDevice(deviceManager.getDevice("test_device_2"));
+        Certificate savedEc = certMan.save(endorsementCredential);
+
+        Set<UUID> retrievedIds = new HashSet<>();
+        for (PlatformCredential cert : PlatformCredential.select(certMan)
+                .byDeviceIds(deviceIds).getCertificates()) {
+            retrievedIds.add(cert.getId());
+        }
+        Assert.assertEquals(retrievedIds, platformCertIds);
+        Assert.assertTrue(PlatformCredential.select(certMan)
+                .byDeviceIds(deviceIds.subList(2, 3)).getCertificates().isEmpty());
+
+        Set<EndorsementCredential> retrievedEcs = EndorsementCredential.select(certMan)
+                .byDeviceIds(deviceIds).getCertificates();
+        Assert.assertEquals(retrievedEcs.size(), 1);
+        Assert.assertEquals(retrievedEcs.iterator().next().getId(), savedEc.getId());
+    }
+
 
     /**
      * Tests that a single Certificate can be retrieved amongst many stored Certificates according
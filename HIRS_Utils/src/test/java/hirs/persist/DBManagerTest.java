@@ -17,6 +17,9 @@ import org.testng.annotations.Test;
 import hirs.data.persist.LazyTestItemChild;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Contains unit tests for the {@link DBManager} class.  Many other tests also implicitly
@@ -28,6 +31,7 @@ public class DBManagerTest extends SpringPersistenceTest {
 
     private static final int RETRY_ATTEMPTS = 5;
     private static final long RETRY_SLEEP_MS = 200;
+    private static final int SAVE_ALL_COUNT = 120;
 
     /**
      * Initializes a <code>SessionFactory</code>. The factory is used for an
@@ -97,6 +101,30 @@ public class DBManagerTest extends SpringPersistenceTest {
         Assert.assertEquals(retrievedChild.getItems().size(), 1);
     }
 
+    /**
+     * Tests that several objects can be saved in one transaction, and that none is saved if any
+     * of them cannot be.
+     */
+    @Test
+    public final void testSaveAll() {
+        DBManager<LazyTestItemChild> childMan =
+                new DBManager<>(LazyTestItemChild.class, sessionFactory);
+        List<LazyTestItemChild> children = new ArrayList<>();
+        for (int i = 0; i < SAVE_ALL_COUNT; i++) {
+            children.add(new LazyTestItemChild("Test Child " + i));
+        }
+        childMan.saveAll(children);
+        Assert.assertEquals(childMan.getList(LazyTestItemChild.class).size(), SAVE_ALL_COUNT);
+
+        try {
+            childMan.saveAll(Arrays.asList(new LazyTestItemChild("Another Child"), null));
+            Assert.fail("saveAll should have failed");
+        } catch (NullPointerException e) {
+            Assert.assertEquals(childMan.getList(LazyTestItemChild.class).size(),
+                    SAVE_ALL_COUNT);
+        }
+    }
+
     /**
      * Test to exercise the retry logic and verify the retry listener is called.
      */
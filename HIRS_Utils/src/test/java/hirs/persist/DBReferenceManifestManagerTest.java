@@ -0,0 +1,120 @@
+package hirs.persist;
+
+import hirs.data.persist.ReferenceManifest;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.SupportReferenceManifest;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.hibernate.Session;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This class tests looking up stored {@link ReferenceManifest}s by their contents.
+ */
+public class DBReferenceManifestManagerTest extends SpringPersistenceTest {
+    // the two byte arrays have the same Arrays.hashCode
+    private static final byte[] RIM_BYTES = {1, 0};
+    private static final byte[] COLLIDING_RIM_BYTES = {0, 31};
+
+    private ReferenceManifestManager referenceManifestManager;
+
+    /**
+     * Sets up a reference manifest manager for the tests.
+     */
+    @BeforeClass
+    public void setup() {
+        referenceManifestManager = new DBReferenceManifestManager(sessionFactory);
+    }
+
+    /**
+     * Removes the RIMs stored by a test.
+     */
+    @AfterMethod
+    public void resetTestState() {
+        DBUtility.removeAllInstances(sessionFactory, ReferenceManifest.class);
+    }
+
+    /**
+     * Tests that a stored RIM is found by the digest of its bytes, and only by that digest.
+     *
+     * @throws IOException if the RIM can't be created
+     */
+    @Test
+    public void testByRimDigest() throws IOException {
+        ReferenceManifest rim = referenceManifestManager.save(
+                new SupportReferenceManifest("test.rimel", RIM_BYTES));
+        Assert.assertEquals(rim.getRimDigest(), DigestUtils.sha256Hex(RIM_BYTES));
+
+        ReferenceManifest found = SupportReferenceManifest.select(referenceManifestManager)
+                .byRimDigest(DigestUtils.sha256Hex(RIM_BYTES))
+                .getRIM();
+        Assert.assertNotNull(found);
+        Assert.assertEquals(found.getId(), rim.getId());
+
+        Assert.assertNull(SupportReferenceManifest.select(referenceManifestManager)
+                .byRimDigest(DigestUtils.sha256Hex(COLLIDING_RIM_BYTES))
+                .getRIM());
+    }
+
+    /**
+     * Tests that a RIM stored before digests were recorded is found by its contents, and by
+     * its digest once the digest is recorded.
+     *
+     * @throws IOException if the RIM can't be created
+     */
+    @Test
+    public void testGetLegacyRim() throws IOException {
+        ReferenceManifest rim = referenceManifestManager.save(
+                new SupportReferenceManifest("test.rimel", RIM_BYTES));
+        clearRimDigests();
+        Assert.assertNull(SupportReferenceManifest.select(referenceManifestManager)
+                .byRimDigest(DigestUtils.sha256Hex(RIM_BYTES))
+                .getRIM());
+
+        ReferenceManifest legacy = SupportReferenceManifest.select(referenceManifestManager)
+                .getLegacyRIM(RIM_BYTES);
+        Assert.assertNotNull(legacy);
+        Assert.assertEquals(legacy.getId(), rim.getId());
+        Assert.assertNull(legacy.getRimDigest());
+
+        Assert.assertTrue(legacy.backfillRimDigest());
+        Assert.assertFalse(legacy.backfillRimDigest());
+        referenceManifestManager.update(legacy);
+
+        ReferenceManifest found = SupportReferenceManifest.select(referenceManifestManager)
+                .byRimDigest(DigestUtils.sha256Hex(RIM_BYTES))
+                .getRIM();
+        Assert.assertNotNull(found);
+        Assert.assertEquals(found.getId(), rim.getId());
+        Assert.assertNull(SupportReferenceManifest.select(referenceManifestManager)
+                .getLegacyRIM(RIM_BYTES));
+    }
+
+    /**
+     * Tests that a RIM stored before digests were recorded is not found by other contents that
+     * have the same hash code.
+     *
+     * @throws IOException if the RIM can't be created
+     */
+    @Test
+    public void testGetLegacyRimHashCodeCollision() throws IOException {
+        Assert.assertEquals(Arrays.hashCode(COLLIDING_RIM_BYTES), Arrays.hashCode(RIM_BYTES));
+        referenceManifestManager.save(new SupportReferenceManifest("test.rimel", RIM_BYTES));
+        clearRimDigests();
+
+        Assert.assertNull(SupportReferenceManifest.select(referenceManifestManager)
+                .getLegacyRIM(COLLIDING_RIM_BYTES));
+    }
+
+    private void clearRimDigests() {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        session.createQuery("update ReferenceManifest set rimDigest = null").executeUpdate();
+        session.getTransaction().commit();
+    }
+}
@@ -20,6 +20,7 @@ import hirs.data.persist.info.TPMInfo;
 import hirs.data.persist.TPMMeasurementRecord;
 import hirs.data.persist.TPMReport;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.LazyInitializationException;
 import org.hibernate.Session;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -27,6 +28,7 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import hirs.data.persist.TPMReportTest;
+import hirs.utils.Callback;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -1179,6 +1181,76 @@ public class DBReportManagerTest extends SpringPersistenceTest {
 
     }
 
+    /**
+     * Tests ReportManager#iterateOverImaRecords.<br>
+     * - Tests that every record of the IMA report is streamed to the callback.<br>
+     * - Tests that only non-null callback results are returned.<br>
+     */
+    @Test
+    public void testIterateOverImaRecords() {
+
+        final String deviceId = "testDevice-" + UUID.randomUUID();
+        final TestIMAMeasurementReport report
+                = new TestIMAMeasurementReport(deviceId, getExtraRecords());
+        new TestIMAMeasurementReport(deviceId);
+
+        final Map<String, Digest> expectedRecords = new HashMap<>();
+        for (IMAMeasurementRecord record : report.getIMA().getRecords()) {
+            expectedRecords.put(record.getPath(), record.getHash());
+        }
+
+        final List<String> iteratedPaths = new ArrayList<>();
+        Collection<String> results = reportManager.iterateOverImaRecords(
+                report.getIMA().getId(), new Callback<IMAMeasurementRecord, String>() {
+                    @Override
+                    public String call(final IMAMeasurementRecord record) {
+                        Assert.assertNull(record.getReport());
+                        Assert.assertEquals(record.getHash(),
+                                expectedRecords.get(record.getPath()));
+                        iteratedPaths.add(record.getPath());
+                        if (record.getPath().contains(SEARCH)) {
+                            return record.getPath();
+                        }
+                        return null;
+                    }
+                });
+
+        Assert.assertEquals(iteratedPaths.size(), expectedRecords.size());
+        Assert.assertEquals(new HashSet<>(iteratedPaths), expectedRecords.keySet());
+        Assert.assertEquals(results.size(), getExtraRecords().size());
+
+    }
+
+    /**
+     * Tests ReportManager#getImaRecordCount.<br>
+     * - Tests that the records of a detached IMA report are counted.<br>
+     * - Tests that the records of a detached IMA report are not loaded.<br>
+     * - Tests that the records of a completely loaded IMA report are counted.<br>
+     */
+    @Test
+    public void testGetImaRecordCount() {
+
+        final String deviceId = "testDevice-" + UUID.randomUUID();
+        final TestIMAMeasurementReport report
+                = new TestIMAMeasurementReport(deviceId, getExtraRecords());
+        final UUID imaReportId = report.getIMA().getId();
+        final int expectedCount = report.getIMA().getRecords().size();
+
+        Assert.assertEquals(reportManager.getImaRecordCount(imaReportId), expectedCount);
+
+        final IMAReport detached = (IMAReport) reportManager.getReport(imaReportId);
+        try {
+            detached.getRecordCount();
+            Assert.fail("records of a detached report should not be loaded");
+        } catch (LazyInitializationException e) {
+            LOGGER.debug("records of detached report were not loaded", e);
+        }
+
+        final IMAReport complete = (IMAReport) reportManager.getCompleteReport(imaReportId);
+        Assert.assertEquals(complete.getRecordCount(), expectedCount);
+
+    }
+
     /**
      * Tests ReportManager#getOrderedRecordList.<br>
      * - Tests that no records are returned when NONE scope is specified.<br>
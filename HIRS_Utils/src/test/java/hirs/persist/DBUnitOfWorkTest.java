@@ -0,0 +1,133 @@
+package hirs.persist;
+
+import hirs.data.persist.AppraisalStatus;
+import hirs.data.persist.Device;
+import hirs.data.persist.DeviceGroup;
+import hirs.data.persist.SpringPersistenceTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link DBUnitOfWork} class.
+ */
+public final class DBUnitOfWorkTest extends SpringPersistenceTest {
+
+    private static final String DEVICE_NAME = "Unit Of Work Device";
+    private static final String OTHER_DEVICE_NAME = "Other Unit Of Work Device";
+
+    /**
+     * Removes the devices and device groups created by the tests.
+     */
+    @AfterMethod
+    public void resetTestState() {
+        DBUtility.removeAllInstances(sessionFactory, Device.class);
+        DBUtility.removeAllInstances(sessionFactory, DeviceGroup.class);
+    }
+
+    /**
+     * Tests that entities saved in a unit of work are only stored once the unit is committed.
+     *
+     * @throws Exception if any unexpected errors occur
+     */
+    @Test
+    public void testSaveOnCommit() throws Exception {
+        DBDeviceManager deviceManager = new DBDeviceManager(sessionFactory);
+        DBUnitOfWork unitOfWork = deviceManager.newUnitOfWork();
+        DeviceGroup group = new DeviceGroup(DeviceGroup.DEFAULT_GROUP);
+        Device device = new Device(DEVICE_NAME);
+        device.setDeviceGroup(group);
+
+        unitOfWork.save(group);
+        unitOfWork.save(device);
+        Assert.assertFalse(DBUtility.isInDatabase(sessionFactory, Device.class, DEVICE_NAME));
+
+        unitOfWork.commit();
+        Assert.assertTrue(DBUtility.isInDatabase(sessionFactory, DeviceGroup.class,
+                DeviceGroup.DEFAULT_GROUP));
+        Assert.assertTrue(DBUtility.isInDatabase(sessionFactory, Device.class, DEVICE_NAME));
+        Assert.assertNotNull(device.getId());
+    }
+
+    /**
+     * Tests that updates and deletes are applied together when the unit is committed.
+     *
+     * @throws Exception if any unexpected errors occur
+     */
+    @Test
+    public void testUpdateAndDelete() throws Exception {
+        DBDeviceManager deviceManager = new DBDeviceManager(sessionFactory);
+        DeviceGroup group = new DBDeviceGroupManager(sessionFactory)
+                .saveDeviceGroup(new DeviceGroup(DeviceGroup.DEFAULT_GROUP));
+        Device device = new Device(DEVICE_NAME);
+        device.setDeviceGroup(group);
+        device = deviceManager.saveDevice(device);
+        Device other = new Device(OTHER_DEVICE_NAME);
+        other.setDeviceGroup(group);
+        other = deviceManager.saveDevice(other);
+
+        DBUnitOfWork unitOfWork = deviceManager.newUnitOfWork();
+        device.setSupplyChainStatus(AppraisalStatus.Status.PASS);
+        unitOfWork.update(device);
+        unitOfWork.delete(other);
+        unitOfWork.commit();
+
+        Assert.assertEquals(deviceManager.getDevice(DEVICE_NAME).getSupplyChainStatus(),
+                AppraisalStatus.Status.PASS);
+        Assert.assertFalse(DBUtility.isInDatabase(sessionFactory, Device.class,
+                OTHER_DEVICE_NAME));
+    }
+
+    /**
+     * Tests that actions run after the operations added before them, so they can use the
+     * identifiers generated for entities saved earlier in the same unit.
+     *
+     * @throws Exception if any unexpected errors occur
+     */
+    @Test
+    public void testRunAfterEarlierOperations() throws Exception {
+        DBDeviceManager deviceManager = new DBDeviceManager(sessionFactory);
+        DBUnitOfWork unitOfWork = deviceManager.newUnitOfWork();
+        DeviceGroup group = new DeviceGroup(DeviceGroup.DEFAULT_GROUP);
+        final Object[] groupId = new Object[1];
+
+        unitOfWork.save(group);
+        unitOfWork.run(() -> groupId[0] = group.getId());
+        unitOfWork.commit();
+
+        Assert.assertNotNull(groupId[0]);
+        Assert.assertEquals(groupId[0], group.getId());
+    }
+
+    /**
+     * Tests that nothing in the unit is stored if one of its operations fails, and that the
+     * identifiers generated during the failed attempt are cleared.
+     *
+     * @throws Exception if any unexpected errors occur
+     */
+    @Test
+    public void testFailedCommitRollsBack() throws Exception {
+        DBDeviceManager deviceManager = new DBDeviceManager(sessionFactory);
+        DBUnitOfWork unitOfWork = deviceManager.newUnitOfWork();
+        DeviceGroup group = new DeviceGroup(DeviceGroup.DEFAULT_GROUP);
+        Device device = new Device(DEVICE_NAME);
+        device.setDeviceGroup(group);
+        Device duplicate = new Device(DEVICE_NAME);
+        duplicate.setDeviceGroup(group);
+
+        unitOfWork.save(group);
+        unitOfWork.save(device);
+        unitOfWork.save(duplicate);
+        try {
+            unitOfWork.commit();
+            Assert.fail("commit of duplicate devices did not fail");
+        } catch (DBManagerException e) {
+            Assert.assertFalse(DBUtility.isInDatabase(sessionFactory, DeviceGroup.class,
+                    DeviceGroup.DEFAULT_GROUP));
+            Assert.assertFalse(DBUtility.isInDatabase(sessionFactory, Device.class,
+                    DEVICE_NAME));
+            Assert.assertNull(group.getId());
+            Assert.assertNull(device.getId());
+        }
+    }
+}
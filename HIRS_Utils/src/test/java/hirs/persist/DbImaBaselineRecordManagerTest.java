@@ -6,16 +6,31 @@ import hirs.data.persist.enums.DigestAlgorithm;
 import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.baseline.SimpleImaBaseline;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
 import hirs.data.persist.SpringPersistenceTest;
+import hirs.ima.CSVGenerator;
+import hirs.ima.SimpleImaBaselineGenerator;
+import hirs.utils.Callback;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
@@ -391,6 +406,213 @@ public class DbImaBaselineRecordManagerTest extends SpringPersistenceTest {
         Assert.assertFalse(deleted);
     }
 
+    /**
+     * Tests that the <code>DbImaBaselineRecordManager</code> can import more than one batch of
+     * records into a saved baseline, skipping records that are already in the baseline or
+     * repeated in the stream, and reporting its progress.
+     */
+    @Test
+    public void testImportRecords() {
+        final ImaBaselineRecordManager mgr = new DbImaBaselineRecordManager(sessionFactory);
+        mgr.saveRecord(new IMABaselineRecord(PATH, createDigest(HASH), baseline));
+
+        final int count = ImaBaselineRecordImporter.BATCH_SIZE + 10;
+        List<IMABaselineRecord> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new IMABaselineRecord(PATH + i, sha1(i)));
+        }
+        records.add(new IMABaselineRecord(PATH, createDigest(HASH)));
+        records.add(new IMABaselineRecord(PATH + 0, sha1(0)));
+        records.add(new IMABaselineRecord(PATH, createDigest(HASH_TWO)));
+
+        final List<Long> progress = new ArrayList<>();
+        long imported = mgr.importRecords(baseline, records.iterator(),
+                new Callback<Long, Void>() {
+                    @Override
+                    public Void call(final Long rows) {
+                        progress.add(rows);
+                        return null;
+                    }
+                });
+        Assert.assertEquals(imported, count + 1);
+        Assert.assertEquals(progress.get(progress.size() - 1), Long.valueOf(records.size()));
+
+        Set<IMABaselineRecord> expected = new HashSet<>(records);
+        SimpleImaBaseline imaBaseline = (SimpleImaBaseline) new DBBaselineManager(sessionFactory)
+                .getCompleteBaseline(BASELINE_NAME);
+        Assert.assertEquals(imaBaseline.getBaselineRecords().size(), count + 2);
+        Assert.assertEquals(new HashSet<>(imaBaseline.getBaselineRecords()), expected);
+    }
+
+    /**
+     * Tests that no records are imported if reading the records fails part way through.
+     */
+    @Test
+    public void testImportRecordsFailure() {
+        final ImaBaselineRecordManager mgr = new DbImaBaselineRecordManager(sessionFactory);
+        final Iterator<IMABaselineRecord> records = new Iterator<IMABaselineRecord>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public IMABaselineRecord next() {
+                if (next > ImaBaselineRecordImporter.BATCH_SIZE) {
+                    throw new IllegalStateException("could not read record");
+                }
+                return new IMABaselineRecord(PATH + next, sha1(next++));
+            }
+        };
+
+        try {
+            mgr.importRecords(baseline, records, null);
+            Assert.fail("import should have failed");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "could not read record");
+        }
+        SimpleImaBaseline imaBaseline = (SimpleImaBaseline) new DBBaselineManager(sessionFactory)
+                .getCompleteBaseline(BASELINE_NAME);
+        Assert.assertTrue(imaBaseline.getBaselineRecords().isEmpty());
+    }
+
+    /**
+     * Tests that records cannot be imported into a baseline that has not been saved.
+     */
+    @Test(expectedExceptions = ImaBaselineRecordManagerException.class)
+    public void testImportRecordsUnsavedBaseline() {
+        new DbImaBaselineRecordManager(sessionFactory).importRecords(
+                new SimpleImaBaseline(BASELINE_NAME2),
+                Collections.<IMABaselineRecord>emptyIterator(), null);
+    }
+
+    /**
+     * Tests that importing a CSV file into a saved baseline results in the same records as
+     * generating the baseline from the file in memory.
+     *
+     * @throws Exception if the file cannot be read
+     */
+    @Test
+    public void testImportBaselineFromCSVFile() throws Exception {
+        final SimpleImaBaselineGenerator generator = new SimpleImaBaselineGenerator();
+        SimpleImaBaseline expected;
+        try (InputStream in = getClass().getResourceAsStream("/ima/IMATestBaseline.csv")) {
+            expected = generator.generateBaselineFromCSVFile(BASELINE_NAME2, in);
+        }
+
+        long imported;
+        try (InputStream in = getClass().getResourceAsStream("/ima/IMATestBaseline.csv")) {
+            imported = generator.importBaselineFromCSVFile(baseline, in,
+                    new DbImaBaselineRecordManager(sessionFactory), null);
+        }
+        Assert.assertEquals(imported, expected.getBaselineRecords().size());
+        SimpleImaBaseline imaBaseline = (SimpleImaBaseline) new DBBaselineManager(sessionFactory)
+                .getCompleteBaseline(BASELINE_NAME);
+        Assert.assertEquals(new HashSet<>(imaBaseline.getBaselineRecords()),
+                new HashSet<>(expected.getBaselineRecords()));
+    }
+
+    /**
+     * Tests that the records of a saved baseline are iterated over in the order they were saved,
+     * and that they can be exported to CSV straight from the database.
+     *
+     * @throws IOException if the CSV cannot be written
+     */
+    @Test
+    public void testIterateOverSimpleBaselineRecords() throws IOException {
+        final ImaBaselineRecordManager mgr = new DbImaBaselineRecordManager(sessionFactory);
+        final int count = 10;
+        List<IMABaselineRecord> records = new ArrayList<>();
+        StringWriter expected = new StringWriter();
+        for (int i = 0; i < count; i++) {
+            IMABaselineRecord record = new IMABaselineRecord(PATH + i, sha1(i));
+            records.add(record);
+            expected.append('"').append(PATH).append(Integer.toString(i)).append("\",")
+                    .append(sha1(i).getDigestString()).append(System.lineSeparator());
+        }
+        mgr.importRecords(baseline, records.iterator(), null);
+
+        Collection<String> paths = mgr.iterateOverBaselineRecords(baseline,
+                new Callback<IMABaselineRecord, String>() {
+                    @Override
+                    public String call(final IMABaselineRecord record) {
+                        return record.getPath();
+                    }
+                });
+        List<String> expectedPaths = new ArrayList<>();
+        for (IMABaselineRecord record : records) {
+            expectedPaths.add(record.getPath());
+        }
+        Assert.assertEquals(new ArrayList<>(paths), expectedPaths);
+
+        StringWriter writer = new StringWriter();
+        Assert.assertEquals(CSVGenerator.imaRecordsToCsv(baseline, mgr, writer), count);
+        Assert.assertEquals(writer.toString(), expected.toString());
+    }
+
+    /**
+     * Tests that the records of a baseline that has not been saved cannot be iterated over.
+     */
+    @Test(expectedExceptions = ImaBaselineRecordManagerException.class)
+    public void testIterateOverUnsavedBaselineRecords() {
+        new DbImaBaselineRecordManager(sessionFactory).iterateOverBaselineRecords(
+                new SimpleImaBaseline("Unsaved Baseline"),
+                new Callback<IMABaselineRecord, Void>() {
+                    @Override
+                    public Void call(final IMABaselineRecord record) {
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Tests that records saved under an earlier, smaller bucket count, whose stored bucket is
+     * the bucket of their path modulo that count, have their bucket recomputed.
+     */
+    @Test
+    public void testRebucketRecords() {
+        final ImaBaselineRecordManager mgr = new DbImaBaselineRecordManager(sessionFactory);
+        final int count = 20;
+        final int oldBucketCount = 4;
+        int outdated = 0;
+        for (int i = 0; i < count; i++) {
+            mgr.saveRecord(new IMABaselineRecord(PATH + i, sha1(i), baseline));
+            if (IMABaselineRecord.getBucket(PATH + i) >= oldBucketCount) {
+                outdated++;
+            }
+        }
+        Assert.assertTrue(outdated > 0);
+        Assert.assertEquals(mgr.rebucketRecords(), 0);
+
+        Session session = sessionFactory.getCurrentSession();
+        Transaction tx = session.beginTransaction();
+        for (int i = 0; i < count; i++) {
+            session.createQuery("update IMABaselineRecord set bucket = :bucket where path = :path")
+                    .setInteger("bucket", IMABaselineRecord.getBucket(PATH + i) % oldBucketCount)
+                    .setString("path", PATH + i)
+                    .executeUpdate();
+        }
+        tx.commit();
+
+        Assert.assertEquals(mgr.rebucketRecords(), outdated);
+        session = sessionFactory.getCurrentSession();
+        tx = session.beginTransaction();
+        List<?> rows = session.createQuery("select path, bucket from IMABaselineRecord").list();
+        tx.commit();
+        Assert.assertEquals(rows.size(), count);
+        for (Object row : rows) {
+            Object[] values = (Object[]) row;
+            Assert.assertEquals(values[1], IMABaselineRecord.getBucket((String) values[0]));
+        }
+        Assert.assertEquals(mgr.rebucketRecords(), 0);
+    }
+
+    private static Digest sha1(final int value) {
+        return new Digest(DigestAlgorithm.SHA1, DigestUtils.sha1(Integer.toString(value)));
+    }
+
     private Digest createDigest(final String hash) {
         try {
             final byte[] digestBytes = Hex.decodeHex(hash.toCharArray());
@@ -0,0 +1,249 @@
+package hirs.persist;
+
+import hirs.FilteredRecordsList;
+import hirs.data.persist.Alert;
+import hirs.data.persist.SpringPersistenceTest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Criteria;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests keyset pagination of ordered lists with a {@link KeysetPaging}.
+ */
+public final class KeysetPagingTest extends SpringPersistenceTest {
+
+    private static final Logger LOGGER = LogManager.getLogger(KeysetPagingTest.class);
+
+    private static final String DETAILS = "details";
+    private static final String ID = "id";
+    private static final int ALERT_COUNT = 25;
+    private static final int DISTINCT_DETAILS = 7;
+    private static final int PAGE_SIZE = 10;
+
+    private static final int BENCHMARK_ROWS = Integer.getInteger("keysetBenchmarkRows", 1000000);
+    private static final int BENCHMARK_BATCH_SIZE = 1000;
+    private static final int BENCHMARK_QUERIES = 5;
+
+    private static final CriteriaModifier NO_OP = new CriteriaModifier() {
+        @Override
+        public void modify(final Criteria criteria) {
+            // Do nothing
+        }
+    };
+
+    /**
+     * Removes the alerts created by the tests.
+     */
+    @AfterMethod
+    public void resetTestState() {
+        DBUtility.removeAllInstances(sessionFactory, Alert.class);
+    }
+
+    /**
+     * Tests that paging forward through a list in ascending order with keyset pagination
+     * returns every record once, in order, including records with equal sort values.
+     */
+    @Test
+    public void testPageForwardAscending() {
+        DBAlertManager alertManager = new DBAlertManager(sessionFactory);
+        saveAlerts(alertManager, ALERT_COUNT);
+        assertPagesInOrder(alertManager, true);
+    }
+
+    /**
+     * Tests that paging forward through a list in descending order with keyset pagination
+     * returns every record once, in order, including records with equal sort values.
+     */
+    @Test
+    public void testPageForwardDescending() {
+        DBAlertManager alertManager = new DBAlertManager(sessionFactory);
+        saveAlerts(alertManager, ALERT_COUNT);
+        assertPagesInOrder(alertManager, false);
+    }
+
+    /**
+     * Tests that a page that was not reached by paging forward is found with an offset.
+     */
+    @Test
+    public void testJumpToLastPage() {
+        DBAlertManager alertManager = new DBAlertManager(sessionFactory);
+        saveAlerts(alertManager, ALERT_COUNT);
+
+        FilteredRecordsList<Alert> page = alertManager.getOrderedList(Alert.class, DETAILS,
+                true, PAGE_SIZE * 2, PAGE_SIZE, "", null, NO_OP, new KeysetPaging());
+        Assert.assertEquals(page.size(), ALERT_COUNT - PAGE_SIZE * 2);
+        Assert.assertEquals(page.getRecordsTotal(), ALERT_COUNT);
+    }
+
+    /**
+     * Tests that record counts are kept until they are invalidated, and that the records of a
+     * page are still queried.
+     */
+    @Test
+    public void testCountsAreKept() {
+        DBAlertManager alertManager = new DBAlertManager(sessionFactory);
+        saveAlerts(alertManager, ALERT_COUNT);
+        KeysetPaging paging = new KeysetPaging(1, TimeUnit.HOURS);
+
+        FilteredRecordsList<Alert> page = alertManager.getOrderedList(Alert.class, DETAILS,
+                true, 0, ALERT_COUNT * 2, "", null, NO_OP, paging);
+        Assert.assertEquals(page.getRecordsTotal(), ALERT_COUNT);
+
+        alertManager.saveAlert(new Alert("new alert"));
+        page = alertManager.getOrderedList(Alert.class, DETAILS,
+                true, 0, ALERT_COUNT * 2, "", null, NO_OP, paging);
+        Assert.assertEquals(page.getRecordsTotal(), ALERT_COUNT);
+        Assert.assertEquals(page.size(), ALERT_COUNT + 1);
+
+        paging.invalidate();
+        page = alertManager.getOrderedList(Alert.class, DETAILS,
+                true, 0, ALERT_COUNT * 2, "", null, NO_OP, paging);
+        Assert.assertEquals(page.getRecordsTotal(), ALERT_COUNT + 1);
+    }
+
+    /**
+     * Tests that searches are counted and paged separately.
+     */
+    @Test
+    public void testSearch() {
+        DBAlertManager alertManager = new DBAlertManager(sessionFactory);
+        saveAlerts(alertManager, ALERT_COUNT);
+        KeysetPaging paging = new KeysetPaging();
+        Map<String, Boolean> searchableColumns = Collections.singletonMap(DETAILS, true);
+
+        alertManager.getOrderedList(Alert.class, DETAILS, true, 0, PAGE_SIZE, "", null,
+                NO_OP, paging);
+        FilteredRecordsList<Alert> page = alertManager.getOrderedList(Alert.class, DETAILS,
+                true, 0, PAGE_SIZE, "alert 3", searchableColumns, NO_OP, paging);
+        Assert.assertEquals(page.getRecordsTotal(), ALERT_COUNT);
+        Assert.assertEquals(page.getRecordsFiltered(), page.size());
+        for (Alert alert : page) {
+            Assert.assertEquals(alert.getDetails(), "alert 3");
+        }
+    }
+
+    /**
+     * Compares the time taken to query deep pages of a large table with offsets and with
+     * keyset pagination. The number of rows defaults to one million and can be set with the
+     * keysetBenchmarkRows system property. The pages are ordered by id, as HSQLDB cannot order
+     * the distinct ids of an offset page by another column.
+     */
+    @Test(groups = { "performance" })
+    public void benchmarkDeepPages() {
+        DBAlertManager alertManager = new DBAlertManager(sessionFactory);
+        long startTime = System.currentTimeMillis();
+        insertAlerts(BENCHMARK_ROWS);
+        LOGGER.info("Inserting {} alerts took {} milliseconds", BENCHMARK_ROWS,
+                System.currentTimeMillis() - startTime);
+
+        KeysetPaging paging = new KeysetPaging();
+        for (int i = 1; i <= BENCHMARK_QUERIES; i++) {
+            int position = BENCHMARK_ROWS / BENCHMARK_QUERIES * i - PAGE_SIZE;
+            primeBoundary(paging, position);
+
+            startTime = System.nanoTime();
+            FilteredRecordsList<Alert> offsetPage = alertManager.getOrderedList(Alert.class,
+                    ID, true, position, PAGE_SIZE, "", null, NO_OP);
+            long offsetTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            FilteredRecordsList<Alert> keysetPage = alertManager.getOrderedList(Alert.class,
+                    ID, true, position, PAGE_SIZE, "", null, NO_OP, paging);
+            long keysetTime = System.nanoTime() - startTime;
+
+            Assert.assertEquals(keysetPage, offsetPage);
+            LOGGER.info("Page at {}: offset {} ms, keyset {} ms", position,
+                    TimeUnit.NANOSECONDS.toMillis(offsetTime),
+                    TimeUnit.NANOSECONDS.toMillis(keysetTime));
+        }
+    }
+
+    private void assertPagesInOrder(final DBAlertManager alertManager,
+                                    final boolean ascending) {
+        KeysetPaging paging = new KeysetPaging();
+        List<Alert> alerts = new ArrayList<>();
+        for (int start = 0; start < ALERT_COUNT; start += PAGE_SIZE) {
+            FilteredRecordsList<Alert> page = alertManager.getOrderedList(Alert.class, DETAILS,
+                    ascending, start, PAGE_SIZE, "", null, NO_OP, paging);
+            Assert.assertEquals(page.getRecordsTotal(), ALERT_COUNT);
+            alerts.addAll(page);
+            if (start > 0) {
+                Assert.assertNotNull(paging.getBoundary(Alert.class, DETAILS, ascending, "",
+                        start));
+            }
+        }
+
+        Assert.assertEquals(alerts.size(), ALERT_COUNT);
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < alerts.size(); i++) {
+            Assert.assertTrue(ids.add(alerts.get(i).getId()));
+            if (i > 0) {
+                int comparison = alerts.get(i - 1).getDetails()
+                        .compareTo(alerts.get(i).getDetails());
+                if (ascending) {
+                    Assert.assertTrue(comparison <= 0);
+                } else {
+                    Assert.assertTrue(comparison >= 0);
+                }
+            }
+        }
+    }
+
+    private static void saveAlerts(final DBAlertManager alertManager, final int count) {
+        for (int i = 0; i < count; i++) {
+            alertManager.saveAlert(new Alert("alert " + i % DISTINCT_DETAILS));
+        }
+    }
+
+    private void insertAlerts(final int count) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            Transaction tx = session.beginTransaction();
+            for (int i = 0; i < count; i++) {
+                session.insert(new Alert(String.format("alert %09d", i)));
+                if (i % BENCHMARK_BATCH_SIZE == 0) {
+                    tx.commit();
+                    tx = session.beginTransaction();
+                }
+            }
+            tx.commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Keeps the record before the given position as if the preceding page had been queried.
+     */
+    private void primeBoundary(final KeysetPaging paging, final int position) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            Serializable id = (Serializable) session.createCriteria(Alert.class)
+                    .setProjection(Projections.property(ID))
+                    .addOrder(Order.asc(ID))
+                    .setFirstResult(position - 1)
+                    .setMaxResults(1)
+                    .uniqueResult();
+            paging.putBoundary(Alert.class, ID, true, "", position, id, id);
+        } finally {
+            session.close();
+        }
+    }
+}
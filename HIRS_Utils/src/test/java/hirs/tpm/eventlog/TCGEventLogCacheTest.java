@@ -0,0 +1,134 @@
+package hirs.tpm.eventlog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link TCGEventLogCache}.
+ */
+public class TCGEventLogCacheTest {
+    private static final String DEFAULT_EVENT_LOG = "/tcgeventlog/TpmLog.bin";
+    private static final String SHA1_EVENT_LOG = "/tcgeventlog/TpmLogSHA1.bin";
+
+    private byte[] rawLog;
+    private byte[] sha1RawLog;
+
+    /**
+     * Reads the test event logs.
+     * @throws IOException if the logs can't be read
+     */
+    @BeforeClass
+    public final void setup() throws IOException {
+        try (InputStream log = this.getClass().getResourceAsStream(DEFAULT_EVENT_LOG);
+             InputStream sha1Log = this.getClass().getResourceAsStream(SHA1_EVENT_LOG)) {
+            rawLog = IOUtils.toByteArray(log);
+            sha1RawLog = IOUtils.toByteArray(sha1Log);
+        }
+    }
+
+    /**
+     * Empties the cache between tests.
+     */
+    @AfterMethod
+    public final void resetTestState() {
+        TCGEventLogCache.invalidateAll();
+    }
+
+    /**
+     * Tests that a log is parsed once and then shared, keyed by its content.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testLogParsedOnce() throws IOException, CertificateException,
+                                                    NoSuchAlgorithmException {
+        TCGEventLog evlog = TCGEventLogCache.getEventLog(rawLog);
+        Assert.assertSame(TCGEventLogCache.getEventLog(rawLog.clone()), evlog);
+        Assert.assertNotSame(TCGEventLogCache.getEventLog(sha1RawLog), evlog);
+        Assert.assertEquals(TCGEventLogCache.size(), 2);
+        Assert.assertEquals(TCGEventLogCache.getExpectedPCRValues(rawLog),
+                new TCGEventLog(rawLog).getExpectedPCRValues());
+    }
+
+    /**
+     * Tests that callers can't change the cached expected PCR values.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testExpectedPcrValuesCopied() throws IOException, CertificateException,
+                                                              NoSuchAlgorithmException {
+        String[] pcrs = TCGEventLogCache.getExpectedPCRValues(rawLog);
+        String pcr0 = pcrs[0];
+        pcrs[0] = "";
+        Assert.assertEquals(TCGEventLogCache.getExpectedPCRValues(rawLog)[0], pcr0);
+    }
+
+    /**
+     * Tests that callers can't change the events of a cached log, nor the output flags other
+     * callers see.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testEventLogUnmodifiable() throws IOException, CertificateException,
+                                                            NoSuchAlgorithmException {
+        TCGEventLog evlog = TCGEventLogCache.getEventLog(rawLog);
+        String description = evlog.toString();
+        Assert.assertNotEquals(evlog.toString(true, true, true), description);
+        Assert.assertEquals(evlog.toString(), description);
+
+        TpmPcrEvent event = evlog.getEventList().iterator().next();
+        try {
+            event.setError(true);
+            Assert.fail("cached event was modified");
+        } catch (UnsupportedOperationException e) {
+            Assert.assertFalse(event.isError());
+        }
+        try {
+            evlog.getEventList().clear();
+            Assert.fail("cached event list was modified");
+        } catch (UnsupportedOperationException e) {
+            Assert.assertSame(evlog.getEventList().iterator().next(), event);
+        }
+        String eventDescription = event.toString();
+        int eventNumber = event.getEventNumber();
+        Assert.assertTrue(event.processEvent(event.getEvent(), event.getEventContent(),
+                eventNumber + 1).startsWith("Event# " + (eventNumber + 1) + ": "));
+        Assert.assertEquals(event.getEventNumber(), eventNumber);
+        Assert.assertEquals(event.toString(), eventDescription);
+
+        // a log parsed by the caller can still be flagged
+        TpmPcrEvent ownEvent = new TCGEventLog(rawLog).getEventList().iterator().next();
+        ownEvent.setError(true);
+        Assert.assertTrue(ownEvent.isError());
+    }
+
+    /**
+     * Tests that an invalidated log is parsed again on its next use.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testInvalidate() throws IOException, CertificateException,
+                                                 NoSuchAlgorithmException {
+        TCGEventLog evlog = TCGEventLogCache.getEventLog(rawLog);
+        TCGEventLog sha1Evlog = TCGEventLogCache.getEventLog(sha1RawLog);
+        TCGEventLogCache.invalidate(rawLog);
+        Assert.assertEquals(TCGEventLogCache.size(), 1);
+        Assert.assertNotSame(TCGEventLogCache.getEventLog(rawLog), evlog);
+        Assert.assertSame(TCGEventLogCache.getEventLog(sha1RawLog), sha1Evlog);
+    }
+}
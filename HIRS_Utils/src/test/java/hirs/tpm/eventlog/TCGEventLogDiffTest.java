@@ -0,0 +1,153 @@
+package hirs.tpm.eventlog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link TCGEventLogDiff}.
+ */
+public class TCGEventLogDiffTest {
+    private static final String DEFAULT_EVENT_LOG = "/tcgeventlog/TpmLog.bin";
+
+    private byte[] rawLog;
+
+    /**
+     * Reads the test event log.
+     * @throws IOException if the log can't be read
+     */
+    @BeforeClass
+    public final void setup() throws IOException {
+        try (InputStream log = this.getClass().getResourceAsStream(DEFAULT_EVENT_LOG)) {
+            rawLog = IOUtils.toByteArray(log);
+        }
+    }
+
+    private List<TpmPcrEvent> parseEvents() throws CertificateException,
+                                                   NoSuchAlgorithmException, IOException {
+        return new ArrayList<>(new TCGEventLog(rawLog).getEventList());
+    }
+
+    /**
+     * Finds the index of the first event extending the given PCR after the given index.
+     */
+    private static int nextEventOfPcr(final List<TpmPcrEvent> events, final int pcr,
+                                      final int after) {
+        for (int i = after + 1; i < events.size(); i++) {
+            if (events.get(i).getPcrIndex() == pcr) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No further events for PCR " + pcr);
+    }
+
+    /**
+     * Tests that two parses of the same log match.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testIdenticalLogs() throws IOException, CertificateException,
+                                                    NoSuchAlgorithmException {
+        TCGEventLogDiff diff = new TCGEventLogDiff(parseEvents(), parseEvents());
+        Assert.assertTrue(diff.isMatch());
+        Assert.assertTrue(diff.getMismatchedReferenceEvents().isEmpty());
+        Assert.assertTrue(diff.getMismatchedEvents().isEmpty());
+    }
+
+    /**
+     * Tests that an event with a different digest is reported as changed.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testChangedEvent() throws IOException, CertificateException,
+                                                   NoSuchAlgorithmException {
+        List<TpmPcrEvent> reference = parseEvents();
+        List<TpmPcrEvent> events = parseEvents();
+        TpmPcrEvent changed = events.get(1);
+        byte[] digest = changed.getEventDigest();
+        digest[0] = (byte) ~digest[0];
+        changed.setEventDigest(digest);
+
+        TCGEventLogDiff diff = new TCGEventLogDiff(reference, events);
+        Assert.assertFalse(diff.isMatch());
+        Assert.assertEquals(diff.getChangedEvents().size(), 1);
+        Assert.assertSame(diff.getChangedEvents().get(reference.get(1)), changed);
+        Assert.assertEquals(diff.getMismatchedReferenceEvents(),
+                Collections.singletonList(reference.get(1)));
+        Assert.assertEquals(diff.getMismatchedEvents(), Collections.singletonList(changed));
+        Assert.assertTrue(diff.getAddedEvents().isEmpty());
+        Assert.assertTrue(diff.getRemovedEvents().isEmpty());
+    }
+
+    /**
+     * Tests that missing and extra events are reported as removed and added.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testAddedAndRemovedEvents() throws IOException, CertificateException,
+                                                            NoSuchAlgorithmException {
+        List<TpmPcrEvent> reference = parseEvents();
+        List<TpmPcrEvent> events = parseEvents();
+        TpmPcrEvent removed = reference.get(1);
+        events.remove(1);
+
+        TCGEventLogDiff diff = new TCGEventLogDiff(reference, events);
+        Assert.assertEquals(diff.getRemovedEvents(), Collections.singletonList(removed));
+        Assert.assertTrue(diff.getAddedEvents().isEmpty());
+        Assert.assertTrue(diff.getReorderedEvents().isEmpty());
+
+        diff = new TCGEventLogDiff(events, reference);
+        Assert.assertEquals(diff.getAddedEvents(), Collections.singletonList(removed));
+        Assert.assertTrue(diff.getRemovedEvents().isEmpty());
+        Assert.assertEquals(diff.getMismatchedEvents(), Collections.singletonList(removed));
+    }
+
+    /**
+     * Tests that events logged out of order within a PCR are reported as reordered,
+     * and that the PCR filter restricts the comparison.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testReorderedEvents() throws IOException, CertificateException,
+                                                      NoSuchAlgorithmException {
+        List<TpmPcrEvent> reference = parseEvents();
+        List<TpmPcrEvent> events = parseEvents();
+        int first = nextEventOfPcr(events, 0, 0);
+        int second = nextEventOfPcr(events, 0, first);
+        while (Arrays.equals(events.get(first).getEventDigest(),
+                events.get(second).getEventDigest())) {
+            second = nextEventOfPcr(events, 0, second);
+        }
+        Collections.swap(events, first, second);
+
+        TCGEventLogDiff diff = new TCGEventLogDiff(reference, events);
+        Assert.assertFalse(diff.isMatch());
+        Assert.assertEquals(diff.getReorderedEvents().size(), 1);
+        Assert.assertTrue(diff.getReorderedEvents().containsKey(reference.get(first)));
+        Assert.assertTrue(diff.getAddedEvents().isEmpty());
+        Assert.assertTrue(diff.getRemovedEvents().isEmpty());
+        Assert.assertTrue(diff.getChangedEvents().isEmpty());
+
+        int otherPcr = events.get(events.size() - 1).getPcrIndex();
+        Assert.assertNotEquals(otherPcr, 0);
+        Assert.assertTrue(new TCGEventLogDiff(reference, events, otherPcr).isMatch());
+    }
+}
@@ -2,12 +2,17 @@ package hirs.tpm.eventlog;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.Arrays;
 //import java.util.List;
 //import java.util.Set;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -34,6 +39,11 @@ public class TCGEventLogTest {
    private static final String DEFAULT_EXPECTED_PCRS = "/tcgeventlog/TpmLogExpectedPcrs.txt";
    private static final String SHA1_EVENT_LOG = "/tcgeventlog/TpmLogSHA1.bin";
    private static final String SHA1_EXPECTED_PCRS = "/tcgeventlog/TpmLogSHA1ExpectedPcrs.txt";
+   private static final int SHA1_LENGTH = 20;
+   private static final int SHA256_LENGTH = 32;
+   private static final int EV_SEPARATOR = 4;
+   private static final int SEPARATOR_SIZE = 4;
+   private static final int SYNTHETIC_LOG_SIZE = 512;
    private static final Logger LOGGER
             = LogManager.getLogger(TCGEventLogTest.class);
 
@@ -151,6 +161,88 @@ public class TCGEventLogTest {
        LOGGER.debug("OK. Parsing of a SHA1 formatted TCG Event Log Success");
       }
 
+    /**
+     * Tests that event descriptions and spec version details are available on request
+     * even though the event content is not decoded while the log is parsed.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testLazyEventDescription() throws IOException, CertificateException,
+                                                           NoSuchAlgorithmException {
+        LOGGER.debug("Testing on demand event descriptions of a TCG Event Log");
+        InputStream log = this.getClass().getResourceAsStream(DEFAULT_EVENT_LOG);
+        byte[] rawLogBytes = IOUtils.toByteArray(log);
+        TCGEventLog evlog = new TCGEventLog(rawLogBytes);
+        TpmPcrEvent specIdEvent = evlog.getEventByNumber(0);
+        Assert.assertEquals(specIdEvent.getSpecVersion(), "02.00");
+        Assert.assertEquals(specIdEvent.getSpecErrataVersion(), "00");
+        String description = specIdEvent.toString();
+        Assert.assertTrue(description.startsWith("Event# 0: Index PCR[0]"));
+        Assert.assertEquals(specIdEvent.toString(), description);
+        Assert.assertTrue(evlog.getEventByNumber(1).toString().contains("EV_S_CRTM_VERSION"));
+        LOGGER.debug("OK. On demand event descriptions Success");
+    }
+
+    /**
+     * Tests that every PCR bank of a crypto agile log is replayed from the event digests.
+     * @throws IOException when processing the test fails
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate fails to parse.
+     */
+    @Test
+    public final void testMultipleBankReplay() throws IOException, CertificateException,
+                                                         NoSuchAlgorithmException {
+        LOGGER.debug("Testing the replay of multiple PCR banks from a TCG Event Log");
+        byte[] sha1Digest = MessageDigest.getInstance("SHA-1").digest(new byte[] {1});
+        byte[] sha256Digest = MessageDigest.getInstance("SHA-256").digest(new byte[] {1});
+        ByteBuffer buffer = ByteBuffer.allocate(SYNTHETIC_LOG_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        // TCG_PCR_EVENT holding the TCG_EfiSpecIdEvent
+        byte[] specId = "Spec ID Event03\0".getBytes(StandardCharsets.US_ASCII);
+        buffer.putInt(0).putInt(TCGEventLog.NO_ACTION_EVENT).put(new byte[SHA1_LENGTH])
+                .putInt(specId.length).put(specId);
+        // two TCG_PCR_EVENT2 events extending PCR 0 and PCR 7 in both banks
+        for (int pcr : new int[] {0, 7}) {
+            buffer.putInt(pcr).putInt(EV_SEPARATOR).putInt(2)
+                    .putShort((short) TcgTpmtHa.TPM_ALG_SHA1).put(sha1Digest)
+                    .putShort((short) TcgTpmtHa.TPM_ALG_SHA256).put(sha256Digest)
+                    .putInt(SEPARATOR_SIZE).put(new byte[SEPARATOR_SIZE]);
+        }
+        TCGEventLog evlog = new TCGEventLog(Arrays.copyOf(buffer.array(), buffer.position()));
+
+        Assert.assertTrue(evlog.isCryptoAgile());
+        Assert.assertEquals(evlog.getPcrBankAlgorithmIds().toArray(),
+                new Integer[] {TcgTpmtHa.TPM_ALG_SHA256, TcgTpmtHa.TPM_ALG_SHA1});
+        Assert.assertEquals(evlog.getExpectedPCRValues(TcgTpmtHa.TPM_ALG_SHA256),
+                evlog.getExpectedPCRValues());
+        Assert.assertEquals(evlog.getExpectedPCRValues(TcgTpmtHa.TPM_ALG_SHA384).length, 0);
+
+        byte[] expectedSha1 = extend("SHA-1", new byte[SHA1_LENGTH], sha1Digest);
+        byte[] expectedSha256 = extend("SHA-256", new byte[SHA256_LENGTH], sha256Digest);
+        String[] sha1Pcrs = evlog.getExpectedPCRValues(TcgTpmtHa.TPM_ALG_SHA1);
+        String[] sha256Pcrs = evlog.getExpectedPCRValues(TcgTpmtHa.TPM_ALG_SHA256);
+        for (int pcr : new int[] {0, 7}) {
+            Assert.assertEquals(sha1Pcrs[pcr], Hex.encodeHexString(expectedSha1));
+            Assert.assertEquals(sha256Pcrs[pcr], Hex.encodeHexString(expectedSha256));
+        }
+        Assert.assertEquals(sha1Pcrs[1], TCGEventLog.INIT_SHA1_LIST);
+        Assert.assertEquals(sha1Pcrs[TCGEventLog.PCR_LOCALITY4_MIN],
+                TCGEventLog.LOCALITY4_SHA1_LIST);
+        Assert.assertEquals(sha256Pcrs[TCGEventLog.PCR_LOCALITY4_MIN],
+                TCGEventLog.LOCALITY4_SHA256_LIST);
+        LOGGER.debug("OK. Replay of multiple PCR banks Success");
+    }
+
+    private static byte[] extend(final String algorithm, final byte[] pcr, final byte[] digest)
+            throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance(algorithm);
+        md.update(pcr);
+        md.update(digest);
+        return md.digest();
+    }
+
     /**
      * Tests TPM Baseline creation from a EventLog.
      * @throws IOException when processing the test fails
@@ -0,0 +1,151 @@
+package hirs.validation;
+
+import hirs.data.persist.certificate.attributes.ComponentIdentifier;
+import hirs.data.persist.info.ComponentInfo;
+import hirs.data.persist.info.NICComponentInfo;
+import org.bouncycastle.asn1.ASN1Boolean;
+import org.bouncycastle.asn1.DERUTF8String;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the {@link ComponentMatcher}.
+ */
+public class ComponentMatcherTest {
+    private static final String MANUFACTURER = "ACME";
+    private static final String DIMM = "DIMM 16GB";
+    private static final int DIMM_COUNT = 200;
+
+    /**
+     * Tests that many identical components in the platform credential each match a different
+     * device component.
+     */
+    @Test
+    public void testMatchIdenticalComponents() {
+        List<ComponentIdentifier> pcComponents = new ArrayList<>();
+        List<ComponentInfo> deviceComponents = new ArrayList<>();
+        for (int i = 0; i < DIMM_COUNT; i++) {
+            pcComponents.add(pcComponent(MANUFACTURER, DIMM, null, null));
+            deviceComponents.add(new ComponentInfo(MANUFACTURER, DIMM, "serial" + i, "1.0"));
+        }
+
+        ComponentMatcher.Result result = ComponentMatcher.match(pcComponents, deviceComponents);
+        Assert.assertTrue(result.isMatch());
+        Assert.assertEquals(result.getMatchedCount(), DIMM_COUNT);
+        Assert.assertEquals(result.getMessage(), "");
+
+        // one device component fewer leaves one platform credential component unmatched
+        result = ComponentMatcher.match(pcComponents,
+                deviceComponents.subList(1, DIMM_COUNT));
+        Assert.assertFalse(result.isMatch());
+        Assert.assertEquals(result.getMatchedCount(), DIMM_COUNT - 1);
+        Assert.assertEquals(result.getUnmatchedComponents().size(), 1);
+    }
+
+    /**
+     * Tests that a component with a serial number is matched before a less specific component
+     * that could take the same device component.
+     */
+    @Test
+    public void testMatchMostSpecificFirst() {
+        List<ComponentIdentifier> pcComponents = Arrays.asList(
+                pcComponent(MANUFACTURER, DIMM, null, null),
+                pcComponent(MANUFACTURER, DIMM, null, "2.0"),
+                pcComponent(MANUFACTURER, DIMM, "B", null));
+        List<ComponentInfo> deviceComponents = Arrays.asList(
+                new ComponentInfo(MANUFACTURER, DIMM, "B", "2.0"),
+                new ComponentInfo(MANUFACTURER, DIMM, "C", "2.0"),
+                new ComponentInfo(MANUFACTURER, DIMM, "A", "1.0"),
+                new ComponentInfo("Other", "NIC", "D", null));
+
+        ComponentMatcher.Result result = ComponentMatcher.match(pcComponents, deviceComponents);
+        Assert.assertTrue(result.isMatch());
+        Assert.assertEquals(result.getMatchedCount(), pcComponents.size());
+    }
+
+    /**
+     * Tests that the fields of platform credential components are trimmed, that every specified
+     * field must match, and that unmatched components are reported.
+     */
+    @Test
+    public void testUnmatchedComponents() {
+        List<ComponentIdentifier> pcComponents = Arrays.asList(
+                pcComponent(" " + MANUFACTURER + " ", DIMM + " ", " 1 ", "1.0 "),
+                pcComponent(MANUFACTURER, DIMM, "2", "1.1"),
+                pcComponent("Other", DIMM, null, null));
+        List<ComponentInfo> deviceComponents = Arrays.asList(
+                new ComponentInfo(MANUFACTURER, DIMM, "1", "1.0"),
+                new ComponentInfo(MANUFACTURER, DIMM, "2", "1.0"));
+
+        ComponentMatcher.Result result = ComponentMatcher.match(pcComponents, deviceComponents);
+        Assert.assertFalse(result.isMatch());
+        Assert.assertEquals(result.getMatchedCount(), 1);
+
+        List<ComponentMatcher.ComponentKey> unmatched = result.getUnmatchedComponents();
+        Assert.assertEquals(unmatched.size(), 2);
+        Assert.assertEquals(unmatched.get(0).getSerial(), "2");
+        Assert.assertEquals(unmatched.get(0).getRevision(), "1.1");
+        Assert.assertEquals(unmatched.get(1).getManufacturer(), "Other");
+        Assert.assertEquals(unmatched.get(1).getSerial(), "");
+        Assert.assertEquals(result.getMessage(), String.format(
+                "Manufacturer=ACME, Model=DIMM 16GB, Serial=2, Revision=1.1;%n"
+                        + "Manufacturer=Other, Model=DIMM 16GB, Serial=, Revision=;%n"));
+    }
+
+    /**
+     * Tests that a platform credential component matches a device component whose fields are
+     * equal, that a different serial number does not match, and that a missing serial number
+     * matches any.
+     */
+    @Test
+    public void testMatchSingleComponent() {
+        NICComponentInfo nicComponentInfo = new NICComponentInfo("Intel Corporation",
+                "Ethernet Connection I217-V", "23:94:17:ba:86:5e", "00");
+        List<ComponentInfo> deviceComponents = Collections.singletonList(nicComponentInfo);
+
+        Assert.assertTrue(ComponentMatcher.match(Collections.singletonList(
+                pcComponent(nicComponentInfo.getComponentManufacturer(),
+                        nicComponentInfo.getComponentModel(),
+                        nicComponentInfo.getComponentSerial(),
+                        nicComponentInfo.getComponentRevision())), deviceComponents).isMatch());
+
+        Assert.assertFalse(ComponentMatcher.match(Collections.singletonList(
+                pcComponent(nicComponentInfo.getComponentManufacturer(),
+                        nicComponentInfo.getComponentModel(), "ab:cd:ef:fe:dc:ba",
+                        nicComponentInfo.getComponentRevision())), deviceComponents).isMatch());
+
+        Assert.assertTrue(ComponentMatcher.match(Collections.singletonList(
+                pcComponent(nicComponentInfo.getComponentManufacturer(),
+                        nicComponentInfo.getComponentModel(), null,
+                        nicComponentInfo.getComponentRevision())), deviceComponents).isMatch());
+    }
+
+    /**
+     * Tests that identical components share one normalized key.
+     */
+    @Test
+    public void testKeysAreInterned() {
+        Assert.assertSame(
+                ComponentMatcher.ComponentKey.of(pcComponent(MANUFACTURER, DIMM, " 1", null)),
+                ComponentMatcher.ComponentKey.of(new ComponentInfo(MANUFACTURER, DIMM, "1", "")));
+    }
+
+    private static ComponentIdentifier pcComponent(final String manufacturer, final String model,
+                                                   final String serial, final String revision) {
+        return new ComponentIdentifier(new DERUTF8String(manufacturer), new DERUTF8String(model),
+                utf8OrNull(serial), utf8OrNull(revision),
+                null, ASN1Boolean.TRUE, Collections.emptyList());
+    }
+
+    private static DERUTF8String utf8OrNull(final String value) {
+        if (value == null) {
+            return null;
+        }
+        return new DERUTF8String(value);
+    }
+}
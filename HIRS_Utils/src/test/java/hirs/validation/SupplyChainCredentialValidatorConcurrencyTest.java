@@ -0,0 +1,265 @@
+package hirs.validation;
+
+import hirs.data.persist.AppraisalStatus;
+import hirs.data.persist.ArchivableEntity;
+import hirs.data.persist.DeviceInfoReport;
+import hirs.data.persist.SupplyChainValidation;
+import hirs.data.persist.certificate.PlatformCredential;
+import hirs.data.persist.certificate.attributes.ComponentClass;
+import hirs.data.persist.certificate.attributes.ComponentIdentifier;
+import hirs.data.persist.certificate.attributes.V2.AttributeStatus;
+import hirs.data.persist.certificate.attributes.V2.ComponentIdentifierV2;
+import org.apache.commons.io.IOUtils;
+import org.bouncycastle.asn1.ASN1Boolean;
+import org.bouncycastle.asn1.DERUTF8String;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Runs many delta platform credential validations in parallel against the same
+ * {@link SupplyChainCredentialValidator}, and checks that each validation gets only its own
+ * failures. The check that the heap does not grow with the number of validations is in the
+ * performance group, as it runs many validations and depends on the garbage collector.
+ */
+public class SupplyChainCredentialValidatorConcurrencyTest {
+    private static final String SAMPLE_PACCOR_OUTPUT_TXT = "sample_paccor_output.txt";
+    private static final int THREADS = 16;
+    private static final int VALIDATIONS = 200;
+    private static final int HEAP_VALIDATIONS = 4000;
+    private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+
+    private final SupplyChainCredentialValidator supplyChainCredentialValidator =
+            new SupplyChainCredentialValidator();
+
+    private ExecutorService executor;
+    private DeviceInfoReport deviceInfoReport;
+    private PlatformCredential base;
+    private PlatformCredential validDelta;
+    private List<ComponentIdentifier> faultyDeltaComponents;
+
+    /**
+     * Sets up the device info report and the credentials shared by the validations.
+     *
+     * @throws IOException if the PACCOR output can't be read
+     */
+    @BeforeClass(alwaysRun = true)
+    public void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(THREADS);
+
+        // stub-only mocks, so that the invocations of the validations are not recorded
+        deviceInfoReport = mock(DeviceInfoReport.class, withSettings().stubOnly());
+        URL url = SupplyChainCredentialValidator.class.getResource(SAMPLE_PACCOR_OUTPUT_TXT);
+        when(deviceInfoReport.getPaccorOutputString()).thenReturn(IOUtils.toString(url));
+
+        ComponentIdentifier cpu = new ComponentIdentifier(new DERUTF8String("Intel"),
+                new DERUTF8String("Core i7"), new DERUTF8String("Not Specified"),
+                new DERUTF8String("Intel(R) Core(TM) i7-4790 CPU @ 3.60GHz"), null,
+                ASN1Boolean.TRUE, new ArrayList<>(0));
+        ComponentIdentifier faultyNic1 = new ComponentIdentifier(
+                new DERUTF8String("Intel Corporation"),
+                new DERUTF8String("Ethernet Connection I217-V-faulty"),
+                new DERUTF8String("23:94:17:ba:86:5e"), new DERUTF8String("00"), null,
+                ASN1Boolean.FALSE, new ArrayList<>(0));
+        ComponentIdentifier faultyNic2 = new ComponentIdentifier(
+                new DERUTF8String("Intel Corporation"),
+                new DERUTF8String("82580 Gigabit Network Connection-faulty"),
+                new DERUTF8String("90:e2:ba:31:83:10"), new DERUTF8String(""), null,
+                ASN1Boolean.FALSE, new ArrayList<>(0));
+
+        base = mock(PlatformCredential.class, withSettings().stubOnly());
+        when(base.isBase()).thenReturn(true);
+        when(base.getPlatformSerial()).thenReturn("0");
+        when(base.getSerialNumber()).thenReturn(BigInteger.ZERO);
+        when(base.getComponentIdentifiers()).thenReturn(
+                Arrays.asList(cpu, faultyNic1, faultyNic2));
+
+        // replaces the faulty components of the base with the ones the device reports
+        validDelta = mockDelta(Arrays.asList(
+                deltaComponent(faultyNic1, AttributeStatus.REMOVED),
+                deltaComponent(new ComponentIdentifier(
+                        new DERUTF8String("Intel Corporation"),
+                        new DERUTF8String("Ethernet Connection I217-V"),
+                        faultyNic1.getComponentSerial(), faultyNic1.getComponentRevision(),
+                        null, ASN1Boolean.FALSE, new ArrayList<>(0)), AttributeStatus.ADDED),
+                deltaComponent(faultyNic2, AttributeStatus.REMOVED),
+                deltaComponent(new ComponentIdentifier(
+                        new DERUTF8String("Intel Corporation"),
+                        new DERUTF8String("82580 Gigabit Network Connection"),
+                        faultyNic2.getComponentSerial(), faultyNic2.getComponentRevision(),
+                        null, ASN1Boolean.FALSE, new ArrayList<>(0)), AttributeStatus.ADDED)));
+
+        // adds a component whose serial number the base already has
+        faultyDeltaComponents = Collections.singletonList(
+                deltaComponent(cpu, AttributeStatus.ADDED));
+    }
+
+    /**
+     * Shuts down the validation threads.
+     */
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests that parallel delta validations of valid and faulty chains each return their own
+     * result, without modifying the delta mapping they are given.
+     *
+     * @throws Exception if a validation fails unexpectedly
+     */
+    @Test
+    public void testConcurrentDeltaValidations() throws Exception {
+        runValidations(VALIDATIONS);
+    }
+
+    /**
+     * Tests that the heap stays flat over many parallel delta validations, as no validation
+     * leaves its failures behind in the validator.
+     *
+     * @throws Exception if a validation fails unexpectedly
+     */
+    @Test(groups = { "performance" })
+    public void testConcurrentDeltaValidationsHeapGrowth() throws Exception {
+        // warms up the validator, so that its lazily created state is not counted
+        runValidations(VALIDATIONS);
+        long heapBefore = usedHeapAfterGc();
+
+        runValidations(HEAP_VALIDATIONS);
+        long heapGrowth = usedHeapAfterGc() - heapBefore;
+
+        Assert.assertTrue(heapGrowth < MAX_HEAP_GROWTH,
+                "heap grew by " + heapGrowth + " bytes over " + HEAP_VALIDATIONS
+                        + " validations");
+    }
+
+    private void runValidations(final int count) throws Exception {
+        List<Callable<Void>> validations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                validations.add(new ValidChainValidation());
+            } else {
+                validations.add(new FaultyChainValidation());
+            }
+        }
+        for (Future<Void> future : executor.invokeAll(validations)) {
+            // rethrows assertion failures of the validation threads
+            future.get();
+        }
+    }
+
+    /**
+     * Validates the shared chain whose delta is valid.
+     */
+    private class ValidChainValidation implements Callable<Void> {
+        @Override
+        public Void call() {
+            Map<PlatformCredential, SupplyChainValidation> deltaMapping =
+                    passedDeltaMapping(validDelta);
+
+            DeltaValidationResult result = supplyChainCredentialValidator
+                    .validateDeltaPlatformCredentialAttributes(validDelta, deviceInfoReport,
+                            base, deltaMapping);
+            Assert.assertEquals(result.getAppStatus(), AppraisalStatus.Status.PASS,
+                    result.getMessage());
+            Assert.assertTrue(result.getDeltaFailures().isEmpty());
+            assertAllPassed(deltaMapping);
+            return null;
+        }
+    }
+
+    /**
+     * Validates a chain of its own whose delta adds a component the base already has.
+     */
+    private class FaultyChainValidation implements Callable<Void> {
+        @Override
+        public Void call() {
+            PlatformCredential faultyDelta = mockDelta(faultyDeltaComponents);
+            Map<PlatformCredential, SupplyChainValidation> deltaMapping =
+                    passedDeltaMapping(faultyDelta);
+
+            DeltaValidationResult result = supplyChainCredentialValidator
+                    .validateDeltaPlatformCredentialAttributes(faultyDelta, deviceInfoReport,
+                            base, deltaMapping);
+            Assert.assertEquals(result.getAppStatus(), AppraisalStatus.Status.FAIL);
+            Assert.assertEquals(result.getDeltaFailures().keySet(),
+                    Collections.singleton(faultyDelta));
+            SupplyChainValidation failure = result.getDeltaFailures().get(faultyDelta);
+            Assert.assertEquals(failure.getResult(), AppraisalStatus.Status.FAIL);
+            Assert.assertEquals(failure.getMessage(), String.format(
+                    "Not Specified was ADDED, the serial already exists.%n"));
+            assertAllPassed(deltaMapping);
+            return null;
+        }
+    }
+
+    private Map<PlatformCredential, SupplyChainValidation> passedDeltaMapping(
+            final PlatformCredential delta) {
+        Map<PlatformCredential, SupplyChainValidation> deltaMapping = new HashMap<>();
+        deltaMapping.put(base, passedValidation(base));
+        deltaMapping.put(delta, passedValidation(delta));
+        return deltaMapping;
+    }
+
+    private static void assertAllPassed(
+            final Map<PlatformCredential, SupplyChainValidation> deltaMapping) {
+        Assert.assertEquals(deltaMapping.size(), 2);
+        for (SupplyChainValidation validation : deltaMapping.values()) {
+            Assert.assertEquals(validation.getResult(), AppraisalStatus.Status.PASS);
+        }
+    }
+
+    private static SupplyChainValidation passedValidation(final PlatformCredential credential) {
+        List<ArchivableEntity> certsUsed = new ArrayList<>();
+        certsUsed.add(credential);
+        return new SupplyChainValidation(
+                SupplyChainValidation.ValidationType.PLATFORM_CREDENTIAL,
+                AppraisalStatus.Status.PASS, certsUsed, "");
+    }
+
+    private static PlatformCredential mockDelta(final List<ComponentIdentifier> components) {
+        PlatformCredential delta = mock(PlatformCredential.class, withSettings().stubOnly());
+        when(delta.isBase()).thenReturn(false);
+        when(delta.getPlatformSerial()).thenReturn("0");
+        when(delta.getSerialNumber()).thenReturn(BigInteger.ONE);
+        when(delta.getHolderSerialNumber()).thenReturn(BigInteger.ZERO);
+        when(delta.getComponentIdentifiers()).thenReturn(components);
+        return delta;
+    }
+
+    private static ComponentIdentifierV2 deltaComponent(final ComponentIdentifier component,
+                                                        final AttributeStatus status) {
+        return new ComponentIdentifierV2(new ComponentClass(),
+                component.getComponentManufacturer(), component.getComponentModel(),
+                component.getComponentSerial(), component.getComponentRevision(),
+                component.getComponentManufacturerId(), component.getFieldReplaceable(),
+                component.getComponentAddress(), null, null, status);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -7,7 +7,6 @@ import hirs.data.persist.info.ComponentInfo;
 import hirs.data.persist.DeviceInfoReport;
 import hirs.data.persist.info.FirmwareInfo;
 import hirs.data.persist.info.HardwareInfo;
-import hirs.data.persist.info.NICComponentInfo;
 import hirs.data.persist.info.NetworkInfo;
 import hirs.data.persist.info.OSInfo;
 import hirs.data.persist.SupplyChainValidation;
@@ -1410,59 +1409,6 @@ public class SupplyChainCredentialValidatorTest {
         return deviceInfoReport;
     }
 
-    /**
-     * Tests that isMatch works correctly in comparing component info to component identifier.
-     */
-    @Test
-    public static void testMatcher() {
-        NICComponentInfo nicComponentInfo = new NICComponentInfo("Intel Corporation",
-                "Ethernet Connection I217-V",
-                "23:94:17:ba:86:5e",
-                "00");
-
-        ComponentIdentifier pcComponentIdentifier = new ComponentIdentifier(
-                new DERUTF8String(nicComponentInfo.getComponentManufacturer()),
-                new DERUTF8String(nicComponentInfo.getComponentModel()),
-                new DERUTF8String(nicComponentInfo.getComponentSerial()),
-                new DERUTF8String(nicComponentInfo.getComponentRevision()),
-                null,
-                ASN1Boolean.TRUE,
-                Collections.emptyList()
-        );
-
-        Assert.assertTrue(
-                SupplyChainCredentialValidator.isMatch(pcComponentIdentifier, nicComponentInfo)
-        );
-
-        pcComponentIdentifier = new ComponentIdentifier(
-                new DERUTF8String(nicComponentInfo.getComponentManufacturer()),
-                new DERUTF8String(nicComponentInfo.getComponentModel()),
-                new DERUTF8String("ab:cd:ef:fe:dc:ba"),
-                new DERUTF8String(nicComponentInfo.getComponentRevision()),
-                null,
-                ASN1Boolean.TRUE,
-                Collections.emptyList()
-        );
-
-        Assert.assertFalse(
-                SupplyChainCredentialValidator.isMatch(pcComponentIdentifier, nicComponentInfo)
-        );
-
-        pcComponentIdentifier = new ComponentIdentifier(
-                new DERUTF8String(nicComponentInfo.getComponentManufacturer()),
-                new DERUTF8String(nicComponentInfo.getComponentModel()),
-                null,
-                new DERUTF8String(nicComponentInfo.getComponentRevision()),
-                null,
-                ASN1Boolean.TRUE,
-                Collections.emptyList()
-        );
-
-        Assert.assertTrue(
-                SupplyChainCredentialValidator.isMatch(pcComponentIdentifier, nicComponentInfo)
-        );
-    }
-
     private PlatformCredential setupMatchingPlatformCredential(
             final DeviceInfoReport deviceInfoReport) throws IOException {
         PlatformCredential platformCredential = mock(PlatformCredential.class);
@@ -2225,6 +2171,98 @@ public class SupplyChainCredentialValidatorTest {
                         + "Serial=90:e2:ba:31:83:10, Revision=\n");
     }
 
+    /**
+     * Tests that a delta chain keeps every component without a serial number, so that alike
+     * components can be removed and added one at a time, and that each of them must still be
+     * reported by the device.
+     * @throws java.io.IOException if the device info report can't be set up
+     */
+    @Test
+    public final void testValidateChainComponentsWithoutSerial() throws IOException {
+        PlatformCredential base = mock(PlatformCredential.class);
+        PlatformCredential delta = mock(PlatformCredential.class);
+
+        ComponentIdentifier dimm8 = new ComponentIdentifier(new DERUTF8String("ACME"),
+                new DERUTF8String("DIMM 8GB"), null, null, null,
+                ASN1Boolean.TRUE, new ArrayList<>(0));
+        ComponentIdentifier fan = new ComponentIdentifier(new DERUTF8String("ACME"),
+                new DERUTF8String("Fan"), null, new DERUTF8String("1"), null,
+                ASN1Boolean.TRUE, new ArrayList<>(0));
+        List<ComponentIdentifier> baseList = new ArrayList<>();
+        baseList.add(dimm8);
+        baseList.add(dimm8);
+        baseList.add(dimm8);
+        baseList.add(fan);
+
+        List<ComponentIdentifier> deltaList = new ArrayList<>();
+        deltaList.add(deltaComponent("DIMM 8GB", null, AttributeStatus.REMOVED));
+        deltaList.add(deltaComponent("DIMM 16GB", null, AttributeStatus.ADDED));
+        deltaList.add(deltaComponent("DIMM 16GB", null, AttributeStatus.ADDED));
+        deltaList.add(deltaComponent("Fan", "2", AttributeStatus.MODIFIED));
+
+        when(base.isBase()).thenReturn(true);
+        when(delta.isBase()).thenReturn(false);
+        when(base.getPlatformSerial()).thenReturn("0");
+        when(delta.getPlatformSerial()).thenReturn("0");
+        when(base.getSerialNumber()).thenReturn(BigInteger.ZERO);
+        when(delta.getSerialNumber()).thenReturn(BigInteger.ONE);
+        when(delta.getHolderSerialNumber()).thenReturn(BigInteger.ZERO);
+        when(base.getComponentIdentifiers()).thenReturn(baseList);
+        when(delta.getComponentIdentifiers()).thenReturn(deltaList);
+
+        Map<PlatformCredential, SupplyChainValidation> chainCredentials = new HashMap<>(0);
+        chainCredentials.put(base, new SupplyChainValidation(
+                SupplyChainValidation.ValidationType.PLATFORM_CREDENTIAL,
+                AppraisalStatus.Status.PASS, Collections.singletonList(base), ""));
+        chainCredentials.put(delta, new SupplyChainValidation(
+                SupplyChainValidation.ValidationType.PLATFORM_CREDENTIAL,
+                AppraisalStatus.Status.PASS, Collections.singletonList(delta), ""));
+
+        String dimm8Json = "{\"MANUFACTURER\": \"ACME\", \"MODEL\": \"DIMM 8GB\"},";
+        String dimm16Json = "{\"MANUFACTURER\": \"ACME\", \"MODEL\": \"DIMM 16GB\"},";
+        String fanJson = "{\"MANUFACTURER\": \"ACME\", \"MODEL\": \"Fan\", \"REVISION\": \"2\"}";
+        DeviceInfoReport deviceInfoReport = setupDeviceInfoReport();
+        when(deviceInfoReport.getPaccorOutputString()).thenReturn("{\"COMPONENTS\": ["
+                + dimm8Json + dimm8Json + dimm16Json + dimm16Json + fanJson + "]}");
+
+        DeltaValidationResult result = supplyChainCredentialValidator
+                .validateDeltaPlatformCredentialAttributes(delta,
+                        deviceInfoReport, base, chainCredentials);
+        Assert.assertEquals(result.getAppStatus(), AppraisalStatus.Status.PASS,
+                result.getMessage());
+
+        // the device is missing one of the remaining DIMMs of the base
+        deviceInfoReport = setupDeviceInfoReport();
+        when(deviceInfoReport.getPaccorOutputString()).thenReturn("{\"COMPONENTS\": ["
+                + dimm8Json + dimm16Json + dimm16Json + fanJson + "]}");
+        result = supplyChainCredentialValidator.validateDeltaPlatformCredentialAttributes(
+                delta, deviceInfoReport, base, chainCredentials);
+        Assert.assertEquals(result.getAppStatus(), AppraisalStatus.Status.FAIL);
+        Assert.assertEquals(result.getMessage(), String.format("There are unmatched components:\n"
+                + "Manufacturer=ACME, Model=DIMM 8GB, Serial=, Revision=;%n"));
+
+        // a removed component without a serial number must be in the chain
+        deltaList.add(deltaComponent("Fan", "1", AttributeStatus.REMOVED));
+        result = supplyChainCredentialValidator.validateDeltaPlatformCredentialAttributes(
+                delta, deviceInfoReport, base, chainCredentials);
+        Assert.assertEquals(result.getAppStatus(), AppraisalStatus.Status.FAIL);
+        Assert.assertEquals(result.getDeltaFailures().keySet(), Collections.singleton(delta));
+        Assert.assertEquals(result.getDeltaFailures().get(delta).getMessage(), String.format(
+                "Manufacturer=ACME, Model=Fan, Serial=, Revision=1"
+                        + " attempted REMOVED with no prior instance.%n"));
+    }
+
+    private static ComponentIdentifierV2 deltaComponent(final String model, final String revision,
+                                                        final AttributeStatus status) {
+        DERUTF8String componentRevision = null;
+        if (revision != null) {
+            componentRevision = new DERUTF8String(revision);
+        }
+        return new ComponentIdentifierV2(new ComponentClass(), new DERUTF8String("ACME"),
+                new DERUTF8String(model), null, componentRevision, null,
+                ASN1Boolean.TRUE, new ArrayList<>(0), null, null, status);
+    }
+
     /**
      * Creates a new RSA 1024-bit KeyPair using a Bouncy Castle Provider.
      *
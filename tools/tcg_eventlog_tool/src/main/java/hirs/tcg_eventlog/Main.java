@@ -10,10 +10,10 @@ import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 
 import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogDiff;
 import hirs.tpm.eventlog.TpmPcrEvent;
 import hirs.utils.HexUtils;
 
@@ -286,50 +286,18 @@ final class Main {
 
     /**
      * Compare this event log against a second event log.
-     * Returns a String Array of event descriptions in which the digests from the first
-     * did no match the second. Return value is null if all events matched.
+     * Returns the events of the second log that were added, changed or reordered
+     * relative to the first. The list is empty if all events matched.
      *
      * @param eventList  initial events.
      * @param eventList2 events to compare against.
      * @param pcr        used as a filter. Use -1 to check all pcrs.
-     * @return array list of strings. Null of no events mismatched.
+     * @return array list of mismatched events. Empty if no events mismatched.
      */
     public static ArrayList<TpmPcrEvent> diffEventLogs(final Collection<TpmPcrEvent> eventList,
                                                        final Collection<TpmPcrEvent> eventList2,
                                                        final int pcr) {
-        ArrayList<TpmPcrEvent> results = new ArrayList<TpmPcrEvent>();
-        for (TpmPcrEvent event2 : eventList2) {
-            if (pcr >= 0) {
-                if (event2.getPcrIndex() == pcr) {
-                    if (!digestMatch(eventList, event2)) {
-                        results.add(event2);
-                    }
-                }
-            } else {
-                if (!digestMatch(eventList, event2)) {
-                    results.add(event2);
-                }
-            }
-        }
-        return results;
-    }
-
-    /**
-     * Checks a digest from a single event against all digests with the same index in an Event Log.
-     *
-     * @param eventLog The Reference Event log.
-     * @param event    single event to match.
-     * @return
-     */
-    private static boolean digestMatch(final Collection<TpmPcrEvent> eventLog,
-                                       final TpmPcrEvent event) {
-        boolean matchFound = false;
-        for (TpmPcrEvent event2 : eventLog) {
-            if ((event.getPcrIndex() == event2.getPcrIndex())
-                    && (Arrays.equals(event.getEventDigest(), event2.getEventDigest()))) {
-                matchFound = true;
-            }
-        }
-        return matchFound;
+        return new ArrayList<>(new TCGEventLogDiff(eventList, eventList2, pcr)
+                .getMismatchedEvents());
     }
 }